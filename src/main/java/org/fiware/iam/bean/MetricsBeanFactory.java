@@ -0,0 +1,23 @@
+package org.fiware.iam.bean;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Singleton;
+
+@Factory
+public class MetricsBeanFactory {
+
+    /**
+     * Registry to be used in case metrics are disabled. The collected metrics are not exported, but the instrumented
+     * beans can use the registry independent of the configuration.
+     */
+    @Bean
+    @Singleton
+    @Requires(property = "micronaut.metrics.enabled", value = "false")
+    public MeterRegistry disabledMeterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+}
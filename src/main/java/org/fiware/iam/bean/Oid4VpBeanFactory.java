@@ -16,18 +16,22 @@ import io.github.wistefan.oid4vp.SigningService;
 import io.github.wistefan.oid4vp.client.X509SanDnsClientResolver;
 import io.github.wistefan.oid4vp.config.HolderConfiguration;
 import io.github.wistefan.oid4vp.credentials.CredentialsRepository;
-import io.github.wistefan.oid4vp.credentials.FileSystemCredentialsRepository;
 import io.github.wistefan.oid4vp.mapping.CredentialFormatDeserializer;
 import io.github.wistefan.oid4vp.mapping.TrustedAuthorityTypeDeserializer;
 import io.micronaut.context.annotation.Bean;
 import io.micronaut.context.annotation.Factory;
 import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 
 import lombok.extern.slf4j.Slf4j;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.fiware.iam.cert.CertReader;
 import org.fiware.iam.configuration.Oid4VpConfiguration;
+import org.fiware.iam.http.Oid4VpAuthHandler;
+import org.fiware.iam.oid4vp.CertificateVerificationCache;
+import org.fiware.iam.oid4vp.InMemoryCredentialsRepository;
+import org.fiware.iam.oid4vp.VerifyingClientResolver;
 
 import java.net.InetSocketAddress;
 import java.net.ProxySelector;
@@ -37,6 +41,7 @@ import java.security.Security;
 import java.security.cert.TrustAnchor;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 @Factory
@@ -51,8 +56,9 @@ public class Oid4VpBeanFactory {
 
     @Requires(bean = Oid4VpConfiguration.class)
     @Singleton
-    public HttpClient httpClient(Oid4VpConfiguration.ProxyConfig proxyConfig) {
+    public HttpClient httpClient(Oid4VpConfiguration.ProxyConfig proxyConfig, @Named(Oid4VpAuthHandler.OID4VP_EXECUTOR) ExecutorService executorService) {
         HttpClient.Builder httpClientBuilder = HttpClient.newBuilder();
+        httpClientBuilder.executor(executorService);
         httpClientBuilder.followRedirects(HttpClient.Redirect.NORMAL);
         if (proxyConfig.useProxy()) {
             ProxySelector proxySelector = ProxySelector.of(new InetSocketAddress(proxyConfig.proxyHost(), proxyConfig.proxyPort()));
@@ -62,14 +68,16 @@ public class Oid4VpBeanFactory {
     }
 
     @Requires(bean = Oid4VpConfiguration.class)
-    @Bean
-    public CredentialsRepository credentialsRepository(Oid4VpConfiguration oid4VpConfiguration, ObjectMapper objectMapper) {
-        return new FileSystemCredentialsRepository(oid4VpConfiguration.getCredentialsFolder(), objectMapper);
+    @Bean(preDestroy = "close")
+    @Singleton
+    public InMemoryCredentialsRepository credentialsRepository(Oid4VpConfiguration oid4VpConfiguration, ObjectMapper objectMapper) {
+        return new InMemoryCredentialsRepository(oid4VpConfiguration.getCredentialsFolder(), objectMapper);
     }
 
     @Requires(bean = Oid4VpConfiguration.class)
     @Bean
-    public OID4VPClient oid4VPClient(HttpClient httpClient, ObjectMapper objectMapper, Oid4VpConfiguration oid4VpConfiguration, CredentialsRepository credentialsRepository) {
+    public OID4VPClient oid4VPClient(HttpClient httpClient, ObjectMapper objectMapper, Oid4VpConfiguration oid4VpConfiguration, CredentialsRepository credentialsRepository,
+                                     CertificateVerificationCache certificateVerificationCache) {
         Security.addProvider(new BouncyCastleProvider());
 
         ObjectMapper authObjectMapper = objectMapper.copy();
@@ -104,7 +112,8 @@ public class Oid4VpBeanFactory {
             }
         }
 
-        X509SanDnsClientResolver clientResolver = new X509SanDnsClientResolver(trustAnchors, oid4VpConfiguration.isEnableRevocation());
+        // the verifier certificates and their revocation status are validated through the cache, instead of by the resolver itself
+        X509SanDnsClientResolver clientResolver = new X509SanDnsClientResolver(trustAnchors, false);
 
         DCQLEvaluator dcqlEvaluator = new DCQLEvaluator(List.of(
                 new JwtCredentialEvaluator(),
@@ -115,7 +124,7 @@ public class Oid4VpBeanFactory {
                 httpClient,
                 holderConfiguration,
                 authObjectMapper,
-                List.of(clientResolver),
+                List.of(VerifyingClientResolver.wrap(clientResolver, trustAnchors, certificateVerificationCache, oid4VpConfiguration.isEnableRevocation())),
                 dcqlEvaluator,
                 credentialsRepository,
                 signingService);
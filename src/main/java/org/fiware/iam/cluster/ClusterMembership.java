@@ -0,0 +1,111 @@
+package org.fiware.iam.cluster;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.scheduling.annotation.Scheduled;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.ClusterProperties;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Keeps track of all replicas of the cluster, either from the static peer list or by resolving the configured DNS name.
+ */
+@Requires(condition = ClusterProperties.ClusterCondition.class)
+@Slf4j
+@Singleton
+public class ClusterMembership {
+
+    private static final String ADDRESS_TEMPLATE = "%s://%s:%s";
+
+    private final ClusterProperties clusterProperties;
+    private final String self;
+
+    private volatile ConsistentHashRing hashRing;
+
+    public ClusterMembership(ClusterProperties clusterProperties) {
+        this.clusterProperties = clusterProperties;
+        this.self = Optional.ofNullable(clusterProperties.getSelf())
+                .map(ClusterMembership::normalize)
+                .orElseGet(this::getLocalAddress);
+        this.hashRing = new ConsistentHashRing(resolveMembers(), clusterProperties.getVirtualNodes());
+        log.info("Started in cluster mode as {} with members {}.", self, hashRing.getMembers());
+    }
+
+    @Scheduled(fixedDelay = "${cluster.refresh-interval:30s}", initialDelay = "${cluster.refresh-interval:30s}")
+    public void refresh() {
+        Set<String> members = resolveMembers();
+        if (!members.equals(hashRing.getMembers())) {
+            log.info("Cluster membership changed from {} to {}.", hashRing.getMembers(), members);
+            hashRing = new ConsistentHashRing(members, clusterProperties.getVirtualNodes());
+        }
+    }
+
+    /**
+     * Address of the current replica
+     */
+    public String getSelf() {
+        return self;
+    }
+
+    public Set<String> getMembers() {
+        return hashRing.getMembers();
+    }
+
+    /**
+     * Returns the address of the replica owning the given entity.
+     */
+    public String getOwner(String entityId) {
+        return hashRing.getOwner(entityId);
+    }
+
+    public boolean isOwner(String entityId) {
+        return self.equals(getOwner(entityId));
+    }
+
+    private Set<String> resolveMembers() {
+        Set<String> members = new HashSet<>();
+        members.add(self);
+        if (clusterProperties.getDnsName() != null) {
+            try {
+                Arrays.stream(InetAddress.getAllByName(clusterProperties.getDnsName()))
+                        .map(InetAddress::getHostAddress)
+                        .map(this::toAddress)
+                        .forEach(members::add);
+            } catch (UnknownHostException e) {
+                log.warn("Was not able to resolve cluster members from {}, keep the current membership.", clusterProperties.getDnsName(), e);
+                return Optional.ofNullable(hashRing).map(ConsistentHashRing::getMembers).orElse(members);
+            }
+        } else {
+            clusterProperties.getPeers()
+                    .stream()
+                    .map(ClusterMembership::normalize)
+                    .forEach(members::add);
+        }
+        return members;
+    }
+
+    private String getLocalAddress() {
+        try {
+            return toAddress(InetAddress.getLocalHost().getHostAddress());
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Was not able to determine the local address, cluster.self needs to be configured.", e);
+        }
+    }
+
+    private String toAddress(String host) {
+        return ADDRESS_TEMPLATE.formatted(clusterProperties.getScheme(), host, clusterProperties.getPort());
+    }
+
+    private static String normalize(String address) {
+        if (address.endsWith("/")) {
+            return address.substring(0, address.length() - 1);
+        }
+        return address;
+    }
+}
@@ -0,0 +1,60 @@
+package org.fiware.iam.cluster;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent hash ring, assigning keys to the members of the cluster. Every member is placed multiple times
+ * on the ring (virtual nodes), to get an even distribution with only a small number of members.
+ */
+public class ConsistentHashRing {
+
+    private static final String VIRTUAL_NODE_TEMPLATE = "%s#%s";
+
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final Set<String> members;
+
+    public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("The hash ring requires at least one member.");
+        }
+        this.members = Set.copyOf(new TreeSet<>(members));
+        this.members.forEach(member -> {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(VIRTUAL_NODE_TEMPLATE.formatted(member, i)), member);
+            }
+        });
+    }
+
+    /**
+     * Returns the member owning the given key.
+     */
+    public String getOwner(String key) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        if (entry == null) {
+            entry = ring.firstEntry();
+        }
+        return entry.getValue();
+    }
+
+    public Set<String> getMembers() {
+        return members;
+    }
+
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not supported by the runtime.", e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.fiware.iam.cluster;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import jakarta.inject.Singleton;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.ClusterProperties;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.tmforum.notification.EventKeys;
+import org.fiware.iam.tmforum.notification.NotificationListener;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Forwards events to the replica owning the contained entity.
+ */
+@Requires(condition = ClusterProperties.ClusterCondition.class)
+@Slf4j
+@Singleton
+@RequiredArgsConstructor
+public class EventForwarder {
+
+    /**
+     * Header marking forwarded events. They are always handled by the receiving replica, to prevent forwarding loops
+     * while the membership is changing.
+     */
+    public static final String FORWARDED_HEADER = "X-Forwarded-By-Replica";
+
+    private static final String LISTENER_PATH = "/listener/event";
+
+    private final ClusterMembership clusterMembership;
+    private final GeneralProperties generalProperties;
+    private final HttpClient httpClient;
+
+    /**
+     * Returns the address of the owning replica, if the event is not owned by the current one.
+     */
+    public Optional<String> getRemoteOwner(Map<String, Object> event) {
+        return EventKeys.entityId(event)
+                .filter(entityId -> !clusterMembership.isOwner(entityId))
+                .map(clusterMembership::getOwner);
+    }
+
+    /**
+     * Forward the event to the given replica and return its response. Fails if the replica cannot be reached.
+     */
+    public Mono<HttpResponse<?>> forward(String owner, Map<String, Object> event) {
+        HttpRequest<?> request = HttpRequest.POST(owner + removeTrailingSlash(generalProperties.getBasePath()) + LISTENER_PATH, event)
+                .header(FORWARDED_HEADER, clusterMembership.getSelf());
+        log.debug("Forward event {} to {}.", event.get(NotificationListener.EVENT_TYPE_KEY), owner);
+        return Mono.from(httpClient.exchange(request))
+                .<HttpResponse<?>>map(response -> HttpResponse.status(response.getStatus()))
+                .onErrorResume(HttpClientResponseException.class, e -> Mono.just(HttpResponse.status(e.getStatus())));
+    }
+
+    private static String removeTrailingSlash(String path) {
+        if (path.endsWith("/")) {
+            return path.substring(0, path.length() - 1);
+        }
+        return path;
+    }
+}
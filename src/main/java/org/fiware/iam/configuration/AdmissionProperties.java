@@ -0,0 +1,55 @@
+package org.fiware.iam.configuration;
+
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties("admission")
+public class AdmissionProperties {
+
+    /**
+     * If enabled, the listener rejects events with 503, once the limit of concurrently handled events is reached. The
+     * limit adapts to the observed latency (additive increase, multiplicative decrease).
+     */
+    private boolean enabled = false;
+
+    /**
+     * Value of the Retry-After header for rejected events.
+     */
+    private Duration retryAfter = Duration.ofSeconds(5);
+
+    /**
+     * Initial limit of concurrently handled events per event type.
+     */
+    private int initialLimit = 20;
+
+    /**
+     * The limit will never be decreased below this value.
+     */
+    private int minLimit = 1;
+
+    /**
+     * The limit will never be increased above this value.
+     */
+    private int maxLimit = 200;
+
+    /**
+     * Events handled slower than this are considered a sign of overload and decrease the limit.
+     */
+    private Duration targetLatency = Duration.ofSeconds(2);
+
+    /**
+     * Factor to decrease the limit with in case of overload.
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * Limits deviating from the defaults for individual event types.
+     */
+    private List<EventTypeLimit> eventTypeLimits = new ArrayList<>();
+}
@@ -0,0 +1,67 @@
+package org.fiware.iam.configuration;
+
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.condition.Condition;
+import io.micronaut.context.condition.ConditionContext;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties("cluster")
+public class ClusterProperties {
+
+    /**
+     * If enabled, ownership of entities is distributed between all replicas and events are forwarded to their owner.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Address this replica is reachable at for its peers, f.e. http://10.0.0.1:8080. If not set, the local host address
+     * is used in combination with the configured scheme and port.
+     */
+    private String self;
+
+    /**
+     * Static list of all replica addresses, including this one.
+     */
+    private List<String> peers = new ArrayList<>();
+
+    /**
+     * DNS name resolving to the addresses of all replicas, f.e. a headless kubernetes service. Takes precedence over
+     * the static peers list.
+     */
+    private String dnsName;
+
+    /**
+     * Scheme to be used for addresses resolved through DNS.
+     */
+    private String scheme = "http";
+
+    /**
+     * Port to be used for addresses resolved through DNS.
+     */
+    private int port = 8080;
+
+    /**
+     * Number of virtual nodes per replica on the hash ring.
+     */
+    private int virtualNodes = 128;
+
+    /**
+     * Interval to refresh the replica list in.
+     */
+    private Duration refreshInterval = Duration.ofSeconds(30);
+
+    public static class ClusterCondition implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context) {
+            return context.getBean(ClusterProperties.class)
+                    .isEnabled();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.fiware.iam.configuration;
+
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties("coalescing")
+public class CoalescingProperties {
+
+    /**
+     * If enabled, change events for the same entity arriving within the window are coalesced and only the newest state
+     * is handled.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Window, starting with the first event for an entity, in which following events are coalesced.
+     */
+    private Duration window = Duration.ofSeconds(1);
+
+    /**
+     * Event types to be coalesced.
+     */
+    private List<String> eventTypes = new ArrayList<>(List.of("QuoteStateChangeEvent", "QuoteAttributeValueChangeEvent", "ProductOfferingStateChangeEvent"));
+
+    /**
+     * States to be handled without any delay. Changes of the state are always handled, independent of this list.
+     */
+    private List<String> immediateStates = new ArrayList<>(List.of("accepted", "rejected", "cancelled"));
+}
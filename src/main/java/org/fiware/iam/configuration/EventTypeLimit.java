@@ -0,0 +1,17 @@
+package org.fiware.iam.configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+public class EventTypeLimit {
+
+	/**
+	 * Event type to apply the limits for, f.e. ProductOrderStateChangeEvent
+	 */
+	private String eventType;
+	private Integer initialLimit;
+	private Integer maxLimit;
+	private Duration targetLatency;
+}
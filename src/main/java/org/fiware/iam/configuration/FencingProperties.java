@@ -0,0 +1,28 @@
+package org.fiware.iam.configuration;
+
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties("fencing")
+public class FencingProperties {
+
+    /**
+     * If enabled, events older than the last applied event for the same entity are dropped.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Entity types to fence, as named in the event payload.
+     */
+    private List<String> entityTypes = new ArrayList<>(List.of("productOrder", "quote", "productOffering"));
+
+    /**
+     * Maximum number of entities to keep the high-water mark for. The least recently used ones are evicted first.
+     */
+    private int maxEntities = 100_000;
+}
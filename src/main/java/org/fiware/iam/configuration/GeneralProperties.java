@@ -6,6 +6,8 @@ import io.micronaut.context.condition.Condition;
 import io.micronaut.context.condition.ConditionContext;
 import lombok.Data;
 
+import java.time.Duration;
+
 @Data
 @ConfigurationProperties("general")
 public class GeneralProperties {
@@ -41,6 +43,21 @@ public class GeneralProperties {
      * Enable integration with a central marketplace. Requires OdrlPap and TrustedIssuersList integration to be enabled.
      */
     private boolean enableCentralMarketplace = true;
+    /**
+     * Time to cache negotiation processes retrieved from Rainbow, to serve the repeated lookups while handling an event.
+     * 0 disables the cache.
+     */
+    private Duration negotiationCacheTtl = Duration.ofSeconds(10);
+    /**
+     * Time to cache the ODRL constraints compiled from ProductOfferingPrices. Changed prices are invalidated through
+     * their events, the ttl only limits the staleness in case an event was missed. 0 disables the cache.
+     */
+    private Duration priceCacheTtl = Duration.ofMinutes(10);
+    /**
+     * Maximum number of concurrent requests per product order, f.e. to retrieve the ordered offerings or to create
+     * their agreements.
+     */
+    private int orderItemConcurrency = 16;
 
     public static class CentralMarketplaceCondition implements Condition {
 
@@ -27,8 +27,27 @@ public class NotificationProperties {
 
     private long subscriptionInitialDelay = 5;
 
+    /**
+     * Initial interval(in s) to retry failed subscriptions in. Doubles with every failed attempt.
+     */
     private long subscriptionRetryInterval = 10;
 
+    /**
+     * Maximum interval(in s) between two attempts to create a subscription.
+     */
+    private long subscriptionMaxRetryInterval = 300;
+
+    /**
+     * Interval(in s) to verify that all subscriptions still exist at the hubs. Missing subscriptions are re-created.
+     * Hubs that do not support looking up subscriptions are not verified. 0 disables the verification.
+     */
+    private long subscriptionVerificationInterval = 300;
+
+    /**
+     * Maximum number of events of a batch, that are handled in parallel.
+     */
+    private int batchConcurrency = 16;
+
 
     public static class NotificationCondition implements Condition {
 
@@ -0,0 +1,28 @@
+package org.fiware.iam.configuration;
+
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("offeringView")
+public class OfferingViewProperties {
+
+    /**
+     * If enabled, the specifications of all offerings seen are kept locally and updated through the offering and
+     * specification events, instead of retrieving them from TMForum for every order.
+     */
+    private boolean enabled = true;
+
+    /**
+     * File to snapshot the view to, so that it's available right after a restart. Kept in memory only if not set.
+     */
+    private String snapshotFile;
+
+    /**
+     * Interval between two snapshots. Only changed views are written.
+     */
+    private Duration snapshotInterval = Duration.ofSeconds(60);
+}
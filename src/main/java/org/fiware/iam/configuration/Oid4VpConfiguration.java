@@ -9,6 +9,7 @@ import io.micronaut.core.annotation.Nullable;
 import lombok.Data;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
 
@@ -22,6 +23,10 @@ public class Oid4VpConfiguration {
     private ProxyConfig proxyConfig;
     private String credentialsFolder;
     private boolean enableRevocation = false;
+    // maximum time a certificate chain validation is reused
+    private Duration verificationMaxAge = Duration.ofHours(1);
+    // maximum time the revocation status of a validated certificate chain is reused
+    private Duration revocationMaxAge = Duration.ofMinutes(5);
     // list of trust-anchors to be used in addition to the system truststore.
     private List<String> trustAnchors;
 
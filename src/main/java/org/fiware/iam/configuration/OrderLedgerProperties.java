@@ -0,0 +1,30 @@
+package org.fiware.iam.configuration;
+
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("orderLedger")
+public class OrderLedgerProperties {
+
+    /**
+     * If enabled, the policies, credentials and agreements applied for an order are recorded and changes of the order
+     * only apply the difference, instead of removing and recreating everything.
+     */
+    private boolean enabled = false;
+
+    /**
+     * File to snapshot the ledger to, so that changes of orders completed before a restart are applied as difference,
+     * too, and stopped orders remove exactly what they created. Written with every change. Has to be an absolute path,
+     * kept in memory only if not set.
+     */
+    private String snapshotFile;
+
+    /**
+     * Interval to retry snapshots that could not be written.
+     */
+    private Duration snapshotInterval = Duration.ofSeconds(60);
+}
@@ -0,0 +1,67 @@
+package org.fiware.iam.configuration;
+
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.condition.Condition;
+import io.micronaut.context.condition.ConditionContext;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties("poller")
+public class PollerProperties {
+
+    /**
+     * If enabled, the contract management periodically polls the TMForum list APIs for changes. Can be used in
+     * addition to the notifications, to catch up on missed events, or as the primary source of events.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Delay before the first poll.
+     */
+    private Duration initialDelay = Duration.ofSeconds(10);
+
+    /**
+     * Interval between two polls.
+     */
+    private Duration interval = Duration.ofSeconds(60);
+
+    /**
+     * Number of entities to be requested per page.
+     */
+    private int pageSize = 100;
+
+    /**
+     * How far to look back, if no high-water mark is known for an entity type.
+     */
+    private Duration initialLookback = Duration.ofHours(24);
+
+    /**
+     * Safety margin subtracted from the high-water mark, to account for clock skew between the TMForum instances.
+     */
+    private Duration overlap = Duration.ofSeconds(30);
+
+    /**
+     * File to persist the high-water marks in, so that polling can continue after a restart. Kept in memory only if
+     * not set.
+     */
+    private String stateFile;
+
+    /**
+     * Entity types to poll for. Supported are Catalog, ProductOffering, Quote and ProductOrder.
+     */
+    private List<String> entityTypes = new ArrayList<>(List.of("Catalog", "ProductOffering", "Quote", "ProductOrder"));
+
+    public static class PollerCondition implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context) {
+            return context.getBean(PollerProperties.class)
+                    .isEnabled();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.fiware.iam.configuration;
+
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties("scheduler")
+public class SchedulerProperties {
+
+    /**
+     * If enabled, events are scheduled fair between the customer organizations, with revocations being handled first.
+     * Otherwise, they are handled in order of arrival.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of events to be handled concurrently.
+     */
+    private int maxConcurrency = 32;
+
+    /**
+     * Weight of tenants, that should get a bigger share than the default of 1.
+     */
+    private List<TenantWeight> tenantWeights = new ArrayList<>();
+
+    /**
+     * Tenants without any event for longer than that are removed, together with their metrics.
+     */
+    private Duration tenantIdleTimeout = Duration.ofMinutes(5);
+}
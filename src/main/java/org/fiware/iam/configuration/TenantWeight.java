@@ -0,0 +1,13 @@
+package org.fiware.iam.configuration;
+
+import lombok.Data;
+
+@Data
+public class TenantWeight {
+
+	/**
+	 * Id of the customer organization
+	 */
+	private String tenant;
+	private int weight = 1;
+}
@@ -0,0 +1,62 @@
+package org.fiware.iam.configuration;
+
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.condition.Condition;
+import io.micronaut.context.condition.ConditionContext;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties("trafficRecording")
+public class TrafficRecordingProperties {
+
+    /**
+     * If enabled, the bodies of all incoming events and order requests are recorded, to be replayed for performance
+     * tests.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Gzip compressed, newline delimited json file to append the recorded requests to.
+     */
+    private String file = "traffic.ndjson.gz";
+
+    /**
+     * Number of requests to record at most, following requests are not recorded.
+     */
+    private long maxRecords = 1_000_000;
+
+    /**
+     * Number of requests to buffer for writing at most, requests exceeding the buffer are dropped.
+     */
+    private int bufferSize = 10_000;
+
+    /**
+     * If enabled, DIDs and ids are replaced by pseudonyms. The same value always gets the same pseudonym within a
+     * recording, thus the relations between the entities are kept.
+     */
+    private boolean anonymize = true;
+
+    /**
+     * Secret to derive the pseudonyms from. If not set, a random one is used on every start.
+     */
+    private String anonymizationSalt;
+
+    /**
+     * Keys whose values are treated as ids. Only the last segment of such values is replaced, prefixes like the entity
+     * type of an urn or the base of an href are kept. DIDs are replaced wherever they occur.
+     */
+    private List<String> idKeys = new ArrayList<>(List.of("id", "@id", "href", "orderId"));
+
+    public static class TrafficRecordingCondition implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context) {
+            return context.getBean(TrafficRecordingProperties.class)
+                    .isEnabled();
+        }
+    }
+}
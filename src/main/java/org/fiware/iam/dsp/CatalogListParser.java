@@ -0,0 +1,133 @@
+package org.fiware.iam.dsp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Incremental parser for the catalog list returned by Rainbow. Chunks of the response are fed as they arrive and
+ * completely parsed catalogs are returned as {@link CatalogSummary}. Besides the ids, only the fields written by the
+ * Contract Management are read, to calculate the content hashes. All other content is skipped, without being
+ * materialized. Not thread-safe, one instance per response has to be used.
+ */
+class CatalogListParser {
+
+    private static final String ID_KEY = "@id";
+    private static final String SERVICE_KEY = "dcat:service";
+
+    // depth of the elements: 1 - catalog list, 2 - catalog, 3 - service list, 4 - service
+    private static final int CATALOG_DEPTH = 2;
+    private static final int SERVICE_LIST_DEPTH = 3;
+    private static final int SERVICE_DEPTH = 4;
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private int depth = 0;
+    private boolean inServiceList = false;
+    private String catalogField;
+    private String serviceField;
+    private String catalogId;
+    private List<String> dataserviceIds;
+    private Map<String, String> dataserviceHashes;
+    private Map<String, String> catalogContent;
+    private Map<String, String> serviceContent;
+
+    CatalogListParser(JsonFactory jsonFactory) throws IOException {
+        this.parser = jsonFactory.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Feed the next chunk of the response.
+     *
+     * @return the catalogs completed by the chunk
+     */
+    List<CatalogSummary> feed(byte[] chunk) throws IOException {
+        feeder.feedInput(chunk, 0, chunk.length);
+        return parseAvailable();
+    }
+
+    /**
+     * Signal the end of the response.
+     *
+     * @return the catalogs completed by the remaining input
+     */
+    List<CatalogSummary> finish() throws IOException {
+        feeder.endOfInput();
+        List<CatalogSummary> catalogs = parseAvailable();
+        parser.close();
+        return catalogs;
+    }
+
+    private List<CatalogSummary> parseAvailable() throws IOException {
+        List<CatalogSummary> completedCatalogs = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            switch (token) {
+                case START_OBJECT, START_ARRAY -> {
+                    depth++;
+                    if (depth == CATALOG_DEPTH && token == JsonToken.START_OBJECT) {
+                        catalogId = null;
+                        dataserviceIds = new ArrayList<>();
+                        dataserviceHashes = new LinkedHashMap<>();
+                        catalogContent = new HashMap<>();
+                    } else if (depth == SERVICE_DEPTH && inServiceList && token == JsonToken.START_OBJECT) {
+                        serviceContent = new HashMap<>();
+                    } else if (depth == SERVICE_LIST_DEPTH && token == JsonToken.START_ARRAY) {
+                        inServiceList = SERVICE_KEY.equals(catalogField);
+                    }
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    if (depth == CATALOG_DEPTH && token == JsonToken.END_OBJECT) {
+                        completedCatalogs.add(new CatalogSummary(catalogId, List.copyOf(dataserviceIds),
+                                ContentHash.of(catalogContent, ContentHash.CATALOG_FIELDS), Map.copyOf(dataserviceHashes)));
+                    } else if (depth == SERVICE_DEPTH && inServiceList && token == JsonToken.END_OBJECT) {
+                        Optional.ofNullable(serviceContent.get(ID_KEY))
+                                .ifPresent(serviceId -> dataserviceHashes.put(serviceId, ContentHash.of(serviceContent, ContentHash.DATASERVICE_FIELDS)));
+                    } else if (depth == SERVICE_LIST_DEPTH) {
+                        inServiceList = false;
+                    }
+                    depth--;
+                }
+                case FIELD_NAME -> {
+                    if (depth == CATALOG_DEPTH) {
+                        catalogField = parser.currentName();
+                    } else if (depth == SERVICE_DEPTH) {
+                        serviceField = parser.currentName();
+                    }
+                }
+                case VALUE_STRING -> {
+                    if (depth == CATALOG_DEPTH) {
+                        if (ID_KEY.equals(catalogField)) {
+                            catalogId = parser.getText();
+                        }
+                        if (ContentHash.CATALOG_FIELDS.contains(catalogField)) {
+                            catalogContent.put(catalogField, parser.getText());
+                        }
+                    } else if (depth == SERVICE_DEPTH && inServiceList) {
+                        if (ID_KEY.equals(serviceField)) {
+                            dataserviceIds.add(parser.getText());
+                        }
+                        if (ContentHash.DATASERVICE_FIELDS.contains(serviceField)) {
+                            serviceContent.put(serviceField, parser.getText());
+                        }
+                    }
+                }
+                default -> {
+                    // all other values are not of interest
+                }
+            }
+        }
+        return completedCatalogs;
+    }
+}
@@ -0,0 +1,11 @@
+package org.fiware.iam.dsp;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reduced view on a Rainbow catalog, only containing the ids of the catalog and its dataservices and the
+ * {@link ContentHash content hashes} of both.
+ */
+public record CatalogSummary(String id, List<String> dataserviceIds, String contentHash, Map<String, String> dataserviceHashes) {
+}
@@ -0,0 +1,60 @@
+package org.fiware.iam.dsp;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Canonical hash of the content written to Rainbow. Only the fields of the write models are included, in a stable
+ * order, thus the hash of a {@link org.fiware.rainbow.model.NewCatalogVO} equals the hash of the catalog as returned by
+ * Rainbow, as long as the written fields did not change.
+ */
+final class ContentHash {
+
+    // fields of the NewCatalog and NewDataservice write models
+    static final Set<String> CATALOG_FIELDS = Set.of("@id", "foaf:homepage", "dct:conformsTo", "dct:creator", "dct:title");
+    static final Set<String> DATASERVICE_FIELDS = Set.of("@id", "dct:conformsTo", "dct:creator", "dct:title", "dcat:endpointDescription", "dcat:endpointURL");
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final TypeReference<Map<String, Object>> MAP_TYPE_REF = new TypeReference<>() {
+    };
+
+    private ContentHash() {
+    }
+
+    /**
+     * Hash of the given string fields, all others are ignored.
+     */
+    static String of(Map<String, ?> content, Set<String> fields) {
+        Map<String, String> canonical = new TreeMap<>();
+        content.forEach((key, value) -> {
+            if (fields.contains(key) && value instanceof String stringValue) {
+                canonical.put(key, stringValue);
+            }
+        });
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance(HASH_ALGORITHM);
+            canonical.forEach((key, value) -> {
+                // length prefixed, to not confuse a key-value border with content
+                messageDigest.update(String.format("%d:%s%d:%s", key.length(), key, value.length(), value).getBytes(StandardCharsets.UTF_8));
+            });
+            return HexFormat.of().formatHex(messageDigest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the runtime.", e);
+        }
+    }
+
+    /**
+     * Hash of the given write model, as serialized to Rainbow.
+     */
+    static String of(ObjectMapper objectMapper, Object writeModel, Set<String> fields) {
+        return of(objectMapper.convertValue(writeModel, MAP_TYPE_REF), fields);
+    }
+}
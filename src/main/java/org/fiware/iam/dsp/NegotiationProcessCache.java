@@ -0,0 +1,135 @@
+package org.fiware.iam.dsp;
+
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Singleton;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.operations.CacheStatistics;
+import org.fiware.iam.operations.InspectableCache;
+import org.fiware.rainbow.model.ProviderNegotiationVO;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of the negotiation processes in Rainbow, keyed by the provider id. Handling a single event requires
+ * the same process multiple times, f.e. to get its state and its agreement. Concurrent lookups share one request and
+ * the cached processes are updated with the states written by the contract management itself. Since the consumer side
+ * can change the process too, entries expire after {@link GeneralProperties#getNegotiationCacheTtl()}.
+ */
+@Requires(condition = GeneralProperties.RainbowCondition.class)
+@Singleton
+public class NegotiationProcessCache implements InspectableCache {
+
+    private static final int CLEANUP_THRESHOLD = 1_000;
+    private static final String CACHE_NAME = "negotiation-processes";
+
+    private final GeneralProperties generalProperties;
+    private final Map<String, CachedProcess> processes = new ConcurrentHashMap<>();
+    private final CacheStatistics cacheStatistics = new CacheStatistics();
+
+    public NegotiationProcessCache(GeneralProperties generalProperties) {
+        this.generalProperties = generalProperties;
+    }
+
+    /**
+     * Returns the cached process or loads it.
+     */
+    public Mono<ProviderNegotiationVO> get(String providerId, Supplier<Mono<ProviderNegotiationVO>> loader) {
+        if (generalProperties.getNegotiationCacheTtl().isZero()) {
+            return loader.get();
+        }
+        return Mono.defer(() -> {
+            long now = System.nanoTime();
+            if (processes.size() > CLEANUP_THRESHOLD) {
+                processes.values().removeIf(cachedProcess -> evictIfExpired(cachedProcess, now));
+            }
+            return processes.compute(providerId, (id, cached) -> {
+                        if (cached != null && !evictIfExpired(cached, now)) {
+                            cacheStatistics.hit();
+                            return cached;
+                        }
+                        cacheStatistics.miss();
+                        return load(id, loader, now);
+                    })
+                    .process();
+        });
+    }
+
+    /**
+     * Update the state of a cached process, after it was successfully written to Rainbow.
+     */
+    public void updateState(String providerId, String state) {
+        long now = System.nanoTime();
+        processes.computeIfPresent(providerId, (id, cached) -> {
+            ProviderNegotiationVO current = cached.value().get();
+            // an update while the process is still loaded invalidates it, since the loaded state might be outdated
+            if (cached.isExpired(now) || current == null) {
+                return null;
+            }
+            ProviderNegotiationVO updated = new ProviderNegotiationVO()
+                    .cnProcessId(current.getCnProcessId())
+                    .providerId(current.getProviderId())
+                    .consumerId(current.getConsumerId())
+                    .state(state);
+            return new CachedProcess(Mono.just(updated), new AtomicReference<>(updated), expiresAt(now));
+        });
+    }
+
+    /**
+     * Remove the process from the cache, f.e. if a write failed and its state is unknown.
+     */
+    public void invalidate(String providerId) {
+        processes.remove(providerId);
+    }
+
+    @Override
+    public String getCacheName() {
+        return CACHE_NAME;
+    }
+
+    @Override
+    public CacheStatistics.CacheStats getCacheStats() {
+        return cacheStatistics.snapshot(processes.size());
+    }
+
+    @Override
+    public int invalidate(Predicate<String> keyFilter) {
+        return InspectableCache.removeMatching(processes, Function.identity(), keyFilter);
+    }
+
+    private boolean evictIfExpired(CachedProcess cachedProcess, long now) {
+        if (cachedProcess.isExpired(now)) {
+            cacheStatistics.evicted();
+            return true;
+        }
+        return false;
+    }
+
+    private CachedProcess load(String providerId, Supplier<Mono<ProviderNegotiationVO>> loader, long now) {
+        AtomicReference<CachedProcess> cachedProcess = new AtomicReference<>();
+        AtomicReference<ProviderNegotiationVO> value = new AtomicReference<>();
+        // failed lookups are not cached
+        Mono<ProviderNegotiationVO> process = loader.get()
+                .doOnNext(value::set)
+                .doOnError(t -> processes.remove(providerId, cachedProcess.get()))
+                .cache();
+        cachedProcess.set(new CachedProcess(process, value, expiresAt(now)));
+        return cachedProcess.get();
+    }
+
+    private long expiresAt(long now) {
+        return now + generalProperties.getNegotiationCacheTtl().toNanos();
+    }
+
+    private record CachedProcess(Mono<ProviderNegotiationVO> process, AtomicReference<ProviderNegotiationVO> value,
+                                 long expiresAt) {
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
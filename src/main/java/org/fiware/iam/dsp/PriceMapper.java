@@ -8,7 +8,9 @@ import org.fiware.iam.exception.TMForumException;
 import org.fiware.iam.tmforum.productcatalog.api.ProductOfferingPriceApiClient;
 import org.fiware.iam.tmforum.productcatalog.model.ProductOfferingPriceVO;
 import org.fiware.iam.tmforum.quote.model.MoneyVO;
+import org.fiware.iam.tmforum.quote.model.ProductOfferingPriceRefVO;
 import org.fiware.iam.tmforum.quote.model.QuotePriceVO;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.*;
@@ -19,6 +21,7 @@ import java.util.*;
 public class PriceMapper {
 
 	private final ProductOfferingPriceApiClient productOfferingPriceApiClient;
+	private final ProductOfferingPriceCache productOfferingPriceCache;
 
 	public static final String PAYMENT_ACTION = "odrl:use";
 	private static final String PAY_AMOUNT_OPERATOR = "odrl:payAmount";
@@ -37,10 +40,28 @@ public class PriceMapper {
 	private static final String PRICE_TYPE_RECURRING = "recurring";
 	private static final String PRICE_TYPE_ONE_TIME = "oneTime";
 
-	public Mono<List<Object>> toObligationConstraints(QuotePriceVO priceVO) {
+	/**
+	 * Map the prices of a quote to the constraints of the payment obligation. The referenced ProductOfferingPrices are
+	 * retrieved once per distinct price, while the order of the constraints follows the order of the prices.
+	 */
+	public Mono<List<Object>> toObligationConstraints(List<QuotePriceVO> priceVOs) {
+		return Flux.fromIterable(priceVOs)
+				.mapNotNull(QuotePriceVO::getProductOfferingPrice)
+				.mapNotNull(ProductOfferingPriceRefVO::getId)
+				.distinct()
+				.flatMap(popId -> getPopConstraints(popId).map(popConstraints -> Map.entry(popId, popConstraints)))
+				.collectMap(Map.Entry::getKey, Map.Entry::getValue)
+				.map(popConstraints -> priceVOs.stream()
+						.flatMap(priceVO -> toObligationConstraints(priceVO, popConstraints).stream())
+						.toList());
+	}
 
+	private List<Object> toObligationConstraints(QuotePriceVO priceVO, Map<String, List<Object>> popConstraints) {
 		List<Object> constraints = new ArrayList<>();
 
+		if (priceVO.getProductOfferingPrice() != null) {
+			constraints.addAll(popConstraints.getOrDefault(priceVO.getProductOfferingPrice().getId(), List.of()));
+		}
 		if (priceVO.getPrice() != null) {
 			MoneyVO moneyVO = priceVO.getPrice().getTaxIncludedAmount();
 			constraints.add(getPaymentConstraint(moneyVO.getValue(), moneyVO.getUnit()));
@@ -49,24 +70,21 @@ public class PriceMapper {
 		if (priceVO.getPriceAlteration() != null && !priceVO.getPriceAlteration().isEmpty()) {
 			log.warn("Price alteration not supported at the moment.");
 		}
-		if (priceVO.getProductOfferingPrice() != null) {
-			return productOfferingPriceApiClient
-					.retrieveProductOfferingPrice(priceVO.getProductOfferingPrice().getId(), null)
-					.map(HttpResponse::body)
-					.map(pop -> {
-						List<Object> popConstraint = new ArrayList<>();
-						getPeriod(pop).ifPresent(popConstraint::add);
-						popConstraint.add(getAmount(pop));
-						return popConstraint;
-					})
-					.map(pcs -> {
-						pcs.addAll(constraints);
-						return pcs;
-					})
-					.onErrorMap(t -> new TMForumException(String.format("Was not able to retrieve the offeringPrice %s.", priceVO.getProductOfferingPrice().getId()), t));
-		}
+		return constraints;
+	}
 
-		return Mono.just(constraints);
+	// the constraints are compiled once per price and shared between all quotes referencing it
+	private Mono<List<Object>> getPopConstraints(String popId) {
+		return productOfferingPriceCache.get(popId, () -> productOfferingPriceApiClient
+				.retrieveProductOfferingPrice(popId, null)
+				.map(HttpResponse::body)
+				.map(pop -> {
+					List<Object> popConstraint = new ArrayList<>();
+					getPeriod(pop).ifPresent(popConstraint::add);
+					popConstraint.add(getAmount(pop));
+					return popConstraint;
+				})
+				.onErrorMap(t -> new TMForumException(String.format("Was not able to retrieve the offeringPrice %s.", popId), t)));
 	}
 
 	private Map<String, Object> getAmount(ProductOfferingPriceVO pop) {
@@ -0,0 +1,143 @@
+package org.fiware.iam.dsp;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.HttpResponse;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.handlers.ProductOfferingPriceHandler;
+import org.fiware.iam.operations.CacheStatistics;
+import org.fiware.iam.operations.InspectableCache;
+import org.fiware.iam.tmforum.productcatalog.model.ProductOfferingPriceVO;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the ODRL constraints compiled from ProductOfferingPrices, keyed by the price id. Prices are referenced by
+ * every quote for their offering, thus each one is only retrieved and compiled once. Concurrent lookups share one
+ * request. Entries are invalidated by the ProductOfferingPrice events and expire after
+ * {@link GeneralProperties#getPriceCacheTtl()}, in case an event was missed. The cached constraints are shared between
+ * all quotes, thus they are immutable down to the nested operands.
+ */
+@Requires(condition = GeneralProperties.RainbowCondition.class)
+@Slf4j
+@Singleton
+public class ProductOfferingPriceCache implements ProductOfferingPriceHandler, InspectableCache {
+
+    private static final int CLEANUP_THRESHOLD = 1_000;
+    private static final String CACHE_NAME = "offering-prices";
+
+    private final GeneralProperties generalProperties;
+    private final Map<String, CachedConstraints> constraints = new ConcurrentHashMap<>();
+    private final CacheStatistics cacheStatistics = new CacheStatistics();
+
+    public ProductOfferingPriceCache(GeneralProperties generalProperties) {
+        this.generalProperties = generalProperties;
+    }
+
+    /**
+     * Returns the cached constraints of the price or loads them.
+     */
+    public Mono<List<Object>> get(String priceId, Supplier<Mono<List<Object>>> loader) {
+        if (generalProperties.getPriceCacheTtl().isZero()) {
+            return loader.get();
+        }
+        return Mono.defer(() -> {
+            long now = System.nanoTime();
+            if (constraints.size() > CLEANUP_THRESHOLD) {
+                constraints.values().removeIf(cachedConstraints -> evictIfExpired(cachedConstraints, now));
+            }
+            return constraints.compute(priceId, (id, cached) -> {
+                        if (cached != null && !evictIfExpired(cached, now)) {
+                            cacheStatistics.hit();
+                            return cached;
+                        }
+                        cacheStatistics.miss();
+                        return load(id, loader, now);
+                    })
+                    .constraints();
+        });
+    }
+
+    /**
+     * Remove the price from the cache.
+     */
+    public void invalidate(String priceId) {
+        if (priceId != null && constraints.remove(priceId) != null) {
+            log.debug("Invalidated the cached constraints of price {}.", priceId);
+        }
+    }
+
+    @Override
+    public String getCacheName() {
+        return CACHE_NAME;
+    }
+
+    @Override
+    public CacheStatistics.CacheStats getCacheStats() {
+        return cacheStatistics.snapshot(constraints.size());
+    }
+
+    @Override
+    public int invalidate(Predicate<String> keyFilter) {
+        return InspectableCache.removeMatching(constraints, Function.identity(), keyFilter);
+    }
+
+    @Override
+    public Mono<HttpResponse<?>> handleProductOfferingPriceChange(ProductOfferingPriceVO productOfferingPriceVO) {
+        invalidate(productOfferingPriceVO.getId());
+        return Mono.just(HttpResponse.noContent());
+    }
+
+    @Override
+    public Mono<HttpResponse<?>> handleProductOfferingPriceDeletion(ProductOfferingPriceVO productOfferingPriceVO) {
+        invalidate(productOfferingPriceVO.getId());
+        return Mono.just(HttpResponse.noContent());
+    }
+
+    private boolean evictIfExpired(CachedConstraints cachedConstraints, long now) {
+        if (cachedConstraints.isExpired(now)) {
+            cacheStatistics.evicted();
+            return true;
+        }
+        return false;
+    }
+
+    private CachedConstraints load(String priceId, Supplier<Mono<List<Object>>> loader, long now) {
+        AtomicReference<CachedConstraints> cachedConstraints = new AtomicReference<>();
+        // failed lookups are not cached
+        Mono<List<Object>> loaded = loader.get()
+                .map(loadedConstraints -> loadedConstraints.stream().map(ProductOfferingPriceCache::immutableCopy).toList())
+                .doOnError(t -> constraints.remove(priceId, cachedConstraints.get()))
+                .cache();
+        cachedConstraints.set(new CachedConstraints(loaded, now + generalProperties.getPriceCacheTtl().toNanos()));
+        return cachedConstraints.get();
+    }
+
+    private static Object immutableCopy(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            map.forEach((key, entryValue) -> copy.put(key, immutableCopy(entryValue)));
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(ProductOfferingPriceCache::immutableCopy).toList();
+        }
+        return value;
+    }
+
+    private record CachedConstraints(Mono<List<Object>> constraints, long expiresAt) {
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.fiware.iam.dsp;
+
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Singleton;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.operations.CacheStatistics;
+import org.fiware.iam.operations.InspectableCache;
+import org.fiware.iam.tmforum.quote.model.ProductOfferingRefVO;
+import org.fiware.iam.tmforum.quote.model.QuoteItemVO;
+import org.fiware.iam.tmforum.quote.model.QuoteStateTypeVO;
+import org.fiware.iam.tmforum.quote.model.QuoteVO;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Local index of the quotes handled by the contract management, pointing to their negotiation process in Rainbow.
+ * Filled when the negotiation is created and updated with every change of the quote, it allows the order handling to
+ * skip fetching the quote from TMForum. Only accepted quotes are taken from the index, for all others the current
+ * state has to be checked at TMForum.
+ */
+@Requires(condition = GeneralProperties.RainbowCondition.class)
+@Singleton
+public class QuoteProcessIndex implements InspectableCache {
+
+    private static final int MAX_INDEXED_QUOTES = 10_000;
+    private static final String ACCEPTED_ITEM_STATE = "accepted";
+    private static final String CACHE_NAME = "quote-processes";
+
+    private final CacheStatistics cacheStatistics = new CacheStatistics();
+
+    private final Map<String, QuoteProcess> quoteProcesses = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, QuoteProcess> eldest) {
+            if (size() > MAX_INDEXED_QUOTES) {
+                cacheStatistics.evicted();
+                return true;
+            }
+            return false;
+        }
+    });
+
+    /**
+     * Index the negotiation process created for the quote.
+     */
+    public void recordCreation(String quoteId, String providerId) {
+        quoteProcesses.put(quoteId, new QuoteProcess(providerId, null, false));
+    }
+
+    /**
+     * Update the index with the current state of the quote.
+     */
+    public void record(QuoteVO quoteVO) {
+        if (quoteVO.getId() == null || quoteVO.getExternalId() == null) {
+            return;
+        }
+        quoteProcesses.put(quoteVO.getId(), new QuoteProcess(quoteVO.getExternalId(), getAcceptedOfferId(quoteVO), quoteVO.getState() == QuoteStateTypeVO.ACCEPTED));
+    }
+
+    public void remove(String quoteId) {
+        quoteProcesses.remove(quoteId);
+    }
+
+    /**
+     * Returns the process of the quote, if the quote is known to be accepted.
+     */
+    public Optional<QuoteProcess> getAccepted(String quoteId) {
+        Optional<QuoteProcess> acceptedProcess = Optional.ofNullable(quoteProcesses.get(quoteId))
+                .filter(QuoteProcess::accepted)
+                .filter(quoteProcess -> quoteProcess.acceptedOfferId() != null);
+        cacheStatistics.record(acceptedProcess.isPresent());
+        return acceptedProcess;
+    }
+
+    @Override
+    public String getCacheName() {
+        return CACHE_NAME;
+    }
+
+    @Override
+    public CacheStatistics.CacheStats getCacheStats() {
+        return cacheStatistics.snapshot(quoteProcesses.size());
+    }
+
+    @Override
+    public int invalidate(Predicate<String> keyFilter) {
+        return InspectableCache.removeMatching(quoteProcesses, Function.identity(), keyFilter);
+    }
+
+    private static String getAcceptedOfferId(QuoteVO quoteVO) {
+        return Optional.ofNullable(quoteVO.getQuoteItem())
+                .flatMap(quoteItems -> quoteItems.stream()
+                        .filter(quoteItem -> ACCEPTED_ITEM_STATE.equals(quoteItem.getState()))
+                        .map(QuoteItemVO::getProductOffering)
+                        .filter(Objects::nonNull)
+                        .map(ProductOfferingRefVO::getId)
+                        .findFirst())
+                .orElse(null);
+    }
+
+    /**
+     * @param providerId      provider id of the negotiation process in Rainbow
+     * @param acceptedOfferId id of the offering of the accepted quote item
+     * @param accepted        true if the quote was accepted
+     */
+    public record QuoteProcess(String providerId, String acceptedOfferId, boolean accepted) {
+    }
+}
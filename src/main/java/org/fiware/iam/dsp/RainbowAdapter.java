@@ -1,6 +1,5 @@
 package org.fiware.iam.dsp;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micronaut.context.annotation.Requires;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
@@ -33,7 +32,8 @@ public class RainbowAdapter {
     private final AgreementApiClient agreementApiClient;
     private final ContractApiClient contractApiClient;
     private final ParticipantApiClient participantApiClient;
-    private final ObjectMapper objectMapper;
+    private final RainbowMapper rainbowMapper;
+    private final NegotiationProcessCache negotiationProcessCache;
 
     /**
      * Create the agreement for the given organization and offer
@@ -46,7 +46,7 @@ public class RainbowAdapter {
         return agreementApiClient
                 .createAgreement(agreementCreateVO)
                 .map(HttpResponse::body)
-                .map(body -> objectMapper.convertValue(body, AgreementVO.class))
+                .map(rainbowMapper::toAgreement)
                 .onErrorMap(t -> {
                     throw new RainbowException("Was not able to create agreement");
                 });
@@ -122,14 +122,13 @@ public class RainbowAdapter {
     }
 
     public Mono<ProviderNegotiationVO> getNegotiationProcess(String providerId) {
-        return contractApiClient.getProcessById(providerId)
+        return negotiationProcessCache.get(providerId, () -> contractApiClient.getProcessById(providerId)
                 .map(HttpResponse::body)
-                .onErrorMap(t -> new RainbowException(String.format("Was not able to find negotiation process %s.", providerId), t));
+                .onErrorMap(t -> new RainbowException(String.format("Was not able to find negotiation process %s.", providerId), t)));
     }
 
     public Mono<Object> updateNegotiationProcessByProviderId(String providerId, String state) {
-        return contractApiClient.getProcessById(providerId)
-                .map(HttpResponse::body)
+        return getNegotiationProcess(providerId)
                 .flatMap(pn -> {
                     NegotiationProcessVO negotiationProcessVO = new NegotiationProcessVO()
                             .dspaceColonConsumerPid(pn.getConsumerId())
@@ -138,6 +137,8 @@ public class RainbowAdapter {
 
                     return contractApiClient.updateProcessById(pn.getCnProcessId(), negotiationProcessVO);
                 })
+                .doOnNext(r -> negotiationProcessCache.updateState(providerId, state))
+                .doOnError(t -> negotiationProcessCache.invalidate(providerId))
                 .map(HttpResponse::body)
                 .onErrorMap(t -> new RainbowException(String.format("Was not able to update negotiation process %s to %s.", providerId, state), t));
     }
@@ -24,27 +24,40 @@ public class RainbowCatalogHandler implements CatalogHandler {
 
     private final CatalogApiClient catalogApiClient;
     private final RainbowMapper rainbowMapper;
+    private final RainbowContentHashes rainbowContentHashes;
 
     @Override
     public Mono<HttpResponse<?>> handleCatalogCreation(CatalogVO catalogVO) {
         NewCatalogVO rainbowCatalog = rainbowMapper.map(catalogVO);
         return catalogApiClient.createCatalog(rainbowCatalog)
                 .onErrorMap(t -> new IllegalArgumentException("Was not able create the catalog %s".formatted(rainbowCatalog), t))
+                .doOnNext(res -> rainbowContentHashes.recordCatalog(catalogVO.getId(), rainbowCatalog))
                 .map(HttpResponse::ok);
     }
 
     @Override
     public Mono<HttpResponse<?>> handleCatalogStateChange(CatalogVO catalogVO) {
-        return catalogApiClient.updateCatalogById(catalogVO.getId(), rainbowMapper.map(catalogVO)).map(res -> {
-            if (res.getStatus().getCode() >= 200 && res.getStatus().getCode() < 300) {
-                return HttpResponse.noContent();
-            }
-            return HttpResponse.status(HttpStatus.BAD_GATEWAY);
-        });
+        NewCatalogVO rainbowCatalog = rainbowMapper.map(catalogVO);
+        // most changes of a catalog are not projected to rainbow
+        if (rainbowContentHashes.isUnchanged(catalogVO.getId(), rainbowCatalog)) {
+            log.debug("Catalog {} is unchanged in Rainbow, skip the update.", catalogVO.getId());
+            return Mono.just(HttpResponse.noContent());
+        }
+        return catalogApiClient.updateCatalogById(catalogVO.getId(), rainbowCatalog)
+                .doOnError(t -> rainbowContentHashes.removeCatalog(catalogVO.getId()))
+                .map(res -> {
+                    if (res.getStatus().getCode() >= 200 && res.getStatus().getCode() < 300) {
+                        rainbowContentHashes.recordCatalog(catalogVO.getId(), rainbowCatalog);
+                        return HttpResponse.noContent();
+                    }
+                    rainbowContentHashes.removeCatalog(catalogVO.getId());
+                    return HttpResponse.status(HttpStatus.BAD_GATEWAY);
+                });
     }
 
     @Override
     public Mono<HttpResponse<?>> handleCatalogDeletion(CatalogVO catalogVO) {
+        rainbowContentHashes.removeCatalog(catalogVO.getId());
         return catalogApiClient.deleteCatalogById(catalogVO.getId()).map(res -> {
             if (res.getStatus().getCode() >= 200 && res.getStatus().getCode() < 300) {
                 return HttpResponse.noContent();
@@ -0,0 +1,71 @@
+package org.fiware.iam.dsp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.io.buffer.ReferenceCounted;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.client.StreamingHttpClient;
+import io.micronaut.http.client.annotation.Client;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.rainbow.api.CatalogApiClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Streaming access to the catalog list of Rainbow. In contrast to {@link CatalogApiClient#getCatalogs()}, the response
+ * is parsed while it arrives and only the ids of catalogs and dataservices are kept, thus memory usage does not grow
+ * with the size of the catalogs.
+ */
+@Requires(condition = GeneralProperties.RainbowCondition.class)
+@Slf4j
+@Singleton
+public class RainbowCatalogStreamingClient {
+
+    private final StreamingHttpClient streamingHttpClient;
+    private final ObjectMapper objectMapper;
+
+    public RainbowCatalogStreamingClient(@Client(id = "rainbow") StreamingHttpClient streamingHttpClient, ObjectMapper objectMapper) {
+        this.streamingHttpClient = streamingHttpClient;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns all catalogs of Rainbow, reduced to the ids of the catalogs and their dataservices.
+     */
+    public Flux<CatalogSummary> getCatalogs() {
+        return Flux.defer(() -> {
+            CatalogListParser catalogListParser = newParser();
+            return Flux.from(streamingHttpClient.dataStream(HttpRequest.GET(CatalogApiClient.PATH_GET_CATALOGS)))
+                    .concatMapIterable(byteBuffer -> {
+                        try {
+                            return catalogListParser.feed(byteBuffer.toByteArray());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException("Was not able to parse the catalogs from Rainbow.", e);
+                        } finally {
+                            if (byteBuffer instanceof ReferenceCounted referenceCounted) {
+                                referenceCounted.release();
+                            }
+                        }
+                    })
+                    .concatWith(Flux.defer(() -> {
+                        try {
+                            return Flux.fromIterable(catalogListParser.finish());
+                        } catch (IOException e) {
+                            return Flux.error(new UncheckedIOException("Received an incomplete catalog list from Rainbow.", e));
+                        }
+                    }));
+        });
+    }
+
+    private CatalogListParser newParser() {
+        try {
+            return new CatalogListParser(objectMapper.getFactory());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Was not able to create a non-blocking parser.", e);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.fiware.iam.dsp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.operations.CacheStatistics;
+import org.fiware.iam.operations.InspectableCache;
+import org.fiware.rainbow.model.NewCatalogVO;
+import org.fiware.rainbow.model.NewDataserviceVO;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Content hashes of the catalogs and dataservices in Rainbow, as last written or read. Many TMForum events touch fields
+ * that are not projected to Rainbow, writes that would not change the content are skipped. The hashes are seeded from
+ * Rainbow at startup. Failed writes drop the hash, thus the content is written again with the next event. Changes made
+ * to Rainbow by others are only noticed with a {@link #resync()}.
+ */
+@Requires(condition = GeneralProperties.RainbowCondition.class)
+@Slf4j
+@Singleton
+public class RainbowContentHashes implements InspectableCache {
+
+    private static final String SKIPPED_METRIC = "contract.management.rainbow.skipped";
+    private static final String TYPE_TAG = "type";
+    private static final String CACHE_NAME = "rainbow-content-hashes";
+
+    private final RainbowCatalogStreamingClient rainbowCatalogStreamingClient;
+    private final ObjectMapper objectMapper;
+    private final Counter skippedCatalogs;
+    private final Counter skippedDataservices;
+    private final CacheStatistics cacheStatistics = new CacheStatistics();
+
+    private final Map<String, String> catalogHashes = new ConcurrentHashMap<>();
+    private final Map<DataserviceKey, String> dataserviceHashes = new ConcurrentHashMap<>();
+    // keys of the catalogs and dataservices written since each running resync started
+    private final Set<Set<Object>> runningResyncs = ConcurrentHashMap.newKeySet();
+
+    public RainbowContentHashes(RainbowCatalogStreamingClient rainbowCatalogStreamingClient, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.rainbowCatalogStreamingClient = rainbowCatalogStreamingClient;
+        this.objectMapper = objectMapper;
+        this.skippedCatalogs = Counter.builder(SKIPPED_METRIC).tag(TYPE_TAG, "catalog").register(meterRegistry);
+        this.skippedDataservices = Counter.builder(SKIPPED_METRIC).tag(TYPE_TAG, "dataservice").register(meterRegistry);
+    }
+
+    @EventListener
+    public void seed(StartupEvent startupEvent) {
+        resync().subscribe(
+                result -> log.info("Seeded the content hashes of {} catalogs and {} dataservices from Rainbow.", result.catalogs(), result.dataservices()),
+                e -> log.warn("Was not able to seed the content hashes from Rainbow, all catalogs will be written.", e));
+    }
+
+    /**
+     * Replaces the hashes with the ones of the content currently in Rainbow. Catalogs and dataservices written while the
+     * content is fetched keep their hashes, since the fetched content might be older.
+     */
+    public Mono<ResyncResult> resync() {
+        return Mono.defer(() -> {
+            Set<Object> writtenKeys = ConcurrentHashMap.newKeySet();
+            runningResyncs.add(writtenKeys);
+            return rainbowCatalogStreamingClient.getCatalogs()
+                    .collectList()
+                    .map(catalogs -> merge(catalogs, writtenKeys))
+                    .doFinally(signal -> runningResyncs.remove(writtenKeys));
+        });
+    }
+
+    private ResyncResult merge(List<CatalogSummary> catalogs, Set<Object> writtenKeys) {
+        Map<String, String> fetchedCatalogs = new HashMap<>();
+        Map<DataserviceKey, String> fetchedDataservices = new HashMap<>();
+        catalogs.stream().filter(catalog -> catalog.id() != null).forEach(catalog -> {
+            fetchedCatalogs.put(catalog.id(), catalog.contentHash());
+            catalog.dataserviceHashes().forEach((dataserviceId, hash) ->
+                    fetchedDataservices.put(new DataserviceKey(catalog.id(), dataserviceId), hash));
+        });
+        // writes mark their key before changing the hash, the compute makes sure a concurrent write is either seen or
+        // applied afterwards
+        Predicate<DataserviceKey> dataserviceWritten = key -> writtenKeys.contains(key) || writtenKeys.contains(key.catalogId());
+        List.copyOf(catalogHashes.keySet()).forEach(catalogId ->
+                catalogHashes.computeIfPresent(catalogId, (id, hash) -> fetchedCatalogs.containsKey(id) || writtenKeys.contains(id) ? hash : null));
+        fetchedCatalogs.forEach((catalogId, fetchedHash) ->
+                catalogHashes.compute(catalogId, (id, hash) -> writtenKeys.contains(id) ? hash : fetchedHash));
+        List.copyOf(dataserviceHashes.keySet()).forEach(dataserviceKey ->
+                dataserviceHashes.computeIfPresent(dataserviceKey, (key, hash) -> fetchedDataservices.containsKey(key) || dataserviceWritten.test(key) ? hash : null));
+        fetchedDataservices.forEach((dataserviceKey, fetchedHash) ->
+                dataserviceHashes.compute(dataserviceKey, (key, hash) -> dataserviceWritten.test(key) ? hash : fetchedHash));
+        return new ResyncResult(catalogHashes.size(), dataserviceHashes.size());
+    }
+
+    /**
+     * Returns true if Rainbow already contains the given catalog. The skipped write is counted.
+     */
+    public boolean isUnchanged(String catalogId, NewCatalogVO catalog) {
+        boolean unchanged = hash(catalog).equals(catalogHashes.get(catalogId));
+        cacheStatistics.record(unchanged);
+        if (!unchanged) {
+            return false;
+        }
+        skippedCatalogs.increment();
+        return true;
+    }
+
+    /**
+     * Returns true if the given catalog in Rainbow already contains the dataservice. The skipped write is counted.
+     */
+    public boolean isUnchanged(String catalogId, NewDataserviceVO dataservice) {
+        boolean unchanged = hash(dataservice).equals(dataserviceHashes.get(new DataserviceKey(catalogId, dataservice.getAtId())));
+        cacheStatistics.record(unchanged);
+        if (!unchanged) {
+            return false;
+        }
+        skippedDataservices.increment();
+        return true;
+    }
+
+    public void recordCatalog(String catalogId, NewCatalogVO catalog) {
+        markWritten(catalogId);
+        catalogHashes.put(catalogId, hash(catalog));
+    }
+
+    public void recordDataservice(String catalogId, NewDataserviceVO dataservice) {
+        DataserviceKey dataserviceKey = new DataserviceKey(catalogId, dataservice.getAtId());
+        markWritten(dataserviceKey);
+        dataserviceHashes.put(dataserviceKey, hash(dataservice));
+    }
+
+    /**
+     * Forget the catalog and its dataservices, f.e. after it was deleted or its write failed.
+     */
+    public void removeCatalog(String catalogId) {
+        // also marks the dataservices of the catalog as written
+        markWritten(catalogId);
+        catalogHashes.remove(catalogId);
+        dataserviceHashes.keySet().removeIf(key -> key.catalogId().equals(catalogId));
+    }
+
+    /**
+     * Forget the dataservice in the catalog, f.e. after it was deleted or its write failed.
+     */
+    public void removeDataservice(String catalogId, String dataserviceId) {
+        DataserviceKey dataserviceKey = new DataserviceKey(catalogId, dataserviceId);
+        markWritten(dataserviceKey);
+        dataserviceHashes.remove(dataserviceKey);
+    }
+
+    @Override
+    public String getCacheName() {
+        return CACHE_NAME;
+    }
+
+    @Override
+    public CacheStatistics.CacheStats getCacheStats() {
+        return cacheStatistics.snapshot(catalogHashes.size() + dataserviceHashes.size());
+    }
+
+    /**
+     * Keys are the ids of the catalogs and of the dataservices. Invalidated content is written with the next event.
+     */
+    @Override
+    public int invalidate(Predicate<String> keyFilter) {
+        int removed = InspectableCache.removeMatching(dataserviceHashes, DataserviceKey::dataserviceId, keyFilter);
+        for (String catalogId : List.copyOf(catalogHashes.keySet())) {
+            if (keyFilter.test(catalogId) && catalogHashes.containsKey(catalogId)) {
+                removeCatalog(catalogId);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void markWritten(Object key) {
+        runningResyncs.forEach(writtenKeys -> writtenKeys.add(key));
+    }
+
+    private String hash(NewCatalogVO catalog) {
+        return ContentHash.of(objectMapper, catalog, ContentHash.CATALOG_FIELDS);
+    }
+
+    private String hash(NewDataserviceVO dataservice) {
+        return ContentHash.of(objectMapper, dataservice, ContentHash.DATASERVICE_FIELDS);
+    }
+
+    public record ResyncResult(int catalogs, int dataservices) {
+    }
+
+    private record DataserviceKey(String catalogId, String dataserviceId) {
+    }
+}
@@ -1,10 +1,14 @@
 package org.fiware.iam.dsp;
 
 import org.fiware.iam.tmforum.productcatalog.model.CatalogVO;
+import org.fiware.rainbow.model.AgreementVO;
 import org.fiware.rainbow.model.NewCatalogVO;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
+import java.util.Map;
+import java.util.Optional;
+
 /**
  * Mapper for objects used in the Rainbow API
  */
@@ -15,4 +19,24 @@ public interface RainbowMapper {
 	@Mapping(target = "atId", source = "id")
 	NewCatalogVO map(CatalogVO catalogVO);
 
+	/**
+	 * Maps the agreement returned by Rainbow, which the client only provides as parsed json.
+	 */
+	default AgreementVO toAgreement(Object agreement) {
+		if (agreement instanceof AgreementVO agreementVO) {
+			return agreementVO;
+		}
+		if (!(agreement instanceof Map<?, ?> agreementMap) || agreementMap.get("agreement_id") == null) {
+			throw new IllegalArgumentException("The response is not an agreement.");
+		}
+		return new AgreementVO()
+				.agreementId(getString(agreementMap, "agreement_id"))
+				.dataServiceId(getString(agreementMap, "data_service_id"))
+				.identity(getString(agreementMap, "identity"))
+				.identityToken(getString(agreementMap, "identity_token"));
+	}
+
+	private static String getString(Map<?, ?> map, String key) {
+		return Optional.ofNullable(map.get(key)).map(String::valueOf).orElse(null);
+	}
 }
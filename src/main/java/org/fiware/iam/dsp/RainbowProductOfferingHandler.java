@@ -12,8 +12,6 @@ import org.fiware.iam.tmforum.ProductOfferingConstants;
 import org.fiware.iam.tmforum.productcatalog.api.ProductSpecificationApiClient;
 import org.fiware.iam.tmforum.productcatalog.model.*;
 import org.fiware.rainbow.api.CatalogApiClient;
-import org.fiware.rainbow.model.CatalogVO;
-import org.fiware.rainbow.model.DataServiceVO;
 import org.fiware.rainbow.model.NewDataserviceVO;
 import reactor.core.publisher.Mono;
 
@@ -33,12 +31,13 @@ import java.util.function.Function;
 @Slf4j
 public class RainbowProductOfferingHandler implements ProductOfferingHandler {
 
-    private static final String EMPTY_STRING_MARKER = "Empty";
     private static final String OWNER_ROLE = "Owner";
 
     private final CatalogApiClient rainbowCatalogApiClient;
+    private final RainbowCatalogStreamingClient rainbowCatalogStreamingClient;
     private final org.fiware.iam.tmforum.productcatalog.api.CatalogApiClient catalogApiClient;
     private final ProductSpecificationApiClient productSpecificationApiClient;
+    private final RainbowContentHashes rainbowContentHashes;
 
     @Override
     public Mono<HttpResponse<?>> handleOfferingCreation(ProductOfferingVO productOfferingVO) {
@@ -58,9 +57,10 @@ public class RainbowProductOfferingHandler implements ProductOfferingHandler {
         Mono<List<String>> targetCatalogs = getCatalogsForProductOffering(productOfferingVO);
 
         // (rainbow) catalogs that the offering is currently included
-        Mono<List<String>> currentCatalogs = rainbowCatalogApiClient.getCatalogs()
-                .map(HttpResponse::body)
-                .map(catalogVOS -> catalogVOS.stream().map(CatalogVO::getAtId).toList());
+        Mono<List<String>> currentCatalogs = rainbowCatalogStreamingClient.getCatalogs()
+                .filter(catalog -> catalog.dataserviceIds().contains(productOfferingVO.getId()))
+                .map(CatalogSummary::id)
+                .collectList();
 
         return Mono.zipDelayError(targetCatalogs, currentCatalogs)
                 .flatMap(tuple -> handleCatalogEntries(tuple.getT1(), tuple.getT2(), productOfferingVO));
@@ -68,23 +68,11 @@ public class RainbowProductOfferingHandler implements ProductOfferingHandler {
 
     @Override
     public Mono<HttpResponse<?>> handleOfferingDeletion(ProductOfferingVO productOfferingVO) {
-        return rainbowCatalogApiClient.getCatalogs()
-                .map(HttpResponse::body)
-                .flatMap(catalogVOS ->
-                        Mono.zipDelayError(
-                                catalogVOS.stream()
-                                        .filter(catalogVO ->
-                                                catalogVO.getDcatColonService()
-                                                        .stream()
-                                                        .map(DataServiceVO::getAtId)
-                                                        .anyMatch(id -> id.equals(productOfferingVO.getId()))
-                                        )
-                                        .map(catalogVO -> rainbowCatalogApiClient
-                                                .deleteDataserviceInCatalog(catalogVO.getAtId(), productOfferingVO.getId())
-
-                                        ).toList(),
-                                responses -> HttpResponse.noContent())
-                );
+        return rainbowCatalogStreamingClient.getCatalogs()
+                .filter(catalog -> catalog.dataserviceIds().contains(productOfferingVO.getId()))
+                .doOnNext(catalog -> rainbowContentHashes.removeDataservice(catalog.id(), productOfferingVO.getId()))
+                .flatMap(catalog -> rainbowCatalogApiClient.deleteDataserviceInCatalog(catalog.id(), productOfferingVO.getId()))
+                .then(Mono.just(HttpResponse.noContent()));
     }
 
     private Optional<String> getCharValue(List<CharacteristicValueSpecificationVO> specs) {
@@ -141,9 +129,12 @@ public class RainbowProductOfferingHandler implements ProductOfferingHandler {
 
         List<Mono<HttpResponse<?>>> offeringMonos = new ArrayList<>();
         offeringMonos.add(
-                Mono.zipDelayError(deleteCatalogs.stream()
-                        .map(catalogId -> rainbowCatalogApiClient.deleteDataserviceInCatalog(catalogId, productOfferingVO.getId()))
-                        .toList(), r -> HttpResponse.accepted()));
+                allAccepted(deleteCatalogs.stream()
+                        .map(catalogId -> {
+                            rainbowContentHashes.removeDataservice(catalogId, productOfferingVO.getId());
+                            return rainbowCatalogApiClient.deleteDataserviceInCatalog(catalogId, productOfferingVO.getId());
+                        })
+                        .toList()));
 
         if (!newCatalogs.isEmpty() || !updateCatalogs.isEmpty()) {
             Mono<NewDataserviceVO> newDataservice = prepareNewDataservice(productOfferingVO);
@@ -155,16 +146,34 @@ public class RainbowProductOfferingHandler implements ProductOfferingHandler {
                 if (!updateCatalogs.isEmpty()) {
                     rainbowResponses.add(updateDataservice(dataserviceVO, updateCatalogs));
                 }
-                return Mono.zipDelayError(rainbowResponses, r -> HttpResponse.accepted());
+                return allAccepted(rainbowResponses);
             }));
         }
-        return Mono.zipDelayError(offeringMonos, r -> HttpResponse.accepted());
+        return allAccepted(offeringMonos);
+    }
+
+    private static Mono<HttpResponse<?>> allAccepted(List<? extends Mono<? extends HttpResponse<?>>> responses) {
+        // zipping nothing would complete without a response
+        if (responses.isEmpty()) {
+            return Mono.just(HttpResponse.accepted());
+        }
+        return Mono.zipDelayError(responses, r -> HttpResponse.accepted());
     }
 
     private Mono<HttpResponse<?>> updateDataservice(NewDataserviceVO dataserviceVO, List<String> catalogs) {
-        return Mono.zip(catalogs.stream()
+        // most changes of an offering are not projected to rainbow
+        List<String> changedCatalogs = catalogs.stream()
+                .filter(id -> !rainbowContentHashes.isUnchanged(id, dataserviceVO))
+                .toList();
+        if (changedCatalogs.isEmpty()) {
+            log.debug("Dataservice {} is unchanged in Rainbow, skip the update.", dataserviceVO.getAtId());
+            return Mono.just(HttpResponse.ok());
+        }
+        return Mono.zip(changedCatalogs.stream()
                         .map(id -> rainbowCatalogApiClient
                                 .updateDataserviceInCatalog(id, dataserviceVO.getAtId(), dataserviceVO)
+                                .doOnNext(resp -> recordDataservice(id, dataserviceVO, resp.getStatus() == HttpStatus.ACCEPTED))
+                                .doOnError(t -> rainbowContentHashes.removeDataservice(id, dataserviceVO.getAtId()))
                                 .onErrorMap(t ->
                                         new IllegalArgumentException("Was not able to update dataservice %s in %s".formatted(dataserviceVO, id), t)))
                         .toList(),
@@ -177,6 +186,14 @@ public class RainbowProductOfferingHandler implements ProductOfferingHandler {
 
     }
 
+    private void recordDataservice(String catalogId, NewDataserviceVO dataserviceVO, boolean success) {
+        if (success) {
+            rainbowContentHashes.recordDataservice(catalogId, dataserviceVO);
+        } else {
+            rainbowContentHashes.removeDataservice(catalogId, dataserviceVO.getAtId());
+        }
+    }
+
     private Mono<NewDataserviceVO> prepareNewDataservice(ProductOfferingVO productOfferingVO) {
         NewDataserviceVO newDataserviceVO = new NewDataserviceVO().atId(productOfferingVO.getId());
         return getSpecForOffering(productOfferingVO)
@@ -196,28 +213,16 @@ public class RainbowProductOfferingHandler implements ProductOfferingHandler {
     private Mono<List<String>> getCatalogsForProductOffering(ProductOfferingVO productOfferingVO) {
         List<String> categoryIds = productOfferingVO.getCategory().stream().map(CategoryRefVO::getId).toList();
 
-        return rainbowCatalogApiClient.getCatalogs()
-                .map(HttpResponse::body)
-                .flatMap(catalogList ->
-                        Mono.zip(catalogList.stream()
-                                        .map(CatalogVO::getAtId)
-                                        .map(id -> catalogApiClient.retrieveCatalog(id, null)
-                                                .map(HttpResponse::body)
-                                                .filter(cvo -> cvo.getCategory().stream()
-                                                        .map(CategoryRefVO::getId)
-                                                        .anyMatch(categoryIds::contains)
-                                                )
-                                                .map(org.fiware.iam.tmforum.productcatalog.model.CatalogVO::getId)
-                                                // prevent empty monos, because they will terminate the zip
-                                                .defaultIfEmpty(EMPTY_STRING_MARKER)
-                                        )
-                                        .toList(),
-                                ids -> Arrays.stream(ids)
-                                        .filter(String.class::isInstance)
-                                        .map(String.class::cast)
-                                        .filter(id -> !id.equals(EMPTY_STRING_MARKER))
-                                        .toList())
-                );
+        return rainbowCatalogStreamingClient.getCatalogs()
+                .map(CatalogSummary::id)
+                .flatMapSequential(id -> catalogApiClient.retrieveCatalog(id, null)
+                        .map(HttpResponse::body)
+                        .filter(cvo -> cvo.getCategory().stream()
+                                .map(CategoryRefVO::getId)
+                                .anyMatch(categoryIds::contains)
+                        )
+                        .map(org.fiware.iam.tmforum.productcatalog.model.CatalogVO::getId))
+                .collectList();
     }
 
 
@@ -225,6 +230,7 @@ public class RainbowProductOfferingHandler implements ProductOfferingHandler {
         return Mono.zip(catalogs.stream()
                         .map(id -> rainbowCatalogApiClient
                                 .createDataserviceInCatalog(id, dataserviceVO)
+                                .doOnNext(resp -> recordDataservice(id, dataserviceVO, resp.getStatus() == HttpStatus.CREATED))
                                 .onErrorMap(t ->
                                         new IllegalArgumentException("Was not able to create dataservice %s".formatted(dataserviceVO), t)))
                         .toList(),
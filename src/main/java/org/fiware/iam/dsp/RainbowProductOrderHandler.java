@@ -11,9 +11,12 @@ import org.fiware.iam.configuration.GeneralProperties;
 import org.fiware.iam.handlers.ProductOrderHandler;
 import org.fiware.iam.exception.RainbowException;
 import org.fiware.iam.exception.TMForumException;
+import org.fiware.iam.tmforum.OrderLedger;
 import org.fiware.iam.tmforum.TMForumAdapter;
 import org.fiware.iam.tmforum.agreement.model.RelatedPartyTmfVO;
 import org.fiware.iam.tmforum.productorder.model.AgreementRefVO;
+import org.fiware.iam.tmforum.productorder.model.OrderItemActionTypeVO;
+import org.fiware.iam.tmforum.productorder.model.ProductOfferingRefVO;
 import org.fiware.iam.tmforum.productorder.model.ProductOrderItemVO;
 import org.fiware.iam.tmforum.productorder.model.ProductOrderVO;
 import org.fiware.iam.tmforum.productorder.model.QuoteRefVO;
@@ -22,10 +25,12 @@ import org.fiware.iam.tmforum.quote.model.QuoteStateTypeVO;
 import org.fiware.iam.tmforum.quote.model.QuoteVO;
 import org.fiware.rainbow.model.AgreementVO;
 import org.fiware.rainbow.model.ProviderNegotiationVO;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.concurrent.Queues;
 
 import java.util.*;
-import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Requires(condition = GeneralProperties.RainbowCondition.class)
 @RequiredArgsConstructor
@@ -39,6 +44,9 @@ public class RainbowProductOrderHandler implements ProductOrderHandler {
     private final TMForumAdapter tmForumAdapter;
     private final TMFMapper tmfMapper;
     private final RainbowAdapter rainbowAdapter;
+    private final QuoteProcessIndex quoteProcessIndex;
+    private final GeneralProperties generalProperties;
+    private final OrderLedger orderLedger;
 
     @Override
     public Mono<HttpResponse<?>> handleProductOrderComplete(String organizationId, ProductOrderVO productOrderVO) {
@@ -51,41 +59,30 @@ public class RainbowProductOrderHandler implements ProductOrderHandler {
                 .toList();
 
         if (!containsQuote(productOrderVO)) {
-            return Mono.zipDelayError(
-                            productOrderVO
-                                    .getProductOrderItem()
-                                    .stream()
-                                    .map(ProductOrderItemVO::getProductOffering)
-                                    .filter(Objects::nonNull)
-                                    .map(offering -> rainbowAdapter.createAgreement(organizationId, offering.getId()))
-                                    .toList(),
-                            res -> {
-                                List<AgreementVO> agreementVOS = Arrays.stream(res).filter(Objects::nonNull).filter(AgreementVO.class::isInstance).map(AgreementVO.class::cast).toList();
-                                return updateProductOrder(productOrderVO, agreementVOS, relatedPartyTmfVOS);
-                            })
-                    .flatMap(Function.identity())
+            return updateAgreements(organizationId, productOrderVO, relatedPartyTmfVOS)
                     .map(po -> (HttpResponse<?>) HttpResponse.noContent());
         } else {
-            return tmForumAdapter.getQuoteById(getQuoteRef(productOrderVO).getId())
-                    .flatMap(quoteVO -> {
-                        String offerId = getOfferIdFromQuote(quoteVO);
+            return getQuoteProcess(getQuoteRef(productOrderVO).getId(), false)
+                    .flatMap(quoteProcess -> {
+                        String providerId = quoteProcess.providerId();
+                        String offerId = quoteProcess.acceptedOfferId();
 
-                        Mono<?> agreementMono = rainbowAdapter.getNegotiationProcess(quoteVO.getExternalId())
+                        Mono<?> agreementMono = rainbowAdapter.getNegotiationProcess(providerId)
                                 .map(ProviderNegotiationVO::getCnProcessId)
                                 .flatMap(rainbowAdapter::getAgreement)
                                 .map(avo -> avo.dataServiceId(offerId))
-                                .flatMap(agreementVO -> updateProductOrder(productOrderVO, List.of(agreementVO), relatedPartyTmfVOS));
+                                .flatMap(agreementVO -> updateProductOrder(productOrderVO, Flux.just(agreementVO), relatedPartyTmfVOS));
 
-                        Mono<?> negotiationMono = rainbowAdapter.getNegotiationProcessState(quoteVO.getExternalId())
+                        Mono<?> negotiationMono = rainbowAdapter.getNegotiationProcessState(providerId)
                                 .flatMap(state -> {
                                     if (state.equals(STATE_FINALIZED)) {
                                         // nothing to do here, but we want the chain to continue
                                         return Mono.just(Optional.empty());
                                     }
                                     if (!state.equals(STATE_VERIFIED)) {
-                                        throw new RainbowException(String.format("Negotiation process %s is in state %s. Not allowed for order completion.", quoteVO.getExternalId(), state));
+                                        throw new RainbowException(String.format("Negotiation process %s is in state %s. Not allowed for order completion.", providerId, state));
                                     }
-                                    return rainbowAdapter.updateNegotiationProcessByProviderId(quoteVO.getExternalId(), "dspace:FINALIZED");
+                                    return rainbowAdapter.updateNegotiationProcessByProviderId(providerId, "dspace:FINALIZED");
                                 });
                         return Mono.zipDelayError(agreementMono, negotiationMono);
                     })
@@ -99,33 +96,50 @@ public class RainbowProductOrderHandler implements ProductOrderHandler {
 
     @Override
     public Mono<HttpResponse<?>> handleProductOrderStop(String organizationId, ProductOrderVO productOrderVO) {
-        List<Mono<Boolean>> deletionMonos = productOrderVO.getAgreement()
+        List<Mono<Boolean>> deletionMonos = Optional.ofNullable(productOrderVO.getAgreement())
+                .orElse(List.of())
                 .stream()
                 .map(AgreementRefVO::getId)
                 .map(rainbowAdapter::deleteAgreement)
                 .toList();
+        if (deletionMonos.isEmpty()) {
+            orderLedger.removeAgreements(productOrderVO.getId());
+            return Mono.just(HttpResponse.status(HttpStatus.ACCEPTED));
+        }
         return Mono.zipDelayError(deletionMonos, deletions -> {
-            if (Set.of(deletions).contains(false)) {
+            if (Arrays.asList(deletions).contains(false)) {
                 log.warn("Was not able to delete the agreement for order {}.", productOrderVO);
-                HttpResponse.status(HttpStatus.BAD_GATEWAY);
+                return HttpResponse.status(HttpStatus.BAD_GATEWAY);
             }
+            // only forget the agreements once they are deleted, a failed stop has to be retried with the same record
+            orderLedger.removeAgreements(productOrderVO.getId());
             return HttpResponse.status(HttpStatus.ACCEPTED);
         });
     }
 
     @Override
     public Mono<HttpResponse<?>> handleProductOrderNegotiation(String organizationId, ProductOrderVO productOrderVO) {
-        return tmForumAdapter
-                .getQuoteById(getQuoteRef(productOrderVO).getId())
-                .flatMap(quoteVO -> {
-                    if (quoteVO.getState() != QuoteStateTypeVO.ACCEPTED) {
-                        throw new TMForumException(String.format("The quote is not in state accepted, cannot be used for product ordering. %s:%s.", quoteVO.getId(), quoteVO.getState()));
-                    }
-                    return rainbowAdapter.updateNegotiationProcessByProviderId(quoteVO.getExternalId(), STATE_VERIFIED);
-                })
+        return getQuoteProcess(getQuoteRef(productOrderVO).getId(), true)
+                .flatMap(quoteProcess -> rainbowAdapter.updateNegotiationProcessByProviderId(quoteProcess.providerId(), STATE_VERIFIED))
                 .map(t -> HttpResponse.noContent());
     }
 
+    /**
+     * Returns the negotiation process of the quote. Taken from the index if the quote is known to be accepted, fetched
+     * from TMForum otherwise.
+     */
+    private Mono<QuoteProcessIndex.QuoteProcess> getQuoteProcess(String quoteId, boolean requireAccepted) {
+        return Mono.justOrEmpty(quoteProcessIndex.getAccepted(quoteId))
+                .switchIfEmpty(Mono.defer(() -> tmForumAdapter.getQuoteById(quoteId)
+                        .map(quoteVO -> {
+                            if (requireAccepted && quoteVO.getState() != QuoteStateTypeVO.ACCEPTED) {
+                                throw new TMForumException(String.format("The quote is not in state accepted, cannot be used for product ordering. %s:%s.", quoteVO.getId(), quoteVO.getState()));
+                            }
+                            quoteProcessIndex.record(quoteVO);
+                            return new QuoteProcessIndex.QuoteProcess(quoteVO.getExternalId(), getOfferIdFromQuote(quoteVO), quoteVO.getState() == QuoteStateTypeVO.ACCEPTED);
+                        })));
+    }
+
     private String getOfferIdFromQuote(QuoteVO quoteVO) {
         return quoteVO
                 .getQuoteItem()
@@ -149,19 +163,62 @@ public class RainbowProductOrderHandler implements ProductOrderHandler {
         return productOrderVO.getQuote() != null && !productOrderVO.getQuote().isEmpty();
     }
 
-    private Mono<ProductOrderVO> updateProductOrder(ProductOrderVO productOrderVO, List<AgreementVO> agreementVOS, List<RelatedPartyTmfVO> relatedPartyTmfVOS) {
-        return Mono.zipDelayError(
-                agreementVOS.stream()
-                        .map(agreementVO ->
-                                tmForumAdapter.createAgreement(productOrderVO.getId(), agreementVO.getDataServiceId(), agreementVO.getAgreementId(), relatedPartyTmfVOS))
-                        .toList(),
-                agreements -> {
-                    List<String> agreementIds = Arrays.stream(agreements)
-                            .filter(String.class::isInstance)
-                            .map(String.class::cast)
-                            .toList();
-                    return tmForumAdapter.addAgreementToOrder(productOrderVO.getId(), agreementIds);
-                }).flatMap(Function.identity());
+    /**
+     * Creates one agreement per offering newly ordered and deletes the ones of offerings no longer ordered, at rainbow
+     * and at TMForum. Agreements of offerings that are still part of the order are kept.
+     */
+    private Mono<ProductOrderVO> updateAgreements(String organizationId, ProductOrderVO productOrderVO, List<RelatedPartyTmfVO> relatedPartyTmfVOS) {
+        String orderId = productOrderVO.getId();
+        // one agreement per offering, independent of the number of items referencing it
+        Set<String> offeringIds = Optional.ofNullable(productOrderVO.getProductOrderItem())
+                .orElse(List.of())
+                .stream()
+                .filter(item -> item.getAction() != OrderItemActionTypeVO.DELETE)
+                .map(ProductOrderItemVO::getProductOffering)
+                .filter(Objects::nonNull)
+                .map(ProductOfferingRefVO::getId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<String, OrderLedger.Agreement> previousAgreements = orderLedger.getAgreements(orderId).orElse(Map.of());
+        OrderLedger.Diff<String, String> diff = OrderLedger.diff(previousAgreements.keySet(), offeringIds);
+        if (diff.isEmpty()) {
+            return Mono.just(productOrderVO);
+        }
+
+        Mono<Map<String, OrderLedger.Agreement>> createdAgreements = Flux.fromIterable(diff.upserted().keySet())
+                .flatMapDelayError(offeringId -> rainbowAdapter.createAgreement(organizationId, offeringId)
+                                .flatMap(agreementVO -> tmForumAdapter.createAgreement(orderId, agreementVO.getDataServiceId(), agreementVO.getAgreementId(), relatedPartyTmfVOS)
+                                        .map(tmfAgreementId -> Map.entry(offeringId, new OrderLedger.Agreement(agreementVO.getAgreementId(), tmfAgreementId)))),
+                        generalProperties.getOrderItemConcurrency(), Queues.XS_BUFFER_SIZE)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+        Mono<Boolean> deletedAgreements = Flux.fromIterable(diff.removed().keySet())
+                .map(previousAgreements::get)
+                .flatMap(agreement -> Mono.zip(rainbowAdapter.deleteAgreement(agreement.agreementId()), tmForumAdapter.deleteAgreement(agreement.tmfAgreementId()),
+                        (rainbowDeleted, tmfDeleted) -> rainbowDeleted && tmfDeleted), generalProperties.getOrderItemConcurrency())
+                .all(Boolean::booleanValue);
+
+        return Mono.zipDelayError(createdAgreements, deletedAgreements)
+                .flatMap(results -> {
+                    if (!results.getT2()) {
+                        log.warn("Was not able to delete all agreements of offerings removed from order {}.", orderId);
+                    }
+                    Map<String, OrderLedger.Agreement> currentAgreements = new LinkedHashMap<>(previousAgreements);
+                    currentAgreements.keySet().retainAll(offeringIds);
+                    currentAgreements.putAll(results.getT1());
+                    // a single patch, since the agreement list of the order is replaced with every patch
+                    return tmForumAdapter.addAgreementToOrder(orderId, currentAgreements.values().stream().map(OrderLedger.Agreement::tmfAgreementId).toList())
+                            .doOnNext(po -> orderLedger.recordAgreements(orderId, currentAgreements));
+                });
+    }
 
+    private Mono<ProductOrderVO> updateProductOrder(ProductOrderVO productOrderVO, Flux<AgreementVO> agreementVOS, List<RelatedPartyTmfVO> relatedPartyTmfVOS) {
+        // only the ids are kept, to not hold all agreements in memory
+        return agreementVOS
+                .flatMapDelayError(agreementVO ->
+                                tmForumAdapter.createAgreement(productOrderVO.getId(), agreementVO.getDataServiceId(), agreementVO.getAgreementId(), relatedPartyTmfVOS),
+                        generalProperties.getOrderItemConcurrency(), Queues.XS_BUFFER_SIZE)
+                .collectList()
+                // a single patch, since the agreement list of the order is replaced with every patch
+                .filter(agreementIds -> !agreementIds.isEmpty())
+                .flatMap(agreementIds -> tmForumAdapter.addAgreementToOrder(productOrderVO.getId(), agreementIds));
     }
 }
@@ -45,10 +45,11 @@ public class RainbowQuoteHandler implements QuoteHandler {
     private final RainbowAdapter rainbowAdapter;
     private final PriceMapper priceMapper;
     private final GeneralProperties generalProperties;
+    private final QuoteProcessIndex quoteProcessIndex;
 
     @Override
     public Mono<HttpResponse<?>> handleQuoteCreation(QuoteVO quoteVO) {
-        List<PermissionVO> permissionVOS = new ArrayList<>(getPermissionsFromQuote(objectMapper, quoteVO));
+        List<PermissionVO> permissionVOS = new ArrayList<>(getPermissionsFromQuote(quoteVO));
 
         return tmForumAdapter.getConsumerDid(quoteVO)
                 .flatMap(id -> rainbowAdapter.createParticipant(id, CONSUMER_ROLE))
@@ -79,6 +80,7 @@ public class RainbowQuoteHandler implements QuoteHandler {
                 .flatMap(negotiationRequestVO ->
                         rainbowAdapter
                                 .createNegotiationRequest(negotiationRequestVO)
+                                .doOnNext(id -> quoteProcessIndex.recordCreation(quoteVO.getId(), id))
                                 .flatMap(id -> tmForumAdapter.updateExternalId(quoteVO, id))
                                 .map(t -> HttpResponse.noContent()));
     }
@@ -87,7 +89,7 @@ public class RainbowQuoteHandler implements QuoteHandler {
     public Mono<HttpResponse<?>> handleQuoteStateChange(QuoteVO quoteVO) {
         QuoteStateTypeVO quoteStateTypeVO = quoteVO.getState();
         log.debug("Quote state is {}", quoteStateTypeVO);
-        return switch (quoteStateTypeVO) {
+        Mono<HttpResponse<?>> stateChange = switch (quoteStateTypeVO) {
             case APPROVED ->
                     rainbowAdapter.updateNegotiationProcessByProviderId(quoteVO.getExternalId(), OFFERED_STATE)
                             .map(t -> HttpResponse.noContent());
@@ -100,10 +102,12 @@ public class RainbowQuoteHandler implements QuoteHandler {
             // a lot of requests can just be ignored
             default -> Mono.just(HttpResponse.noContent());
         };
+        return stateChange.doOnNext(r -> quoteProcessIndex.record(quoteVO));
     }
 
     @Override
     public Mono<HttpResponse<?>> handleQuoteDeletion(QuoteVO quoteVO) {
+        quoteProcessIndex.remove(quoteVO.getId());
         if (quoteVO.getExternalId() == null && !quoteVO.getExternalId().isEmpty()) {
             return rainbowAdapter.updateNegotiationProcessByProviderId(quoteVO.getExternalId(), TERMINATED_STATE)
                     .map(t -> HttpResponse.noContent());
@@ -141,10 +145,9 @@ public class RainbowQuoteHandler implements QuoteHandler {
                 .toList();
     }
 
-    private List<PermissionVO> getPermissionsFromQuote(ObjectMapper objectMapper, QuoteVO quoteVO) {
+    private List<PermissionVO> getPermissionsFromQuote(QuoteVO quoteVO) {
         return getPoliciesFromQuote(quoteVO)
                 .stream()
-                .map(o -> objectMapper.convertValue(o, Policy.class))
                 .map(Policy::getPermission)
                 .flatMap(List::stream)
                 .toList();
@@ -155,18 +158,12 @@ public class RainbowQuoteHandler implements QuoteHandler {
         ObligationVO obligationVO = new ObligationVO();
         obligationVO.odrlColonAction(PAYMENT_ACTION);
 
-        return Mono.zip(
-                getRelevantQuoteItems(quoteVO)
+        // all prices of the quote are mapped in one step, to retrieve every referenced offering price only once
+        return priceMapper.toObligationConstraints(getRelevantQuoteItems(quoteVO)
                         .map(QuoteItemVO::getQuoteItemPrice)
+                        .filter(Objects::nonNull)
                         .flatMap(List::stream)
-                        .map(priceMapper::toObligationConstraints)
-                        .toList(),
-                cons -> obligationVO.odrlColonConstraint(
-                        Arrays.asList(cons)
-                                .stream()
-                                .filter(List.class::isInstance)
-                                .map(List.class::cast)
-                                .flatMap(List::stream)
-                                .toList()));
+                        .toList())
+                .map(obligationVO::odrlColonConstraint);
     }
 }
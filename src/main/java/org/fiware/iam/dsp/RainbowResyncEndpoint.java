@@ -0,0 +1,25 @@
+package org.fiware.iam.dsp;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Write;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.configuration.GeneralProperties;
+import reactor.core.publisher.Mono;
+
+/**
+ * Management endpoint to force a resync of the {@link RainbowContentHashes}, f.e. after catalogs were changed in
+ * Rainbow directly. Available at the management port, with {@code POST /rainbow-resync}.
+ */
+@Requires(condition = GeneralProperties.RainbowCondition.class)
+@RequiredArgsConstructor
+@Endpoint(id = "rainbow-resync", defaultSensitive = false)
+public class RainbowResyncEndpoint {
+
+    private final RainbowContentHashes rainbowContentHashes;
+
+    @Write
+    public Mono<RainbowContentHashes.ResyncResult> resync() {
+        return rainbowContentHashes.resync();
+    }
+}
@@ -0,0 +1,21 @@
+package org.fiware.iam.handlers;
+
+import io.micronaut.http.HttpResponse;
+import org.fiware.iam.tmforum.productcatalog.model.ProductOfferingPriceVO;
+import reactor.core.publisher.Mono;
+
+/**
+ * Handle all events around TMForum ProductOfferingPrices.
+ */
+public interface ProductOfferingPriceHandler {
+
+    /**
+     * Handle the creation or any change of a ProductOfferingPrice
+     */
+    Mono<HttpResponse<?>> handleProductOfferingPriceChange(ProductOfferingPriceVO productOfferingPriceVO);
+
+    /**
+     * Handle the deletion of a ProductOfferingPrice
+     */
+    Mono<HttpResponse<?>> handleProductOfferingPriceDeletion(ProductOfferingPriceVO productOfferingPriceVO);
+}
@@ -0,0 +1,21 @@
+package org.fiware.iam.handlers;
+
+import io.micronaut.http.HttpResponse;
+import org.fiware.iam.tmforum.productcatalog.model.ProductSpecificationVO;
+import reactor.core.publisher.Mono;
+
+/**
+ * Handle all events around TMForum ProductSpecifications.
+ */
+public interface ProductSpecificationHandler {
+
+    /**
+     * Handle the creation or any change of a ProductSpecification
+     */
+    Mono<HttpResponse<?>> handleSpecificationChange(ProductSpecificationVO productSpecificationVO);
+
+    /**
+     * Handle the deletion of a ProductSpecification
+     */
+    Mono<HttpResponse<?>> handleSpecificationDeletion(ProductSpecificationVO productSpecificationVO);
+}
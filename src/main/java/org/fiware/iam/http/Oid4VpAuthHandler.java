@@ -10,28 +10,41 @@ import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MutableHttpRequest;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import jakarta.inject.Named;
 import jakarta.inject.Singleton;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.fiware.iam.configuration.Oid4VpConfiguration;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import java.net.URI;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-
+/**
+ * Retries requests answered with 401 using an access token acquired through OID4VP. Acquiring a token reads the
+ * credentials, signs the presentation and uses the blocking parts of the JDK http client, thus it runs on the
+ * (virtual-thread) oid4vp executor instead of the calling event loop.
+ */
 @Requires(condition = Oid4VpConfiguration.Oid4VpCondition.class)
 @Slf4j
 @Singleton
-@RequiredArgsConstructor
 public class Oid4VpAuthHandler implements AuthHandler {
 
     public static final String CLIENT_ID_ATTRIBUTE = "clientId";
     public static final String SCOPE_ATTRIBUTE = "scope";
+    public static final String OID4VP_EXECUTOR = "oid4vp";
 
     private final OID4VPClient oid4VPClient;
+    private final Scheduler oid4VpScheduler;
+
+    public Oid4VpAuthHandler(OID4VPClient oid4VPClient, @Named(OID4VP_EXECUTOR) ExecutorService executorService) {
+        this.oid4VPClient = oid4VPClient;
+        this.oid4VpScheduler = Schedulers.fromExecutorService(executorService, OID4VP_EXECUTOR);
+    }
 
     private Set<String> getScope(HttpRequest request) {
         return request.getAttribute(SCOPE_ATTRIBUTE, Set.class)
@@ -70,7 +83,9 @@ public class Oid4VpAuthHandler implements AuthHandler {
                                 getClientId(request),
                                 getScope(request)
                         );
-                        return Mono.fromFuture(oid4VPClient.getAccessToken(params))
+                        return Mono.fromCallable(() -> oid4VPClient.getAccessToken(params))
+                                .subscribeOn(oid4VpScheduler)
+                                .flatMap(Mono::fromFuture)
                                 .map(TokenResponse::getAccessToken)
                                 .flatMap(token -> {
                                     request.bearerAuth(token);
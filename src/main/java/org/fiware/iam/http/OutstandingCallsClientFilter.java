@@ -0,0 +1,30 @@
+package org.fiware.iam.http;
+
+import io.micronaut.http.HttpAttributes;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.ClientFilterChain;
+import io.micronaut.http.filter.HttpClientFilter;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.operations.InFlightTracker;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+/**
+ * Counts the outstanding calls per downstream service, identified by the id of the client or, for clients without id,
+ * by host and port.
+ */
+@RequiredArgsConstructor
+@Filter("/**")
+public class OutstandingCallsClientFilter implements HttpClientFilter {
+
+    private final InFlightTracker inFlightTracker;
+
+    @Override
+    public Publisher<? extends HttpResponse<?>> doFilter(MutableHttpRequest<?> request, ClientFilterChain chain) {
+        String downstream = request.getAttribute(HttpAttributes.SERVICE_ID, String.class)
+                .orElseGet(() -> "%s:%s".formatted(request.getUri().getHost(), request.getUri().getPort()));
+        return inFlightTracker.trackCall(downstream, Flux.from(chain.proceed(request)));
+    }
+}
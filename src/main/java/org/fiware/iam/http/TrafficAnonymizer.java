@@ -0,0 +1,92 @@
+package org.fiware.iam.http;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replaces DIDs and ids in recorded requests by pseudonyms, derived from the value through a keyed hash. Equal values
+ * get equal pseudonyms, thus references between the recorded entities stay intact. Not thread-safe.
+ */
+final class TrafficAnonymizer {
+
+    private static final String HASH_ALGORITHM = "HmacSHA256";
+    private static final Pattern DID_PATTERN = Pattern.compile("did:([a-z0-9]+):[A-Za-z0-9._%:-]+");
+
+    private final Mac mac;
+    private final Set<String> idKeys;
+
+    TrafficAnonymizer(byte[] salt, Set<String> idKeys) {
+        try {
+            this.mac = Mac.getInstance(HASH_ALGORITHM);
+            this.mac.init(new SecretKeySpec(salt, HASH_ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Was not able to initialize the anonymization.", e);
+        }
+        this.idKeys = idKeys;
+    }
+
+    /**
+     * Anonymizes the node in place.
+     */
+    void anonymize(JsonNode node) {
+        if (node instanceof ObjectNode objectNode) {
+            Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getValue() instanceof TextNode textNode) {
+                    field.setValue(new TextNode(idKeys.contains(field.getKey()) ? anonymizeId(textNode.textValue()) : anonymizeDids(textNode.textValue())));
+                } else {
+                    anonymize(field.getValue());
+                }
+            }
+        } else if (node instanceof ArrayNode arrayNode) {
+            for (int i = 0; i < arrayNode.size(); i++) {
+                if (arrayNode.get(i) instanceof TextNode textNode) {
+                    arrayNode.set(i, new TextNode(anonymizeDids(textNode.textValue())));
+                } else {
+                    anonymize(arrayNode.get(i));
+                }
+            }
+        }
+    }
+
+    // keeps prefixes like urn:ngsi-ld:product-order: or the base of an href, so that id and href get the same pseudonym
+    String anonymizeId(String id) {
+        if (DID_PATTERN.matcher(id).matches()) {
+            return anonymizeDids(id);
+        }
+        int lastSeparator = Math.max(id.lastIndexOf(':'), id.lastIndexOf('/'));
+        return id.substring(0, lastSeparator + 1) + pseudonym(id.substring(lastSeparator + 1));
+    }
+
+    String anonymizeDids(String value) {
+        Matcher matcher = DID_PATTERN.matcher(value);
+        if (!matcher.find()) {
+            return value;
+        }
+        StringBuilder anonymized = new StringBuilder();
+        do {
+            matcher.appendReplacement(anonymized, "did:" + matcher.group(1) + ":" + pseudonym(matcher.group()));
+        } while (matcher.find());
+        return matcher.appendTail(anonymized).toString();
+    }
+
+    private String pseudonym(String value) {
+        ByteBuffer hash = ByteBuffer.wrap(mac.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+        return new UUID(hash.getLong(), hash.getLong()).toString();
+    }
+}
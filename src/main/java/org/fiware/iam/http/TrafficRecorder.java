@@ -0,0 +1,153 @@
+package org.fiware.iam.http;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Requires;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.TrafficRecordingProperties;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records the bodies of incoming requests, to replay the production workload in performance tests. Requests are
+ * buffered and written by a dedicated thread to a gzip compressed, newline delimited json file. Every line contains the
+ * time the request was received at, its path and its body, anonymized if configured.
+ */
+@Requires(condition = TrafficRecordingProperties.TrafficRecordingCondition.class)
+@Slf4j
+@Singleton
+public class TrafficRecorder {
+
+    private static final String RECORDED_METRIC = "contract.management.traffic.recorded";
+    private static final String DROPPED_METRIC = "contract.management.traffic.dropped";
+    private static final Duration WRITE_INTERVAL = Duration.ofMillis(200);
+    private static final int SALT_LENGTH = 32;
+
+    private final TrafficRecordingProperties trafficRecordingProperties;
+    private final ObjectMapper objectMapper;
+    private final TrafficAnonymizer trafficAnonymizer;
+    private final Counter recordedCounter;
+    private final Counter droppedCounter;
+
+    private final Queue<Recording> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final AtomicLong recorded = new AtomicLong();
+    private final OutputStream outputStream;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public TrafficRecorder(TrafficRecordingProperties trafficRecordingProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.trafficRecordingProperties = trafficRecordingProperties;
+        this.objectMapper = objectMapper.copy().disable(SerializationFeature.INDENT_OUTPUT);
+        this.trafficAnonymizer = trafficRecordingProperties.isAnonymize()
+                ? new TrafficAnonymizer(getSalt(trafficRecordingProperties), new HashSet<>(trafficRecordingProperties.getIdKeys()))
+                : null;
+        this.recordedCounter = Counter.builder(RECORDED_METRIC).register(meterRegistry);
+        this.droppedCounter = Counter.builder(DROPPED_METRIC).register(meterRegistry);
+        Path file = Path.of(trafficRecordingProperties.getFile());
+        try {
+            // every start appends a new gzip member, which are read as one stream
+            this.outputStream = new GZIPOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Was not able to open the traffic recording %s.".formatted(file), e);
+        }
+        this.writer = Thread.ofPlatform().daemon().name("traffic-recorder").start(this::writeRecordings);
+        log.info("Recording the incoming traffic to {}.", file);
+    }
+
+    /**
+     * Records the body of a request to the given path. Does not block, requests exceeding the buffer are dropped.
+     */
+    public void record(String path, Object body) {
+        if (!running || recorded.get() >= trafficRecordingProperties.getMaxRecords()) {
+            return;
+        }
+        if (buffered.incrementAndGet() > trafficRecordingProperties.getBufferSize()) {
+            buffered.decrementAndGet();
+            droppedCounter.increment();
+            return;
+        }
+        // only stored requests count towards the maximum, dropped ones did not take a record
+        long maxRecords = trafficRecordingProperties.getMaxRecords();
+        if (recorded.getAndUpdate(count -> count < maxRecords ? count + 1 : count) >= maxRecords) {
+            buffered.decrementAndGet();
+            return;
+        }
+        // copied, since the body is still used while handling the request
+        buffer.add(new Recording(System.currentTimeMillis(), path, objectMapper.valueToTree(body)));
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join();
+    }
+
+    private void writeRecordings() {
+        try (outputStream) {
+            while (running || !buffer.isEmpty()) {
+                Recording recording;
+                boolean written = false;
+                while ((recording = buffer.poll()) != null) {
+                    buffered.decrementAndGet();
+                    if (trafficAnonymizer != null) {
+                        trafficAnonymizer.anonymize(recording.body());
+                    }
+                    outputStream.write(objectMapper.writeValueAsBytes(recording));
+                    outputStream.write('\n');
+                    recordedCounter.increment();
+                    written = true;
+                }
+                if (written) {
+                    outputStream.flush();
+                }
+                if (running) {
+                    Thread.sleep(WRITE_INTERVAL);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Was not able to write the traffic recording, stop recording.", e);
+            running = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] getSalt(TrafficRecordingProperties trafficRecordingProperties) {
+        if (trafficRecordingProperties.getAnonymizationSalt() != null) {
+            return trafficRecordingProperties.getAnonymizationSalt().getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] salt = new byte[SALT_LENGTH];
+        new SecureRandom().nextBytes(salt);
+        return salt;
+    }
+
+    /**
+     * A recorded request.
+     *
+     * @param timestamp epoch millis the request was received at
+     * @param path      path of the request, relative to the basepath
+     * @param body      body of the request
+     */
+    public record Recording(long timestamp, String path, JsonNode body) {
+    }
+}
@@ -13,6 +13,9 @@ import org.fiware.iam.cm.api.OrderApi;
 import org.fiware.iam.cm.model.OrderEventVO;
 import org.fiware.iam.configuration.GeneralProperties;
 import org.fiware.iam.domain.ContractManagement;
+import org.fiware.iam.http.TrafficRecorder;
+import org.fiware.iam.operations.InFlightTracker;
+import org.fiware.iam.scheduling.EventScheduler;
 import org.fiware.iam.til.TrustedIssuersListAdapter;
 import org.fiware.iam.til.model.CredentialsVO;
 import org.fiware.iam.tmforum.CredentialsConfigResolver;
@@ -21,6 +24,8 @@ import reactor.core.publisher.Mono;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Requires(condition = GeneralProperties.CentralMarketplaceCondition.class)
 @Slf4j
@@ -28,12 +33,34 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ContractManagementController implements OrderApi {
 
+    private static final String ORDER_START_PATH = "/order/start";
+    private static final String ORDER_STOP_PATH = "/order/stop";
+    private static final String ORDER_START_EVENT = "OrderStartEvent";
+    private static final String ORDER_STOP_EVENT = "OrderStopEvent";
+
     private final TrustedIssuersListAdapter trustedIssuersListAdapter;
     private final PAPAdapter papAdapter;
     private final CMMapper cmMapper;
+    private final EventScheduler eventScheduler;
+    private final Optional<TrafficRecorder> trafficRecorder;
+    private final InFlightTracker inFlightTracker;
 
     @Override
     public Mono<HttpResponse<Object>> handleOrderStart(OrderEventVO orderVO) {
+        trafficRecorder.ifPresent(recorder -> recorder.record(ORDER_START_PATH, orderVO));
+        return inFlightTracker.trackEvent(ORDER_START_EVENT,
+                eventScheduler.schedule(orderVO.getCustomerId(), EventScheduler.Lane.FAIR, () -> startOrder(orderVO)));
+    }
+
+    @Override
+    public Mono<HttpResponse<Object>> handleOrderStop(OrderEventVO orderStopEventVO) {
+        trafficRecorder.ifPresent(recorder -> recorder.record(ORDER_STOP_PATH, orderStopEventVO));
+        // revocations of access are handled with priority
+        return inFlightTracker.trackEvent(ORDER_STOP_EVENT,
+                eventScheduler.schedule(orderStopEventVO.getCustomerId(), EventScheduler.Lane.PRIORITY, () -> stopOrder(orderStopEventVO)));
+    }
+
+    private Mono<HttpResponse<Object>> startOrder(OrderEventVO orderVO) {
 
         List<Mono<Boolean>> creationResults = orderVO.getPolicies()
                 .stream()
@@ -41,7 +68,7 @@ public class ContractManagementController implements OrderApi {
                 .toList();
         List<CredentialsVO> credentialsVOS = orderVO.getCredentialsConfig().stream().map(cmMapper::map).toList();
         Mono<Boolean> tilResult = trustedIssuersListAdapter
-                .allowIssuer(orderVO.getCustomerId(), List.of(new CredentialsConfigResolver.CredentialConfig(new ContractManagement(true), credentialsVOS)));
+                .grantCredentials(orderVO.getCustomerId(), orderVO.getOrderId(), Set.copyOf(credentialsVOS));
 
         List<Mono<Boolean>> successList = new ArrayList<>(creationResults);
         successList.add(tilResult);
@@ -49,8 +76,7 @@ public class ContractManagementController implements OrderApi {
         return toResponse(successList);
     }
 
-    @Override
-    public Mono<HttpResponse<Object>> handleOrderStop(OrderEventVO orderStopEventVO) {
+    private Mono<HttpResponse<Object>> stopOrder(OrderEventVO orderStopEventVO) {
         CredentialsConfigResolver.CredentialConfig credentialConfig = new CredentialsConfigResolver.CredentialConfig(
                 new ContractManagement(true),
                 orderStopEventVO.getCredentialsConfig()
@@ -64,11 +90,13 @@ public class ContractManagementController implements OrderApi {
                 .stream()
                 .map(odrlPolicyJsonVO -> papAdapter.deletePolicy(orderId, odrlPolicyJsonVO.getAdditionalProperties()))
                 .toList();
-        Mono<Boolean> issuerDenyResult = trustedIssuersListAdapter.denyIssuer(issuerId,
-                        List.of(credentialConfig))
-                .map(HttpResponse::getStatus)
-                .map(HttpStatus::getCode)
-                .map(code -> code > 199 && code < 300);
+        // orders started before the ledger was enabled deny the credentials of the event
+        Mono<Boolean> issuerDenyResult = trustedIssuersListAdapter.revokeCredentials(orderId)
+                .switchIfEmpty(Mono.defer(() -> trustedIssuersListAdapter.denyIssuer(issuerId,
+                                List.of(credentialConfig))
+                        .map(HttpResponse::getStatus)
+                        .map(HttpStatus::getCode)
+                        .map(code -> code > 199 && code < 300)));
         List<Mono<Boolean>> successList = new ArrayList<>(policyDeleteResults);
         successList.add(issuerDenyResult);
 
@@ -0,0 +1,236 @@
+package org.fiware.iam.oid4vp;
+
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.fiware.iam.configuration.Oid4VpConfiguration;
+import org.fiware.iam.operations.CacheStatistics;
+import org.fiware.iam.operations.InspectableCache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.cert.CertPath;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.Extension;
+import java.security.cert.PKIXCertPathValidatorResult;
+import java.security.cert.PKIXParameters;
+import java.security.cert.PKIXRevocationChecker;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Results of the PKIX validation of certificate chains (e.g. the ones of verifiers, when acquiring OID4VP tokens),
+ * keyed by the fingerprints of the chain, starting with the leaf. Validations use a dedicated {@link CertPathValidator}
+ * of the preferred PKIX provider, with revocation enabled through a {@link PKIXRevocationChecker} that sends a fresh
+ * nonce with every OCSP request. Successful validations are reused until the earliest of the end of validity of the
+ * chain and the configured max age, revocation statuses (good or revoked) at most for the revocation max age.
+ * Nothing is registered globally, other validations of the JVM are not affected.
+ */
+@Requires(condition = Oid4VpConfiguration.Oid4VpCondition.class)
+@Slf4j
+@Singleton
+public class CertificateVerificationCache implements InspectableCache {
+
+    private static final String PKIX = "PKIX";
+    private static final String X509 = "X.509";
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+    private static final int MAX_CACHED_VERIFICATIONS = 10_000;
+    private static final int NONCE_LENGTH = 32;
+    private static final String CACHE_NAME = "certificate-verifications";
+
+    private final Oid4VpConfiguration oid4VpConfiguration;
+    private final CertPathValidator certPathValidator;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final CacheStatistics cacheStatistics = new CacheStatistics();
+
+    private final Map<VerificationKey, Verification> verifications = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<VerificationKey, Verification> eldest) {
+            if (size() > MAX_CACHED_VERIFICATIONS) {
+                cacheStatistics.evicted();
+                return true;
+            }
+            return false;
+        }
+    });
+
+    public CertificateVerificationCache(Oid4VpConfiguration oid4VpConfiguration) {
+        this.oid4VpConfiguration = oid4VpConfiguration;
+        try {
+            this.certPathValidator = CertPathValidator.getInstance(PKIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No PKIX certificate path validator is available.", e);
+        }
+    }
+
+    /**
+     * Validates the certificate chain, starting with the leaf, against the trust anchors. The revocation status is
+     * checked if enabled in the configuration.
+     */
+    public PKIXCertPathValidatorResult validate(List<X509Certificate> certificates, Set<TrustAnchor> trustAnchors) throws CertPathValidatorException {
+        if (certificates.isEmpty()) {
+            throw new CertPathValidatorException("The certificate chain is empty.");
+        }
+        boolean revocationEnabled = oid4VpConfiguration.isEnableRevocation();
+        VerificationKey verificationKey = new VerificationKey(fingerprints(certificates), trustAnchors, revocationEnabled);
+        Verification cached = verifications.get(verificationKey);
+        if (cached != null && Instant.now().isBefore(cached.validUntil())) {
+            cacheStatistics.hit();
+            return cached.getResult();
+        }
+        if (cached != null) {
+            cacheStatistics.evicted();
+        }
+        cacheStatistics.miss();
+        Verification verification = verify(certificates, trustAnchors, revocationEnabled);
+        if (verification.validUntil() != null) {
+            verifications.put(verificationKey, verification);
+        }
+        return verification.getResult();
+    }
+
+    @Override
+    public String getCacheName() {
+        return CACHE_NAME;
+    }
+
+    @Override
+    public CacheStatistics.CacheStats getCacheStats() {
+        return cacheStatistics.snapshot(verifications.size());
+    }
+
+    /**
+     * Keys are the SHA-256 fingerprints of the leaf certificates, hex encoded.
+     */
+    @Override
+    public int invalidate(Predicate<String> keyFilter) {
+        return InspectableCache.removeMatching(verifications, key -> key.fingerprints().getFirst(), keyFilter);
+    }
+
+    // verifications that cannot be reused have no validUntil
+    private Verification verify(List<X509Certificate> certificates, Set<TrustAnchor> trustAnchors, boolean revocationEnabled) throws CertPathValidatorException {
+        Instant validUntil = certificates.stream()
+                .map(X509Certificate::getNotAfter)
+                .map(Date::toInstant)
+                .reduce(Instant.now().plus(oid4VpConfiguration.getVerificationMaxAge()), CertificateVerificationCache::earliest);
+        if (revocationEnabled) {
+            validUntil = earliest(validUntil, Instant.now().plus(oid4VpConfiguration.getRevocationMaxAge()));
+        }
+        CertPath certPath = certPath(certificates);
+        try {
+            PKIXParameters pkixParameters = new PKIXParameters(trustAnchors);
+            pkixParameters.setRevocationEnabled(false);
+            if (revocationEnabled) {
+                pkixParameters.addCertPathChecker(revocationChecker());
+            }
+            return new Verification((PKIXCertPathValidatorResult) certPathValidator.validate(certPath, pkixParameters), null, validUntil);
+        } catch (InvalidAlgorithmParameterException e) {
+            throw new CertPathValidatorException("The trust anchors are invalid.", e);
+        } catch (CertPathValidatorException e) {
+            if (e.getReason() == CertPathValidatorException.BasicReason.REVOKED) {
+                log.info("Certificate {} has been revoked.", certificates.get(Math.max(e.getIndex(), 0)).getSubjectX500Principal());
+                return new Verification(null, e, validUntil);
+            }
+            // failures might be temporary, e.g. an unavailable OCSP responder
+            return new Verification(null, e, null);
+        }
+    }
+
+    // checkers keep state of the validation, thus a new one is required for every validation
+    private PKIXRevocationChecker revocationChecker() {
+        PKIXRevocationChecker revocationChecker = (PKIXRevocationChecker) certPathValidator.getRevocationChecker();
+        byte[] nonce = new byte[NONCE_LENGTH];
+        secureRandom.nextBytes(nonce);
+        revocationChecker.setOcspExtensions(List.of(new OcspNonceExtension(nonce)));
+        return revocationChecker;
+    }
+
+    private static CertPath certPath(List<X509Certificate> certificates) throws CertPathValidatorException {
+        try {
+            return CertificateFactory.getInstance(X509).generateCertPath(certificates);
+        } catch (CertificateException e) {
+            throw new CertPathValidatorException("Was not able to build the certificate path.", e);
+        }
+    }
+
+    private static List<String> fingerprints(List<X509Certificate> certificates) throws CertPathValidatorException {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+            HexFormat hexFormat = HexFormat.of();
+            List<String> fingerprints = new ArrayList<>();
+            for (X509Certificate certificate : certificates) {
+                fingerprints.add(hexFormat.formatHex(messageDigest.digest(certificate.getEncoded())));
+            }
+            return fingerprints;
+        } catch (NoSuchAlgorithmException | CertificateEncodingException e) {
+            throw new CertPathValidatorException("Was not able to calculate the certificate fingerprints.", e);
+        }
+    }
+
+    private static Instant earliest(Instant first, Instant second) {
+        return first.isBefore(second) ? first : second;
+    }
+
+    private record VerificationKey(List<String> fingerprints, Set<TrustAnchor> trustAnchors, boolean revocationEnabled) {
+    }
+
+    private record Verification(PKIXCertPathValidatorResult result, CertPathValidatorException failure, Instant validUntil) {
+
+        PKIXCertPathValidatorResult getResult() throws CertPathValidatorException {
+            if (failure != null) {
+                throw failure;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Nonce extension of OCSP requests (RFC 8954), to prevent replayed responses.
+     */
+    private record OcspNonceExtension(byte[] nonce) implements Extension {
+
+        @Override
+        public String getId() {
+            return OCSPObjectIdentifiers.id_pkix_ocsp_nonce.getId();
+        }
+
+        @Override
+        public boolean isCritical() {
+            return false;
+        }
+
+        @Override
+        public byte[] getValue() {
+            try {
+                return new DEROctetString(nonce).getEncoded();
+            } catch (IOException e) {
+                throw new IllegalStateException("Was not able to encode the OCSP nonce.", e);
+            }
+        }
+
+        @Override
+        public void encode(OutputStream out) throws IOException {
+            out.write(new org.bouncycastle.asn1.x509.Extension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce, false, getValue()).getEncoded());
+        }
+    }
+}
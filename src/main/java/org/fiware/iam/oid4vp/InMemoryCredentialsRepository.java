@@ -0,0 +1,165 @@
+package org.fiware.iam.oid4vp;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jwt.SignedJWT;
+import io.github.wistefan.dcql.model.Credential;
+import io.github.wistefan.dcql.model.CredentialFormat;
+import io.github.wistefan.oid4vp.credentials.CredentialsRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Credentials of the holder, read from the credentials folder. Every credential is parsed once, thus token acquisitions
+ * neither read nor parse any files. Changes of the folder are picked up through a watch service, only the changed files
+ * are parsed again.
+ */
+@Slf4j
+public class InMemoryCredentialsRepository implements CredentialsRepository, AutoCloseable {
+
+    private static final String SD_JWT_SEPARATOR = "~";
+    private static final String VC_SD_JWT_TYPE = "vc+sd-jwt";
+    // kubernetes mounts secrets and config maps through hidden, atomically swapped links
+    private static final String HIDDEN_PREFIX = ".";
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE_REF = new TypeReference<>() {
+    };
+
+    private final Path credentialsFolder;
+    private final ObjectMapper objectMapper;
+    // only modified by the watcher, after the initial load
+    private final Map<Path, Credential> credentials = new HashMap<>();
+    private volatile List<Credential> currentCredentials = List.of();
+    private WatchService watchService;
+    private Thread watcher;
+
+    public InMemoryCredentialsRepository(String credentialsFolder, ObjectMapper objectMapper) {
+        this.credentialsFolder = Optional.ofNullable(credentialsFolder).map(Path::of).orElse(null);
+        this.objectMapper = objectMapper;
+        if (this.credentialsFolder == null || !Files.isDirectory(this.credentialsFolder)) {
+            log.warn("The credentials folder {} does not exist, no credentials are available.", credentialsFolder);
+            return;
+        }
+        reloadAll();
+        try {
+            watchService = this.credentialsFolder.getFileSystem().newWatchService();
+            this.credentialsFolder.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watcher = Thread.ofVirtual().name("credentials-watcher").start(this::watch);
+        } catch (IOException e) {
+            log.warn("Was not able to watch the credentials folder {}, changes require a restart.", credentialsFolder, e);
+        }
+    }
+
+    @Override
+    public List<Credential> getCredentials() {
+        return currentCredentials;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+    }
+
+    private void watch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey watchKey;
+            try {
+                watchKey = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            boolean reloadAll = false;
+            for (WatchEvent<?> event : watchKey.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || isHidden((Path) event.context())) {
+                    reloadAll = true;
+                } else {
+                    reload(credentialsFolder.resolve((Path) event.context()));
+                }
+            }
+            if (reloadAll) {
+                reloadAll();
+            } else {
+                currentCredentials = List.copyOf(credentials.values());
+            }
+            if (!watchKey.reset()) {
+                log.warn("The credentials folder {} is no longer accessible, changes require a restart.", credentialsFolder);
+                return;
+            }
+        }
+    }
+
+    private void reloadAll() {
+        try (Stream<Path> files = Files.list(credentialsFolder)) {
+            Set<Path> currentFiles = files.filter(file -> !isHidden(file.getFileName())).collect(Collectors.toSet());
+            credentials.keySet().retainAll(currentFiles);
+            currentFiles.forEach(this::reload);
+        } catch (IOException e) {
+            log.warn("Was not able to list the credentials folder {}.", credentialsFolder, e);
+        }
+        currentCredentials = List.copyOf(credentials.values());
+        log.info("Loaded {} credentials from {}.", credentials.size(), credentialsFolder);
+    }
+
+    private void reload(Path file) {
+        if (!Files.isRegularFile(file)) {
+            credentials.remove(file);
+            return;
+        }
+        parse(file).ifPresentOrElse(credential -> credentials.put(file, credential), () -> credentials.remove(file));
+    }
+
+    private Optional<Credential> parse(Path file) {
+        try {
+            String content = Files.readString(file).trim();
+            if (content.startsWith("{")) {
+                return Optional.of(new Credential(CredentialFormat.LDP_VC, objectMapper.readValue(content, MAP_TYPE_REF)));
+            }
+            return Optional.of(parseJwtCredential(content));
+        } catch (IOException | ParseException | RuntimeException e) {
+            log.warn("The credential in {} cannot be parsed and will be ignored.", file, e);
+            return Optional.empty();
+        }
+    }
+
+    private Credential parseJwtCredential(String content) throws ParseException {
+        SignedJWT jwt = SignedJWT.parse(content.split(SD_JWT_SEPARATOR, 2)[0]);
+        // the claims are parsed, to not accept anything that is not a jwt
+        jwt.getJWTClaimsSet();
+        if (content.contains(SD_JWT_SEPARATOR)) {
+            CredentialFormat format = Optional.ofNullable(jwt.getHeader().getType())
+                    .map(JOSEObjectType::getType)
+                    .filter(VC_SD_JWT_TYPE::equals)
+                    .map(type -> CredentialFormat.VC_SD_JWT)
+                    .orElse(CredentialFormat.DC_SD_JWT);
+            return new Credential(format, content);
+        }
+        return new Credential(CredentialFormat.JWT_VC_JSON, content);
+    }
+
+    private static boolean isHidden(Path fileName) {
+        return fileName.toString().startsWith(HIDDEN_PREFIX);
+    }
+}
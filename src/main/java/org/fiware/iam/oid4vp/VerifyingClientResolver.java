@@ -0,0 +1,109 @@
+package org.fiware.iam.oid4vp;
+
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.util.Base64;
+import com.nimbusds.jose.util.X509CertUtils;
+import io.github.wistefan.oid4vp.client.ClientResolver;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Wraps a client resolver of the OID4VP library, to validate the certificate chains it is called with (the x5c header
+ * of signed request objects or plain chains) through the {@link CertificateVerificationCache}, before the call is
+ * delegated. The library does not allow to inject a validator, thus the wrapped resolver should be created without
+ * revocation checks of its own. With revocation enabled, resolutions without any chain to validate are rejected.
+ */
+public final class VerifyingClientResolver {
+
+    private static final int COMPACT_JWS_PARTS = 3;
+
+    private VerifyingClientResolver() {
+        // prevent instantiation
+    }
+
+    public static ClientResolver wrap(ClientResolver clientResolver, Set<TrustAnchor> trustAnchors,
+                                      CertificateVerificationCache certificateVerificationCache, boolean revocationEnabled) {
+        return (ClientResolver) Proxy.newProxyInstance(ClientResolver.class.getClassLoader(), new Class<?>[]{ClientResolver.class},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(clientResolver, args);
+                    }
+                    List<List<X509Certificate>> chains = getChains(args);
+                    for (List<X509Certificate> chain : chains) {
+                        try {
+                            certificateVerificationCache.validate(chain, trustAnchors);
+                        } catch (CertPathValidatorException e) {
+                            throw new IllegalArgumentException("The certificate chain of %s is not valid.".formatted(chain.getFirst().getSubjectX500Principal()), e);
+                        }
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(clientResolver, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    // predicates, e.g. for the supported client id schemes, do not need a chain
+                    if (revocationEnabled && chains.isEmpty() && result != null && !(result instanceof Boolean)) {
+                        throw new IllegalArgumentException("No certificate chain was provided to %s, its revocation status cannot be checked.".formatted(method.getName()));
+                    }
+                    return result;
+                });
+    }
+
+    private static List<List<X509Certificate>> getChains(Object[] args) {
+        List<List<X509Certificate>> chains = new ArrayList<>();
+        if (args == null) {
+            return chains;
+        }
+        for (Object arg : args) {
+            getChain(arg).filter(chain -> !chain.isEmpty()).ifPresent(chains::add);
+        }
+        return chains;
+    }
+
+    private static Optional<List<X509Certificate>> getChain(Object arg) {
+        if (arg instanceof JWSObject jwsObject) {
+            return getChain(jwsObject.getHeader());
+        }
+        if (arg instanceof JWSHeader jwsHeader) {
+            return Optional.ofNullable(jwsHeader.getX509CertChain()).map(VerifyingClientResolver::parse);
+        }
+        if (arg instanceof String stringArg && stringArg.split("\\.", -1).length == COMPACT_JWS_PARTS) {
+            try {
+                return getChain(JWSObject.parse(stringArg));
+            } catch (ParseException e) {
+                return Optional.empty();
+            }
+        }
+        if (arg instanceof X509Certificate[] certificates) {
+            return Optional.of(List.of(certificates));
+        }
+        if (arg instanceof Collection<?> collection && !collection.isEmpty() && collection.stream().allMatch(X509Certificate.class::isInstance)) {
+            return Optional.of(collection.stream().map(X509Certificate.class::cast).toList());
+        }
+        return Optional.empty();
+    }
+
+    private static List<X509Certificate> parse(List<Base64> x5c) {
+        List<X509Certificate> certificates = new ArrayList<>();
+        for (Base64 encodedCertificate : x5c) {
+            X509Certificate certificate = X509CertUtils.parse(encodedCertificate.decode());
+            if (certificate == null) {
+                throw new IllegalArgumentException("The x5c header contains an invalid certificate.");
+            }
+            certificates.add(certificate);
+        }
+        return certificates;
+    }
+}
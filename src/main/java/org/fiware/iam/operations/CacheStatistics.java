@@ -0,0 +1,57 @@
+package org.fiware.iam.operations;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit, miss and eviction counters of an {@link InspectableCache}. Evictions are all entries removed by the cache
+ * itself, because of its size limit or their expiry, not the ones removed through invalidation.
+ */
+public class CacheStatistics {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    public void evicted() {
+        evictions.increment();
+    }
+
+    public void evicted(long count) {
+        evictions.add(count);
+    }
+
+    public void record(boolean hit) {
+        if (hit) {
+            hit();
+        } else {
+            miss();
+        }
+    }
+
+    public CacheStats snapshot(long size) {
+        long currentHits = hits.sum();
+        long currentMisses = misses.sum();
+        long lookups = currentHits + currentMisses;
+        return new CacheStats(size, currentHits, currentMisses, lookups == 0 ? 0 : (double) currentHits / lookups, evictions.sum());
+    }
+
+    /**
+     * Current state of a cache.
+     *
+     * @param size      number of entries
+     * @param hits      lookups answered from the cache
+     * @param misses    lookups that had to be loaded
+     * @param hitRatio  ratio of hits to all lookups
+     * @param evictions entries evicted because of size or expiry
+     */
+    public record CacheStats(long size, long hits, long misses, double hitRatio, long evictions) {
+    }
+}
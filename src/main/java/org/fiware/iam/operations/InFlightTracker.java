@@ -0,0 +1,125 @@
+package org.fiware.iam.operations;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Singleton;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps track of the work currently in progress: the events being handled, from being received until their response,
+ * and the outstanding calls to every downstream service.
+ */
+@Singleton
+public class InFlightTracker {
+
+    private static final String IN_FLIGHT_METRIC = "contract.management.events.in.flight";
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, InFlightEvent> events = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> outstandingCalls = new ConcurrentHashMap<>();
+
+    public InFlightTracker(MeterRegistry meterRegistry) {
+        Gauge.builder(IN_FLIGHT_METRIC, events, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Tracks the event while the handling is subscribed.
+     */
+    public <T> Mono<T> trackEvent(String eventType, Mono<T> handling) {
+        return Mono.defer(() -> {
+            long id = sequence.incrementAndGet();
+            events.put(id, new InFlightEvent(eventType, System.nanoTime()));
+            return handling.doFinally(signal -> events.remove(id));
+        });
+    }
+
+    /**
+     * Tracks the call to the downstream service while the response is subscribed.
+     */
+    public <T> Flux<T> trackCall(String downstream, Flux<T> call) {
+        return Flux.defer(() -> {
+            AtomicInteger outstanding = outstandingCalls.computeIfAbsent(downstream, key -> new AtomicInteger());
+            outstanding.incrementAndGet();
+            return call.doFinally(signal -> outstanding.decrementAndGet());
+        });
+    }
+
+    public int getInFlightEvents() {
+        return events.size();
+    }
+
+    /**
+     * Returns the events in flight per event type.
+     */
+    public Map<String, EventTypeState> getEventsByType() {
+        long now = System.nanoTime();
+        return events.values()
+                .stream()
+                .collect(Collectors.groupingBy(InFlightEvent::eventType, TreeMap::new, Collectors.collectingAndThen(Collectors.toList(), typeEvents -> {
+                    long oldestStart = typeEvents.stream().mapToLong(InFlightEvent::start).min().orElse(now);
+                    long[] buckets = new long[AgeBucket.values().length];
+                    typeEvents.forEach(event -> buckets[AgeBucket.of(Duration.ofNanos(now - event.start())).ordinal()]++);
+                    Map<String, Long> ages = new LinkedHashMap<>();
+                    for (AgeBucket bucket : AgeBucket.values()) {
+                        ages.put(bucket.label, buckets[bucket.ordinal()]);
+                    }
+                    return new EventTypeState(typeEvents.size(), Duration.ofNanos(now - oldestStart).toMillis(), ages);
+                })));
+    }
+
+    /**
+     * Returns the number of outstanding calls per downstream service.
+     */
+    public Map<String, Integer> getOutstandingCalls() {
+        return outstandingCalls.entrySet()
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().get(), (a, b) -> a, TreeMap::new));
+    }
+
+    private enum AgeBucket {
+        UNDER_1S("<1s", Duration.ofSeconds(1)),
+        UNDER_10S("<10s", Duration.ofSeconds(10)),
+        UNDER_60S("<60s", Duration.ofSeconds(60)),
+        OLDER(">=60s", null);
+
+        private final String label;
+        private final Duration limit;
+
+        AgeBucket(String label, Duration limit) {
+            this.label = label;
+            this.limit = limit;
+        }
+
+        private static AgeBucket of(Duration age) {
+            for (AgeBucket bucket : values()) {
+                if (bucket.limit == null || age.compareTo(bucket.limit) < 0) {
+                    return bucket;
+                }
+            }
+            return OLDER;
+        }
+    }
+
+    private record InFlightEvent(String eventType, long start) {
+    }
+
+    /**
+     * The events of one type in flight.
+     *
+     * @param count       number of events
+     * @param oldestAgeMs age of the oldest event in milliseconds
+     * @param ages        number of events per age bucket
+     */
+    public record EventTypeState(int count, long oldestAgeMs, Map<String, Long> ages) {
+    }
+}
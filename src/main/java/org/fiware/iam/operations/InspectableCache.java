@@ -0,0 +1,39 @@
+package org.fiware.iam.operations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * An internal cache, reported and invalidated through the {@link OperationsEndpoint}.
+ */
+public interface InspectableCache {
+
+    /**
+     * Name of the cache, unique within the service.
+     */
+    String getCacheName();
+
+    CacheStatistics.CacheStats getCacheStats();
+
+    /**
+     * Removes all entries whose key matches the filter.
+     *
+     * @return the number of removed entries
+     */
+    int invalidate(Predicate<String> keyFilter);
+
+    /**
+     * Removes all entries of the map whose key, as named by the given function, matches the filter.
+     */
+    static <K> int removeMatching(Map<K, ?> cache, Function<K, String> keyName, Predicate<String> keyFilter) {
+        int removed = 0;
+        for (K key : List.copyOf(cache.keySet())) {
+            if (keyFilter.test(keyName.apply(key)) && cache.remove(key) != null) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+}
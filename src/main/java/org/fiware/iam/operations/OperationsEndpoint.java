@@ -0,0 +1,90 @@
+package org.fiware.iam.operations;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+import io.micronaut.management.endpoint.annotation.Selector;
+import io.micronaut.management.endpoint.annotation.Sensitive;
+import io.micronaut.management.endpoint.annotation.Write;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.scheduling.EventScheduler;
+import org.fiware.iam.tmforum.notification.NotificationSubscriber;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Management endpoint reporting what the service is currently doing: the events in flight, the outstanding calls to
+ * the downstream services, the state of the notification subscriptions and the state of all internal caches. Available
+ * at the management port, with {@code GET /operations}. Entries of a cache are invalidated with
+ * {@code POST /operations/{cache}} and a body containing either a {@code key} or a {@code prefix} of the keys to be
+ * removed, without both the whole cache is cleared. The cache name {@code all} targets every cache. Invalidation is
+ * sensitive, thus only available if secured or explicitly enabled with {@code endpoints.operations.write-sensitive: false}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Endpoint(id = "operations", defaultSensitive = false)
+public class OperationsEndpoint {
+
+    private static final String ALL_CACHES = "all";
+
+    private final InFlightTracker inFlightTracker;
+    private final EventScheduler eventScheduler;
+    private final List<InspectableCache> caches;
+    private final Optional<NotificationSubscriber> notificationSubscriber;
+
+    @Read
+    public OperationsReport report() {
+        return new OperationsReport(
+                inFlightTracker.getEventsByType(),
+                eventScheduler.getQueued(),
+                eventScheduler.getRunning(),
+                inFlightTracker.getOutstandingCalls(),
+                notificationSubscriber.map(NotificationSubscriber::getSubscriptionStates).orElse(Map.of()),
+                caches.stream().collect(Collectors.toMap(InspectableCache::getCacheName, InspectableCache::getCacheStats, (a, b) -> a, TreeMap::new)));
+    }
+
+    /**
+     * Invalidates the entries with the given key or prefix.
+     *
+     * @return the number of removed entries per cache
+     */
+    @Write
+    @Sensitive(property = "write-sensitive")
+    public Map<String, Integer> invalidate(@Selector String cache, @Nullable String key, @Nullable String prefix) {
+        Predicate<String> keyFilter;
+        if (key != null) {
+            keyFilter = key::equals;
+        } else if (prefix != null) {
+            keyFilter = candidate -> candidate.startsWith(prefix);
+        } else {
+            keyFilter = candidate -> true;
+        }
+        Map<String, Integer> removed = caches.stream()
+                .filter(inspectableCache -> ALL_CACHES.equals(cache) || inspectableCache.getCacheName().equals(cache))
+                .collect(Collectors.toMap(InspectableCache::getCacheName, inspectableCache -> inspectableCache.invalidate(keyFilter), (a, b) -> a, TreeMap::new));
+        log.info("Invalidated {} (key: {}, prefix: {}): {}", cache, key, prefix, removed);
+        return removed;
+    }
+
+    /**
+     * @param eventsInFlight   events currently handled, per event type
+     * @param queuedEvents     events waiting for the scheduler
+     * @param runningEvents    events started by the scheduler
+     * @param outstandingCalls calls waiting for a response, per downstream service
+     * @param subscriptions    state of the notification subscriptions
+     * @param caches           state of the internal caches
+     */
+    public record OperationsReport(Map<String, InFlightTracker.EventTypeState> eventsInFlight,
+                                   int queuedEvents,
+                                   int runningEvents,
+                                   Map<String, Integer> outstandingCalls,
+                                   Map<String, NotificationSubscriber.SubscriptionState> subscriptions,
+                                   Map<String, CacheStatistics.CacheStats> caches) {
+    }
+}
@@ -0,0 +1,31 @@
+package org.fiware.iam.operations;
+
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.scheduling.EventScheduler;
+
+/**
+ * Management endpoint providing the queue depth as single value, f.e. for the metrics API scaler of KEDA. Available at
+ * the management port, with {@code GET /queue-depth}. The value contains all events received and not yet answered,
+ * thus waiting for coalescing, queued in the scheduler or being handled.
+ */
+@RequiredArgsConstructor
+@Endpoint(id = "queue-depth", defaultSensitive = false)
+public class QueueDepthEndpoint {
+
+    private final InFlightTracker inFlightTracker;
+    private final EventScheduler eventScheduler;
+
+    @Read
+    public QueueDepth queueDepth() {
+        return new QueueDepth(inFlightTracker.getInFlightEvents(), eventScheduler.getQueued());
+    }
+
+    /**
+     * @param value  events received and not yet answered
+     * @param queued events waiting for the scheduler
+     */
+    public record QueueDepth(int value, int queued) {
+    }
+}
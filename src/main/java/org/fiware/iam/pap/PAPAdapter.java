@@ -9,6 +9,7 @@ import org.fiware.iam.configuration.GeneralProperties;
 import org.fiware.iam.odrl.pap.api.PolicyApiClient;
 import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -43,18 +44,24 @@ public class PAPAdapter {
 
 	/**
 	 * Creates the given policy for the given customer (added as assignee) in the ODRL-PAP. Since this becomes a concrete instantiation of the policy,
-	 * its ID will be updated to include the product-order it originates from
+	 * its ID will be updated to include the product-order it originates from. The given policy is not modified, since it is shared between orders.
 	 */
 	public Mono<Boolean> createPolicy(String customer, String orderId, Map<String, Object> policy) {
-		return papClient.createPolicy(addAssignee(customer, updatePolicyId(orderId, policy))).map(HttpResponse::code).map(code -> code >= 200 && code < 300);
+		return papClient.createPolicy(addAssignee(customer, updatePolicyId(orderId, new HashMap<>(policy)))).map(HttpResponse::code).map(code -> code >= 200 && code < 300);
 	}
 
 	public Mono<Boolean> deletePolicy(String orderId, Map<String, Object> policy) {
-		String fullId = buildFullId(orderId, policy);
+		return deletePolicyByUid(buildFullId(orderId, policy));
+	}
+
+	/**
+	 * Deletes the policy with the given uid, as it was created at the ODRL-PAP.
+	 */
+	public Mono<Boolean> deletePolicyByUid(String fullId) {
 		return papClient.deletePolicyByUid(fullId).map(HttpResponse::code).map(code -> code >= 200 && code < 300);
 	}
 
-	private String buildFullId(String orderId, Map<String, Object> policy) {
+	static String buildFullId(String orderId, Map<String, Object> policy) {
 		return String.format(ID_TEMPLATE, getPolicyId(policy), orderId);
 	}
 
@@ -64,7 +71,7 @@ public class PAPAdapter {
 		return policy;
 	}
 
-	private String getPolicyId(Map<String, Object> policy) {
+	static String getPolicyId(Map<String, Object> policy) {
 		if (policy.containsKey(UID_KEY) && policy.get(UID_KEY) instanceof String idString) {
 			return idString;
 		} else {
@@ -91,7 +98,7 @@ public class PAPAdapter {
 	private Map<String, Object> getPermission(Map<String, Object> policy) {
 		Object permissionObject = policy.get(PERMISSION_KEY);
 		if (permissionObject instanceof Map permissionMap) {
-			return permissionMap;
+			return new HashMap<String, Object>(permissionMap);
 		}
 		throw new IllegalArgumentException("The policy needs to contain a permission.");
 	}
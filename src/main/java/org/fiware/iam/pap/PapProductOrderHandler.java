@@ -8,13 +8,16 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.fiware.iam.configuration.GeneralProperties;
 import org.fiware.iam.handlers.ProductOrderHandler;
+import org.fiware.iam.tmforum.OrderLedger;
 import org.fiware.iam.tmforum.OrganizationResolver;
 import org.fiware.iam.tmforum.PolicyResolver;
 import org.fiware.iam.tmforum.productorder.model.ProductOrderVO;
 import reactor.core.publisher.Mono;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 /**
@@ -29,27 +32,40 @@ public class PapProductOrderHandler implements ProductOrderHandler {
     private final PolicyResolver policyResolver;
     private final OrganizationResolver organizationResolver;
     private final PAPAdapter papAdapter;
+    private final OrderLedger orderLedger;
 
     @Override
     public Mono<HttpResponse<?>> handleProductOrderComplete(String organizationId, ProductOrderVO productOrderVO) {
-        return createPolicy(organizationId, productOrderVO);
+        return updatePolicies(organizationId, productOrderVO);
     }
 
     @Override
     public Mono<HttpResponse<?>> handleProductOrderStop(String organizationId, ProductOrderVO productOrderVO) {
-
-        return policyResolver
-                .getAuthorizationPolicy(productOrderVO)
-                .map(this::filterLocalPolicies)
-                .flatMap(policies -> Mono.zipDelayError(policies.stream()
-                                .map(p -> papAdapter.deletePolicy(productOrderVO.getId(), p)).toList(),
-                        results -> {
-                            if (Stream.of(results).map(r -> (Boolean) r).toList().contains(false)) {
-                                return HttpResponse.status(HttpStatus.BAD_GATEWAY);
-                            }
-                            return HttpResponse.ok();
-                        }
-                ));
+        String orderId = productOrderVO.getId();
+        // remove what was actually created, the specifications might have changed in between. Only orders without a
+        // record need to resolve their policies again.
+        return Mono.justOrEmpty(orderLedger.getPolicies(orderId))
+                .map(createdPolicies -> createdPolicies.entrySet()
+                        .stream()
+                        .map(createdPolicy -> papAdapter.deletePolicyByUid(createdPolicy.getValue().papUid())
+                                .doOnNext(deleted -> {
+                                    if (deleted) {
+                                        orderLedger.removePolicy(orderId, createdPolicy.getKey());
+                                    }
+                                }))
+                        .toList())
+                .switchIfEmpty(Mono.defer(() -> policyResolver
+                        .getAuthorizationPolicy(productOrderVO)
+                        .map(this::filterLocalPolicies)
+                        .map(policies -> policies.stream()
+                                .map(p -> papAdapter.deletePolicy(orderId, p))
+                                .toList())))
+                .flatMap(this::toResponse)
+                .doOnNext(response -> {
+                    if (response.getStatus() == HttpStatus.OK) {
+                        orderLedger.removePolicies(orderId);
+                    }
+                });
     }
 
     @Override
@@ -58,21 +74,69 @@ public class PapProductOrderHandler implements ProductOrderHandler {
         return Mono.just(HttpResponse.noContent());
     }
 
-    private Mono<HttpResponse<?>> createPolicy(String organizationId, ProductOrderVO productOrderVO) {
-
+    /**
+     * Creates the new and changed policies of the order and deletes the ones no longer ordered. Changed policies keep
+     * their uid, thus they are deleted before being created again. Unchanged policies are not touched, thus access is
+     * not interrupted while an order changes.
+     */
+    private Mono<HttpResponse<?>> updatePolicies(String organizationId, ProductOrderVO productOrderVO) {
+        String orderId = productOrderVO.getId();
         return organizationResolver.getDID(organizationId)
                 .flatMap(did -> policyResolver
                         .getAuthorizationPolicy(productOrderVO)
                         .map(this::filterLocalPolicies)
-                        .flatMap(policies -> Mono.zipDelayError(policies.stream()
-                                        .map(p -> papAdapter.createPolicy(did, productOrderVO.getId(), p)).toList(),
-                                results -> {
-                                    if (Stream.of(results).map(r -> (Boolean) r).toList().contains(false)) {
-                                        return HttpResponse.status(HttpStatus.BAD_GATEWAY);
-                                    }
-                                    return HttpResponse.ok();
-                                }
-                        )));
+                        .defaultIfEmpty(List.of())
+                        .flatMap(policies -> {
+                            Map<String, Map<String, Object>> currentPolicies = new LinkedHashMap<>();
+                            Map<String, OrderLedger.CreatedPolicy> createdPolicies = new LinkedHashMap<>();
+                            policies.forEach(policy -> {
+                                String uid = PAPAdapter.getPolicyId(policy);
+                                currentPolicies.put(uid, policy);
+                                createdPolicies.put(uid, new OrderLedger.CreatedPolicy(PAPAdapter.buildFullId(orderId, policy), orderLedger.hash(policy)));
+                            });
+                            Map<String, OrderLedger.CreatedPolicy> previousPolicies = orderLedger.getPolicies(orderId).orElse(Map.of());
+                            OrderLedger.Diff<String, OrderLedger.CreatedPolicy> diff = OrderLedger.diff(previousPolicies, createdPolicies);
+                            log.debug("Order {} creates {} and deletes {} policies.", orderId, diff.upserted().keySet(), diff.removed().keySet());
+                            List<Mono<Boolean>> results = Stream.concat(
+                                            diff.upserted().entrySet().stream().map(created -> Optional.ofNullable(previousPolicies.get(created.getKey()))
+                                                    .map(changed -> deletePolicy(orderId, created.getKey(), changed))
+                                                    .orElse(Mono.just(true))
+                                                    .flatMap(deleted -> deleted ? papAdapter.createPolicy(did, orderId, currentPolicies.get(created.getKey())) : Mono.just(false))
+                                                    .doOnNext(success -> {
+                                                        if (success) {
+                                                            orderLedger.recordPolicy(orderId, created.getKey(), created.getValue());
+                                                        }
+                                                    })),
+                                            diff.removed().entrySet().stream().map(removed -> deletePolicy(orderId, removed.getKey(), removed.getValue())))
+                                    .toList();
+                            return toResponse(results)
+                                    .doOnNext(response -> {
+                                        if (response.getStatus() == HttpStatus.OK) {
+                                            orderLedger.recordPolicies(orderId, createdPolicies);
+                                        }
+                                    });
+                        }));
+    }
+
+    private Mono<Boolean> deletePolicy(String orderId, String uid, OrderLedger.CreatedPolicy createdPolicy) {
+        return papAdapter.deletePolicyByUid(createdPolicy.papUid())
+                .doOnNext(success -> {
+                    if (success) {
+                        orderLedger.removePolicy(orderId, uid);
+                    }
+                });
+    }
+
+    private Mono<HttpResponse<?>> toResponse(List<Mono<Boolean>> results) {
+        if (results.isEmpty()) {
+            return Mono.just(HttpResponse.ok());
+        }
+        return Mono.zipDelayError(results, responses -> {
+            if (Stream.of(responses).map(r -> (Boolean) r).toList().contains(false)) {
+                return HttpResponse.status(HttpStatus.BAD_GATEWAY);
+            }
+            return HttpResponse.ok();
+        });
     }
 
     // only return policies intended for local
@@ -0,0 +1,249 @@
+package org.fiware.iam.scheduling;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.scheduling.annotation.Scheduled;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.SchedulerProperties;
+import org.fiware.iam.configuration.TenantWeight;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Scheduler in front of the event handling. Limits the number of concurrently handled events and selects the next
+ * event through weighted fair queuing between the tenants (customer organizations), so that a single tenant cannot
+ * delay the events of all others. Events in the {@link Lane#PRIORITY} lane (f.e. revocations of access) are always
+ * handled before all others. Tenants are removed once they were idle for {@link SchedulerProperties#getTenantIdleTimeout()}.
+ */
+@Slf4j
+@Singleton
+public class EventScheduler {
+
+    private static final String QUEUED_METRIC = "contract.management.scheduler.queued";
+    private static final String PRIORITY_QUEUED_METRIC = "contract.management.scheduler.priority.queued";
+    private static final String WAIT_METRIC = "contract.management.scheduler.wait";
+    private static final String TENANT_TAG = "tenant";
+    private static final String LANE_TAG = "lane";
+
+    // tasks started by tasks that completed synchronously, started by the outermost call instead of recursively
+    private static final ThreadLocal<Queue<ScheduledTask>> STARTING = new ThreadLocal<>();
+
+    public enum Lane {
+        PRIORITY, FAIR
+    }
+
+    private final SchedulerProperties schedulerProperties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Integer> tenantWeights;
+
+    private final Queue<ScheduledTask> priorityQueue = new ArrayDeque<>();
+    private final Queue<ScheduledTask> fairQueue = new PriorityQueue<>(
+            Comparator.comparingDouble(ScheduledTask::finishTag).thenComparingLong(ScheduledTask::sequence));
+    private final Map<String, TenantState> tenants = new HashMap<>();
+    private final AtomicInteger queuedPriorityTasks = new AtomicInteger();
+
+    private int running = 0;
+    private long sequence = 0;
+    // virtual time of the fair queue, advances with every dequeued task
+    private double virtualTime = 0;
+
+    public EventScheduler(SchedulerProperties schedulerProperties, MeterRegistry meterRegistry) {
+        this.schedulerProperties = schedulerProperties;
+        this.meterRegistry = meterRegistry;
+        this.tenantWeights = schedulerProperties.getTenantWeights()
+                .stream()
+                .collect(Collectors.toMap(TenantWeight::getTenant, TenantWeight::getWeight));
+        Gauge.builder(PRIORITY_QUEUED_METRIC, queuedPriorityTasks, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Schedule the given task. The task is subscribed once it's selected by the scheduler.
+     *
+     * @param tenant the tenant to account the task for
+     * @param lane   the lane to schedule the task in
+     * @param task   supplier of the task
+     * @return mono emitting the result of the task
+     */
+    public <T> Mono<T> schedule(String tenant, Lane lane, Supplier<Mono<T>> task) {
+        if (!schedulerProperties.isEnabled()) {
+            return Mono.defer(task);
+        }
+        return Mono.create(sink -> startAll(enqueue(tenant, lane, task, sink)));
+    }
+
+    /**
+     * Returns the number of tasks waiting to be started, in all lanes.
+     */
+    public synchronized int getQueued() {
+        return priorityQueue.size() + fairQueue.size();
+    }
+
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    /**
+     * Removes the tenants that neither had queued nor running tasks for longer than the idle timeout, including their
+     * metrics.
+     */
+    @Scheduled(fixedDelay = "${scheduler.tenant-idle-timeout:5m}", initialDelay = "${scheduler.tenant-idle-timeout:5m}")
+    public synchronized void removeIdleTenants() {
+        long idleSince = System.nanoTime() - schedulerProperties.getTenantIdleTimeout().toNanos();
+        Iterator<TenantState> tenantIterator = tenants.values().iterator();
+        while (tenantIterator.hasNext()) {
+            TenantState tenantState = tenantIterator.next();
+            if (tenantState.queued.get() == 0 && tenantState.running == 0 && tenantState.lastActive - idleSince < 0) {
+                tenantIterator.remove();
+                tenantState.meters.forEach(meterRegistry::remove);
+                log.debug("Removed idle tenant {}.", tenantState.tenant);
+            }
+        }
+    }
+
+    private synchronized <T> List<ScheduledTask> enqueue(String tenant, Lane lane, Supplier<Mono<T>> task, MonoSink<T> sink) {
+        TenantState tenantState = tenants.computeIfAbsent(tenant, this::newTenantState);
+        tenantState.lastActive = System.nanoTime();
+        ScheduledTask scheduledTask;
+        if (lane == Lane.PRIORITY) {
+            scheduledTask = new ScheduledTask(tenantState, lane, 0, sequence++, System.nanoTime(), () -> run(tenantState, task, sink));
+            priorityQueue.add(scheduledTask);
+            queuedPriorityTasks.incrementAndGet();
+        } else {
+            tenantState.lastFinishTag = Math.max(virtualTime, tenantState.lastFinishTag) + 1.0 / tenantState.weight;
+            scheduledTask = new ScheduledTask(tenantState, lane, tenantState.lastFinishTag, sequence++, System.nanoTime(), () -> run(tenantState, task, sink));
+            fairQueue.add(scheduledTask);
+            tenantState.queued.incrementAndGet();
+        }
+        sink.onCancel(() -> cancel(scheduledTask));
+        return drain();
+    }
+
+    private synchronized void cancel(ScheduledTask scheduledTask) {
+        if (scheduledTask.lane() == Lane.PRIORITY && priorityQueue.remove(scheduledTask)) {
+            queuedPriorityTasks.decrementAndGet();
+        } else if (scheduledTask.lane() == Lane.FAIR && fairQueue.remove(scheduledTask)) {
+            scheduledTask.tenantState().queued.decrementAndGet();
+        }
+    }
+
+    private void complete(TenantState tenantState) {
+        List<ScheduledTask> tasksToStart;
+        synchronized (this) {
+            running--;
+            tenantState.running--;
+            tenantState.lastActive = System.nanoTime();
+            tasksToStart = drain();
+        }
+        startAll(tasksToStart);
+    }
+
+    // the tasks are started outside the lock, to not block other threads while they are assembled
+    private static void startAll(List<ScheduledTask> tasksToStart) {
+        Queue<ScheduledTask> starting = STARTING.get();
+        if (starting != null) {
+            starting.addAll(tasksToStart);
+            return;
+        }
+        starting = new ArrayDeque<>(tasksToStart);
+        STARTING.set(starting);
+        try {
+            ScheduledTask next;
+            while ((next = starting.poll()) != null) {
+                next.start().run();
+            }
+        } finally {
+            STARTING.remove();
+        }
+    }
+
+    /**
+     * Select the tasks to be started next. Needs to be called while holding the lock.
+     */
+    private List<ScheduledTask> drain() {
+        List<ScheduledTask> tasksToStart = new ArrayList<>();
+        while (running < schedulerProperties.getMaxConcurrency() && (!priorityQueue.isEmpty() || !fairQueue.isEmpty())) {
+            ScheduledTask next;
+            if (!priorityQueue.isEmpty()) {
+                next = priorityQueue.poll();
+                queuedPriorityTasks.decrementAndGet();
+            } else {
+                next = fairQueue.poll();
+                next.tenantState().queued.decrementAndGet();
+                virtualTime = next.finishTag();
+            }
+            running++;
+            next.tenantState().running++;
+            next.tenantState().getWaitTimer(next.lane())
+                    .record(Duration.ofNanos(System.nanoTime() - next.enqueuedAt()));
+            tasksToStart.add(next);
+        }
+        return tasksToStart;
+    }
+
+    private <T> void run(TenantState tenantState, Supplier<Mono<T>> task, MonoSink<T> sink) {
+        Disposable disposable = Mono.defer(task)
+                .doFinally(signal -> complete(tenantState))
+                .subscribe(sink::success, sink::error, sink::success);
+        sink.onDispose(disposable);
+    }
+
+    private TenantState newTenantState(String tenant) {
+        TenantState tenantState = new TenantState(tenant, tenantWeights.getOrDefault(tenant, 1));
+        tenantState.meters.add(Gauge.builder(QUEUED_METRIC, tenantState.queued, AtomicInteger::get)
+                .tag(TENANT_TAG, tenant)
+                .tag(LANE_TAG, Lane.FAIR.name())
+                .register(meterRegistry));
+        return tenantState;
+    }
+
+    private class TenantState {
+        private final String tenant;
+        private final int weight;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final Map<Lane, Timer> waitTimers = new EnumMap<>(Lane.class);
+        private final List<Meter> meters = new ArrayList<>();
+        private double lastFinishTag = 0;
+        private int running = 0;
+        private long lastActive;
+
+        private TenantState(String tenant, int weight) {
+            this.tenant = tenant;
+            this.weight = Math.max(weight, 1);
+        }
+
+        private Timer getWaitTimer(Lane lane) {
+            return waitTimers.computeIfAbsent(lane, l -> {
+                Timer waitTimer = Timer.builder(WAIT_METRIC)
+                        .tag(TENANT_TAG, tenant)
+                        .tag(LANE_TAG, l.name())
+                        .register(meterRegistry);
+                meters.add(waitTimer);
+                return waitTimer;
+            });
+        }
+    }
+
+    private record ScheduledTask(TenantState tenantState, Lane lane, double finishTag, long sequence, long enqueuedAt,
+                                 Runnable start) {
+    }
+}
@@ -14,6 +14,9 @@ import org.fiware.iam.tmforum.OrganizationResolver;
 import org.fiware.iam.tmforum.productorder.model.ProductOrderVO;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Set;
+
 @Requires(condition = GeneralProperties.TilCondition.class)
 @RequiredArgsConstructor
 @Singleton
@@ -31,8 +34,19 @@ public class TilProductOrderHandler implements ProductOrderHandler {
 
     @Override
     public Mono<HttpResponse<?>> handleProductOrderStop(String organizationId, ProductOrderVO productOrderVO) {
-        return Mono.zip(organizationResolver.getDID(organizationId), credentialsConfigResolver.getCredentialsConfig(productOrderVO))
-                .flatMap(resultTuple -> trustedIssuersListAdapter.denyIssuer(resultTuple.getT1(), resultTuple.getT2()));
+        String orderId = productOrderVO.getId();
+        // revoke what was actually granted, the specifications might have changed in between. Only orders without a
+        // record need to resolve their credentials again.
+        return trustedIssuersListAdapter.revokeCredentials(orderId)
+                .<HttpResponse<?>>map(success -> {
+                    if (success) {
+                        return HttpResponseFactory.INSTANCE.status(HttpStatus.NO_CONTENT);
+                    }
+                    log.warn("Was not able to deny issuer {} for product order {}.", organizationId, orderId);
+                    return HttpResponseFactory.INSTANCE.status(HttpStatus.BAD_GATEWAY);
+                })
+                .switchIfEmpty(Mono.defer(() -> Mono.zip(organizationResolver.getDID(organizationId), credentialsConfigResolver.getCredentialsConfig(productOrderVO))
+                        .flatMap(resultTuple -> trustedIssuersListAdapter.denyIssuer(resultTuple.getT1(), resultTuple.getT2()))));
     }
 
     @Override
@@ -41,11 +55,17 @@ public class TilProductOrderHandler implements ProductOrderHandler {
         return Mono.just(HttpResponse.noContent());
     }
 
+    /**
+     * Grants the credentials of the order. The issuer is only updated for credentials that are newly granted or no
+     * longer granted by any order of the customer, with a single update.
+     */
     private Mono<HttpResponse<?>> allowIssuer(String organizationId, ProductOrderVO productOrderVO) {
+        String orderId = productOrderVO.getId();
         return Mono.zip(
                         organizationResolver.getDID(organizationId),
-                        credentialsConfigResolver.getCredentialsConfig(productOrderVO))
-                .flatMap(resultTuple -> trustedIssuersListAdapter.allowIssuer(resultTuple.getT1(), resultTuple.getT2()))
+                        credentialsConfigResolver.getCredentialsConfig(productOrderVO).defaultIfEmpty(List.of()))
+                .flatMap(resultTuple -> trustedIssuersListAdapter.grantCredentials(resultTuple.getT1(), orderId,
+                        Set.copyOf(TrustedIssuersListAdapter.filterLocalCredentialsVO(resultTuple.getT2()))))
                 .map(success -> {
                     if (success) {
                         return HttpResponseFactory.INSTANCE.status(HttpStatus.CREATED);
@@ -16,9 +16,12 @@ import org.fiware.iam.til.model.ClaimVO;
 import org.fiware.iam.til.model.CredentialsVO;
 import org.fiware.iam.til.model.TrustedIssuerVO;
 import org.fiware.iam.tmforum.CredentialsConfigResolver;
+import org.fiware.iam.tmforum.OrderLedger;
 import reactor.core.publisher.Mono;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 @Singleton
 @RequiredArgsConstructor
@@ -26,12 +29,85 @@ import java.util.*;
 public class TrustedIssuersListAdapter {
 
     private final IssuerApiClient apiClient;
+    private final OrderLedger orderLedger;
+
+    // last update of every issuer, to chain the following ones
+    private final Map<String, Mono<Boolean>> lastUpdateOfIssuer = new ConcurrentHashMap<>();
 
     public Mono<Boolean> allowIssuer(String issuerDid, List<CredentialsConfigResolver.CredentialConfig> credentialsConfig) {
+        return updateIssuer(issuerDid, filterLocalCredentialsVO(credentialsConfig), List.of());
+    }
 
-        List<CredentialsVO> credentialsVOS = filterLocalCredentialsVO(credentialsConfig);
-        if (credentialsVOS.isEmpty()) {
-            // nothing to do, if no local cm is configured
+    /**
+     * Grants the credentials to the issuer on behalf of the order, replacing what the order granted before. The issuer
+     * is only updated for credentials types, whose credentials granted by all orders of the issuer changed.
+     */
+    public Mono<Boolean> grantCredentials(String issuerDid, String orderId, Set<CredentialsVO> credentials) {
+        return applyGrant(orderId, new OrderLedger.CredentialGrant(issuerDid, credentials));
+    }
+
+    /**
+     * Revokes the credentials granted on behalf of the order, except the types still granted by other orders of the
+     * issuer. Empty, if nothing is recorded for the order.
+     */
+    public Mono<Boolean> revokeCredentials(String orderId) {
+        return Mono.justOrEmpty(orderLedger.getCredentials(orderId))
+                .flatMap(grant -> applyGrant(orderId, null));
+    }
+
+    private Mono<Boolean> applyGrant(String orderId, OrderLedger.CredentialGrant grant) {
+        return Mono.defer(() -> {
+            String issuerDid = Optional.ofNullable(grant)
+                    .or(() -> orderLedger.getCredentials(orderId))
+                    .map(OrderLedger.CredentialGrant::issuerDid)
+                    .orElseThrow();
+            return inIssuerOrder(issuerDid, () -> applyGrant(issuerDid, orderId, grant));
+        });
+    }
+
+    /**
+     * Runs the update once all previous updates of the issuer are done. The ledger and the issuer are updated, and in case
+     * of a failure rolled back, together, so that no concurrent grant computes its difference from a state that is rolled
+     * back afterwards.
+     */
+    private Mono<Boolean> inIssuerOrder(String issuerDid, Supplier<Mono<Boolean>> update) {
+        Mono<Boolean> result = lastUpdateOfIssuer.compute(issuerDid, (did, previous) -> Optional.ofNullable(previous)
+                .map(previousUpdate -> previousUpdate.onErrorResume(e -> Mono.empty()).then())
+                .orElse(Mono.empty())
+                .then(Mono.defer(update))
+                .cache());
+        return result.doFinally(signal -> lastUpdateOfIssuer.remove(issuerDid, result));
+    }
+
+    private Mono<Boolean> applyGrant(String issuerDid, String orderId, OrderLedger.CredentialGrant grant) {
+        return Mono.defer(() -> {
+            Optional<OrderLedger.CredentialGrant> previousGrant = orderLedger.getCredentials(orderId);
+            OrderLedger.Diff<String, Set<CredentialsVO>> diff = orderLedger.grantCredentials(orderId, grant);
+            log.debug("Order {} sets {} and removes {} credentials types of issuer {}.", orderId, diff.upserted().keySet(), diff.removed().keySet(), issuerDid);
+            // the types of the order are reconciled even without a difference, to restore credentials the issuer lost
+            Set<String> replacedTypes = new HashSet<>(diff.upserted().keySet());
+            replacedTypes.addAll(diff.removed().keySet());
+            Optional.ofNullable(grant).ifPresent(g -> replacedTypes.addAll(OrderLedger.byType(g.credentials()).keySet()));
+            Set<CredentialsVO> grantedCredentials = new HashSet<>();
+            diff.upserted().values().forEach(grantedCredentials::addAll);
+            orderLedger.getGranted(issuerDid, replacedTypes).values().forEach(grantedCredentials::addAll);
+            return updateIssuer(issuerDid, grantedCredentials, replacedTypes)
+                    .doOnNext(success -> {
+                        if (!success) {
+                            orderLedger.grantCredentials(orderId, previousGrant.orElse(null));
+                        }
+                    })
+                    .doOnError(e -> orderLedger.grantCredentials(orderId, previousGrant.orElse(null)));
+        });
+    }
+
+    /**
+     * Removes all credentials of the replaced types from the issuer and adds the given credentials, with a single
+     * update. The issuer is created, if it does not exist yet, and not updated if its credentials would not change.
+     */
+    public Mono<Boolean> updateIssuer(String issuerDid, Collection<CredentialsVO> addedCredentials, Collection<String> replacedTypes) {
+        if (addedCredentials.isEmpty() && replacedTypes.isEmpty()) {
+            // nothing to do, f.e. if no local cm is configured
             return Mono.just(true);
         }
 
@@ -46,8 +122,14 @@ public class TrustedIssuersListAdapter {
                 .flatMap(optionalIssuer -> {
                     if (optionalIssuer.isPresent()) {
                         TrustedIssuerVO trustedIssuerVO = optionalIssuer.get();
-                        Set<CredentialsVO> credentialsVOSet = new HashSet<>(trustedIssuerVO.getCredentials());
-                        credentialsVOSet.addAll(credentialsVOS);
+                        Set<CredentialsVO> existingCredentials = new HashSet<>(Optional.ofNullable(trustedIssuerVO.getCredentials()).orElse(List.of()));
+                        Set<CredentialsVO> credentialsVOSet = new HashSet<>(existingCredentials);
+                        credentialsVOSet.removeIf(credential -> replacedTypes.contains(credential.getCredentialsType()));
+                        credentialsVOSet.addAll(addedCredentials);
+                        if (credentialsVOSet.equals(existingCredentials)) {
+                            log.debug("Issuer {} already has the credentials.", issuerDid);
+                            return Mono.just(true);
+                        }
                         trustedIssuerVO.setCredentials(new ArrayList<>(credentialsVOSet));
                         try {
                             log.debug("Updating existing issuer with {}", new ObjectMapper().writeValueAsString(trustedIssuerVO));
@@ -56,9 +138,12 @@ public class TrustedIssuersListAdapter {
                         }
                         return apiClient.updateIssuer(issuerDid, trustedIssuerVO)
                                 .map(TrustedIssuersListAdapter::isSuccess);
+                    } else if (addedCredentials.isEmpty()) {
+                        // nothing to remove from a non-existent issuer
+                        return Mono.just(true);
                     } else {
                         //remove duplicates
-                        Set<CredentialsVO> credentialsVOSet = new HashSet<>(credentialsVOS);
+                        Set<CredentialsVO> credentialsVOSet = new HashSet<>(addedCredentials);
                         TrustedIssuerVO newIssuer = new TrustedIssuerVO().did(issuerDid).credentials(new ArrayList<>(credentialsVOSet));
                         log.debug("Adding new issuer with {}", newIssuer);
                         return apiClient.createTrustedIssuer(newIssuer).map(TrustedIssuersListAdapter::isSuccess);
@@ -74,9 +159,12 @@ public class TrustedIssuersListAdapter {
         return response.getStatus().getCode() > 199 && response.getStatus().getCode() < 300;
     }
 
+    /**
+     * Removes the given credentials from the issuer, except the ones of types granted by orders recorded in the ledger.
+     */
     public Mono<HttpResponse<?>> denyIssuer(String issuerDid, List<CredentialsConfigResolver.CredentialConfig> credentialsConfig) {
 
-        List<CredentialsVO> credentialsVOS = filterLocalCredentialsVO(credentialsConfig);
+        Set<CredentialsVO> credentialsVOS = orderLedger.getUngranted(issuerDid, filterLocalCredentialsVO(credentialsConfig));
         if (credentialsVOS.isEmpty()) {
             // nothing to do, if no local cm is configured
             return Mono.just(HttpResponse.noContent());
@@ -117,7 +205,7 @@ public class TrustedIssuersListAdapter {
     }
 
     // only return credentials intended for local
-    private List<CredentialsVO> filterLocalCredentialsVO(List<CredentialsConfigResolver.CredentialConfig> credentialsConfig) {
+    static List<CredentialsVO> filterLocalCredentialsVO(List<CredentialsConfigResolver.CredentialConfig> credentialsConfig) {
         return credentialsConfig.stream()
                 .filter(credentialConfig -> credentialConfig.contractManagement().isLocal())
                 .map(CredentialsConfigResolver.CredentialConfig::credentialsVOS)
@@ -0,0 +1,207 @@
+package org.fiware.iam.tmforum;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Insertion ordered map for the few unknown properties of a VO. Up to {@link #MAX_INLINE} entries are kept in a single
+ * array of alternating keys and values, without any entry objects. Larger maps switch to a {@link LinkedHashMap}.
+ */
+final class CompactProperties extends AbstractMap<String, Object> {
+
+	static final int MAX_INLINE = 8;
+
+	private static final int INITIAL_CAPACITY = 2;
+
+	// key, value, key, value...
+	private Object[] table = new Object[INITIAL_CAPACITY * 2];
+	private int size;
+	private Map<String, Object> large;
+
+	@Override
+	public int size() {
+		return large != null ? large.size() : size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return large != null ? large.containsKey(key) : indexOf(key) >= 0;
+	}
+
+	@Override
+	public Object get(Object key) {
+		if (large != null) {
+			return large.get(key);
+		}
+		int index = indexOf(key);
+		return index >= 0 ? table[index * 2 + 1] : null;
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		if (large != null) {
+			return large.put(key, value);
+		}
+		int index = indexOf(key);
+		if (index >= 0) {
+			Object previous = table[index * 2 + 1];
+			table[index * 2 + 1] = value;
+			return previous;
+		}
+		if (size == MAX_INLINE) {
+			large = new LinkedHashMap<>(this);
+			table = null;
+			size = 0;
+			return large.put(key, value);
+		}
+		if (size * 2 == table.length) {
+			table = Arrays.copyOf(table, Math.min(table.length * 2, MAX_INLINE * 2));
+		}
+		table[size * 2] = key;
+		table[size * 2 + 1] = value;
+		size++;
+		return null;
+	}
+
+	@Override
+	public Object remove(Object key) {
+		if (large != null) {
+			return large.remove(key);
+		}
+		int index = indexOf(key);
+		if (index < 0) {
+			return null;
+		}
+		Object previous = table[index * 2 + 1];
+		removeAt(index);
+		return previous;
+	}
+
+	@Override
+	public void clear() {
+		if (large != null) {
+			large.clear();
+			return;
+		}
+		Arrays.fill(table, null);
+		size = 0;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		if (large != null) {
+			return large.entrySet();
+		}
+		return new AbstractSet<>() {
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				return new InlineIterator();
+			}
+
+			@Override
+			public int size() {
+				return CompactProperties.this.size();
+			}
+		};
+	}
+
+	private int indexOf(Object key) {
+		for (int i = 0; i < size; i++) {
+			if (Objects.equals(table[i * 2], key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void removeAt(int index) {
+		System.arraycopy(table, (index + 1) * 2, table, index * 2, (size - index - 1) * 2);
+		size--;
+		table[size * 2] = null;
+		table[size * 2 + 1] = null;
+	}
+
+	private class InlineIterator implements Iterator<Entry<String, Object>> {
+
+		private int next;
+		private int last = -1;
+		private int expectedSize = size;
+
+		@Override
+		public boolean hasNext() {
+			return next < size;
+		}
+
+		@Override
+		public Entry<String, Object> next() {
+			if (expectedSize != size || large != null) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			last = next++;
+			return new InlineEntry(last);
+		}
+
+		@Override
+		public void remove() {
+			if (last < 0) {
+				throw new IllegalStateException();
+			}
+			removeAt(last);
+			next = last;
+			last = -1;
+			expectedSize = size;
+		}
+	}
+
+	private class InlineEntry implements Entry<String, Object> {
+
+		private final int index;
+
+		private InlineEntry(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public String getKey() {
+			return (String) table[index * 2];
+		}
+
+		@Override
+		public Object getValue() {
+			return table[index * 2 + 1];
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			Object previous = table[index * 2 + 1];
+			table[index * 2 + 1] = value;
+			return previous;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Entry<?, ?> entry && Objects.equals(getKey(), entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+}
@@ -0,0 +1,327 @@
+package org.fiware.iam.tmforum;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.scheduling.annotation.Scheduled;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.configuration.OfferingViewProperties;
+import org.fiware.iam.exception.TMForumException;
+import org.fiware.iam.handlers.ProductOfferingHandler;
+import org.fiware.iam.handlers.ProductSpecificationHandler;
+import org.fiware.iam.operations.CacheStatistics;
+import org.fiware.iam.operations.InspectableCache;
+import org.fiware.iam.tmforum.productcatalog.api.ProductOfferingApiClient;
+import org.fiware.iam.tmforum.productcatalog.api.ProductSpecificationApiClient;
+import org.fiware.iam.tmforum.productcatalog.model.ProductOfferingVO;
+import org.fiware.iam.tmforum.productcatalog.model.ProductSpecificationRefVO;
+import org.fiware.iam.tmforum.productcatalog.model.ProductSpecificationVO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Local view of the offerings and their specifications, from which the order handling derives endpoint, action,
+ * policies and credentials configuration. Offerings are added when first requested and kept up to date through the
+ * offering and specification events, thus completing an order does not require any catalog reads in steady state.
+ * Changed specifications are only invalidated and retrieved again with the next request, since events might not
+ * contain the complete entity. Lookups that were started before an invalidation are not added to the view. The view is
+ * periodically written to the snapshot file and loaded at startup, the loaded specifications are revalidated against
+ * TMForum in the background.
+ */
+@Requires(condition = GeneralProperties.TmForumCondition.class)
+@Slf4j
+@Singleton
+public class OfferingView implements ProductOfferingHandler, ProductSpecificationHandler, InspectableCache {
+
+    private static final String CACHE_NAME = "offering-view";
+    private static final int REVALIDATION_CONCURRENCY = 8;
+
+    private final OfferingViewProperties offeringViewProperties;
+    private final ObjectMapper objectMapper;
+    private final ProductOfferingApiClient productOfferingApiClient;
+    private final ProductSpecificationApiClient productSpecificationApiClient;
+    private final SpecificationCharacteristics specificationCharacteristics;
+
+    // offering id -> id of its specification
+    private final Map<String, String> offerings = new ConcurrentHashMap<>();
+    private final Map<String, ProductSpecificationVO> specifications = new ConcurrentHashMap<>();
+    // concurrent requests for the same specification share one lookup
+    private final Map<String, Mono<ProductSpecificationVO>> pendingSpecifications = new ConcurrentHashMap<>();
+    // incremented with every invalidation of a specification, to drop the results of lookups started before
+    private final Map<String, Long> specificationGenerations = new ConcurrentHashMap<>();
+    private final AtomicBoolean changed = new AtomicBoolean();
+    private final CacheStatistics cacheStatistics = new CacheStatistics();
+
+    public OfferingView(OfferingViewProperties offeringViewProperties, ObjectMapper objectMapper,
+                        ProductOfferingApiClient productOfferingApiClient,
+                        ProductSpecificationApiClient productSpecificationApiClient,
+                        SpecificationCharacteristics specificationCharacteristics) {
+        this.offeringViewProperties = offeringViewProperties;
+        this.objectMapper = objectMapper;
+        this.productOfferingApiClient = productOfferingApiClient;
+        this.productSpecificationApiClient = productSpecificationApiClient;
+        this.specificationCharacteristics = specificationCharacteristics;
+        loadSnapshot();
+        revalidateSpecifications();
+    }
+
+    /**
+     * Returns the specification of the given offering, from the view if available.
+     */
+    public Mono<ProductSpecificationVO> getSpecification(String offeringId) {
+        if (!offeringViewProperties.isEnabled()) {
+            return retrieveSpecificationId(offeringId).flatMap(this::retrieveSpecification);
+        }
+        return Mono.defer(() -> {
+            Optional<String> viewedSpecificationId = Optional.ofNullable(offerings.get(offeringId));
+            Optional<ProductSpecificationVO> viewedSpecification = viewedSpecificationId.map(specifications::get);
+            cacheStatistics.record(viewedSpecification.isPresent());
+            if (viewedSpecification.isPresent()) {
+                return Mono.just(viewedSpecification.get());
+            }
+            return viewedSpecificationId.map(Mono::just)
+                    .orElseGet(() -> retrieveSpecificationId(offeringId)
+                            .doOnNext(specificationId -> putOffering(offeringId, specificationId)))
+                    .flatMap(specificationId -> Optional.ofNullable(specifications.get(specificationId))
+                            .map(Mono::just)
+                            .orElseGet(() -> pendingSpecifications.computeIfAbsent(specificationId, this::loadSpecification)));
+        });
+    }
+
+    @Override
+    public String getCacheName() {
+        return CACHE_NAME;
+    }
+
+    @Override
+    public CacheStatistics.CacheStats getCacheStats() {
+        return cacheStatistics.snapshot(offerings.size() + specifications.size());
+    }
+
+    /**
+     * Keys are the ids of the offerings and of the specifications.
+     */
+    @Override
+    public int invalidate(Predicate<String> keyFilter) {
+        int removed = 0;
+        for (String offeringId : List.copyOf(offerings.keySet())) {
+            if (keyFilter.test(offeringId) && removeOffering(offeringId)) {
+                removed++;
+            }
+        }
+        for (String specificationId : List.copyOf(specifications.keySet())) {
+            if (keyFilter.test(specificationId) && removeSpecification(specificationId)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public Mono<HttpResponse<?>> handleOfferingCreation(ProductOfferingVO productOfferingVO) {
+        return handleOfferingStateChange(productOfferingVO);
+    }
+
+    @Override
+    public Mono<HttpResponse<?>> handleOfferingStateChange(ProductOfferingVO productOfferingVO) {
+        Optional.ofNullable(productOfferingVO.getProductSpecification())
+                .map(ProductSpecificationRefVO::getId)
+                .ifPresentOrElse(specificationId -> putOffering(productOfferingVO.getId(), specificationId),
+                        () -> removeOffering(productOfferingVO.getId()));
+        return Mono.just(HttpResponse.noContent());
+    }
+
+    @Override
+    public Mono<HttpResponse<?>> handleOfferingDeletion(ProductOfferingVO productOfferingVO) {
+        removeOffering(productOfferingVO.getId());
+        return Mono.just(HttpResponse.noContent());
+    }
+
+    @Override
+    public Mono<HttpResponse<?>> handleSpecificationChange(ProductSpecificationVO productSpecificationVO) {
+        removeSpecification(productSpecificationVO.getId());
+        return Mono.just(HttpResponse.noContent());
+    }
+
+    @Override
+    public Mono<HttpResponse<?>> handleSpecificationDeletion(ProductSpecificationVO productSpecificationVO) {
+        removeSpecification(productSpecificationVO.getId());
+        return Mono.just(HttpResponse.noContent());
+    }
+
+    @Scheduled(fixedDelay = "${offering-view.snapshot-interval:60s}", initialDelay = "${offering-view.snapshot-interval:60s}")
+    @PreDestroy
+    public void writeSnapshot() {
+        if (offeringViewProperties.getSnapshotFile() == null || !changed.getAndSet(false)) {
+            return;
+        }
+        Path snapshotFile = Path.of(offeringViewProperties.getSnapshotFile());
+        try {
+            Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            objectMapper.writeValue(tempFile.toFile(), new Snapshot(Map.copyOf(offerings), Map.copyOf(specifications)));
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            changed.set(true);
+            log.warn("Was not able to write the offering view to {}.", snapshotFile, e);
+        }
+    }
+
+    private void loadSnapshot() {
+        Optional.ofNullable(offeringViewProperties.getSnapshotFile())
+                .filter(file -> offeringViewProperties.isEnabled())
+                .map(Path::of)
+                .filter(Files::exists)
+                .ifPresent(snapshotFile -> {
+                    try {
+                        Snapshot snapshot = objectMapper.readValue(snapshotFile.toFile(), Snapshot.class);
+                        offerings.putAll(snapshot.offerings());
+                        specifications.putAll(snapshot.specifications());
+                        // derive the characteristics upfront, instead of with the first order
+                        specifications.values().forEach(specificationCharacteristics::get);
+                        log.info("Loaded {} offerings and {} specifications from {}.", offerings.size(), specifications.size(), snapshotFile);
+                    } catch (IOException e) {
+                        log.warn("Was not able to read the offering view from {}, start with an empty view.", snapshotFile, e);
+                    }
+                });
+    }
+
+    /**
+     * Specifications from the snapshot might have changed while the service was down. Changed ones are replaced, the
+     * ones that cannot be retrieved anymore are removed.
+     */
+    private void revalidateSpecifications() {
+        if (specifications.isEmpty()) {
+            return;
+        }
+        Flux.fromIterable(List.copyOf(specifications.entrySet()))
+                .flatMap(entry -> {
+                    long generation = getGeneration(entry.getKey());
+                    return retrieveSpecification(entry.getKey())
+                            .doOnNext(specification -> {
+                                if (!isSameVersion(entry.getValue(), specification)) {
+                                    log.info("Specification {} changed since the snapshot.", entry.getKey());
+                                    putSpecification(entry.getKey(), specification, generation);
+                                }
+                            })
+                            .onErrorResume(e -> {
+                                log.info("Was not able to revalidate specification {}, it will be retrieved with the next request.", entry.getKey(), e);
+                                removeSpecification(entry.getKey());
+                                return Mono.empty();
+                            });
+                }, REVALIDATION_CONCURRENCY)
+                .subscribe();
+    }
+
+    private Mono<ProductSpecificationVO> loadSpecification(String specificationId) {
+        long generation = getGeneration(specificationId);
+        return retrieveSpecification(specificationId)
+                .doOnNext(specification -> putSpecification(specificationId, specification, generation))
+                .doFinally(signal -> pendingSpecifications.computeIfPresent(specificationId,
+                        (id, pending) -> getGeneration(id) == generation ? null : pending))
+                .cache();
+    }
+
+    /**
+     * Adds the specification, unless it was invalidated since the given generation.
+     */
+    private void putSpecification(String specificationId, ProductSpecificationVO specification, long generation) {
+        specificationCharacteristics.get(specification);
+        specificationGenerations.compute(specificationId, (id, current) -> {
+            if (Objects.requireNonNullElse(current, 0L) == generation) {
+                specifications.put(specificationId, specification);
+                changed.set(true);
+            } else {
+                log.debug("Drop stale lookup of specification {}.", specificationId);
+            }
+            return current;
+        });
+    }
+
+    private long getGeneration(String specificationId) {
+        return specificationGenerations.getOrDefault(specificationId, 0L);
+    }
+
+    private static boolean isSameVersion(ProductSpecificationVO viewed, ProductSpecificationVO current) {
+        return Objects.equals(viewed.getLastUpdate(), current.getLastUpdate()) && Objects.equals(viewed.getVersion(), current.getVersion());
+    }
+
+    private Mono<String> retrieveSpecificationId(String offeringId) {
+        return productOfferingApiClient.retrieveProductOffering(offeringId, null)
+                .onErrorMap(t -> new TMForumException(String.format("Was not able to retrieve offering %s", offeringId), t))
+                .map(HttpResponse::body)
+                .map(ProductOfferingVO::getProductSpecification)
+                .map(ProductSpecificationRefVO::getId);
+    }
+
+    private Mono<ProductSpecificationVO> retrieveSpecification(String specificationId) {
+        return productSpecificationApiClient.retrieveProductSpecification(specificationId, null)
+                .onErrorMap(t -> new TMForumException(String.format("Was not able to retrieve specification %s", specificationId), t))
+                .map(HttpResponse::body);
+    }
+
+    private void putOffering(String offeringId, String specificationId) {
+        if (offeringId == null) {
+            return;
+        }
+        String previousSpecificationId = offerings.put(offeringId, specificationId);
+        if (specificationId.equals(previousSpecificationId)) {
+            return;
+        }
+        // the offering switched to another specification
+        if (previousSpecificationId != null && !offerings.containsValue(previousSpecificationId)) {
+            removeSpecification(previousSpecificationId);
+        }
+        changed.set(true);
+    }
+
+    private boolean removeOffering(String offeringId) {
+        if (offeringId == null) {
+            return false;
+        }
+        String specificationId = offerings.remove(offeringId);
+        if (specificationId == null) {
+            return false;
+        }
+        // specifications are only kept as long as an offering references them
+        if (!offerings.containsValue(specificationId)) {
+            removeSpecification(specificationId);
+        }
+        changed.set(true);
+        return true;
+    }
+
+    private boolean removeSpecification(String specificationId) {
+        if (specificationId == null) {
+            return false;
+        }
+        AtomicBoolean removed = new AtomicBoolean();
+        specificationGenerations.compute(specificationId, (id, generation) -> {
+            removed.set(specifications.remove(id) != null);
+            return Objects.requireNonNullElse(generation, 0L) + 1;
+        });
+        // lookups started before have to be repeated
+        pendingSpecifications.remove(specificationId);
+        if (removed.get()) {
+            changed.set(true);
+        }
+        return removed.get();
+    }
+
+    private record Snapshot(Map<String, String> offerings, Map<String, ProductSpecificationVO> specifications) {
+    }
+}
@@ -0,0 +1,409 @@
+package org.fiware.iam.tmforum;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.scheduling.annotation.Scheduled;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.ClusterProperties;
+import org.fiware.iam.configuration.OrderLedgerProperties;
+import org.fiware.iam.til.model.CredentialsVO;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Policies, credentials and agreements currently in effect for the completed orders, as last applied to the PAP, the
+ * TIL and Rainbow. Changes of an order are applied as the difference to the recorded state, instead of removing and
+ * recreating everything the order grants. Orders without a record (e.g. completed before the ledger was enabled) are
+ * applied as a whole. For policies, only the uid they were created with at the PAP and a hash of their content is
+ * recorded, so that stopping an order deletes exactly what was created, without resolving the policies again.
+ * Credentials are reference counted per issuer and credentials type: a type is only added to the issuer by the first
+ * order granting it and only removed with the last one, thus orders of the same customer with overlapping credentials
+ * do not revoke each other. Since the counts are only known to this replica, the ledger cannot be used in a cluster of
+ * several replicas. Every change of the ledger is written to the snapshot file in the background, it is loaded at
+ * startup.
+ */
+@Slf4j
+@Singleton
+public class OrderLedger {
+
+    private final OrderLedgerProperties orderLedgerProperties;
+    private final ObjectMapper objectMapper;
+
+    // order id -> uid of the policy, as defined by the specification -> policy created at the PAP
+    private final Map<String, Map<String, CreatedPolicy>> policies = new ConcurrentHashMap<>();
+    // order id -> credentials granted to the issuer at the TIL
+    private final Map<String, CredentialGrant> credentials = new ConcurrentHashMap<>();
+    // issuer did -> credentials type -> ids of the orders granting it -> credentials of the type, derived from the credentials
+    private final Map<String, Map<String, Map<String, Set<CredentialsVO>>>> grants = new HashMap<>();
+    // order id -> offering id -> agreement
+    private final Map<String, Map<String, Agreement>> agreements = new ConcurrentHashMap<>();
+    private final AtomicBoolean changed = new AtomicBoolean();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private final Object snapshotLock = new Object();
+
+    public OrderLedger(OrderLedgerProperties orderLedgerProperties, ClusterProperties clusterProperties, ObjectMapper objectMapper) {
+        Optional.ofNullable(orderLedgerProperties.getSnapshotFile())
+                .filter(file -> !file.isBlank())
+                .filter(file -> !Path.of(file).isAbsolute())
+                .ifPresent(file -> {
+                    throw new IllegalArgumentException("The snapshot file of the order ledger has to be an absolute path, but was %s.".formatted(file));
+                });
+        if (orderLedgerProperties.isEnabled() && clusterProperties.isEnabled()
+                && (clusterProperties.getDnsName() != null || clusterProperties.getPeers().size() > 1)) {
+            throw new IllegalArgumentException("The order ledger cannot be enabled in a cluster of several replicas, disable one of them.");
+        }
+        this.orderLedgerProperties = orderLedgerProperties;
+        this.objectMapper = objectMapper;
+        loadSnapshot();
+    }
+
+    public Optional<Map<String, CreatedPolicy>> getPolicies(String orderId) {
+        return get(policies, orderId);
+    }
+
+    public void recordPolicies(String orderId, Map<String, CreatedPolicy> orderPolicies) {
+        record(policies, orderId, Map.copyOf(orderPolicies));
+    }
+
+    /**
+     * Records a single policy as soon as it was created, thus it is removed on stop even if other policies of the
+     * order failed.
+     */
+    public void recordPolicy(String orderId, String uid, CreatedPolicy createdPolicy) {
+        if (!orderLedgerProperties.isEnabled() || orderId == null) {
+            return;
+        }
+        policies.compute(orderId, (id, orderPolicies) -> {
+            Map<String, CreatedPolicy> updated = orderPolicies == null ? new HashMap<>() : new HashMap<>(orderPolicies);
+            updated.put(uid, createdPolicy);
+            return Map.copyOf(updated);
+        });
+        markChanged();
+    }
+
+    /**
+     * Removes a single policy as soon as it was deleted.
+     */
+    public void removePolicy(String orderId, String uid) {
+        if (orderId == null) {
+            return;
+        }
+        policies.computeIfPresent(orderId, (id, orderPolicies) -> {
+            Map<String, CreatedPolicy> updated = new HashMap<>(orderPolicies);
+            if (updated.remove(uid) != null) {
+                markChanged();
+            }
+            return Map.copyOf(updated);
+        });
+    }
+
+    public void removePolicies(String orderId) {
+        remove(policies, orderId);
+    }
+
+    public Optional<CredentialGrant> getCredentials(String orderId) {
+        return get(credentials, orderId);
+    }
+
+    /**
+     * Records the credentials granted by the order, replacing what it granted before. Without a grant, the order no
+     * longer grants anything. Returns the credentials per type to be set at the issuer respectively the types to be
+     * removed from it, since the credentials granted for them changed respectively no order grants them any longer.
+     * If the update of the issuer fails, the previous grant of the order has to be restored.
+     */
+    public synchronized Diff<String, Set<CredentialsVO>> grantCredentials(String orderId, @Nullable CredentialGrant grant) {
+        if (!orderLedgerProperties.isEnabled() || orderId == null) {
+            return diff(Map.of(), byType(Optional.ofNullable(grant).map(CredentialGrant::credentials).orElse(Set.of())));
+        }
+        CredentialGrant previous = credentials.get(orderId);
+        if (Objects.equals(previous, grant)) {
+            return new Diff<>(Map.of(), Map.of());
+        }
+        Set<String> issuers = new HashSet<>();
+        Set<String> affectedTypes = new HashSet<>();
+        Optional.ofNullable(previous).ifPresent(p -> {
+            issuers.add(p.issuerDid());
+            affectedTypes.addAll(byType(p.credentials()).keySet());
+        });
+        Optional.ofNullable(grant).ifPresent(g -> {
+            issuers.add(g.issuerDid());
+            affectedTypes.addAll(byType(g.credentials()).keySet());
+        });
+        Map<String, Set<CredentialsVO>> grantedBefore = granted(issuers, affectedTypes);
+        Optional.ofNullable(previous).ifPresent(p -> ungrant(orderId, p));
+        if (grant == null) {
+            credentials.remove(orderId);
+        } else {
+            CredentialGrant recorded = new CredentialGrant(grant.issuerDid(), Set.copyOf(grant.credentials()));
+            credentials.put(orderId, recorded);
+            grant(orderId, recorded);
+        }
+        markChanged();
+        return diff(grantedBefore, granted(issuers, affectedTypes));
+    }
+
+    /**
+     * Returns the credentials of the given ones, whose type no order grants to the issuer.
+     */
+    public synchronized Set<CredentialsVO> getUngranted(String issuerDid, Collection<CredentialsVO> issuerCredentials) {
+        Map<String, Map<String, Set<CredentialsVO>>> issuerGrants = grants.getOrDefault(issuerDid, Map.of());
+        return issuerCredentials.stream()
+                .filter(credential -> !issuerGrants.containsKey(credential.getCredentialsType()))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Returns the credentials of the given types, granted to the issuer by all recorded orders.
+     */
+    public synchronized Map<String, Set<CredentialsVO>> getGranted(String issuerDid, Collection<String> credentialsTypes) {
+        return granted(Set.of(issuerDid), Set.copyOf(credentialsTypes));
+    }
+
+    /**
+     * Groups the credentials by their type.
+     */
+    public static Map<String, Set<CredentialsVO>> byType(Collection<CredentialsVO> credentials) {
+        return credentials.stream()
+                .collect(Collectors.groupingBy(CredentialsVO::getCredentialsType, Collectors.toSet()));
+    }
+
+    public Optional<Map<String, Agreement>> getAgreements(String orderId) {
+        return get(agreements, orderId);
+    }
+
+    public void recordAgreements(String orderId, Map<String, Agreement> orderAgreements) {
+        record(agreements, orderId, Map.copyOf(orderAgreements));
+    }
+
+    public void removeAgreements(String orderId) {
+        remove(agreements, orderId);
+    }
+
+    /**
+     * Returns the entries to be created or updated and the ones to be removed, to get from the previous to the current
+     * state.
+     */
+    public static <K, V> Diff<K, V> diff(Map<K, V> previous, Map<K, V> current) {
+        Map<K, V> upserted = new LinkedHashMap<>();
+        current.forEach((key, value) -> {
+            if (!Objects.equals(previous.get(key), value)) {
+                upserted.put(key, value);
+            }
+        });
+        Map<K, V> removed = new LinkedHashMap<>();
+        previous.forEach((key, value) -> {
+            if (!current.containsKey(key)) {
+                removed.put(key, value);
+            }
+        });
+        return new Diff<>(upserted, removed);
+    }
+
+    public static <T> Diff<T, T> diff(Set<T> previous, Set<T> current) {
+        return diff(toMap(previous), toMap(current));
+    }
+
+    /**
+     * Hash of the content, independent of the order of map entries. Used to detect changed policies without keeping
+     * them.
+     */
+    public String hash(Object content) {
+        try {
+            byte[] json = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS).writeValueAsBytes(content);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Was not able to hash the content.", e);
+        }
+    }
+
+    /**
+     * Writes the ledger, if it changed since the last write. Called in the background with every change, scheduled
+     * to retry failed writes.
+     */
+    @Scheduled(fixedDelay = "${order-ledger.snapshot-interval:60s}", initialDelay = "${order-ledger.snapshot-interval:60s}")
+    @PreDestroy
+    public void writeSnapshot() {
+        Optional<Path> optionalSnapshotFile = getSnapshotFile();
+        if (optionalSnapshotFile.isEmpty()) {
+            return;
+        }
+        Path snapshotFile = optionalSnapshotFile.get();
+        synchronized (snapshotLock) {
+            if (!changed.getAndSet(false)) {
+                return;
+            }
+            try {
+                Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+                Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+                objectMapper.writeValue(tempFile.toFile(), new Snapshot(Map.copyOf(policies), Map.copyOf(credentials), Map.copyOf(agreements)));
+                Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                changed.set(true);
+                log.warn("Was not able to write the order ledger to {}.", snapshotFile, e);
+            }
+        }
+    }
+
+    private Optional<Path> getSnapshotFile() {
+        return Optional.ofNullable(orderLedgerProperties.getSnapshotFile())
+                .filter(file -> orderLedgerProperties.isEnabled())
+                .filter(file -> !file.isBlank())
+                .map(Path::of);
+    }
+
+    // the file is written outside the calling thread, changes while writing are picked up by the next write
+    private void markChanged() {
+        changed.set(true);
+        if (getSnapshotFile().isPresent() && writeScheduled.compareAndSet(false, true)) {
+            Schedulers.boundedElastic().schedule(() -> {
+                writeScheduled.set(false);
+                writeSnapshot();
+            });
+        }
+    }
+
+    private void loadSnapshot() {
+        getSnapshotFile()
+                .filter(Files::exists)
+                .ifPresent(snapshotFile -> {
+                    try {
+                        Snapshot snapshot = objectMapper.readValue(snapshotFile.toFile(), Snapshot.class);
+                        Optional.ofNullable(snapshot.policies()).ifPresent(policies::putAll);
+                        Optional.ofNullable(snapshot.credentialGrants()).ifPresent(credentialGrants -> {
+                            credentials.putAll(credentialGrants);
+                            credentialGrants.forEach(this::grant);
+                        });
+                        Optional.ofNullable(snapshot.agreements()).ifPresent(agreements::putAll);
+                        log.info("Loaded the state of {} orders from {}.", policies.size() + credentials.size() + agreements.size(), snapshotFile);
+                    } catch (IOException e) {
+                        log.warn("Was not able to read the order ledger from {}, start with an empty ledger.", snapshotFile, e);
+                    }
+                });
+    }
+
+    // all credentials of the affected types, granted to the issuers by any order
+    private Map<String, Set<CredentialsVO>> granted(Set<String> issuers, Set<String> affectedTypes) {
+        Map<String, Set<CredentialsVO>> granted = new HashMap<>();
+        issuers.forEach(issuer -> grants.getOrDefault(issuer, Map.of()).forEach((type, orders) -> {
+            if (affectedTypes.contains(type)) {
+                orders.values().forEach(typeCredentials -> granted.computeIfAbsent(type, t -> new HashSet<>()).addAll(typeCredentials));
+            }
+        }));
+        return granted;
+    }
+
+    private void grant(String orderId, CredentialGrant grant) {
+        Map<String, Map<String, Set<CredentialsVO>>> issuerGrants = grants.computeIfAbsent(grant.issuerDid(), issuer -> new HashMap<>());
+        byType(grant.credentials()).forEach((type, typeCredentials) ->
+                issuerGrants.computeIfAbsent(type, t -> new HashMap<>()).put(orderId, typeCredentials));
+    }
+
+    private void ungrant(String orderId, CredentialGrant grant) {
+        Map<String, Map<String, Set<CredentialsVO>>> issuerGrants = grants.getOrDefault(grant.issuerDid(), new HashMap<>());
+        byType(grant.credentials()).keySet().forEach(type -> {
+            Map<String, Set<CredentialsVO>> orders = issuerGrants.get(type);
+            if (orders != null && orders.remove(orderId) != null && orders.isEmpty()) {
+                issuerGrants.remove(type);
+            }
+        });
+        if (issuerGrants.isEmpty()) {
+            grants.remove(grant.issuerDid());
+        }
+    }
+
+    private <T> Optional<T> get(Map<String, T> ledger, String orderId) {
+        if (!orderLedgerProperties.isEnabled() || orderId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(ledger.get(orderId));
+    }
+
+    private <T> void record(Map<String, T> ledger, String orderId, T state) {
+        if (!orderLedgerProperties.isEnabled() || orderId == null) {
+            return;
+        }
+        if (!state.equals(ledger.put(orderId, state))) {
+            markChanged();
+        }
+    }
+
+    private <T> void remove(Map<String, T> ledger, String orderId) {
+        if (orderId != null && ledger.remove(orderId) != null) {
+            markChanged();
+        }
+    }
+
+    private static <T> Map<T, T> toMap(Set<T> values) {
+        return values.stream().collect(Collectors.toMap(Function.identity(), Function.identity()));
+    }
+
+    /**
+     * Difference between two states of an order.
+     *
+     * @param upserted entries that are new or changed
+     * @param removed  entries that are no longer part of the order
+     */
+    public record Diff<K, V>(Map<K, V> upserted, Map<K, V> removed) {
+
+        public boolean isEmpty() {
+            return upserted.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    /**
+     * Policy created at the PAP for the order.
+     *
+     * @param papUid      uid the policy was created with at the PAP
+     * @param contentHash hash of the policy as defined by the specification
+     */
+    public record CreatedPolicy(String papUid, String contentHash) {
+    }
+
+    /**
+     * Credentials granted to an issuer by an order.
+     *
+     * @param issuerDid   did of the issuer, the customer of the order
+     * @param credentials credentials the issuer is allowed to issue for the order
+     */
+    public record CredentialGrant(String issuerDid, Set<CredentialsVO> credentials) {
+    }
+
+    /**
+     * Agreement created for an offering of the order.
+     *
+     * @param agreementId    id of the agreement at Rainbow
+     * @param tmfAgreementId id of the agreement at TMForum, referenced by the order
+     */
+    public record Agreement(String agreementId, String tmfAgreementId) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record Snapshot(Map<String, Map<String, CreatedPolicy>> policies,
+                            Map<String, CredentialGrant> credentialGrants,
+                            Map<String, Map<String, Agreement>> agreements) {
+    }
+}
@@ -1,6 +1,5 @@
 package org.fiware.iam.tmforum;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micronaut.context.annotation.Requires;
 import io.micronaut.context.annotation.Value;
 import io.micronaut.http.HttpResponse;
@@ -34,7 +33,7 @@ public class OrganizationResolver {
     private static final String DID = "did";
 
     private final GeneralProperties generalProperties;
-    private final ObjectMapper objectMapper;
+    private final TMFMapper tmfMapper;
     private final OrganizationApiClient apiClient;
 
     //TODO Cache me if you can
@@ -66,7 +65,7 @@ public class OrganizationResolver {
                                                 .stream()
                                                 .filter(pc -> pc.getName().equals(FIELD_NAME_CONTRACT_MANAGEMENT))
                                                 .map(CharacteristicVO::getValue)
-                                                .map(pcv -> objectMapper.convertValue(pcv, ContractManagement.class))
+                                                .map(tmfMapper::toContractManagement)
                                                 .findAny()
                                                 .orElse(new ContractManagement(true))
                                 );
@@ -0,0 +1,69 @@
+package org.fiware.iam.tmforum;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.HttpResponse;
+import jakarta.inject.Singleton;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.tmforum.productcatalog.model.ProductSpecificationVO;
+import org.fiware.iam.tmforum.productorder.model.OrderItemActionTypeVO;
+import org.fiware.iam.tmforum.productorder.model.ProductOfferingRefVO;
+import org.fiware.iam.tmforum.productorder.model.ProductOrderItemVO;
+import org.fiware.iam.tmforum.productorder.model.ProductOrderVO;
+import org.fiware.iam.tmforum.productorder.model.QuoteRefVO;
+import org.fiware.iam.tmforum.quote.api.QuoteApiClient;
+import org.fiware.iam.tmforum.quote.model.QuoteItemVO;
+import org.fiware.iam.tmforum.quote.model.QuoteStateTypeVO;
+import org.fiware.iam.tmforum.quote.model.QuoteVO;
+import reactor.core.publisher.Flux;
+
+/**
+ * Resolves the product specifications of everything ordered with a ProductOrder, either through the connected Quotes or
+ * the order items. Orders might contain thousands of items, referencing the same offerings. Therefore, every offering
+ * and specification is only resolved once per order, through the {@link OfferingView} and with a limited number of
+ * concurrent requests.
+ */
+@Requires(condition = GeneralProperties.TmForumCondition.class)
+@Singleton
+@Slf4j
+@RequiredArgsConstructor
+public class ProductSpecificationResolver {
+
+    private static final String QUOTE_DELETE_ACTION = "delete";
+
+    private final GeneralProperties generalProperties;
+    private final OfferingView offeringView;
+    private final QuoteApiClient quoteApiClient;
+
+    /**
+     * Returns the distinct specifications of all offerings ordered.
+     */
+    public Flux<ProductSpecificationVO> getProductSpecifications(ProductOrderVO productOrder) {
+        int concurrency = generalProperties.getOrderItemConcurrency();
+        return getOfferingIds(productOrder)
+                .distinct()
+                .flatMap(offeringView::getSpecification, concurrency)
+                .distinct(ProductSpecificationVO::getId);
+    }
+
+    private Flux<String> getOfferingIds(ProductOrderVO productOrder) {
+        if (productOrder.getQuote() != null && !productOrder.getQuote().isEmpty()) {
+            return Flux.fromIterable(productOrder.getQuote())
+                    .map(QuoteRefVO::getId)
+                    .flatMap(quoteId -> quoteApiClient.retrieveQuote(quoteId, null).map(HttpResponse::body), generalProperties.getOrderItemConcurrency())
+                    .filter(quoteVO -> quoteVO.getState() == QuoteStateTypeVO.ACCEPTED)
+                    .flatMapIterable(QuoteVO::getQuoteItem)
+                    .filter(item -> item.getState().equals(QuoteStateTypeVO.ACCEPTED.getValue()))
+                    .filter(item -> !item.getAction().equals(QUOTE_DELETE_ACTION))
+                    .map(QuoteItemVO::getProductOffering)
+                    .map(org.fiware.iam.tmforum.quote.model.ProductOfferingRefVO::getId);
+        }
+        log.debug("No quote found, take the original offer from the order item.");
+        return Flux.fromIterable(productOrder.getProductOrderItem())
+                // unchanged items are still part of the order, only deleted ones are no longer in effect
+                .filter(poi -> poi.getAction() != null && poi.getAction() != OrderItemActionTypeVO.DELETE)
+                .map(ProductOrderItemVO::getProductOffering)
+                .map(ProductOfferingRefVO::getId);
+    }
+}
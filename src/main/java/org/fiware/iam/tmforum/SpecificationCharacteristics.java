@@ -0,0 +1,186 @@
+package org.fiware.iam.tmforum;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SchemaLocation;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.ValidationMessage;
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.operations.CacheStatistics;
+import org.fiware.iam.operations.InspectableCache;
+import org.fiware.iam.til.model.CredentialsVO;
+import org.fiware.iam.tmforum.productcatalog.model.CharacteristicValueSpecificationVO;
+import org.fiware.iam.tmforum.productcatalog.model.ProductSpecificationCharacteristicVO;
+import org.fiware.iam.tmforum.productcatalog.model.ProductSpecificationVO;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Validated content of the credentials configuration and authorization policy characteristics of product
+ * specifications. Every characteristic value is validated against the schemas shipped with the contract management
+ * (see /schemas) and parsed once per version of a specification. Invalid values are reported when the specification
+ * is first seen and ignored, same as before, but without paying the validation for every order again.
+ */
+@Requires(condition = GeneralProperties.TmForumCondition.class)
+@Slf4j
+@Singleton
+public class SpecificationCharacteristics implements InspectableCache {
+
+    private static final String CREDENTIALS_CONFIG_KEY = "credentialsConfiguration";
+    private static final String AUTHORIZATION_POLICY_KEY = "authorizationPolicy";
+    private static final String CREDENTIALS_VALUE_SCHEMA = "classpath:schemas/credentials/credentialConfigValue.json";
+    private static final String POLICY_VALUE_SCHEMA = "classpath:schemas/odrl/policyValue.json";
+    private static final String VALUE_KEY = "value";
+    private static final int MAX_CACHED_SPECIFICATIONS = 10_000;
+    private static final String CACHE_NAME = "specification-characteristics";
+
+    private static final TypeReference<List<CredentialsVO>> CREDENTIALS_TYPE_REF = new TypeReference<>() {
+    };
+    private static final TypeReference<List<Map<String, Object>>> POLICIES_TYPE_REF = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+    private final JsonSchema credentialsValueSchema;
+    private final JsonSchema policyValueSchema;
+    private final CacheStatistics cacheStatistics = new CacheStatistics();
+
+    private final Map<SpecificationKey, Characteristics> characteristics = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SpecificationKey, Characteristics> eldest) {
+            if (size() > MAX_CACHED_SPECIFICATIONS) {
+                cacheStatistics.evicted();
+                return true;
+            }
+            return false;
+        }
+    });
+
+    public SpecificationCharacteristics(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        JsonSchemaFactory schemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V202012);
+        this.credentialsValueSchema = compile(schemaFactory, CREDENTIALS_VALUE_SCHEMA);
+        this.policyValueSchema = compile(schemaFactory, POLICY_VALUE_SCHEMA);
+    }
+
+    /**
+     * Returns the validated characteristics of the given specification.
+     */
+    public Characteristics get(ProductSpecificationVO productSpecification) {
+        if (productSpecification.getId() == null) {
+            return parse(productSpecification);
+        }
+        SpecificationKey key = new SpecificationKey(productSpecification.getId(), productSpecification.getVersion(), productSpecification.getLastUpdate());
+        Characteristics cached = characteristics.get(key);
+        cacheStatistics.record(cached != null);
+        if (cached != null) {
+            return cached;
+        }
+        // parsed outside the lock, concurrent parsing of the same specification yields equal results
+        Characteristics parsed = parse(productSpecification);
+        characteristics.putIfAbsent(key, parsed);
+        return parsed;
+    }
+
+    @Override
+    public String getCacheName() {
+        return CACHE_NAME;
+    }
+
+    @Override
+    public CacheStatistics.CacheStats getCacheStats() {
+        return cacheStatistics.snapshot(characteristics.size());
+    }
+
+    @Override
+    public int invalidate(Predicate<String> keyFilter) {
+        return InspectableCache.removeMatching(characteristics, SpecificationKey::id, keyFilter);
+    }
+
+    private Characteristics parse(ProductSpecificationVO productSpecification) {
+        List<CredentialsVO> credentials = getValues(productSpecification, CREDENTIALS_CONFIG_KEY, credentialsValueSchema, CREDENTIALS_TYPE_REF);
+        List<Map<String, Object>> policies = getValues(productSpecification, AUTHORIZATION_POLICY_KEY, policyValueSchema, POLICIES_TYPE_REF);
+        log.debug("Specification {} contains the credentials config {} and the policies {}.", productSpecification.getId(), credentials, policies);
+        return new Characteristics(credentials, policies);
+    }
+
+    private <T> List<T> getValues(ProductSpecificationVO productSpecification, String valueType, JsonSchema valueSchema, TypeReference<List<T>> typeReference) {
+        return Optional.ofNullable(productSpecification.getProductSpecCharacteristic())
+                .orElse(List.of())
+                .stream()
+                .filter(psc -> valueType.equals(psc.getValueType()))
+                .findFirst()
+                .map(ProductSpecificationCharacteristicVO::getProductSpecCharacteristicValue)
+                .orElse(List.of())
+                .stream()
+                .filter(value -> isValid(productSpecification, valueType, valueSchema, value))
+                .map(value -> this.<T>convert(productSpecification, valueType, value.getValue(), typeReference))
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    // a value can contain a single object or a list of them, every one of them needs to be valid
+    private boolean isValid(ProductSpecificationVO productSpecification, String valueType, JsonSchema valueSchema, CharacteristicValueSpecificationVO value) {
+        JsonNode valueNode = objectMapper.valueToTree(value.getValue());
+        List<JsonNode> valueObjects = new ArrayList<>();
+        if (valueNode != null && valueNode.isArray()) {
+            valueNode.forEach(valueObjects::add);
+        } else {
+            valueObjects.add(valueNode);
+        }
+        Set<ValidationMessage> validationMessages = valueObjects.stream()
+                .<JsonNode>map(valueObject -> objectMapper.createObjectNode().set(VALUE_KEY, valueObject))
+                .flatMap(wrappedValue -> valueSchema.validate(wrappedValue).stream())
+                .collect(Collectors.toSet());
+        if (!validationMessages.isEmpty()) {
+            log.warn("The {} characteristic of specification {} in version {} is invalid and will be ignored: {}",
+                    valueType, productSpecification.getId(), productSpecification.getVersion(),
+                    validationMessages.stream().map(ValidationMessage::getMessage).collect(Collectors.joining(", ")));
+            return false;
+        }
+        return true;
+    }
+
+    private <T> List<T> convert(ProductSpecificationVO productSpecification, String valueType, Object value, TypeReference<List<T>> typeReference) {
+        try {
+            return objectMapper.convertValue(value, typeReference);
+        } catch (IllegalArgumentException iae) {
+            log.warn("The {} characteristic of specification {} in version {} cannot be parsed and will be ignored.",
+                    valueType, productSpecification.getId(), productSpecification.getVersion(), iae);
+            return List.of();
+        }
+    }
+
+    private static JsonSchema compile(JsonSchemaFactory schemaFactory, String location) {
+        JsonSchema schema = schemaFactory.getSchema(SchemaLocation.of(location));
+        // resolve all references at startup, instead of with the first validation
+        schema.initializeValidators();
+        return schema;
+    }
+
+    private record SpecificationKey(String id, String version, Instant lastUpdate) {
+    }
+
+    /**
+     * The validated content of a specification.
+     *
+     * @param credentials credentials configuration to be added to the trusted issuers list
+     * @param policies    authorization policies to be created at the PAP
+     */
+    public record Characteristics(List<CredentialsVO> credentials, List<Map<String, Object>> policies) {
+    }
+}
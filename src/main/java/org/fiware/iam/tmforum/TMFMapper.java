@@ -1,8 +1,18 @@
 package org.fiware.iam.tmforum;
 
+import org.fiware.iam.domain.ContractManagement;
 import org.fiware.iam.tmforum.agreement.model.RelatedPartyTmfVO;
 import org.fiware.iam.tmforum.productorder.model.RelatedPartyVO;
+import org.fiware.iam.tmforum.quote.model.QuoteUpdateVO;
+import org.fiware.iam.tmforum.quote.model.QuoteVO;
 import org.mapstruct.Mapper;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 /**
  * Mapper for objects between TMForum APIs
  */
@@ -10,4 +20,30 @@ import org.mapstruct.Mapper;
 public interface TMFMapper {
 
 	RelatedPartyTmfVO map(RelatedPartyVO relatedPartyVO);
+
+	/**
+	 * Maps the quote to an update, id, href and quoteDate of the quote are not part of it.
+	 */
+	QuoteUpdateVO map(QuoteVO quoteVO);
+
+	/**
+	 * Maps the value of the contract management characteristic of an organization, as parsed from json.
+	 */
+	default ContractManagement toContractManagement(Object characteristicValue) {
+		if (characteristicValue instanceof ContractManagement contractManagement) {
+			return contractManagement;
+		}
+		if (!(characteristicValue instanceof Map<?, ?> value)) {
+			throw new IllegalArgumentException("The contract management characteristic needs to be an object.");
+		}
+		ContractManagement contractManagement = new ContractManagement();
+		contractManagement.setLocal(Boolean.parseBoolean(String.valueOf(value.get("local"))));
+		contractManagement.setAddress(Optional.ofNullable(value.get("address")).map(String::valueOf).orElse(null));
+		contractManagement.setClientId(Optional.ofNullable(value.get("clientId")).map(String::valueOf).orElse(null));
+		contractManagement.setScope(Optional.ofNullable(value.get("scope"))
+				.map(scope -> scope instanceof Collection<?> scopes ? scopes : Set.of(scope))
+				.map(scopes -> scopes.stream().map(String::valueOf).collect(Collectors.toSet()))
+				.orElse(null));
+		return contractManagement;
+	}
 }
@@ -1,6 +1,5 @@
 package org.fiware.iam.tmforum;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micronaut.context.annotation.Requires;
 import io.micronaut.http.HttpResponse;
 import jakarta.inject.Singleton;
@@ -11,8 +10,6 @@ import org.fiware.iam.dsp.OfferingParameters;
 import org.fiware.iam.exception.TMForumException;
 import org.fiware.iam.tmforum.agreement.api.AgreementApiClient;
 import org.fiware.iam.tmforum.agreement.model.*;
-import org.fiware.iam.tmforum.productcatalog.api.ProductOfferingApiClient;
-import org.fiware.iam.tmforum.productcatalog.api.ProductSpecificationApiClient;
 import org.fiware.iam.tmforum.productcatalog.model.*;
 import org.fiware.iam.tmforum.productorder.api.ProductOrderApiClient;
 import org.fiware.iam.tmforum.productorder.model.AgreementRefVO;
@@ -37,12 +34,11 @@ public class TMForumAdapter {
     public static final String DATA_SPACE_PROTOCOL_AGREEMENT_ID = "Data-Space-Protocol-Agreement-Id";
     public static final String CONSUMER_ROLE = "Consumer";
 
-    private final ObjectMapper objectMapper;
+    private final TMFMapper tmfMapper;
 
     private final OrganizationResolver organizationResolver;
     private final ProductOrderApiClient productOrderApiClient;
-    private final ProductOfferingApiClient productOfferingApiClient;
-    private final ProductSpecificationApiClient productSpecificationApiClient;
+    private final OfferingView offeringView;
     private final AgreementApiClient agreementApiClient;
     private final QuoteApiClient quoteApiClient;
 
@@ -77,6 +73,18 @@ public class TMForumAdapter {
                 });
     }
 
+    /**
+     * Delete the TMForum Agreement with the given id.
+     */
+    public Mono<Boolean> deleteAgreement(String tmfAgreementId) {
+        return agreementApiClient
+                .deleteAgreement(tmfAgreementId)
+                .map(response -> response.getStatus().getCode() >= 200 && response.getStatus().getCode() < 300)
+                .onErrorResume(t -> {
+                    log.warn("Was not able to delete agreement {}", tmfAgreementId, t);
+                    return Mono.just(false);
+                });
+    }
 
     /**
      * Add the id of agreements(from rainbow) to the given product order
@@ -99,11 +107,7 @@ public class TMForumAdapter {
      * Update the externalId of a quote.
      */
     public Mono<QuoteVO> updateExternalId(QuoteVO quoteVO, String externalId) {
-        QuoteUpdateVO quoteUpdateVO = objectMapper.convertValue(quoteVO.externalId(externalId), QuoteUpdateVO.class);
-        // remove the quote object
-        quoteUpdateVO.setUnknownProperties("id", null);
-        quoteUpdateVO.setUnknownProperties("href", null);
-        quoteUpdateVO.setUnknownProperties("quoteDate", null);
+        QuoteUpdateVO quoteUpdateVO = tmfMapper.map(quoteVO.externalId(externalId));
 
         return quoteApiClient.patchQuote(quoteVO.getId(), quoteUpdateVO)
                 .onErrorMap(t -> {
@@ -125,14 +129,8 @@ public class TMForumAdapter {
     }
 
     public Mono<ProductSpecificationVO> getSpecFromOfferRef(String refId) {
-        return productOfferingApiClient.retrieveProductOffering(refId, null)
-                .onErrorMap(t -> new TMForumException(String.format("Was not able to retrieve offering %s", refId), t))
-                .map(HttpResponse::body)
-                .map(ProductOfferingVO::getProductSpecification)
-                .map(ProductSpecificationRefVO::getId)
-                .flatMap(id -> productSpecificationApiClient.retrieveProductSpecification(id, null))
-                .onErrorMap(t -> new TMForumException(String.format("Was not able to retrieve specification for offering %s", refId), t))
-                .map(HttpResponse::body);
+        return offeringView.getSpecification(refId)
+                .onErrorMap(t -> new TMForumException(String.format("Was not able to retrieve specification for offering %s", refId), t));
     }
 
 
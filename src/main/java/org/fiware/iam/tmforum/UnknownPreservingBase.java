@@ -4,30 +4,76 @@ import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
-import java.util.HashMap;
+import java.util.AbstractMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Base class to be used for all generated VOs. Will preserve all properties that are not explicitly mapped.
+ * Since most VOs do not contain any unknown property, the storage is only created once the first one is set. Until then,
+ * the getter returns a view that creates the storage on its first write, so that the returned map is always modifiable.
+ * Maps handed over through {@link #unknownProperties(Map)} are used as storage as they are, whether empty or not.
  */
 public class UnknownPreservingBase {
 
-	private Map<String, Object> unknownProperties = new HashMap<>();
+	private Map<String, Object> unknownProperties;
 
 	@JsonAnyGetter
 	public Map<String, Object> getUnknownProperties() {
+		if (this.unknownProperties == null) {
+			return new UnallocatedProperties();
+		}
 		return this.unknownProperties;
 	}
 
 	@JsonAnySetter
 	public void setUnknownProperties(String propertyKey, Object value) {
 		if (this.unknownProperties == null) {
-			this.unknownProperties = new HashMap();
+			this.unknownProperties = new CompactProperties();
 		}
 
 		this.unknownProperties.put(propertyKey, value);
 	}
 
+	/**
+	 * View on the unknown properties, until their storage is allocated with the first write.
+	 */
+	private class UnallocatedProperties extends AbstractMap<String, Object> {
+
+		@Override
+		public Object get(Object key) {
+			return unknownProperties == null ? null : unknownProperties.get(key);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return unknownProperties != null && unknownProperties.containsKey(key);
+		}
+
+		@Override
+		public int size() {
+			return unknownProperties == null ? 0 : unknownProperties.size();
+		}
+
+		@Override
+		public Object put(String key, Object value) {
+			if (unknownProperties == null) {
+				unknownProperties = new CompactProperties();
+			}
+			return unknownProperties.put(key, value);
+		}
+
+		@Override
+		public Object remove(Object key) {
+			return unknownProperties == null ? null : unknownProperties.remove(key);
+		}
+
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return unknownProperties == null ? Set.<Entry<String, Object>>of() : unknownProperties.entrySet();
+		}
+	}
+
 	@JsonIgnore
 	public UnknownPreservingBase unknownProperties(Map<String, Object> unknownProperties) {
 		this.unknownProperties = unknownProperties;
@@ -0,0 +1,94 @@
+package org.fiware.iam.tmforum.handlers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.HttpResponse;
+import jakarta.inject.Singleton;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.handlers.ProductOfferingPriceHandler;
+import org.fiware.iam.tmforum.productcatalog.model.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Handle all incoming events in connection to ProductOfferingPrices
+ */
+@Requires(condition = GeneralProperties.TmForumCondition.class)
+@RequiredArgsConstructor
+@Singleton
+@Slf4j
+public class ProductOfferingPriceEventHandler implements TMForumEventHandler {
+
+    private static final String CREATE_EVENT = "ProductOfferingPriceCreateEvent";
+    private static final String DELETE_EVENT = "ProductOfferingPriceDeleteEvent";
+    private static final String STATE_CHANGE_EVENT = "ProductOfferingPriceStateChangeEvent";
+    private static final String ATTRIBUTE_CHANGE_EVENT = "ProductOfferingPriceAttributeValueChangeEvent";
+
+    private static final List<String> SUPPORTED_EVENT_TYPES = List.of(CREATE_EVENT, DELETE_EVENT, STATE_CHANGE_EVENT, ATTRIBUTE_CHANGE_EVENT);
+
+    private final ObjectMapper objectMapper;
+    private final List<ProductOfferingPriceHandler> productOfferingPriceHandlers;
+
+    @Override
+    public boolean isEventTypeSupported(String eventType) {
+        return SUPPORTED_EVENT_TYPES.contains(eventType);
+    }
+
+    @Override
+    public Mono<HttpResponse<?>> handleEvent(String eventType, Map<String, Object> event) {
+        return switch (eventType) {
+            case CREATE_EVENT -> handlePriceCreation(event);
+            case STATE_CHANGE_EVENT -> handlePriceStateChange(event);
+            case ATTRIBUTE_CHANGE_EVENT -> handlePriceAttributeChange(event);
+            case DELETE_EVENT -> handlePriceDeletion(event);
+            default -> throw new IllegalArgumentException("Even type %s is not supported.".formatted(eventType));
+        };
+    }
+
+    private Mono<HttpResponse<?>> handlePriceCreation(Map<String, Object> event) {
+        ProductOfferingPriceCreateEventVO productOfferingPriceCreateEventVO = objectMapper.convertValue(event, ProductOfferingPriceCreateEventVO.class);
+        return handlePriceChange(Optional.ofNullable(productOfferingPriceCreateEventVO.getEvent())
+                .map(ProductOfferingPriceCreateEventPayloadVO::getProductOfferingPrice));
+    }
+
+    private Mono<HttpResponse<?>> handlePriceStateChange(Map<String, Object> event) {
+        ProductOfferingPriceStateChangeEventVO productOfferingPriceStateChangeEventVO = objectMapper.convertValue(event, ProductOfferingPriceStateChangeEventVO.class);
+        return handlePriceChange(Optional.ofNullable(productOfferingPriceStateChangeEventVO.getEvent())
+                .map(ProductOfferingPriceStateChangeEventPayloadVO::getProductOfferingPrice));
+    }
+
+    private Mono<HttpResponse<?>> handlePriceAttributeChange(Map<String, Object> event) {
+        ProductOfferingPriceAttributeValueChangeEventVO productOfferingPriceAttributeValueChangeEventVO = objectMapper.convertValue(event, ProductOfferingPriceAttributeValueChangeEventVO.class);
+        return handlePriceChange(Optional.ofNullable(productOfferingPriceAttributeValueChangeEventVO.getEvent())
+                .map(ProductOfferingPriceAttributeValueChangeEventPayloadVO::getProductOfferingPrice));
+    }
+
+    private Mono<HttpResponse<?>> handlePriceChange(Optional<ProductOfferingPriceVO> optionalPrice) {
+        ProductOfferingPriceVO productOfferingPriceVO = optionalPrice
+                .orElseThrow(() -> new IllegalArgumentException("The event does not contain a product offering price."));
+
+        List<Mono<HttpResponse<?>>> responses = productOfferingPriceHandlers.stream()
+                .map(handler -> handler.handleProductOfferingPriceChange(productOfferingPriceVO))
+                .toList();
+
+        return zipToResponse(responses);
+    }
+
+    private Mono<HttpResponse<?>> handlePriceDeletion(Map<String, Object> event) {
+        ProductOfferingPriceDeleteEventVO productOfferingPriceDeleteEventVO = objectMapper.convertValue(event, ProductOfferingPriceDeleteEventVO.class);
+        ProductOfferingPriceVO productOfferingPriceVO = Optional.ofNullable(productOfferingPriceDeleteEventVO.getEvent())
+                .map(ProductOfferingPriceDeleteEventPayloadVO::getProductOfferingPrice)
+                .orElseThrow(() -> new IllegalArgumentException("The event does not contain a product offering price."));
+
+        List<Mono<HttpResponse<?>>> responses = productOfferingPriceHandlers.stream()
+                .map(handler -> handler.handleProductOfferingPriceDeletion(productOfferingPriceVO))
+                .toList();
+
+        return zipToResponse(responses);
+    }
+}
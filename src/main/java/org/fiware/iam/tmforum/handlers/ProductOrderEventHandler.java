@@ -15,6 +15,7 @@ import org.fiware.iam.tmforum.productorder.model.*;
 import reactor.core.publisher.Mono;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 
@@ -30,7 +31,8 @@ public class ProductOrderEventHandler implements TMForumEventHandler {
     private static final String CREATE_EVENT = "ProductOrderCreateEvent";
     private static final String DELETE_EVENT = "ProductOrderDeleteEvent";
     private static final String STATE_CHANGE_EVENT = "ProductOrderStateChangeEvent";
-    private static final List<String> SUPPORTED_EVENT_TYPES = List.of(CREATE_EVENT, DELETE_EVENT, STATE_CHANGE_EVENT);
+    private static final String ATTRIBUTE_CHANGE_EVENT = "ProductOrderAttributeValueChangeEvent";
+    private static final List<String> SUPPORTED_EVENT_TYPES = List.of(CREATE_EVENT, DELETE_EVENT, STATE_CHANGE_EVENT, ATTRIBUTE_CHANGE_EVENT);
 
     @Value("${general.productOrder.customerRole:Customer}")
     private String CUSTOMER_ROLE;
@@ -67,24 +69,32 @@ public class ProductOrderEventHandler implements TMForumEventHandler {
             case CREATE_EVENT -> handelCreateEvent(orgId, event);
             case STATE_CHANGE_EVENT -> handelStateChangeEvent(orgId, event);
             case DELETE_EVENT -> handelDeleteEvent(orgId, event);
+            case ATTRIBUTE_CHANGE_EVENT -> handleAttributeChangeEvent(orgId, event);
             default -> throw new IllegalArgumentException("Invalid event type received.");
         };
 
     }
 
     private Optional<RelatedPartyVO> getCustomer(List<RelatedPartyVO> relatedPartyVOS) {
-        if (relatedPartyVOS == null || relatedPartyVOS.isEmpty()) {
+        return getCustomer(relatedPartyVOS, RelatedPartyVO::getRole, CUSTOMER_ROLE);
+    }
+
+    /**
+     * Returns the customer out of the related parties: a single party without role or the first one with the customer role.
+     */
+    public static <T> Optional<T> getCustomer(List<T> relatedParties, Function<T, String> roleGetter, String customerRole) {
+        if (relatedParties == null || relatedParties.isEmpty()) {
             return Optional.empty();
         }
-        if (relatedPartyVOS.size() == 1) {
-            String role = relatedPartyVOS.getFirst().getRole();
-            if (role == null || role.equalsIgnoreCase(CUSTOMER_ROLE)) {
-                return Optional.of(relatedPartyVOS.getFirst());
+        if (relatedParties.size() == 1) {
+            String role = roleGetter.apply(relatedParties.getFirst());
+            if (role == null || role.equalsIgnoreCase(customerRole)) {
+                return Optional.of(relatedParties.getFirst());
             }
         }
-        return relatedPartyVOS.stream()
-                .filter(relatedPartyVO -> relatedPartyVO.getRole() != null)
-                .filter(relatedPartyVO -> relatedPartyVO.getRole().equalsIgnoreCase(CUSTOMER_ROLE))
+        return relatedParties.stream()
+                .filter(relatedParty -> roleGetter.apply(relatedParty) != null)
+                .filter(relatedParty -> roleGetter.apply(relatedParty).equalsIgnoreCase(customerRole))
                 .findFirst();
     }
 
@@ -149,6 +159,25 @@ public class ProductOrderEventHandler implements TMForumEventHandler {
     }
 
 
+    private Mono<HttpResponse<?>> handleAttributeChangeEvent(String organizationId, Map<String, Object> event) {
+        ProductOrderAttributeValueChangeEventVO productOrderAttributeValueChangeEventVO = objectMapper.convertValue(event, ProductOrderAttributeValueChangeEventVO.class);
+        ProductOrderVO productOrderVO = Optional.ofNullable(productOrderAttributeValueChangeEventVO.getEvent())
+                .map(ProductOrderAttributeValueChangeEventPayloadVO::getProductOrder)
+                .orElseThrow(() -> new IllegalArgumentException("The event does not contain a product order."));
+
+        // changed items of completed orders are applied as difference to what the handlers already applied
+        if (!isCompleted(productOrderVO)) {
+            log.debug("The changed product order is not in state completed.");
+            return Mono.just(HttpResponse.noContent());
+        }
+
+        List<Mono<HttpResponse<?>>> responses = productOrderHandlers.stream()
+                .map(handler -> handler.handleProductOrderComplete(organizationId, productOrderVO))
+                .toList();
+
+        return zipToResponse(responses);
+    }
+
     private Mono<HttpResponse<?>> handleStopEvent(String organizationId, Map<String, Object> event) {
         ProductOrderStateChangeEventVO productOrderStateChangeEventVO = objectMapper.convertValue(event, ProductOrderStateChangeEventVO.class);
         ProductOrderVO productOrderVO = Optional.ofNullable(productOrderStateChangeEventVO.getEvent())
@@ -0,0 +1,94 @@
+package org.fiware.iam.tmforum.handlers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.HttpResponse;
+import jakarta.inject.Singleton;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.handlers.ProductSpecificationHandler;
+import org.fiware.iam.tmforum.productcatalog.model.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Handle all incoming events in connection to ProductSpecifications
+ */
+@Requires(condition = GeneralProperties.TmForumCondition.class)
+@RequiredArgsConstructor
+@Singleton
+@Slf4j
+public class ProductSpecificationEventHandler implements TMForumEventHandler {
+
+    private static final String CREATE_EVENT = "ProductSpecificationCreateEvent";
+    private static final String DELETE_EVENT = "ProductSpecificationDeleteEvent";
+    private static final String STATE_CHANGE_EVENT = "ProductSpecificationStateChangeEvent";
+    private static final String ATTRIBUTE_CHANGE_EVENT = "ProductSpecificationAttributeValueChangeEvent";
+
+    private static final List<String> SUPPORTED_EVENT_TYPES = List.of(CREATE_EVENT, DELETE_EVENT, STATE_CHANGE_EVENT, ATTRIBUTE_CHANGE_EVENT);
+
+    private final ObjectMapper objectMapper;
+    private final List<ProductSpecificationHandler> productSpecificationHandlers;
+
+    @Override
+    public boolean isEventTypeSupported(String eventType) {
+        return SUPPORTED_EVENT_TYPES.contains(eventType);
+    }
+
+    @Override
+    public Mono<HttpResponse<?>> handleEvent(String eventType, Map<String, Object> event) {
+        return switch (eventType) {
+            case CREATE_EVENT -> handleSpecificationCreation(event);
+            case STATE_CHANGE_EVENT -> handleSpecificationStateChange(event);
+            case ATTRIBUTE_CHANGE_EVENT -> handleSpecificationAttributeChange(event);
+            case DELETE_EVENT -> handleSpecificationDeletion(event);
+            default -> throw new IllegalArgumentException("Even type %s is not supported.".formatted(eventType));
+        };
+    }
+
+    private Mono<HttpResponse<?>> handleSpecificationCreation(Map<String, Object> event) {
+        ProductSpecificationCreateEventVO productSpecificationCreateEventVO = objectMapper.convertValue(event, ProductSpecificationCreateEventVO.class);
+        return handleSpecificationChange(Optional.ofNullable(productSpecificationCreateEventVO.getEvent())
+                .map(ProductSpecificationCreateEventPayloadVO::getProductSpecification));
+    }
+
+    private Mono<HttpResponse<?>> handleSpecificationStateChange(Map<String, Object> event) {
+        ProductSpecificationStateChangeEventVO productSpecificationStateChangeEventVO = objectMapper.convertValue(event, ProductSpecificationStateChangeEventVO.class);
+        return handleSpecificationChange(Optional.ofNullable(productSpecificationStateChangeEventVO.getEvent())
+                .map(ProductSpecificationStateChangeEventPayloadVO::getProductSpecification));
+    }
+
+    private Mono<HttpResponse<?>> handleSpecificationAttributeChange(Map<String, Object> event) {
+        ProductSpecificationAttributeValueChangeEventVO productSpecificationAttributeValueChangeEventVO = objectMapper.convertValue(event, ProductSpecificationAttributeValueChangeEventVO.class);
+        return handleSpecificationChange(Optional.ofNullable(productSpecificationAttributeValueChangeEventVO.getEvent())
+                .map(ProductSpecificationAttributeValueChangeEventPayloadVO::getProductSpecification));
+    }
+
+    private Mono<HttpResponse<?>> handleSpecificationChange(Optional<ProductSpecificationVO> optionalSpecification) {
+        ProductSpecificationVO productSpecificationVO = optionalSpecification
+                .orElseThrow(() -> new IllegalArgumentException("The event does not contain a product specification."));
+
+        List<Mono<HttpResponse<?>>> responses = productSpecificationHandlers.stream()
+                .map(handler -> handler.handleSpecificationChange(productSpecificationVO))
+                .toList();
+
+        return zipToResponse(responses);
+    }
+
+    private Mono<HttpResponse<?>> handleSpecificationDeletion(Map<String, Object> event) {
+        ProductSpecificationDeleteEventVO productSpecificationDeleteEventVO = objectMapper.convertValue(event, ProductSpecificationDeleteEventVO.class);
+        ProductSpecificationVO productSpecificationVO = Optional.ofNullable(productSpecificationDeleteEventVO.getEvent())
+                .map(ProductSpecificationDeleteEventPayloadVO::getProductSpecification)
+                .orElseThrow(() -> new IllegalArgumentException("The event does not contain a product specification."));
+
+        List<Mono<HttpResponse<?>>> responses = productSpecificationHandlers.stream()
+                .map(handler -> handler.handleSpecificationDeletion(productSpecificationVO))
+                .toList();
+
+        return zipToResponse(responses);
+    }
+}
@@ -0,0 +1,147 @@
+package org.fiware.iam.tmforum.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.AdmissionProperties;
+import org.fiware.iam.configuration.EventTypeLimit;
+import org.fiware.iam.tmforum.handlers.TMForumEventHandler;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Adaptive admission control for incoming events. Tracks the number of events in flight per event type and limits
+ * them with an AIMD limit: every event handled within the target latency, while the limit was actually used, increases
+ * the limit by one. Every slow or failed event decreases it by the backoff ratio. Events exceeding the limit are
+ * rejected with 503 and a Retry-After header, to keep the latency of the accepted ones low. Limits, and their metrics,
+ * only exist for event types supported by one of the handlers, other events are rejected as invalid.
+ */
+@Slf4j
+@Singleton
+public class AdmissionControl {
+
+    private static final String SHED_METRIC = "contract.management.admission.shed";
+    private static final String LIMIT_METRIC = "contract.management.admission.limit";
+    private static final String IN_FLIGHT_METRIC = "contract.management.admission.in.flight";
+    private static final String EVENT_TYPE_TAG = "eventType";
+
+    private final AdmissionProperties admissionProperties;
+    private final MeterRegistry meterRegistry;
+    private final List<TMForumEventHandler> eventHandlers;
+    private final Map<String, EventTypeLimit> eventTypeLimits;
+    private final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+    public AdmissionControl(AdmissionProperties admissionProperties, MeterRegistry meterRegistry, List<TMForumEventHandler> eventHandlers) {
+        this.admissionProperties = admissionProperties;
+        this.meterRegistry = meterRegistry;
+        this.eventHandlers = eventHandlers;
+        this.eventTypeLimits = admissionProperties.getEventTypeLimits()
+                .stream()
+                .collect(Collectors.toMap(EventTypeLimit::getEventType, limit -> limit));
+    }
+
+    /**
+     * Run the handling of the event, if it's admitted. Otherwise respond with 503. Events of unsupported types fail with
+     * an {@link IllegalArgumentException}.
+     */
+    public Mono<HttpResponse<?>> admit(String eventType, Supplier<Mono<HttpResponse<?>>> handling) {
+        if (!admissionProperties.isEnabled()) {
+            return Mono.defer(handling);
+        }
+        if (!limiters.containsKey(eventType) && eventHandlers.stream().noneMatch(handler -> handler.isEventTypeSupported(eventType))) {
+            return Mono.error(new IllegalArgumentException("Event type %s is not supported.".formatted(eventType)));
+        }
+        Limiter limiter = limiters.computeIfAbsent(eventType, this::newLimiter);
+        if (!limiter.tryAcquire()) {
+            limiter.shedCounter.increment();
+            log.debug("Shed event of type {}, limit of {} events in flight reached.", eventType, limiter.getLimit());
+            return Mono.just(HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(admissionProperties.getRetryAfter().toSeconds())));
+        }
+        long start = System.nanoTime();
+        AtomicReference<Boolean> success = new AtomicReference<>();
+        return Mono.defer(handling)
+                .doOnNext(response -> success.set(response.getStatus().getCode() < 500))
+                .doOnError(t -> success.set(false))
+                // a cancellation before any response is considered a failure
+                .doFinally(signal -> limiter.release(
+                        Duration.ofNanos(System.nanoTime() - start),
+                        Optional.ofNullable(success.get()).orElse(signal == SignalType.ON_COMPLETE)));
+    }
+
+    private Limiter newLimiter(String eventType) {
+        Optional<EventTypeLimit> eventTypeLimit = Optional.ofNullable(eventTypeLimits.get(eventType));
+        Limiter limiter = new Limiter(
+                eventTypeLimit.map(EventTypeLimit::getInitialLimit).orElse(admissionProperties.getInitialLimit()),
+                admissionProperties.getMinLimit(),
+                eventTypeLimit.map(EventTypeLimit::getMaxLimit).orElse(admissionProperties.getMaxLimit()),
+                eventTypeLimit.map(EventTypeLimit::getTargetLatency).orElse(admissionProperties.getTargetLatency()),
+                admissionProperties.getBackoffRatio(),
+                Counter.builder(SHED_METRIC).tag(EVENT_TYPE_TAG, eventType).register(meterRegistry));
+        Gauge.builder(LIMIT_METRIC, limiter, Limiter::getLimit).tag(EVENT_TYPE_TAG, eventType).register(meterRegistry);
+        Gauge.builder(IN_FLIGHT_METRIC, limiter, Limiter::getInFlight).tag(EVENT_TYPE_TAG, eventType).register(meterRegistry);
+        return limiter;
+    }
+
+    private static class Limiter {
+
+        private final int minLimit;
+        private final int maxLimit;
+        private final Duration targetLatency;
+        private final double backoffRatio;
+        private final Counter shedCounter;
+
+        private double limit;
+        private int inFlight = 0;
+
+        private Limiter(int initialLimit, int minLimit, int maxLimit, Duration targetLatency, double backoffRatio, Counter shedCounter) {
+            this.limit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.targetLatency = targetLatency;
+            this.backoffRatio = backoffRatio;
+            this.shedCounter = shedCounter;
+        }
+
+        private synchronized boolean tryAcquire() {
+            if (inFlight >= (int) limit) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        }
+
+        private synchronized void release(Duration latency, boolean success) {
+            // only increase if the limit was actually used, to not grow it without evidence
+            boolean limitUsed = inFlight * 2 >= limit;
+            inFlight--;
+            if (!success || latency.compareTo(targetLatency) > 0) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (limitUsed) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+
+        private synchronized double getLimit() {
+            return limit;
+        }
+
+        private synchronized double getInFlight() {
+            return inFlight;
+        }
+    }
+}
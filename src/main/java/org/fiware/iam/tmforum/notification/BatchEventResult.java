@@ -0,0 +1,16 @@
+package org.fiware.iam.tmforum.notification;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Result of handling a single event of a batch.
+ *
+ * @param index     position of the event in the batch
+ * @param eventId   id of the event, if contained
+ * @param eventType type of the event, if contained
+ * @param status    http status the event was handled with
+ * @param message   description of the failure, if not handled successfully
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchEventResult(long index, String eventId, String eventType, int status, String message) {
+}
@@ -0,0 +1,173 @@
+package org.fiware.iam.tmforum.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.http.HttpResponse;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.CoalescingProperties;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Coalesces bursts of change events for the same entity, f.e. a quote edited in a negotiation UI. The first event opens
+ * a window, events arriving within it replace the pending one and only the newest is handled once the window ends. All
+ * coalesced events share its result. Changes of the state (quote state or offering lifecycle status) are never
+ * coalesced: the pending event is handled immediately and the changed one opens a new window. Events in one of the
+ * immediate states (f.e. accepted) are handled without delay.
+ */
+@Slf4j
+@Singleton
+public class EventCoalescer {
+
+    private static final String SUPERSEDED_METRIC = "contract.management.coalescing.superseded";
+    private static final String EVENT_TYPE_TAG = "eventType";
+    private static final Set<String> STATE_KEYS = Set.of("state", "lifecycleStatus");
+
+    private final CoalescingProperties coalescingProperties;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> immediateStates;
+
+    private final Map<String, PendingEvent> pendingEvents = new HashMap<>();
+
+    public EventCoalescer(CoalescingProperties coalescingProperties, MeterRegistry meterRegistry) {
+        this.coalescingProperties = coalescingProperties;
+        this.meterRegistry = meterRegistry;
+        this.immediateStates = coalescingProperties.getImmediateStates()
+                .stream()
+                .map(String::toLowerCase)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Handle the event, coalesced with other events for the same entity if applicable.
+     *
+     * @param eventType type of the event
+     * @param event     the event
+     * @param handling  function to handle an event, will be called with the newest event of a burst
+     * @return the result of handling the newest event
+     */
+    public Mono<HttpResponse<?>> coalesce(String eventType, Map<String, Object> event,
+                                          BiFunction<String, Map<String, Object>, Mono<HttpResponse<?>>> handling) {
+        Optional<String> entityKey = EventKeys.entityType(event)
+                .flatMap(entityType -> EventKeys.entityId(event).map(id -> entityType + ":" + id));
+        if (!coalescingProperties.isEnabled() || !coalescingProperties.getEventTypes().contains(eventType) || entityKey.isEmpty()) {
+            return handling.apply(eventType, event);
+        }
+        return coalesce(entityKey.get(), new PendingEvent(eventType, event, getState(event), handling));
+    }
+
+    private Mono<HttpResponse<?>> coalesce(String entityKey, PendingEvent newEvent) {
+        boolean immediate = newEvent.state != null && immediateStates.contains(newEvent.state.toLowerCase());
+        PendingEvent toFlush = null;
+        Mono<HttpResponse<?>> result;
+        synchronized (this) {
+            PendingEvent pending = pendingEvents.get(entityKey);
+            if (pending != null && Objects.equals(pending.state, newEvent.state)) {
+                // same state, the new event supersedes the pending one
+                Counter.builder(SUPERSEDED_METRIC)
+                        .tag(EVENT_TYPE_TAG, pending.eventType)
+                        .register(meterRegistry)
+                        .increment();
+                pending.supersede(newEvent);
+                result = pending.result.asMono();
+                if (immediate) {
+                    toFlush = removePending(entityKey, pending);
+                }
+            } else {
+                Mono<?> predecessor = Mono.empty();
+                if (pending != null) {
+                    // the state changed, thus the pending event cannot be skipped and has to be handled first
+                    toFlush = removePending(entityKey, pending);
+                    predecessor = pending.result.asMono().onErrorResume(t -> Mono.empty());
+                }
+                if (immediate) {
+                    result = predecessor.then(Mono.defer(() -> newEvent.handling.apply(newEvent.eventType, newEvent.event)));
+                } else {
+                    newEvent.predecessor = predecessor;
+                    newEvent.timer = Mono.delay(coalescingProperties.getWindow())
+                            .subscribe(tick -> flushAfterWindow(entityKey, newEvent));
+                    pendingEvents.put(entityKey, newEvent);
+                    result = newEvent.result.asMono();
+                }
+            }
+        }
+        Optional.ofNullable(toFlush).ifPresent(EventCoalescer::handle);
+        return result;
+    }
+
+    private void flushAfterWindow(String entityKey, PendingEvent pendingEvent) {
+        boolean flush;
+        synchronized (this) {
+            flush = pendingEvents.remove(entityKey, pendingEvent);
+        }
+        if (flush) {
+            handle(pendingEvent);
+        }
+    }
+
+    /**
+     * Needs to be called while holding the lock.
+     */
+    private PendingEvent removePending(String entityKey, PendingEvent pendingEvent) {
+        pendingEvents.remove(entityKey);
+        pendingEvent.timer.dispose();
+        return pendingEvent;
+    }
+
+    private static void handle(PendingEvent pendingEvent) {
+        log.debug("Handle {} after coalescing {} events.", pendingEvent.eventType, pendingEvent.coalesced);
+        pendingEvent.predecessor
+                .then(Mono.defer(() -> pendingEvent.handling.apply(pendingEvent.eventType, pendingEvent.event)))
+                .subscribe(
+                        response -> pendingEvent.result.tryEmitValue(response),
+                        pendingEvent.result::tryEmitError,
+                        pendingEvent.result::tryEmitEmpty);
+    }
+
+    private static String getState(Map<String, Object> event) {
+        return EventKeys.entity(event)
+                .flatMap(entity -> STATE_KEYS.stream()
+                        .map(entity::get)
+                        .filter(String.class::isInstance)
+                        .map(String.class::cast)
+                        .findFirst())
+                .orElse(null);
+    }
+
+    private static class PendingEvent {
+        private final String state;
+        private final Sinks.One<HttpResponse<?>> result = Sinks.one();
+
+        private String eventType;
+        private Map<String, Object> event;
+        private BiFunction<String, Map<String, Object>, Mono<HttpResponse<?>>> handling;
+        private Mono<?> predecessor = Mono.empty();
+        private Disposable timer;
+        private int coalesced = 1;
+
+        private PendingEvent(String eventType, Map<String, Object> event, String state,
+                             BiFunction<String, Map<String, Object>, Mono<HttpResponse<?>>> handling) {
+            this.eventType = eventType;
+            this.event = event;
+            this.state = state;
+            this.handling = handling;
+        }
+
+        private void supersede(PendingEvent newEvent) {
+            this.eventType = newEvent.eventType;
+            this.event = newEvent.event;
+            this.handling = newEvent.handling;
+            this.coalesced++;
+        }
+    }
+}
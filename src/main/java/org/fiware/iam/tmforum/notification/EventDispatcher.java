@@ -0,0 +1,114 @@
+package org.fiware.iam.tmforum.notification;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.HttpResponse;
+import jakarta.inject.Singleton;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.operations.InFlightTracker;
+import org.fiware.iam.scheduling.EventScheduler;
+import org.fiware.iam.tmforum.handlers.ProductOrderEventHandler;
+import org.fiware.iam.tmforum.handlers.TMForumEventHandler;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dispatches TMForum events to the responsible {@link TMForumEventHandler}, independent of their source (pushed by the
+ * hub or polled from the list APIs). Stale events are dropped, bursts of changes to the same entity are coalesced,
+ * events are scheduled per customer organization and revocations of access are handled with priority.
+ */
+@Slf4j
+@Singleton
+@RequiredArgsConstructor
+public class EventDispatcher {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final String PRODUCT_ORDER_DELETE_EVENT = "ProductOrderDeleteEvent";
+    private static final String PRODUCT_ORDER_STATE_CHANGE_EVENT = "ProductOrderStateChangeEvent";
+    private static final String COMPLETED_STATE = "completed";
+    private static final String STATE_KEY = "state";
+    private static final String RELATED_PARTY_KEY = "relatedParty";
+    private static final String ROLE_KEY = "role";
+
+    private final List<TMForumEventHandler> eventHandlers;
+    private final HandledEntityTracker handledEntityTracker;
+    private final EventScheduler eventScheduler;
+    private final EventCoalescer eventCoalescer;
+    private final StaleEventFence staleEventFence;
+    private final InFlightTracker inFlightTracker;
+
+    @Value("${general.productOrder.customerRole:Customer}")
+    private String customerRole;
+
+    public Mono<HttpResponse<?>> dispatch(String eventType, Map<String, Object> event) {
+        return inFlightTracker.trackEvent(eventType, Mono.defer(() -> dispatchEvent(eventType, event)));
+    }
+
+    private Mono<HttpResponse<?>> dispatchEvent(String eventType, Map<String, Object> event) {
+        TMForumEventHandler eventHandler = eventHandlers.stream()
+                .filter(handler -> handler.isEventTypeSupported(eventType))
+                .findAny()
+                .orElseThrow(() -> new IllegalArgumentException("Event type %s is not supported.".formatted(eventType)));
+
+        if (staleEventFence.isStale(eventType, event)) {
+            return Mono.just(HttpResponse.noContent());
+        }
+
+        // coalescing happens before scheduling, to not occupy any slot while waiting for newer events
+        return eventCoalescer.coalesce(eventType, event, (latestEventType, latestEvent) ->
+                        eventScheduler.schedule(getTenant(latestEvent), getLane(latestEventType, latestEvent),
+                                () -> handleIfCurrent(eventHandler, latestEventType, latestEvent)))
+                .doOnNext(r -> {
+                    log.debug("Returned {} for {}", r, eventType);
+                    if (r.getStatus().getCode() < 300) {
+                        handledEntityTracker.recordHandled(eventType, event);
+                    }
+                });
+    }
+
+    // a newer event might have been applied while this one was queued
+    private Mono<HttpResponse<?>> handleIfCurrent(TMForumEventHandler eventHandler, String eventType, Map<String, Object> event) {
+        if (staleEventFence.isStale(eventType, event)) {
+            return Mono.just(HttpResponse.noContent());
+        }
+        return eventHandler.handleEvent(eventType, event)
+                .doOnNext(r -> {
+                    if (r.getStatus().getCode() < 300) {
+                        staleEventFence.recordApplied(event);
+                    }
+                });
+    }
+
+    // deletion of orders and any state other than completed stop the access of the customer
+    private static EventScheduler.Lane getLane(String eventType, Map<String, Object> event) {
+        boolean isStop = switch (eventType) {
+            case PRODUCT_ORDER_DELETE_EVENT -> true;
+            case PRODUCT_ORDER_STATE_CHANGE_EVENT -> EventKeys.entity(event)
+                    .map(entity -> entity.get(STATE_KEY))
+                    .filter(COMPLETED_STATE::equals)
+                    .isEmpty();
+            default -> false;
+        };
+        return isStop ? EventScheduler.Lane.PRIORITY : EventScheduler.Lane.FAIR;
+    }
+
+    // the customer organization of orders and quotes, all other entities belong to the provider
+    private String getTenant(Map<String, Object> event) {
+        List<Map<?, ?>> relatedParties = EventKeys.entity(event)
+                .map(entity -> entity.get(RELATED_PARTY_KEY))
+                .filter(List.class::isInstance)
+                .map(list -> ((List<?>) list).stream()
+                        .filter(Map.class::isInstance)
+                        .<Map<?, ?>>map(Map.class::cast)
+                        .toList())
+                .orElse(List.of());
+        return ProductOrderEventHandler.getCustomer(relatedParties, relatedParty -> relatedParty.get(ROLE_KEY) instanceof String role ? role : null, customerRole)
+                .map(relatedParty -> relatedParty.get(EventKeys.ID_KEY))
+                .filter(String.class::isInstance)
+                .map(String.class::cast)
+                .orElse(DEFAULT_TENANT);
+    }
+}
@@ -0,0 +1,85 @@
+package org.fiware.iam.tmforum.notification;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Helper to extract identifying information from the raw TMForum notifications.
+ */
+public final class EventKeys {
+
+    public static final String EVENT_KEY = "event";
+    public static final String ID_KEY = "id";
+    /**
+     * Marks synthetic events, created from entities polled through the list APIs.
+     */
+    public static final String POLLED_KEY = "polled";
+
+    private EventKeys() {
+        // prevent instantiation
+    }
+
+    /**
+     * Returns the entity contained in the event, e.g. the "productOrder" of a ProductOrderCreateEvent.
+     */
+    public static Optional<Map<?, ?>> entity(Map<String, Object> event) {
+        if (event.get(EVENT_KEY) instanceof Map<?, ?> payload) {
+            return payload.values()
+                    .stream()
+                    .filter(Map.class::isInstance)
+                    .<Map<?, ?>>map(value -> (Map<?, ?>) value)
+                    .filter(entity -> entity.get(ID_KEY) instanceof String)
+                    .findFirst();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the type of the entity contained in the event, as named in the payload, e.g. "productOrder".
+     */
+    public static Optional<String> entityType(Map<String, Object> event) {
+        if (event.get(EVENT_KEY) instanceof Map<?, ?> payload) {
+            return payload.entrySet()
+                    .stream()
+                    .filter(entry -> entry.getValue() instanceof Map<?, ?> entity && entity.get(ID_KEY) instanceof String)
+                    .map(entry -> entry.getKey().toString())
+                    .findFirst();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the id of the entity contained in the event.
+     */
+    public static Optional<String> entityId(Map<String, Object> event) {
+        return entity(event).map(entity -> (String) entity.get(ID_KEY));
+    }
+
+    /**
+     * Returns true if the event was not pushed by the hub, but created from a polled entity.
+     */
+    public static boolean isPolled(Map<String, Object> event) {
+        return Boolean.TRUE.equals(event.get(POLLED_KEY));
+    }
+
+    /**
+     * Reads a timestamp from the raw entity. Supports ISO-8601 strings and numeric (epoch seconds) representations.
+     */
+    public static Optional<Instant> toInstant(Object value) {
+        if (value instanceof String stringValue) {
+            try {
+                return Optional.of(Instant.parse(stringValue));
+            } catch (DateTimeParseException e) {
+                return Optional.empty();
+            }
+        }
+        if (value instanceof Number numberValue) {
+            BigDecimal seconds = new BigDecimal(numberValue.toString());
+            return Optional.of(Instant.ofEpochSecond(seconds.longValue(), seconds.remainder(BigDecimal.ONE).movePointRight(9).longValue()));
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,93 @@
+package org.fiware.iam.tmforum.notification;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental parser for batches of events. Accepts a JSON array of events, as well as a stream of newline delimited
+ * events (NDJSON). Chunks of the request body are fed as they arrive and completely parsed events are returned, thus
+ * only the event currently parsed is buffered. Not thread-safe, one instance per request has to be used.
+ */
+class EventStreamParser {
+
+    private static final TypeReference<Map<String, Object>> EVENT_TYPE_REF = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private boolean inArray = false;
+    private TokenBuffer currentEvent;
+    private int eventDepth = 0;
+
+    EventStreamParser(ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Feed the next chunk of the body.
+     *
+     * @return the events completed by the chunk
+     */
+    List<Map<String, Object>> feed(byte[] chunk) throws IOException {
+        feeder.feedInput(chunk, 0, chunk.length);
+        return parseAvailable();
+    }
+
+    /**
+     * Signal the end of the body.
+     *
+     * @return the events completed by the remaining input
+     */
+    List<Map<String, Object>> finish() throws IOException {
+        feeder.endOfInput();
+        List<Map<String, Object>> events = parseAvailable();
+        parser.close();
+        if (currentEvent != null || inArray) {
+            throw new IOException("Unexpected end of input, the last event is incomplete.");
+        }
+        return events;
+    }
+
+    private List<Map<String, Object>> parseAvailable() throws IOException {
+        List<Map<String, Object>> completedEvents = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (currentEvent != null) {
+                currentEvent.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    eventDepth++;
+                } else if (token.isStructEnd()) {
+                    eventDepth--;
+                }
+                if (eventDepth == 0) {
+                    completedEvents.add(objectMapper.readValue(currentEvent.asParser(objectMapper), EVENT_TYPE_REF));
+                    currentEvent = null;
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                currentEvent = new TokenBuffer(parser);
+                currentEvent.copyCurrentEvent(parser);
+                eventDepth = 1;
+            } else if (token == JsonToken.START_ARRAY && !inArray) {
+                inArray = true;
+            } else if (token == JsonToken.END_ARRAY && inArray) {
+                inArray = false;
+            } else {
+                throw new IOException("Expected an event object, but received %s.".formatted(token));
+            }
+        }
+        return completedEvents;
+    }
+}
@@ -0,0 +1,76 @@
+package org.fiware.iam.tmforum.notification;
+
+import jakarta.inject.Singleton;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps track of the last handled version of each entity, to deduplicate events that are received multiple times,
+ * f.e. pushed by the hub and polled from the list APIs.
+ */
+@Singleton
+public class HandledEntityTracker {
+
+    private static final int MAX_TRACKED_ENTITIES = 100_000;
+    private static final String DELETE_EVENT_SUFFIX = "DeleteEvent";
+    /**
+     * Properties identifying the version of an entity. Not all of them exist on every entity type.
+     */
+    private static final List<String> VERSION_KEYS = List.of("lastUpdate", "state", "lifecycleStatus", "version", "completionDate");
+
+    private final Map<String, String> fingerprints = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_TRACKED_ENTITIES;
+        }
+    });
+
+    public void recordHandled(String eventType, Map<String, Object> event) {
+        EventKeys.entity(event).ifPresent(entity -> {
+            String entityId = (String) entity.get(EventKeys.ID_KEY);
+            if (eventType.endsWith(DELETE_EVENT_SUFFIX)) {
+                fingerprints.remove(entityId);
+            } else {
+                fingerprints.put(entityId, fingerprint(entity));
+            }
+        });
+    }
+
+    /**
+     * Returns true if the current version of the entity was already handled.
+     */
+    public boolean isHandled(Map<?, ?> entity) {
+        return Optional.ofNullable(entity.get(EventKeys.ID_KEY))
+                .map(fingerprints::get)
+                .filter(fingerprint -> fingerprint.equals(fingerprint(entity)))
+                .isPresent();
+    }
+
+    /**
+     * Returns true if any version of the entity was already handled.
+     */
+    public boolean isKnown(String entityId) {
+        return fingerprints.containsKey(entityId);
+    }
+
+    private static String fingerprint(Map<?, ?> entity) {
+        return VERSION_KEYS.stream()
+                .map(entity::get)
+                .map(HandledEntityTracker::normalize)
+                .collect(Collectors.joining("|"));
+    }
+
+    // timestamps might be formatted differently by the hub and the list apis
+    private static String normalize(Object value) {
+        return EventKeys.toInstant(value)
+                .map(Instant::toString)
+                .orElseGet(() -> Objects.toString(value, ""));
+    }
+}
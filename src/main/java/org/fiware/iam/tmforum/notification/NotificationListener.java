@@ -1,18 +1,36 @@
 package org.fiware.iam.tmforum.notification;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
 import io.micronaut.http.annotation.Body;
 import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Header;
 import io.micronaut.http.annotation.Post;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.cluster.EventForwarder;
 import org.fiware.iam.configuration.NotificationProperties;
-import org.fiware.iam.tmforum.handlers.TMForumEventHandler;
+import org.fiware.iam.exception.RainbowException;
+import org.fiware.iam.exception.TMForumException;
+import org.fiware.iam.exception.TrustedIssuersException;
+import org.fiware.iam.http.TrafficRecorder;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Listener endpoint for TMForum notifications
@@ -24,24 +42,166 @@ import java.util.Map;
 public class NotificationListener {
 
     public static final String EVENT_TYPE_KEY = "eventType";
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
 
-    private final List<TMForumEventHandler> eventHandlers;
+    private static final String EVENT_ID_KEY = "eventId";
+    private static final String EVENT_PATH = "/listener/event";
+    private static final String BATCH_PATH = "/listener/events";
 
-    @Post("/listener/event")
-    public Mono<HttpResponse<?>> listenToEvent(@Body Map<String, Object> event) {
+    private final EventDispatcher eventDispatcher;
+    private final AdmissionControl admissionControl;
+    private final Optional<EventForwarder> eventForwarder;
+    private final Optional<TrafficRecorder> trafficRecorder;
+    private final NotificationProperties notificationProperties;
+    private final ObjectMapper objectMapper;
+
+    @Post(EVENT_PATH)
+    public Mono<HttpResponse<?>> listenToEvent(@Body Map<String, Object> event,
+                                               @Nullable @Header(EventForwarder.FORWARDED_HEADER) String forwardedBy) {
         log.debug("Received an Event: {}", event);
+        // forwarded events were already recorded by the receiving replica
+        if (forwardedBy == null) {
+            trafficRecorder.ifPresent(recorder -> recorder.record(EVENT_PATH, event));
+        }
         if (!event.containsKey(EVENT_TYPE_KEY)) {
             throw new IllegalArgumentException("Data did not contain the eventType.");
         }
 
         if (event.get(EVENT_TYPE_KEY) instanceof String eventType) {
-            return eventHandlers.stream()
-                    .filter(handler -> handler.isEventTypeSupported(eventType))
-                    .findAny()
-                    .orElseThrow(() -> new IllegalArgumentException("Event type %s is not supported.".formatted(eventType)))
-                    .handleEvent(eventType, event)
-                    .doOnNext(r -> log.debug("Returned {} for {}", r, eventType));
+            return admit(eventType, event, forwardedBy);
         }
         throw new IllegalArgumentException("Event type is invalid.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Accepts a batch of events, either as JSON array or as newline delimited stream. The events are handled while the
+     * body is received, with a limited number in parallel. Events for the same entity are handled in the order of the
+     * batch. The response contains the result of every event, failures of single events do not fail the batch.
+     */
+    @Post(value = BATCH_PATH, consumes = {MediaType.APPLICATION_JSON, APPLICATION_NDJSON})
+    public Mono<HttpResponse<List<BatchEventResult>>> listenToEvents(@Body Publisher<byte[]> body,
+                                                                     @Nullable @Header(EventForwarder.FORWARDED_HEADER) String forwardedBy) {
+        return Flux.defer(() -> {
+                    // last event of every entity, to chain the following ones
+                    Map<String, Mono<BatchEventResult>> lastEventOfEntity = new HashMap<>();
+                    // forwarded events were already recorded by the receiving replica
+                    Flux<BatchEvent> batchEvents = forwardedBy == null ? recordBatch(parseEvents(body)) : parseEvents(body);
+                    return batchEvents
+                            .flatMap(batchEvent -> handleInOrder(lastEventOfEntity, batchEvent, forwardedBy),
+                                    notificationProperties.getBatchConcurrency());
+                })
+                .collectSortedList(Comparator.comparingLong(BatchEventResult::index))
+                .map(HttpResponse::ok);
+    }
+
+    private Mono<BatchEventResult> handleInOrder(Map<String, Mono<BatchEventResult>> lastEventOfEntity, BatchEvent batchEvent, String forwardedBy) {
+        if (batchEvent.event() == null) {
+            return Mono.just(new BatchEventResult(batchEvent.index(), null, null, HttpStatus.BAD_REQUEST.getCode(), batchEvent.error()));
+        }
+        String entityKey = EventKeys.entityId(batchEvent.event()).orElse("#" + batchEvent.index());
+        Mono<BatchEventResult> result = Optional.ofNullable(lastEventOfEntity.get(entityKey))
+                .map(Mono::then)
+                .orElse(Mono.empty())
+                .then(Mono.defer(() -> handleBatchEvent(batchEvent, forwardedBy)))
+                .cache();
+        lastEventOfEntity.put(entityKey, result);
+        return result;
+    }
+
+    private Mono<BatchEventResult> handleBatchEvent(BatchEvent batchEvent, String forwardedBy) {
+        Map<String, Object> event = batchEvent.event();
+        String eventId = Optional.ofNullable(event.get(EVENT_ID_KEY)).map(Object::toString).orElse(null);
+        if (!(event.get(EVENT_TYPE_KEY) instanceof String eventType)) {
+            return Mono.just(new BatchEventResult(batchEvent.index(), eventId, null, HttpStatus.BAD_REQUEST.getCode(), "Event type is missing or invalid."));
+        }
+        return Mono.defer(() -> admit(eventType, event, forwardedBy))
+                .map(response -> new BatchEventResult(batchEvent.index(), eventId, eventType, response.getStatus().getCode(), null))
+                .defaultIfEmpty(new BatchEventResult(batchEvent.index(), eventId, eventType, HttpStatus.NO_CONTENT.getCode(), null))
+                .onErrorResume(t -> {
+                    log.warn("Was not able to handle {} {} of the batch.", eventType, eventId, t);
+                    return Mono.just(new BatchEventResult(batchEvent.index(), eventId, eventType, getErrorStatus(t).getCode(), t.getMessage()));
+                });
+    }
+
+    private static HttpStatus getErrorStatus(Throwable throwable) {
+        if (throwable instanceof IllegalArgumentException) {
+            return HttpStatus.BAD_REQUEST;
+        }
+        if (throwable instanceof TMForumException || throwable instanceof RainbowException || throwable instanceof TrustedIssuersException) {
+            return HttpStatus.BAD_GATEWAY;
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    // the batch is recorded as a whole once it is received, to be replayed as a single request
+    private Flux<BatchEvent> recordBatch(Flux<BatchEvent> batchEvents) {
+        return trafficRecorder
+                .map(recorder -> {
+                    List<Map<String, Object>> events = new ArrayList<>();
+                    return batchEvents
+                            .doOnNext(batchEvent -> Optional.ofNullable(batchEvent.event()).ifPresent(events::add))
+                            .doOnComplete(() -> recorder.record(BATCH_PATH, events));
+                })
+                .orElse(batchEvents);
+    }
+
+    // invalid input ends the batch, with an error result at the position of the invalid event
+    private Flux<BatchEvent> parseEvents(Publisher<byte[]> body) {
+        return Flux.defer(() -> {
+            EventStreamParser eventStreamParser;
+            try {
+                eventStreamParser = new EventStreamParser(objectMapper);
+            } catch (IOException e) {
+                return Flux.error(new UncheckedIOException("Was not able to create a non-blocking parser.", e));
+            }
+            AtomicLong index = new AtomicLong();
+            return Flux.from(body)
+                    .concatMapIterable(chunk -> {
+                        try {
+                            return eventStreamParser.feed(chunk);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .concatWith(Flux.defer(() -> {
+                        try {
+                            return Flux.fromIterable(eventStreamParser.finish());
+                        } catch (IOException e) {
+                            return Flux.error(new UncheckedIOException(e));
+                        }
+                    }))
+                    .map(event -> new BatchEvent(index.getAndIncrement(), event, null))
+                    .onErrorResume(UncheckedIOException.class, e -> {
+                        log.debug("Received an invalid batch of events.", e);
+                        return Mono.just(new BatchEvent(index.getAndIncrement(), null,
+                                "Invalid input: %s".formatted(e.getCause().getMessage())));
+                    });
+        });
+    }
+
+    // forwarded events were already admitted by the receiving replica
+    private Mono<HttpResponse<?>> admit(String eventType, Map<String, Object> event, String forwardedBy) {
+        if (forwardedBy != null) {
+            return routeEvent(eventType, event, forwardedBy);
+        }
+        return admissionControl.admit(eventType, () -> routeEvent(eventType, event, forwardedBy));
+    }
+
+    private Mono<HttpResponse<?>> routeEvent(String eventType, Map<String, Object> event, String forwardedBy) {
+        if (forwardedBy == null && eventForwarder.isPresent()) {
+            Optional<String> remoteOwner = eventForwarder.get().getRemoteOwner(event);
+            if (remoteOwner.isPresent()) {
+                return eventForwarder.get()
+                        .forward(remoteOwner.get(), event)
+                        .onErrorResume(t -> {
+                            log.warn("Was not able to forward {} to {}, handle it locally.", eventType, remoteOwner.get(), t);
+                            return eventDispatcher.dispatch(eventType, event);
+                        });
+            }
+        }
+        return eventDispatcher.dispatch(eventType, event);
+    }
+
+    private record BatchEvent(long index, Map<String, Object> event, String error) {
+    }
+}
@@ -3,6 +3,7 @@ package org.fiware.iam.tmforum.notification;
 import io.micronaut.context.annotation.Context;
 import io.micronaut.context.annotation.Requires;
 import io.micronaut.context.annotation.Value;
+import io.micronaut.core.type.Argument;
 import io.micronaut.http.HttpMethod;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpStatus;
@@ -11,20 +12,31 @@ import io.micronaut.http.client.netty.DefaultHttpClient;
 import io.micronaut.runtime.event.annotation.EventListener;
 import io.micronaut.runtime.server.event.ServerStartupEvent;
 import io.micronaut.scheduling.TaskScheduler;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.fiware.iam.configuration.GeneralProperties;
 import org.fiware.iam.configuration.NotificationProperties;
 import org.fiware.iam.tmforum.party.model.EventSubscriptionInputVO;
 import org.fiware.iam.tmforum.party.model.EventSubscriptionVO;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
- * Responsible for subscribing to all configured tmforum events.
+ * Responsible for subscribing to all configured tmforum events. All subscriptions are created concurrently and retried
+ * with an exponential backoff. After creation, they are periodically looked up at the hubs and only re-created in case
+ * the hub reports them as not found. Looking up subscriptions is not part of the TMForum hub API, thus the verification
+ * is disabled for hubs that do not support it.
  */
 @Requires(condition = NotificationProperties.NotificationCondition.class)
 @Context
@@ -42,6 +54,19 @@ public class NotificationSubscriber {
     private final DefaultHttpClient httpClient;
     private final TaskScheduler taskScheduler;
 
+    /**
+     * Subscriptions that currently have a creation attempt running
+     */
+    private final Set<String> pendingSubscriptions = ConcurrentHashMap.newKeySet();
+    /**
+     * Ids of the subscriptions at the hubs, as far as known
+     */
+    private final Map<String, String> subscriptionIds = new ConcurrentHashMap<>();
+    /**
+     * Addresses of the hubs that do not support looking up subscriptions
+     */
+    private final Set<String> unverifiableHubs = ConcurrentHashMap.newKeySet();
+
     @Value("${micronaut.server.port:8080}")
     private String servicePort;
 
@@ -52,53 +77,217 @@ public class NotificationSubscriber {
         return path;
     }
 
+    @PostConstruct
+    public void initHealth() {
+        // register all subscriptions as early as possible, to not report readiness before they are confirmed
+        getSubscriptions().forEach(subscription -> subscriptionHealthIndicator.initiateSubscriptionInMap(subscription.key()));
+    }
+
     @EventListener
     public void onApplicationEvent(ServerStartupEvent e) {
-        notificationProperties.getEntities()
-                .forEach(tmForumEntity ->
-                        Optional.ofNullable(tmForumEntity.getEventTypes())
-                                .orElse(List.of())
-                                .forEach(eventType -> {
-                                    subscriptionHealthIndicator.initiateSubscriptionInMap(tmForumEntity.getEntityType() + eventType.getValue());
-                                    scheduleSubscription(notificationProperties.getSubscriptionInitialDelay(), tmForumEntity.getEntityType(), eventType.getValue(), tmForumEntity.getApiAddress());
-                                }));
+        taskScheduler.schedule(Duration.ofSeconds(notificationProperties.getSubscriptionInitialDelay()), this::subscribeAll);
+        long verificationInterval = notificationProperties.getSubscriptionVerificationInterval();
+        if (verificationInterval > 0) {
+            taskScheduler.scheduleWithFixedDelay(
+                    Duration.ofSeconds(notificationProperties.getSubscriptionInitialDelay() + verificationInterval),
+                    Duration.ofSeconds(verificationInterval),
+                    this::verifySubscriptions);
+        }
     }
 
-    private void scheduleSubscription(long delaySeconds, String entityType, String eventType, String apiAddress) {
-        taskScheduler.schedule(Duration.ofSeconds(delaySeconds), () -> createSubscription(entityType, eventType, apiAddress));
+    /**
+     * Create all configured subscriptions concurrently.
+     */
+    public void subscribeAll() {
+        Flux.fromIterable(getSubscriptions())
+                .filter(subscription -> pendingSubscriptions.add(subscription.key()))
+                .flatMap(subscription -> subscribeWithRetry(subscription)
+                        .doFinally(signal -> pendingSubscriptions.remove(subscription.key())))
+                .subscribe();
     }
 
-    public void createSubscription(String entityType, String eventType, String apiAddress) {
-        String callbackUrl = String.format("http://%s:%s%s%s", notificationProperties.getHost(), servicePort, removeTrailingSlash(generalProperties.getBasePath()), LISTENER_PATH);
-        log.debug("Attempting to register subscription for {} {} events at {}", entityType, eventType, String.format(LISTENER_ADDRESS_TEMPLATE, apiAddress));
+    /**
+     * Look up all subscriptions at the hubs and re-create the lost ones. Subscriptions that cannot be looked up are left
+     * untouched.
+     */
+    public void verifySubscriptions() {
+        log.debug("Verify existence of all subscriptions.");
+        Flux.fromIterable(getSubscriptions())
+                .filter(subscription -> !unverifiableHubs.contains(getHubAddress(subscription)))
+                .filter(subscription -> pendingSubscriptions.add(subscription.key()))
+                .flatMap(subscription -> findSubscription(subscription)
+                        .onErrorResume(t -> {
+                            log.warn("Was not able to verify subscription for {} {}.", subscription.entityType(), subscription.eventType(), t);
+                            return Mono.empty();
+                        })
+                        .flatMap(exists -> {
+                            if (exists) {
+                                subscriptionHealthIndicator.setSubscriptionHealthy(subscription.key());
+                                return Mono.just(false);
+                            }
+                            return createSubscription(subscription)
+                                    .onErrorResume(t -> {
+                                        subscriptionHealthIndicator.initiateSubscriptionInMap(subscription.key());
+                                        return subscribeWithRetry(subscription);
+                                    });
+                        })
+                        .doOnNext(created -> {
+                            if (created) {
+                                log.warn("Subscription for {} {} was missing at {} and got re-created.", subscription.entityType(), subscription.eventType(), subscription.apiAddress());
+                            }
+                        })
+                        .doFinally(signal -> pendingSubscriptions.remove(subscription.key())))
+                .subscribe();
+    }
 
-        EventSubscriptionInputVO subscription = new EventSubscriptionInputVO()
-                .callback(callbackUrl)
-                .query(String.format(QUERY_TEMPLATE, entityType, eventType));
+    /**
+     * Returns the state of all configured subscriptions, keyed by entity and event type.
+     */
+    public Map<String, SubscriptionState> getSubscriptionStates() {
+        return getSubscriptions()
+                .stream()
+                .collect(Collectors.toMap(Subscription::key, subscription -> new SubscriptionState(
+                        subscription.entityType(),
+                        subscription.eventType(),
+                        subscription.apiAddress(),
+                        subscriptionHealthIndicator.isSubscriptionHealthy(subscription.key()),
+                        pendingSubscriptions.contains(subscription.key())), (a, b) -> a, TreeMap::new));
+    }
 
-        HttpRequest<?> request = HttpRequest.create(HttpMethod.POST, String.format(LISTENER_ADDRESS_TEMPLATE, apiAddress)).body(subscription);
+    private Mono<Boolean> subscribeWithRetry(Subscription subscription) {
+        return createSubscription(subscription)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(notificationProperties.getSubscriptionRetryInterval()))
+                        .maxBackoff(Duration.ofSeconds(notificationProperties.getSubscriptionMaxRetryInterval()))
+                        .doBeforeRetry(retrySignal -> log.warn("Could not create subscription for {} {} in TM Forum API - attempt {} failed, retrying.",
+                                subscription.entityType(), subscription.eventType(), retrySignal.totalRetries() + 1, retrySignal.failure())));
+    }
 
-        Mono.from(httpClient.exchange(request, EventSubscriptionVO.class))
-                .doOnSuccess(res -> {
-                    subscriptionHealthIndicator.setSubscriptionHealthy(entityType + eventType);
-                    log.info("Successfully subscribed to {} {} events at {}", entityType, eventType, request.getUri());
-                })
-                .onErrorResume(t -> {
-                    if (t instanceof HttpClientResponseException e) {
-                        if (e.getStatus() == HttpStatus.CONFLICT) {
-                            subscriptionHealthIndicator.setSubscriptionHealthy(entityType + eventType);
-                            log.info("Subscription for {} {} already exists at {}", entityType, eventType, request.getUri());
-                        } else {
-                            String body = e.getResponse().getBody(String.class).orElse("<no body>");
-                            log.warn("Event registration failed for {} at {} - Status: {} | Message: {} | Body: {} - retrying in {}s", entityType, request.getUri(), e.getStatus(), e.getMessage(), body, notificationProperties.getSubscriptionRetryInterval());
-                            scheduleSubscription(notificationProperties.getSubscriptionRetryInterval(), entityType, eventType, apiAddress);
+    /**
+     * Look up the subscription at the hub, by its id if it is known, by its callback and query otherwise.
+     *
+     * @return true if the hub has the subscription, false if it has to be created. Only a subscription not found by its
+     * id or missing in the listing of the hub has to be created. Empty, if the hub does not support the lookup, the
+     * verification of the hub is disabled then. Other failures are returned as error.
+     */
+    private Mono<Boolean> findSubscription(Subscription subscription) {
+        String hubAddress = getHubAddress(subscription);
+        String subscriptionId = subscriptionIds.get(subscription.key());
+        if (subscriptionId != null) {
+            return Mono.from(httpClient.exchange(HttpRequest.GET(hubAddress + "/" + subscriptionId), EventSubscriptionVO.class))
+                    .map(res -> true)
+                    .onErrorResume(HttpClientResponseException.class, e -> {
+                        if (e.getStatus() == HttpStatus.NOT_FOUND) {
+                            log.debug("Subscription {} for {} {} not found at {}.", subscriptionId, subscription.entityType(), subscription.eventType(), hubAddress);
+                            subscriptionIds.remove(subscription.key(), subscriptionId);
+                            return Mono.just(false);
+                        }
+                        if (e.getStatus() == HttpStatus.METHOD_NOT_ALLOWED || e.getStatus() == HttpStatus.NOT_IMPLEMENTED) {
+                            return disableVerification(hubAddress, e.getStatus());
                         }
-                        return Mono.empty();
+                        return Mono.error(e);
+                    });
+        }
+        String callbackUrl = getCallbackUrl();
+        String query = getQuery(subscription);
+        return Mono.from(httpClient.retrieve(HttpRequest.GET(hubAddress), Argument.listOf(EventSubscriptionVO.class)))
+                .map(existingSubscriptions -> existingSubscriptions.stream()
+                        .filter(existing -> callbackUrl.equals(existing.getCallback()) && query.equals(existing.getQuery()))
+                        .findFirst()
+                        .map(existing -> {
+                            Optional.ofNullable(existing.getId()).ifPresent(id -> subscriptionIds.put(subscription.key(), id));
+                            return true;
+                        })
+                        .orElse(false))
+                .onErrorResume(HttpClientResponseException.class, e -> {
+                    // successful responses that cannot be read as list of subscriptions are no listing either
+                    if (e.getStatus().getCode() < 300 || e.getStatus() == HttpStatus.NOT_FOUND
+                            || e.getStatus() == HttpStatus.METHOD_NOT_ALLOWED || e.getStatus() == HttpStatus.NOT_IMPLEMENTED) {
+                        return disableVerification(hubAddress, e.getStatus());
                     }
-                    log.warn("Could not create subscription for {} in TM Forum API - retrying in {}s", entityType, notificationProperties.getSubscriptionRetryInterval(), t);
-                    scheduleSubscription(notificationProperties.getSubscriptionRetryInterval(), entityType, eventType, apiAddress);
-                    return Mono.empty();
-                }).subscribe();
+                    return Mono.error(e);
+                });
+    }
+
+    private Mono<Boolean> disableVerification(String hubAddress, HttpStatus status) {
+        if (unverifiableHubs.add(hubAddress)) {
+            log.info("The hub at {} does not support looking up subscriptions - Status: {}. Its subscriptions are no longer verified.", hubAddress, status);
+        }
+        return Mono.empty();
+    }
+
+    /**
+     * Create the subscription at the hub.
+     *
+     * @return true if the subscription was created, false if it already existed.
+     */
+    private Mono<Boolean> createSubscription(Subscription subscription) {
+        log.debug("Attempting to register subscription for {} {} events at {}", subscription.entityType(), subscription.eventType(), String.format(LISTENER_ADDRESS_TEMPLATE, subscription.apiAddress()));
+
+        EventSubscriptionInputVO subscriptionInput = new EventSubscriptionInputVO()
+                .callback(getCallbackUrl())
+                .query(getQuery(subscription));
+
+        HttpRequest<?> request = HttpRequest.create(HttpMethod.POST, String.format(LISTENER_ADDRESS_TEMPLATE, subscription.apiAddress())).body(subscriptionInput);
 
+        return Mono.from(httpClient.exchange(request, EventSubscriptionVO.class))
+                .map(res -> {
+                    res.getBody()
+                            .map(EventSubscriptionVO::getId)
+                            .ifPresent(id -> subscriptionIds.put(subscription.key(), id));
+                    subscriptionHealthIndicator.setSubscriptionHealthy(subscription.key());
+                    log.info("Successfully subscribed to {} {} events at {}", subscription.entityType(), subscription.eventType(), request.getUri());
+                    return true;
+                })
+                .onErrorResume(HttpClientResponseException.class, e -> {
+                    if (e.getStatus() == HttpStatus.CONFLICT) {
+                        subscriptionHealthIndicator.setSubscriptionHealthy(subscription.key());
+                        log.debug("Subscription for {} {} already exists at {}", subscription.entityType(), subscription.eventType(), request.getUri());
+                        return Mono.just(false);
+                    }
+                    String body = e.getResponse().getBody(String.class).orElse("<no body>");
+                    log.warn("Event registration failed for {} at {} - Status: {} | Message: {} | Body: {}", subscription.entityType(), request.getUri(), e.getStatus(), e.getMessage(), body);
+                    return Mono.error(e);
+                });
+    }
+
+    private static String getHubAddress(Subscription subscription) {
+        return String.format(LISTENER_ADDRESS_TEMPLATE, subscription.apiAddress());
+    }
+
+    private String getCallbackUrl() {
+        return String.format("http://%s:%s%s%s", notificationProperties.getHost(), servicePort, removeTrailingSlash(generalProperties.getBasePath()), LISTENER_PATH);
+    }
+
+    private static String getQuery(Subscription subscription) {
+        return String.format(QUERY_TEMPLATE, subscription.entityType(), subscription.eventType());
+    }
+
+    private List<Subscription> getSubscriptions() {
+        return notificationProperties.getEntities()
+                .stream()
+                .flatMap(tmForumEntity -> Optional.ofNullable(tmForumEntity.getEventTypes())
+                        .orElse(List.of())
+                        .stream()
+                        .map(eventType -> new Subscription(tmForumEntity.getEntityType(), eventType.getValue(), tmForumEntity.getApiAddress())))
+                .toList();
+    }
+
+    /**
+     * State of a subscription at the hub.
+     *
+     * @param entityType entity type of the subscription
+     * @param eventType  event type of the subscription
+     * @param apiAddress address of the API the hub belongs to
+     * @param confirmed  true if the hub confirmed the subscription
+     * @param pending    true while an attempt to create the subscription is running
+     */
+    public record SubscriptionState(String entityType, String eventType, String apiAddress, boolean confirmed, boolean pending) {
+    }
+
+    private record Subscription(String entityType, String eventType, String apiAddress) {
+
+        public String key() {
+            return entityType + eventType;
+        }
     }
 }
@@ -0,0 +1,100 @@
+package org.fiware.iam.tmforum.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.FencingProperties;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Fences stale events, e.g. an older StateChangeEvent of an order retried after a newer one was already applied.
+ * Keeps a high-water mark per entity, taken from the lastUpdate of the entity or, if not available, from the eventTime
+ * of the event. Marks are only compared to times of the same kind, a lastUpdate never fences by an eventTime or vice
+ * versa, since both are stamped by different clocks. Events older than the last applied one are stale and should be dropped, before any resolution or
+ * downstream request happens. Polled events without lastUpdate are neither fenced nor raise the mark, since their time is
+ * not stamped by the hub. The marks are not exposed for invalidation, since that would let stale events through.
+ */
+@Slf4j
+@Singleton
+public class StaleEventFence {
+
+    private static final String FENCED_METRIC = "contract.management.fencing.fenced";
+    private static final String EVENT_TYPE_TAG = "eventType";
+    private static final String LAST_UPDATE_KEY = "lastUpdate";
+    private static final String EVENT_TIME_KEY = "eventTime";
+
+    private final FencingProperties fencingProperties;
+    private final MeterRegistry meterRegistry;
+
+    // high-water marks, keyed by entity type and id
+    private final Map<String, FencedVersion> highWaterMarks;
+
+    public StaleEventFence(FencingProperties fencingProperties, MeterRegistry meterRegistry) {
+        this.fencingProperties = fencingProperties;
+        this.meterRegistry = meterRegistry;
+        this.highWaterMarks = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FencedVersion> eldest) {
+                return size() > fencingProperties.getMaxEntities();
+            }
+        });
+    }
+
+    /**
+     * Returns true if a newer event for the same entity was already applied. Stale events are counted.
+     */
+    public boolean isStale(String eventType, Map<String, Object> event) {
+        Optional<FencedVersion> version = getVersion(event);
+        if (version.isEmpty()) {
+            return false;
+        }
+        FencedVersion highWaterMark = highWaterMarks.get(version.get().entityKey());
+        if (highWaterMark == null || !highWaterMark.isComparable(version.get()) || version.get().timestamp() >= highWaterMark.timestamp()) {
+            return false;
+        }
+        log.info("Drop stale {} for {}, a newer event was already applied.", eventType, version.get().entityKey());
+        Counter.builder(FENCED_METRIC)
+                .tag(EVENT_TYPE_TAG, eventType)
+                .register(meterRegistry)
+                .increment();
+        return true;
+    }
+
+    /**
+     * Record the event as applied, to fence all older ones.
+     */
+    public void recordApplied(Map<String, Object> event) {
+        // a mark of another kind is replaced, the applied event is the reference from now on
+        getVersion(event).ifPresent(version -> highWaterMarks.merge(version.entityKey(), version,
+                (current, applied) -> current.isComparable(applied) && current.timestamp() > applied.timestamp() ? current : applied));
+    }
+
+    private Optional<FencedVersion> getVersion(Map<String, Object> event) {
+        if (!fencingProperties.isEnabled()) {
+            return Optional.empty();
+        }
+        Optional<String> entityType = EventKeys.entityType(event).filter(fencingProperties.getEntityTypes()::contains);
+        Optional<Map<?, ?>> entity = EventKeys.entity(event);
+        if (entityType.isEmpty() || entity.isEmpty()) {
+            return Optional.empty();
+        }
+        String entityKey = entityType.get() + ":" + entity.get().get(EventKeys.ID_KEY);
+        return EventKeys.toInstant(entity.get().get(LAST_UPDATE_KEY))
+                .map(lastUpdate -> new FencedVersion(entityKey, lastUpdate.toEpochMilli(), true))
+                .or(() -> (EventKeys.isPolled(event) ? Optional.<Instant>empty() : EventKeys.toInstant(event.get(EVENT_TIME_KEY)))
+                        .map(eventTime -> new FencedVersion(entityKey, eventTime.toEpochMilli(), false)));
+    }
+
+    private record FencedVersion(String entityKey, long timestamp, boolean fromLastUpdate) {
+
+        boolean isComparable(FencedVersion other) {
+            return fromLastUpdate == other.fromLastUpdate;
+        }
+    }
+}
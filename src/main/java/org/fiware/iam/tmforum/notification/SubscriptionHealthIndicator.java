@@ -5,29 +5,31 @@ import io.micronaut.core.async.publisher.AsyncSingleResultPublisher;
 import io.micronaut.health.HealthStatus;
 import io.micronaut.management.health.indicator.HealthIndicator;
 import io.micronaut.management.health.indicator.HealthResult;
+import io.micronaut.management.health.indicator.annotation.Readiness;
 import jakarta.inject.Singleton;
 import org.fiware.iam.configuration.NotificationProperties;
 import org.reactivestreams.Publisher;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
- * Indicator to collect the existence of all configured subscriptions towards TMForum
+ * Indicator to collect the existence of all configured subscriptions towards TMForum. The service is only ready, once
+ * all subscriptions are confirmed by the hubs.
  */
 @Requires(condition = NotificationProperties.NotificationCondition.class)
+@Readiness
 @Singleton
 public class SubscriptionHealthIndicator implements HealthIndicator {
 
-    private final Map<String, Boolean> registrationMap = new LinkedHashMap<>();
+    private final Map<String, Boolean> registrationMap = new ConcurrentSkipListMap<>();
 
     @Override
     public Publisher<HealthResult> getResult() {
 
-        HealthResult.Builder healthResultBuilder = HealthResult.builder("Subscription Health");
-        Optional<Boolean> optionalUnhealthy = registrationMap.values().stream().filter(key -> !key).findAny();
-        if (optionalUnhealthy.isPresent()) {
+        HealthResult.Builder healthResultBuilder = HealthResult.builder("Subscription Health")
+                .details(Map.copyOf(registrationMap));
+        if (registrationMap.containsValue(false)) {
             return new AsyncSingleResultPublisher<>(() -> healthResultBuilder.status(HealthStatus.DOWN).build());
         } else {
             return new AsyncSingleResultPublisher<>(() -> healthResultBuilder.status(HealthStatus.UP).build());
@@ -42,4 +44,8 @@ public class SubscriptionHealthIndicator implements HealthIndicator {
         registrationMap.put(key, true);
     }
 
+    public boolean isSubscriptionHealthy(String key) {
+        return registrationMap.getOrDefault(key, false);
+    }
+
 }
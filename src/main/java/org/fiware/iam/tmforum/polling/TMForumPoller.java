@@ -0,0 +1,255 @@
+package org.fiware.iam.tmforum.polling;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.scheduling.annotation.Scheduled;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.cluster.ClusterMembership;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.configuration.PollerProperties;
+import org.fiware.iam.tmforum.notification.EventDispatcher;
+import org.fiware.iam.tmforum.notification.EventKeys;
+import org.fiware.iam.tmforum.notification.HandledEntityTracker;
+import org.fiware.iam.tmforum.notification.NotificationListener;
+import org.fiware.iam.tmforum.productcatalog.api.CatalogApiClient;
+import org.fiware.iam.tmforum.productcatalog.api.ProductOfferingApiClient;
+import org.fiware.iam.tmforum.productorder.api.ProductOrderApiClient;
+import org.fiware.iam.tmforum.quote.api.QuoteApiClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+/**
+ * Polls the TMForum list APIs for entities changed since the last poll and feeds them as synthetic events to the
+ * event handlers. The TMForum APIs do not support filtering by modification time, thus all pages are requested and
+ * the entities filtered by their change time (lastUpdate or the latest of their lifecycle dates) against a high-water
+ * mark per entity type. Entities already handled through pushed notifications are skipped. Entities without any
+ * change time cannot be tracked and are ignored, same as deletions, which are not visible in the list APIs.
+ * The synthetic events carry the change time of the entity as eventTime and are marked as polled, since their
+ * eventTime is not comparable to the one stamped by the hub.
+ */
+@Requires(condition = GeneralProperties.TmForumCondition.class)
+@Requires(condition = PollerProperties.PollerCondition.class)
+@Slf4j
+@Singleton
+public class TMForumPoller {
+
+    private static final String EVENT_ID_KEY = "eventId";
+    private static final String EVENT_TIME_KEY = "eventTime";
+    private static final String CREATE_EVENT_TEMPLATE = "%sCreateEvent";
+    private static final String STATE_CHANGE_EVENT_TEMPLATE = "%sStateChangeEvent";
+    private static final List<String> CHANGE_TIME_KEYS = List.of("lastUpdate", "completionDate", "cancellationDate", "effectiveQuoteCompletionDate", "orderDate", "quoteDate");
+    private static final TypeReference<Map<String, Object>> ENTITY_TYPE_REF = new TypeReference<>() {
+    };
+    private static final TypeReference<Map<String, Instant>> STATE_TYPE_REF = new TypeReference<>() {
+    };
+
+    private final PollerProperties pollerProperties;
+    private final ObjectMapper objectMapper;
+    private final EventDispatcher eventDispatcher;
+    private final HandledEntityTracker handledEntityTracker;
+    private final Optional<ClusterMembership> clusterMembership;
+
+    private final Map<String, PolledEntityType> polledEntityTypes;
+    private final Map<String, Instant> highWaterMarks = new ConcurrentHashMap<>();
+    private final AtomicBoolean polling = new AtomicBoolean();
+
+    public TMForumPoller(PollerProperties pollerProperties, ObjectMapper objectMapper, EventDispatcher eventDispatcher,
+                         HandledEntityTracker handledEntityTracker, Optional<ClusterMembership> clusterMembership,
+                         CatalogApiClient catalogApiClient, ProductOfferingApiClient productOfferingApiClient,
+                         QuoteApiClient quoteApiClient, ProductOrderApiClient productOrderApiClient) {
+        this.pollerProperties = pollerProperties;
+        this.objectMapper = objectMapper;
+        this.eventDispatcher = eventDispatcher;
+        this.handledEntityTracker = handledEntityTracker;
+        this.clusterMembership = clusterMembership;
+        this.polledEntityTypes = Map.of(
+                "Catalog", new PolledEntityType("Catalog", "catalog", null,
+                        (offset, limit) -> catalogApiClient.listCatalog(null, offset, limit).<List<?>>mapNotNull(HttpResponse::body)),
+                "ProductOffering", new PolledEntityType("ProductOffering", "productOffering", null,
+                        (offset, limit) -> productOfferingApiClient.listProductOffering(null, offset, limit).<List<?>>mapNotNull(HttpResponse::body)),
+                "Quote", new PolledEntityType("Quote", "quote", "quoteDate",
+                        (offset, limit) -> quoteApiClient.listQuote(null, offset, limit).<List<?>>mapNotNull(HttpResponse::body)),
+                "ProductOrder", new PolledEntityType("ProductOrder", "productOrder", "orderDate",
+                        (offset, limit) -> productOrderApiClient.listProductOrder(null, offset, limit).<List<?>>mapNotNull(HttpResponse::body)));
+        pollerProperties.getEntityTypes()
+                .stream()
+                .filter(entityType -> !polledEntityTypes.containsKey(entityType))
+                .findAny()
+                .ifPresent(entityType -> {
+                    throw new IllegalArgumentException("Polling for entity type %s is not supported.".formatted(entityType));
+                });
+        loadHighWaterMarks();
+    }
+
+    @Scheduled(fixedDelay = "${poller.interval:60s}", initialDelay = "${poller.initial-delay:10s}")
+    public void poll() {
+        // the poll completes asynchronously, the next one is skipped if it is still running
+        if (!polling.compareAndSet(false, true)) {
+            log.debug("The previous poll is still running, skip this one.");
+            return;
+        }
+        pollAll()
+                .doFinally(signal -> polling.set(false))
+                .subscribe();
+    }
+
+    /**
+     * Polls all configured entity types. Completes once all changes are handled and the high-water marks persisted.
+     */
+    Mono<Void> pollAll() {
+        // entity types are polled in the configured order, to f.e. handle catalogs before their offerings
+        return Flux.fromIterable(pollerProperties.getEntityTypes())
+                .map(polledEntityTypes::get)
+                .concatMap(this::catchUp)
+                .then(Mono.fromRunnable(this::persistHighWaterMarks).subscribeOn(Schedulers.boundedElastic()))
+                .then();
+    }
+
+    private Mono<Void> catchUp(PolledEntityType entityType) {
+        Instant highWaterMark = highWaterMarks.computeIfAbsent(entityType.entityType(), type -> Instant.now().minus(pollerProperties.getInitialLookback()));
+        Instant since = highWaterMark.minus(pollerProperties.getOverlap());
+        AtomicReference<Instant> newHighWaterMark = new AtomicReference<>(highWaterMark);
+        AtomicReference<Instant> firstFailure = new AtomicReference<>();
+
+        log.debug("Poll for {} entities changed since {}.", entityType.entityType(), since);
+        return listAll(entityType)
+                .mapNotNull(entity -> getChangeTime(entity).map(changeTime -> new ChangedEntity(entity, changeTime)).orElse(null))
+                .filter(changedEntity -> changedEntity.changeTime().isAfter(since))
+                .doOnNext(changedEntity -> newHighWaterMark.accumulateAndGet(changedEntity.changeTime(), TMForumPoller::max))
+                .filter(changedEntity -> isOwned(changedEntity.entity()))
+                .filter(changedEntity -> !handledEntityTracker.isHandled(changedEntity.entity()))
+                .sort(Comparator.comparing(ChangedEntity::changeTime))
+                .concatMap(changedEntity -> dispatch(entityType, changedEntity, since)
+                        .onErrorResume(t -> {
+                            log.warn("Was not able to handle polled {} {}, will retry with the next poll.", entityType.entityType(), changedEntity.entity().get(EventKeys.ID_KEY), t);
+                            firstFailure.accumulateAndGet(changedEntity.changeTime(), (current, failure) -> current == null ? failure : min(current, failure));
+                            return Mono.empty();
+                        }))
+                .then(Mono.<Void>fromRunnable(() -> {
+                    Instant mark = Optional.ofNullable(firstFailure.get())
+                            .map(failure -> min(newHighWaterMark.get(), failure.minusMillis(1)))
+                            .orElse(newHighWaterMark.get());
+                    highWaterMarks.put(entityType.entityType(), mark);
+                }))
+                .onErrorResume(t -> {
+                    log.warn("Was not able to poll {} entities, will retry with the next poll.", entityType.entityType(), t);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<HttpResponse<?>> dispatch(PolledEntityType entityType, ChangedEntity changedEntity, Instant since) {
+        // entities created after the last poll are handled as new ones, all others as changed
+        boolean created = Optional.ofNullable(entityType.creationTimeKey())
+                .map(changedEntity.entity()::get)
+                .flatMap(EventKeys::toInstant)
+                .filter(creationTime -> creationTime.isAfter(since))
+                .isPresent();
+        String eventType = (created ? CREATE_EVENT_TEMPLATE : STATE_CHANGE_EVENT_TEMPLATE).formatted(entityType.entityType());
+
+        Map<String, Object> event = new HashMap<>();
+        event.put(EVENT_ID_KEY, UUID.randomUUID().toString());
+        event.put(EVENT_TIME_KEY, changedEntity.changeTime().toString());
+        event.put(EventKeys.POLLED_KEY, true);
+        event.put(NotificationListener.EVENT_TYPE_KEY, eventType);
+        event.put(EventKeys.EVENT_KEY, Map.of(entityType.payloadKey(), changedEntity.entity()));
+
+        log.debug("Dispatch polled {} for {}.", eventType, changedEntity.entity().get(EventKeys.ID_KEY));
+        return eventDispatcher.dispatch(eventType, event);
+    }
+
+    private Flux<Map<String, Object>> listAll(PolledEntityType entityType) {
+        int pageSize = pollerProperties.getPageSize();
+        return getPage(entityType, 0)
+                .expand(page -> page.entities().size() < pageSize ? Mono.empty() : getPage(entityType, page.offset() + pageSize))
+                .flatMapIterable(Page::entities)
+                .map(entity -> objectMapper.convertValue(entity, ENTITY_TYPE_REF));
+    }
+
+    private Mono<Page> getPage(PolledEntityType entityType, int offset) {
+        return entityType.listFunction()
+                .apply(offset, pollerProperties.getPageSize())
+                .map(entities -> new Page(offset, entities))
+                .defaultIfEmpty(new Page(offset, List.of()));
+    }
+
+    private boolean isOwned(Map<String, Object> entity) {
+        return clusterMembership
+                .map(membership -> membership.isOwner((String) entity.get(EventKeys.ID_KEY)))
+                .orElse(true);
+    }
+
+    private static Optional<Instant> getChangeTime(Map<String, Object> entity) {
+        return CHANGE_TIME_KEYS.stream()
+                .map(entity::get)
+                .map(EventKeys::toInstant)
+                .flatMap(Optional::stream)
+                .max(Comparator.naturalOrder());
+    }
+
+    private void loadHighWaterMarks() {
+        Optional.ofNullable(pollerProperties.getStateFile())
+                .map(Path::of)
+                .filter(Files::exists)
+                .ifPresent(stateFile -> {
+                    try {
+                        highWaterMarks.putAll(objectMapper.readValue(stateFile.toFile(), STATE_TYPE_REF));
+                        log.info("Loaded high-water marks {} from {}.", highWaterMarks, stateFile);
+                    } catch (IOException e) {
+                        log.warn("Was not able to read high-water marks from {}, start with the initial lookback.", stateFile, e);
+                    }
+                });
+    }
+
+    private void persistHighWaterMarks() {
+        if (pollerProperties.getStateFile() == null) {
+            return;
+        }
+        Path stateFile = Path.of(pollerProperties.getStateFile());
+        try {
+            Path tempFile = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+            objectMapper.writeValue(tempFile.toFile(), Map.copyOf(highWaterMarks));
+            Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Was not able to persist high-water marks to {}.", stateFile, e);
+        }
+    }
+
+    private static Instant max(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private record PolledEntityType(String entityType, String payloadKey, String creationTimeKey,
+                                    BiFunction<Integer, Integer, Mono<List<?>>> listFunction) {
+    }
+
+    private record Page(int offset, List<?> entities) {
+    }
+
+    private record ChangedEntity(Map<String, Object> entity, Instant changeTime) {
+    }
+}
@@ -0,0 +1,23 @@
+package org.fiware.iam;
+
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestPlan;
+import reactor.blockhound.BlockHound;
+
+/**
+ * Installs BlockHound for the unit tests, if the "blockingCallDetection" property is set (by the
+ * "blocking-call-detection" maven profile), thus every blocking call on an event loop or another non-blocking thread
+ * fails the test. Other test runs are not instrumented.
+ */
+public class BlockingCallDetector implements TestExecutionListener {
+
+	private static final String ENABLED_PROPERTY = "blockingCallDetection";
+
+	@Override
+	public void testPlanExecutionStarted(TestPlan testPlan) {
+		if (!Boolean.getBoolean(ENABLED_PROPERTY)) {
+			return;
+		}
+		BlockHound.install();
+	}
+}
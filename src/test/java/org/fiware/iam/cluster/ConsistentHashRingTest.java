@@ -0,0 +1,54 @@
+package org.fiware.iam.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsistentHashRingTest {
+
+	private static final List<String> MEMBERS = List.of("http://10.0.0.1:8080", "http://10.0.0.2:8080", "http://10.0.0.3:8080");
+
+	@Test
+	public void test_getOwner_stable() {
+		ConsistentHashRing ring = new ConsistentHashRing(MEMBERS, 128);
+		ConsistentHashRing reorderedRing = new ConsistentHashRing(MEMBERS.reversed(), 128);
+
+		IntStream.range(0, 1000)
+				.mapToObj("urn:ngsi-ld:product-order:%s"::formatted)
+				.forEach(id -> assertEquals(ring.getOwner(id), reorderedRing.getOwner(id), "All replicas need to agree on the owner."));
+	}
+
+	@Test
+	public void test_getOwner_distributed() {
+		ConsistentHashRing ring = new ConsistentHashRing(MEMBERS, 128);
+		Map<String, Integer> ownedEntities = new HashMap<>();
+
+		IntStream.range(0, 3000)
+				.mapToObj("urn:ngsi-ld:product-order:%s"::formatted)
+				.forEach(id -> ownedEntities.merge(ring.getOwner(id), 1, Integer::sum));
+
+		assertEquals(3, ownedEntities.size(), "All members should own entities.");
+		ownedEntities.values().forEach(count -> assertTrue(count > 600, "The entities should be distributed evenly."));
+	}
+
+	@Test
+	public void test_getOwner_minimalMovement() {
+		ConsistentHashRing ring = new ConsistentHashRing(MEMBERS, 128);
+		ConsistentHashRing shrunkRing = new ConsistentHashRing(MEMBERS.subList(0, 2), 128);
+
+		IntStream.range(0, 1000)
+				.mapToObj("urn:ngsi-ld:product-order:%s"::formatted)
+				.filter(id -> !ring.getOwner(id).equals(MEMBERS.get(2)))
+				.forEach(id -> assertEquals(ring.getOwner(id), shrunkRing.getOwner(id), "Only entities of the removed member should move."));
+	}
+
+	@Test
+	public void test_emptyRing() {
+		assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 128), "A ring without members cannot own anything.");
+	}
+}
@@ -0,0 +1,89 @@
+package org.fiware.iam.cluster;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EventForwarderTest {
+
+	private static final String SELF = "http://10.0.0.1:8080";
+	private static final String OWNER = "http://10.0.0.2:8080";
+	private static final Map<String, Object> EVENT = Map.of(
+			"eventType", "ProductOrderCreateEvent",
+			"event", Map.of("productOrder", Map.of("id", "urn:ngsi-ld:product-order:1")));
+
+	private ClusterMembership clusterMembership;
+	private HttpClient httpClient;
+	private EventForwarder eventForwarder;
+
+	@BeforeEach
+	public void prepare() {
+		clusterMembership = mock(ClusterMembership.class);
+		when(clusterMembership.getSelf()).thenReturn(SELF);
+		when(clusterMembership.getOwner("urn:ngsi-ld:product-order:1")).thenReturn(OWNER);
+		httpClient = mock(HttpClient.class);
+		GeneralProperties generalProperties = new GeneralProperties();
+		generalProperties.setBasePath("/cm/");
+		eventForwarder = new EventForwarder(clusterMembership, generalProperties, httpClient);
+	}
+
+	@Test
+	public void test_getRemoteOwner() {
+		when(clusterMembership.isOwner("urn:ngsi-ld:product-order:1")).thenReturn(false);
+		assertEquals(Optional.of(OWNER), eventForwarder.getRemoteOwner(EVENT), "Events owned by another replica should be forwarded to it.");
+
+		when(clusterMembership.isOwner("urn:ngsi-ld:product-order:1")).thenReturn(true);
+		assertEquals(Optional.empty(), eventForwarder.getRemoteOwner(EVENT), "Owned events should be handled locally.");
+		assertEquals(Optional.empty(), eventForwarder.getRemoteOwner(Map.of("eventType", "ProductOrderCreateEvent")),
+				"Events without an entity should be handled locally.");
+	}
+
+	@Test
+	public void test_forward_markedAsForwarded() {
+		when(httpClient.exchange(any(HttpRequest.class))).thenReturn(Mono.just(HttpResponse.accepted()));
+
+		assertEquals(HttpStatus.ACCEPTED, eventForwarder.forward(OWNER, EVENT).block().getStatus(), "The response of the owner should be returned.");
+
+		ArgumentCaptor<HttpRequest> requestCaptor = ArgumentCaptor.forClass(HttpRequest.class);
+		verify(httpClient).exchange(requestCaptor.capture());
+		HttpRequest<?> request = requestCaptor.getValue();
+		assertEquals(OWNER + "/cm/listener/event", request.getUri().toString(), "The event should be sent to the listener of the owner.");
+		assertEquals(SELF, request.getHeaders().get(EventForwarder.FORWARDED_HEADER),
+				"The event should be marked as forwarded, to not be forwarded again by the owner.");
+		assertEquals(Optional.of(EVENT), request.getBody(), "The event should be forwarded unchanged.");
+	}
+
+	@Test
+	public void test_forward_errorResponseReturned() {
+		when(httpClient.exchange(any(HttpRequest.class)))
+				.thenReturn(Mono.error(new HttpClientResponseException("Bad Request", HttpResponse.badRequest())));
+
+		assertEquals(HttpStatus.BAD_REQUEST, eventForwarder.forward(OWNER, EVENT).block().getStatus(),
+				"Errors of the owner should be returned, instead of handling the event again.");
+	}
+
+	@Test
+	public void test_forward_unreachableFails() {
+		when(httpClient.exchange(any(HttpRequest.class))).thenReturn(Mono.error(new IllegalStateException("Connection refused")));
+
+		assertThrows(IllegalStateException.class, () -> eventForwarder.forward(OWNER, EVENT).block(),
+				"An unreachable owner should fail the forwarding.");
+	}
+}
@@ -0,0 +1,78 @@
+package org.fiware.iam.dsp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.fiware.rainbow.model.NewCatalogVO;
+import org.fiware.rainbow.model.NewDataserviceVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class CatalogListParserTest {
+
+	private static final String CATALOG_LIST = """
+			[
+			  {
+			    "@context": "https://w3id.org/dspace/2024/1/context.json",
+			    "@type": "dcat:Catalog",
+			    "dct:title": "Catalog 1",
+			    "dcat:dataset": [{"@id": "urn:dataset:1", "dcat:distribution": [{"@id": "urn:distribution:1"}]}],
+			    "dcat:service": [
+			      {"@id": "urn:service:1", "dcat:endpointURL": "http://service-1", "odrl:hasPolicy": {"@id": "urn:policy:1"}},
+			      {"dct:title": "Service 2", "@id": "urn:service:2"}
+			    ],
+			    "@id": "urn:catalog:1"
+			  },
+			  {
+			    "@id": "urn:catalog:2",
+			    "dcat:service": []
+			  }
+			]
+			""";
+
+	@ParameterizedTest
+	@ValueSource(ints = {1, 3, 17, 1024})
+	public void test_parseInChunks(int chunkSize) throws Exception {
+		CatalogListParser catalogListParser = new CatalogListParser(new JsonFactory());
+		byte[] content = CATALOG_LIST.getBytes(StandardCharsets.UTF_8);
+
+		List<CatalogSummary> catalogs = new ArrayList<>();
+		for (int i = 0; i < content.length; i += chunkSize) {
+			catalogs.addAll(catalogListParser.feed(Arrays.copyOfRange(content, i, Math.min(i + chunkSize, content.length))));
+		}
+		catalogs.addAll(catalogListParser.finish());
+
+		assertEquals(List.of(
+						new CatalogSummary("urn:catalog:1", List.of("urn:service:1", "urn:service:2"),
+								ContentHash.of(Map.of("@id", "urn:catalog:1", "dct:title", "Catalog 1"), ContentHash.CATALOG_FIELDS),
+								Map.of("urn:service:1", ContentHash.of(Map.of("@id", "urn:service:1", "dcat:endpointURL", "http://service-1"), ContentHash.DATASERVICE_FIELDS),
+										"urn:service:2", ContentHash.of(Map.of("@id", "urn:service:2", "dct:title", "Service 2"), ContentHash.DATASERVICE_FIELDS))),
+						new CatalogSummary("urn:catalog:2", List.of(),
+								ContentHash.of(Map.of("@id", "urn:catalog:2"), ContentHash.CATALOG_FIELDS), Map.of())),
+				catalogs,
+				"Only the ids and the written fields of the catalogs and their services should be extracted, independent of the chunking.");
+	}
+
+	@Test
+	public void test_contentHash_matchesWriteModel() throws Exception {
+		CatalogListParser catalogListParser = new CatalogListParser(new JsonFactory());
+		CatalogSummary catalog = catalogListParser.feed(CATALOG_LIST.getBytes(StandardCharsets.UTF_8)).getFirst();
+		ObjectMapper objectMapper = new ObjectMapper();
+
+		assertEquals(ContentHash.of(objectMapper, new NewCatalogVO().atId("urn:catalog:1").dctColonTitle("Catalog 1"), ContentHash.CATALOG_FIELDS),
+				catalog.contentHash(), "The catalog as written should have the hash of the catalog as read.");
+		assertEquals(ContentHash.of(objectMapper, new NewDataserviceVO().atId("urn:service:1").dcatColonEndpointURL("http://service-1"), ContentHash.DATASERVICE_FIELDS),
+				catalog.dataserviceHashes().get("urn:service:1"), "The dataservice as written should have the hash of the dataservice as read.");
+		assertNotEquals(ContentHash.of(objectMapper, new NewDataserviceVO().atId("urn:service:1").dcatColonEndpointURL("http://service-2"), ContentHash.DATASERVICE_FIELDS),
+				catalog.dataserviceHashes().get("urn:service:1"), "A changed dataservice should have a different hash.");
+	}
+}
@@ -0,0 +1,101 @@
+package org.fiware.iam.dsp;
+
+import io.micronaut.http.HttpResponse;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.tmforum.productcatalog.api.ProductOfferingPriceApiClient;
+import org.fiware.iam.tmforum.productcatalog.model.MoneyVO;
+import org.fiware.iam.tmforum.productcatalog.model.ProductOfferingPriceVO;
+import org.fiware.iam.tmforum.quote.model.ProductOfferingPriceRefVO;
+import org.fiware.iam.tmforum.quote.model.QuotePriceVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PriceMapperTest {
+
+	private ProductOfferingPriceApiClient productOfferingPriceApiClient;
+	private ProductOfferingPriceCache productOfferingPriceCache;
+
+	private PriceMapper priceMapper;
+
+	@BeforeEach
+	public void prepare() {
+		productOfferingPriceApiClient = mock(ProductOfferingPriceApiClient.class);
+		productOfferingPriceCache = new ProductOfferingPriceCache(new GeneralProperties());
+		priceMapper = new PriceMapper(productOfferingPriceApiClient, productOfferingPriceCache);
+
+		ProductOfferingPriceVO monthly = new ProductOfferingPriceVO()
+				.id("monthly")
+				.priceType("recurring")
+				.recurringChargePeriodType("month")
+				.recurringChargePeriodLength(1)
+				.price(new MoneyVO().value(10.0f).unit("EUR"));
+		ProductOfferingPriceVO oneTime = new ProductOfferingPriceVO()
+				.id("one-time")
+				.priceType("oneTime")
+				.price(new MoneyVO().value(5.0f).unit("EUR"));
+		when(productOfferingPriceApiClient.retrieveProductOfferingPrice(eq("monthly"), any()))
+				.thenReturn(Mono.delay(Duration.ofMillis(10)).then(Mono.just(HttpResponse.ok(monthly))));
+		when(productOfferingPriceApiClient.retrieveProductOfferingPrice(eq("one-time"), any()))
+				.thenReturn(Mono.delay(Duration.ofMillis(10)).then(Mono.just(HttpResponse.ok(oneTime))));
+	}
+
+	@Test
+	public void test_toObligationConstraints_distinctPrices() {
+		List<QuotePriceVO> prices = List.of(quotePrice("monthly"), quotePrice("one-time"), quotePrice("monthly"));
+
+		List<Object> constraints = priceMapper.toObligationConstraints(prices).block();
+
+		assertEquals(5, constraints.size(), "The recurring prices should contribute period and amount, the one-time price only its amount.");
+		assertEquals("odrl:elapsedTime", ((Map<?, ?>) constraints.get(0)).get("odrl:leftOperand"), "The constraints should follow the order of the prices.");
+		assertEquals(Map.of("@value", "5.0", "@type", "xsd:decimal"), ((Map<?, ?>) constraints.get(2)).get("odrl:rightOperand"), "The constraints should follow the order of the prices.");
+		verify(productOfferingPriceApiClient, times(1)).retrieveProductOfferingPrice(eq("monthly"), any());
+		verify(productOfferingPriceApiClient, times(1)).retrieveProductOfferingPrice(eq("one-time"), any());
+	}
+
+	@Test
+	public void test_toObligationConstraints_cachedUntilChanged() {
+		priceMapper.toObligationConstraints(List.of(quotePrice("monthly"))).block();
+		priceMapper.toObligationConstraints(List.of(quotePrice("monthly"))).block();
+		verify(productOfferingPriceApiClient, times(1)).retrieveProductOfferingPrice(eq("monthly"), any());
+
+		productOfferingPriceCache.handleProductOfferingPriceChange(new ProductOfferingPriceVO().id("monthly")).block();
+		priceMapper.toObligationConstraints(List.of(quotePrice("monthly"))).block();
+		verify(productOfferingPriceApiClient, times(2)).retrieveProductOfferingPrice(eq("monthly"), any());
+	}
+
+	@Test
+	public void test_get_constraintsImmutable() {
+		Map<String, Object> operand = new HashMap<>(Map.of("@value", "P1M"));
+		List<Object> loaded = new ArrayList<>(List.of(new HashMap<>(Map.of("odrl:rightOperand", operand))));
+
+		List<Object> constraints = productOfferingPriceCache.get("price", () -> Mono.just(loaded)).block();
+		operand.put("@value", "P2M");
+
+		Map<String, Object> constraint = (Map<String, Object>) constraints.get(0);
+		assertEquals(Map.of("@value", "P1M"), constraint.get("odrl:rightOperand"), "The cached constraints should be copied.");
+		assertThrows(UnsupportedOperationException.class, () -> constraints.add(Map.of()), "The cached list should be immutable.");
+		assertThrows(UnsupportedOperationException.class, () -> constraint.put("odrl:operator", "odrl:eq"), "The cached constraints should be immutable.");
+		assertThrows(UnsupportedOperationException.class, () -> ((Map<String, Object>) constraint.get("odrl:rightOperand")).put("@value", "P3M"),
+				"The nested operands should be immutable.");
+	}
+
+	private static QuotePriceVO quotePrice(String productOfferingPriceId) {
+		return new QuotePriceVO().productOfferingPrice(new ProductOfferingPriceRefVO().id(productOfferingPriceId));
+	}
+}
@@ -1,11 +1,12 @@
 package org.fiware.iam.dsp;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
+import org.fiware.iam.configuration.GeneralProperties;
 import org.fiware.iam.exception.RainbowException;
 import org.fiware.rainbow.api.*;
 import org.fiware.rainbow.model.AgreementVO;
+import org.fiware.rainbow.model.ProviderNegotiationVO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Mono;
@@ -14,12 +15,14 @@ import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class RainbowAdapterTest {
 
-	private ObjectMapper objectMapper = new ObjectMapper();
 	private AgreementApiClient agreementApiClient;
 	private ContractApiClient contractApiClient;
 	private ParticipantApiClient participantApiClient;
@@ -32,7 +35,7 @@ public class RainbowAdapterTest {
 		contractApiClient = mock(ContractApiClient.class);
 		participantApiClient = mock(ParticipantApiClient.class);
 
-		rainbowAdapter = new RainbowAdapter(agreementApiClient, contractApiClient, participantApiClient, objectMapper);
+		rainbowAdapter = new RainbowAdapter(agreementApiClient, contractApiClient, participantApiClient, new RainbowMapperImpl(), new NegotiationProcessCache(new GeneralProperties()));
 	}
 
 	@Test
@@ -80,4 +83,20 @@ public class RainbowAdapterTest {
 		assertFalse(rainbowAdapter.deleteAgreement("the-id").block(), "The agreement should not have been deleted.");
 	}
 
+
+	@Test
+	public void test_negotiationProcess_cached() {
+		ProviderNegotiationVO providerNegotiationVO = new ProviderNegotiationVO()
+				.cnProcessId("process")
+				.providerId("provider")
+				.consumerId("consumer")
+				.state("dspace:VERIFIED");
+		when(contractApiClient.getProcessById(eq("provider"))).thenReturn(Mono.just(HttpResponse.ok(providerNegotiationVO)));
+		when(contractApiClient.updateProcessById(eq("process"), any())).thenReturn(Mono.just(HttpResponse.ok((Object) Map.of())));
+
+		assertEquals("dspace:VERIFIED", rainbowAdapter.getNegotiationProcessState("provider").block(), "The state should be returned.");
+		rainbowAdapter.updateNegotiationProcessByProviderId("provider", "dspace:FINALIZED").block();
+		assertEquals("dspace:FINALIZED", rainbowAdapter.getNegotiationProcessState("provider").block(), "The written state should be returned.");
+		verify(contractApiClient, times(1)).getProcessById(eq("provider"));
+	}
 }
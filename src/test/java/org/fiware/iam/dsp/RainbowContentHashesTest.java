@@ -0,0 +1,88 @@
+package org.fiware.iam.dsp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.fiware.rainbow.model.NewCatalogVO;
+import org.fiware.rainbow.model.NewDataserviceVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RainbowContentHashesTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private MeterRegistry meterRegistry;
+	private RainbowCatalogStreamingClient rainbowCatalogStreamingClient;
+	private RainbowContentHashes rainbowContentHashes;
+
+	@BeforeEach
+	public void prepare() {
+		meterRegistry = new SimpleMeterRegistry();
+		rainbowCatalogStreamingClient = mock(RainbowCatalogStreamingClient.class);
+		rainbowContentHashes = new RainbowContentHashes(rainbowCatalogStreamingClient, objectMapper, meterRegistry);
+	}
+
+	@Test
+	public void test_isUnchanged_seededFromRainbow() {
+		NewCatalogVO catalog = new NewCatalogVO().atId("catalog").dctColonTitle("Catalog");
+		NewDataserviceVO dataservice = new NewDataserviceVO().atId("service").dcatColonEndpointURL("http://service");
+		when(rainbowCatalogStreamingClient.getCatalogs()).thenReturn(Flux.just(new CatalogSummary("catalog", List.of("service"),
+				ContentHash.of(objectMapper, catalog, ContentHash.CATALOG_FIELDS),
+				Map.of("service", ContentHash.of(objectMapper, dataservice, ContentHash.DATASERVICE_FIELDS)))));
+
+		assertEquals(new RainbowContentHashes.ResyncResult(1, 1), rainbowContentHashes.resync().block(), "All hashes should have been seeded.");
+
+		assertTrue(rainbowContentHashes.isUnchanged("catalog", new NewCatalogVO().atId("catalog").dctColonTitle("Catalog")), "An equal catalog should not be written.");
+		assertTrue(rainbowContentHashes.isUnchanged("catalog", new NewDataserviceVO().atId("service").dcatColonEndpointURL("http://service")), "An equal dataservice should not be written.");
+		assertFalse(rainbowContentHashes.isUnchanged("catalog", new NewCatalogVO().atId("catalog").dctColonTitle("Changed")), "A changed catalog should be written.");
+		assertFalse(rainbowContentHashes.isUnchanged("other", new NewDataserviceVO().atId("service").dcatColonEndpointURL("http://service")), "The dataservice should be written to other catalogs.");
+		assertEquals(2, meterRegistry.get("contract.management.rainbow.skipped").counters().stream().mapToDouble(c -> c.count()).sum(), "The skipped writes should be counted.");
+	}
+
+	@Test
+	public void test_isUnchanged_removedAfterFailure() {
+		NewCatalogVO catalog = new NewCatalogVO().atId("catalog").dctColonTitle("Catalog");
+		rainbowContentHashes.recordCatalog("catalog", catalog);
+		assertTrue(rainbowContentHashes.isUnchanged("catalog", catalog), "A written catalog should not be written again.");
+
+		rainbowContentHashes.removeCatalog("catalog");
+		assertFalse(rainbowContentHashes.isUnchanged("catalog", catalog), "The catalog should be written again, once its state is unknown.");
+	}
+
+	@Test
+	public void test_resync_keepsConcurrentWrites() {
+		NewCatalogVO fetchedCatalog = new NewCatalogVO().atId("catalog").dctColonTitle("Fetched");
+		NewCatalogVO writtenCatalog = new NewCatalogVO().atId("catalog").dctColonTitle("Written");
+		NewCatalogVO otherCatalog = new NewCatalogVO().atId("other").dctColonTitle("Other");
+		NewCatalogVO deletedCatalog = new NewCatalogVO().atId("deleted").dctColonTitle("Deleted");
+		rainbowContentHashes.recordCatalog("deleted", deletedCatalog);
+		Sinks.Many<CatalogSummary> fetchedCatalogs = Sinks.many().unicast().onBackpressureBuffer();
+		when(rainbowCatalogStreamingClient.getCatalogs()).thenReturn(fetchedCatalogs.asFlux());
+
+		Mono<RainbowContentHashes.ResyncResult> resync = rainbowContentHashes.resync().cache();
+		resync.subscribe();
+		// written after Rainbow was read, but before the resync completes
+		rainbowContentHashes.recordCatalog("catalog", writtenCatalog);
+		fetchedCatalogs.tryEmitNext(new CatalogSummary("catalog", List.of(), ContentHash.of(objectMapper, fetchedCatalog, ContentHash.CATALOG_FIELDS), Map.of()));
+		fetchedCatalogs.tryEmitNext(new CatalogSummary("other", List.of(), ContentHash.of(objectMapper, otherCatalog, ContentHash.CATALOG_FIELDS), Map.of()));
+		fetchedCatalogs.tryEmitComplete();
+
+		assertEquals(new RainbowContentHashes.ResyncResult(2, 0), resync.block(), "The hashes should be merged.");
+		assertTrue(rainbowContentHashes.isUnchanged("catalog", writtenCatalog), "The concurrent write should not be overwritten with the fetched content.");
+		assertTrue(rainbowContentHashes.isUnchanged("other", otherCatalog), "Other catalogs should be taken from Rainbow.");
+		assertFalse(rainbowContentHashes.isUnchanged("deleted", deletedCatalog), "Catalogs no longer in Rainbow should be removed.");
+	}
+}
@@ -0,0 +1,99 @@
+package org.fiware.iam.dsp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import org.fiware.iam.tmforum.productcatalog.api.ProductSpecificationApiClient;
+import org.fiware.iam.tmforum.productcatalog.model.CatalogVO;
+import org.fiware.iam.tmforum.productcatalog.model.CategoryRefVO;
+import org.fiware.iam.tmforum.productcatalog.model.ProductOfferingVO;
+import org.fiware.iam.tmforum.productcatalog.model.ProductSpecificationRefVO;
+import org.fiware.iam.tmforum.productcatalog.model.ProductSpecificationVO;
+import org.fiware.rainbow.api.CatalogApiClient;
+import org.fiware.rainbow.model.NewDataserviceVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RainbowProductOfferingHandlerTest {
+
+	private static final String OFFERING_ID = "offering";
+	private static final String CATEGORY_ID = "category";
+
+	private CatalogApiClient rainbowCatalogApiClient;
+	private RainbowCatalogStreamingClient rainbowCatalogStreamingClient;
+	private org.fiware.iam.tmforum.productcatalog.api.CatalogApiClient catalogApiClient;
+	private RainbowContentHashes rainbowContentHashes;
+	private RainbowProductOfferingHandler rainbowProductOfferingHandler;
+
+	@BeforeEach
+	public void prepare() {
+		rainbowCatalogApiClient = mock(CatalogApiClient.class);
+		rainbowCatalogStreamingClient = mock(RainbowCatalogStreamingClient.class);
+		catalogApiClient = mock(org.fiware.iam.tmforum.productcatalog.api.CatalogApiClient.class);
+		ProductSpecificationApiClient productSpecificationApiClient = mock(ProductSpecificationApiClient.class);
+		when(productSpecificationApiClient.retrieveProductSpecification(anyString(), any()))
+				.thenReturn(Mono.just(HttpResponse.ok(new ProductSpecificationVO().name("Specification"))));
+		when(rainbowCatalogApiClient.updateDataserviceInCatalog(anyString(), anyString(), any()))
+				.thenReturn(Mono.just(HttpResponse.accepted()));
+		rainbowContentHashes = new RainbowContentHashes(rainbowCatalogStreamingClient, new ObjectMapper(), new SimpleMeterRegistry());
+		rainbowProductOfferingHandler = new RainbowProductOfferingHandler(rainbowCatalogApiClient, rainbowCatalogStreamingClient,
+				catalogApiClient, productSpecificationApiClient, rainbowContentHashes);
+	}
+
+	@Test
+	public void test_handleOfferingStateChange_alreadyInEveryCatalog() {
+		when(rainbowCatalogStreamingClient.getCatalogs()).thenReturn(Flux.just(
+				new CatalogSummary("catalog-1", List.of(OFFERING_ID), null, Map.of()),
+				new CatalogSummary("catalog-2", List.of(OFFERING_ID), null, Map.of())));
+		when(catalogApiClient.retrieveCatalog(anyString(), any())).thenAnswer(invocation ->
+				Mono.just(HttpResponse.ok(new CatalogVO()
+						.id((String) invocation.getArguments()[0])
+						.category(List.of(new CategoryRefVO().id(CATEGORY_ID))))));
+
+		HttpResponse<?> response = rainbowProductOfferingHandler.handleOfferingStateChange(offering()).block();
+
+		assertNotNull(response, "A response should be emitted, even if nothing has to be deleted.");
+		assertEquals(HttpStatus.ACCEPTED, response.getStatus(), "The change should be accepted.");
+		verify(rainbowCatalogApiClient, times(2)).updateDataserviceInCatalog(anyString(), eq(OFFERING_ID), any(NewDataserviceVO.class));
+		verify(rainbowCatalogApiClient, never()).deleteDataserviceInCatalog(anyString(), anyString());
+		verify(rainbowCatalogApiClient, never()).createDataserviceInCatalog(anyString(), any());
+
+		assertNotNull(rainbowProductOfferingHandler.handleOfferingStateChange(offering()).block(),
+				"A response should be emitted, even if the unchanged dataservice is not written.");
+		verify(rainbowCatalogApiClient, times(2)).updateDataserviceInCatalog(anyString(), eq(OFFERING_ID), any(NewDataserviceVO.class));
+	}
+
+	@Test
+	public void test_handleOfferingStateChange_inNoCatalog() {
+		when(rainbowCatalogStreamingClient.getCatalogs()).thenReturn(Flux.empty());
+
+		HttpResponse<?> response = rainbowProductOfferingHandler.handleOfferingStateChange(offering()).block();
+
+		assertNotNull(response, "A response should be emitted, even if the offering is in no catalog.");
+		assertEquals(HttpStatus.ACCEPTED, response.getStatus(), "The change should be accepted.");
+	}
+
+	private static ProductOfferingVO offering() {
+		return new ProductOfferingVO()
+				.id(OFFERING_ID)
+				.category(List.of(new CategoryRefVO().id(CATEGORY_ID)))
+				.productSpecification(new ProductSpecificationRefVO().id("specification"));
+	}
+}
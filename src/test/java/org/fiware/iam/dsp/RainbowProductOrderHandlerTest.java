@@ -0,0 +1,117 @@
+package org.fiware.iam.dsp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.http.HttpStatus;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.configuration.ClusterProperties;
+import org.fiware.iam.configuration.OrderLedgerProperties;
+import org.fiware.iam.tmforum.OrderLedger;
+import org.fiware.iam.tmforum.TMFMapperImpl;
+import org.fiware.iam.tmforum.TMForumAdapter;
+import org.fiware.iam.tmforum.productorder.model.AgreementRefVO;
+import org.fiware.iam.tmforum.productorder.model.OrderItemActionTypeVO;
+import org.fiware.iam.tmforum.productorder.model.ProductOfferingRefVO;
+import org.fiware.iam.tmforum.productorder.model.ProductOrderItemVO;
+import org.fiware.iam.tmforum.productorder.model.ProductOrderVO;
+import org.fiware.rainbow.model.AgreementVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RainbowProductOrderHandlerTest {
+
+	private static final String ORDER_ID = "order";
+	private static final String ORGANIZATION_ID = "customer";
+
+	private TMForumAdapter tmForumAdapter;
+	private RainbowAdapter rainbowAdapter;
+	private OrderLedger orderLedger;
+	private RainbowProductOrderHandler rainbowProductOrderHandler;
+
+	@BeforeEach
+	public void prepare() {
+		tmForumAdapter = mock(TMForumAdapter.class);
+		rainbowAdapter = mock(RainbowAdapter.class);
+		when(rainbowAdapter.createAgreement(anyString(), anyString()))
+				.thenAnswer(invocation -> {
+					String offeringId = (String) invocation.getArguments()[1];
+					return Mono.just(new AgreementVO().agreementId("agreement-" + offeringId).dataServiceId(offeringId));
+				});
+		when(rainbowAdapter.deleteAgreement(anyString())).thenReturn(Mono.just(true));
+		when(tmForumAdapter.createAgreement(anyString(), anyString(), anyString(), any()))
+				.thenAnswer(invocation -> Mono.just("tmf-" + invocation.getArguments()[2]));
+		when(tmForumAdapter.addAgreementToOrder(anyString(), any())).thenReturn(Mono.just(new ProductOrderVO().id(ORDER_ID)));
+		when(tmForumAdapter.deleteAgreement(anyString())).thenReturn(Mono.just(true));
+		OrderLedgerProperties orderLedgerProperties = new OrderLedgerProperties();
+		orderLedgerProperties.setEnabled(true);
+		orderLedger = new OrderLedger(orderLedgerProperties, new ClusterProperties(), new ObjectMapper());
+		rainbowProductOrderHandler = new RainbowProductOrderHandler(tmForumAdapter, new TMFMapperImpl(), rainbowAdapter,
+				mock(QuoteProcessIndex.class), new GeneralProperties(), orderLedger);
+	}
+
+	@Test
+	public void test_handleProductOrderComplete_onlyDifferenceApplied() {
+		assertEquals(HttpStatus.NO_CONTENT, rainbowProductOrderHandler.handleProductOrderComplete(ORGANIZATION_ID, order("kept", "removed")).block().getStatus(),
+				"The initial completion should succeed.");
+		verify(rainbowAdapter, times(2)).createAgreement(eq(ORGANIZATION_ID), anyString());
+
+		assertEquals(HttpStatus.NO_CONTENT, rainbowProductOrderHandler.handleProductOrderComplete(ORGANIZATION_ID, order("kept", "added")).block().getStatus(),
+				"The changed order should be applied.");
+
+		verify(rainbowAdapter, times(1)).createAgreement(ORGANIZATION_ID, "kept");
+		verify(rainbowAdapter, times(1)).createAgreement(ORGANIZATION_ID, "added");
+		verify(rainbowAdapter, times(1)).deleteAgreement("agreement-removed");
+		verify(rainbowAdapter, times(1)).deleteAgreement(anyString());
+		verify(tmForumAdapter, times(1)).deleteAgreement("tmf-agreement-removed");
+		verify(tmForumAdapter, times(1)).deleteAgreement(anyString());
+		verify(tmForumAdapter, times(1)).addAgreementToOrder(ORDER_ID, List.of("tmf-agreement-kept", "tmf-agreement-added"));
+		assertEquals(Set.of("kept", "added"), orderLedger.getAgreements(ORDER_ID).orElseThrow().keySet(),
+				"The current agreements should be recorded.");
+
+		rainbowProductOrderHandler.handleProductOrderComplete(ORGANIZATION_ID, order("kept", "added")).block();
+		verify(rainbowAdapter, times(3)).createAgreement(eq(ORGANIZATION_ID), anyString());
+		verify(tmForumAdapter, times(2)).addAgreementToOrder(anyString(), any());
+	}
+
+	@Test
+	public void test_handleProductOrderStop_recordKeptOnFailure() {
+		rainbowProductOrderHandler.handleProductOrderComplete(ORGANIZATION_ID, order("offering")).block();
+		when(rainbowAdapter.deleteAgreement("tmf-agreement-offering")).thenReturn(Mono.just(false));
+		ProductOrderVO stoppedOrder = order("offering").agreement(List.of(new AgreementRefVO().id("tmf-agreement-offering")));
+
+		assertEquals(HttpStatus.BAD_GATEWAY, rainbowProductOrderHandler.handleProductOrderStop(ORGANIZATION_ID, stoppedOrder).block().getStatus(),
+				"The failed deletion should be reported.");
+		assertTrue(orderLedger.getAgreements(ORDER_ID).isPresent(), "The agreements should be kept, to retry the stop.");
+
+		when(rainbowAdapter.deleteAgreement("tmf-agreement-offering")).thenReturn(Mono.just(true));
+		assertEquals(HttpStatus.ACCEPTED, rainbowProductOrderHandler.handleProductOrderStop(ORGANIZATION_ID, stoppedOrder).block().getStatus(),
+				"The retried stop should succeed.");
+		assertTrue(orderLedger.getAgreements(ORDER_ID).isEmpty(), "The agreements should be removed once deleted.");
+	}
+
+	private static ProductOrderVO order(String... offeringIds) {
+		return new ProductOrderVO()
+				.id(ORDER_ID)
+				.relatedParty(List.of())
+				.productOrderItem(Arrays.stream(offeringIds)
+						.map(offeringId -> new ProductOrderItemVO()
+								.id(offeringId)
+								.action(OrderItemActionTypeVO.ADD)
+								.productOffering(new ProductOfferingRefVO().id(offeringId)))
+						.toList());
+	}
+}
@@ -0,0 +1,100 @@
+package org.fiware.iam.http;
+
+import io.github.wistefan.oid4vp.OID4VPClient;
+import io.github.wistefan.oid4vp.config.RequestParameters;
+import io.github.wistefan.oid4vp.model.TokenResponse;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class Oid4VpAuthHandlerTest {
+
+	// time a token acquisition blocks, e.g. for reading the credentials and signing
+	private static final Duration TOKEN_DURATION = Duration.ofMillis(200);
+	private static final int CONCURRENT_TOKENS = 64;
+	private static final Duration PROBE_INTERVAL = Duration.ofMillis(10);
+
+	// created upfront, the (blocking) initialization of the response factory is not part of the test
+	private static final HttpResponse<?> OK = HttpResponse.ok();
+	private static final HttpResponse<?> UNAUTHORIZED = HttpResponse.unauthorized();
+
+	private ExecutorService executorService;
+	private Oid4VpAuthHandler oid4VpAuthHandler;
+
+	@BeforeEach
+	public void prepare() {
+		OID4VPClient oid4VPClient = mock(OID4VPClient.class);
+		when(oid4VPClient.getAccessToken(any(RequestParameters.class))).thenAnswer(invocation -> {
+			Thread.sleep(TOKEN_DURATION.toMillis());
+			TokenResponse tokenResponse = new TokenResponse();
+			tokenResponse.setAccessToken("token");
+			return CompletableFuture.completedFuture(tokenResponse);
+		});
+		executorService = Executors.newVirtualThreadPerTaskExecutor();
+		oid4VpAuthHandler = new Oid4VpAuthHandler(oid4VPClient, executorService);
+	}
+
+	@AfterEach
+	public void cleanUp() {
+		executorService.shutdownNow();
+	}
+
+	@Test
+	public void test_executeWithAuth_retriedWithToken() {
+		HttpResponse<?> response = executeOnNonBlockingThread().block();
+
+		assertEquals(HttpStatus.OK, response.getStatus(), "The request should have been retried with the acquired token.");
+	}
+
+	// latency of the non-blocking threads has to stay flat, while tokens are acquired
+	@Test
+	public void test_executeWithAuth_nonBlockingLatency() {
+		Mono<List<HttpResponse>> tokenRequests = Flux.range(0, CONCURRENT_TOKENS)
+				.flatMap(i -> executeOnNonBlockingThread(), CONCURRENT_TOKENS)
+				.collectList();
+		Mono<Long> maxLatency = Flux.range(0, (int) (TOKEN_DURATION.multipliedBy(2).toMillis() / PROBE_INTERVAL.toMillis()))
+				// delay of the probe beyond its interval
+				.concatMap(i -> {
+					long scheduled = System.nanoTime();
+					return Mono.delay(PROBE_INTERVAL, Schedulers.parallel())
+							.map(tick -> System.nanoTime() - scheduled - PROBE_INTERVAL.toNanos());
+				})
+				.reduce(Math::max)
+				.map(Duration::ofNanos)
+				.map(Duration::toMillis);
+
+		long latency = Mono.zip(tokenRequests, maxLatency).block().getT2();
+
+		assertTrue(latency < TOKEN_DURATION.toMillis() / 2,
+				String.format("Tasks on the non-blocking threads should not wait for token acquisition, but waited %sms.", latency));
+	}
+
+	private Mono<HttpResponse> executeOnNonBlockingThread() {
+		MutableHttpRequest<?> request = HttpRequest.GET("http://provider.org:8080/ngsi-ld/v1/entities");
+		Function<MutableHttpRequest<?>, Mono<HttpResponse>> executor = r -> Mono.just(r.getHeaders().contains(HttpHeaders.AUTHORIZATION) ?
+				OK : UNAUTHORIZED);
+		return Mono.defer(() -> oid4VpAuthHandler.executeWithAuth(request, executor))
+				.subscribeOn(Schedulers.parallel());
+	}
+}
@@ -0,0 +1,140 @@
+package org.fiware.iam.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Replays a recording of the {@link TrafficRecorder} against a running instance, keeping the pauses between the
+ * requests divided by the speed factor. Pauses longer than the max pause (e.g. between two recording sessions) are
+ * shortened to it. A speed factor of 0 sends all requests without pauses.
+ */
+public class TrafficReplay {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final URI target;
+	private final double speed;
+	private final Duration maxPause;
+
+	public TrafficReplay(URI target, double speed, Duration maxPause) {
+		this.target = target;
+		this.speed = speed;
+		this.maxPause = maxPause;
+	}
+
+	public ReplayResult replay(Path recordingFile) throws IOException, InterruptedException {
+		Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+		AtomicLong errors = new AtomicLong();
+		List<CompletableFuture<?>> responses = new ArrayList<>();
+		long start = System.nanoTime();
+		try (HttpClient httpClient = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+			 BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(recordingFile)), StandardCharsets.UTF_8))) {
+			long recordedOffset = 0;
+			Long previousTimestamp = null;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isBlank()) {
+					continue;
+				}
+				TrafficRecorder.Recording recording = objectMapper.readValue(line, TrafficRecorder.Recording.class);
+				if (previousTimestamp != null) {
+					recordedOffset += Math.min(Math.max(recording.timestamp() - previousTimestamp, 0), maxPause.toMillis());
+				}
+				previousTimestamp = recording.timestamp();
+				if (speed > 0) {
+					long dueNanos = start + (long) (Duration.ofMillis(recordedOffset).toNanos() / speed);
+					long waitNanos = dueNanos - System.nanoTime();
+					if (waitNanos > 0) {
+						Thread.sleep(Duration.ofNanos(waitNanos));
+					}
+				}
+				HttpRequest request = HttpRequest.newBuilder(URI.create(target.toString().replaceAll("/$", "") + recording.path()))
+						.header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(recording.body())))
+						.build();
+				long sent = System.nanoTime();
+				responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+						.whenComplete((response, throwable) -> {
+							latencies.add(System.nanoTime() - sent);
+							if (throwable != null || response.statusCode() >= 400) {
+								errors.incrementAndGet();
+							}
+						}));
+			}
+			CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).exceptionally(t -> null).join();
+		}
+		return ReplayResult.of(latencies.stream().sorted().toList(), errors.get(), System.nanoTime() - start);
+	}
+
+	/**
+	 * Outcome of a replay, to be stored as baseline and compared with following replays.
+	 *
+	 * @param requests       number of replayed requests
+	 * @param errors         number of requests that failed or were answered with an error status
+	 * @param throughput     requests per second
+	 * @param p50LatencyMs   median latency in milliseconds
+	 * @param p95LatencyMs   95th percentile of the latency in milliseconds
+	 * @param p99LatencyMs   99th percentile of the latency in milliseconds
+	 */
+	public record ReplayResult(long requests, long errors, double throughput, double p50LatencyMs, double p95LatencyMs, double p99LatencyMs) {
+
+		static ReplayResult of(List<Long> sortedLatencies, long errors, long durationNanos) {
+			double seconds = Math.max(durationNanos, 1) / 1e9;
+			return new ReplayResult(sortedLatencies.size(), errors, sortedLatencies.size() / seconds,
+					percentile(sortedLatencies, 0.50), percentile(sortedLatencies, 0.95), percentile(sortedLatencies, 0.99));
+		}
+
+		/**
+		 * Returns the regressions compared to the baseline, none if all values are within the tolerance (e.g. 0.1 for
+		 * 10%).
+		 */
+		public List<String> regressionsTo(ReplayResult baseline, double tolerance) {
+			List<String> regressions = new ArrayList<>();
+			if (requests != baseline.requests()) {
+				regressions.add("Replayed %s requests, but the baseline contains %s.".formatted(requests, baseline.requests()));
+			}
+			if (errors > baseline.errors()) {
+				regressions.add("%s errors, baseline %s.".formatted(errors, baseline.errors()));
+			}
+			if (throughput < baseline.throughput() * (1 - tolerance)) {
+				regressions.add("Throughput of %.1f/s, baseline %.1f/s.".formatted(throughput, baseline.throughput()));
+			}
+			checkLatency(regressions, "p50", p50LatencyMs, baseline.p50LatencyMs(), tolerance);
+			checkLatency(regressions, "p95", p95LatencyMs, baseline.p95LatencyMs(), tolerance);
+			checkLatency(regressions, "p99", p99LatencyMs, baseline.p99LatencyMs(), tolerance);
+			return regressions;
+		}
+
+		private static void checkLatency(List<String> regressions, String percentile, double latency, double baselineLatency, double tolerance) {
+			if (latency > baselineLatency * (1 + tolerance)) {
+				regressions.add("%s latency of %.1fms, baseline %.1fms.".formatted(percentile, latency, baselineLatency));
+			}
+		}
+
+		private static double percentile(List<Long> sortedLatencies, double percentile) {
+			if (sortedLatencies.isEmpty()) {
+				return 0;
+			}
+			int index = (int) Math.ceil(percentile * sortedLatencies.size()) - 1;
+			return sortedLatencies.get(Math.max(index, 0)) / 1e6;
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package org.fiware.iam.http;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.fiware.iam.configuration.TrafficRecordingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Besides testing recorder and replay, replays a recording against a running instance if the system property
+ * replay.file is set, e.g. mvn test -Dtest=TrafficReplayTest -Dreplay.file=traffic.ndjson.gz
+ */
+public class TrafficReplayTest {
+
+	private static final String CUSTOMER = "did:web:customer.org";
+	private static final String ORDER_ID = "urn:ngsi-ld:product-order:4711";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final Queue<ReceivedRequest> receivedRequests = new ConcurrentLinkedQueue<>();
+
+	@TempDir
+	private Path tempDir;
+	private HttpServer stubServer;
+
+	@BeforeEach
+	public void prepare() throws IOException {
+		stubServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		stubServer.createContext("/", exchange -> {
+			receivedRequests.add(new ReceivedRequest(exchange.getRequestURI().getPath(), objectMapper.readTree(exchange.getRequestBody())));
+			exchange.sendResponseHeaders(204, -1);
+			exchange.close();
+		});
+		stubServer.start();
+	}
+
+	@AfterEach
+	public void cleanUp() {
+		stubServer.stop(0);
+	}
+
+	@Test
+	public void test_recordAndReplay_anonymized() throws Exception {
+		Path recordingFile = tempDir.resolve("traffic.ndjson.gz");
+		TrafficRecordingProperties trafficRecordingProperties = new TrafficRecordingProperties();
+		trafficRecordingProperties.setFile(recordingFile.toString());
+		TrafficRecorder trafficRecorder = new TrafficRecorder(trafficRecordingProperties, objectMapper, new SimpleMeterRegistry());
+		trafficRecorder.record("/listener/event", Map.of(
+				"eventType", "ProductOrderStateChangeEvent",
+				"event", Map.of("productOrder", Map.of(
+						"id", ORDER_ID,
+						"href", "http://tm-forum/productOrder/" + ORDER_ID,
+						"relatedParty", List.of(Map.of("id", CUSTOMER))))));
+		trafficRecorder.record("/order/start", Map.of("orderId", ORDER_ID, "customerId", CUSTOMER));
+		trafficRecorder.close();
+
+		TrafficReplay.ReplayResult result = new TrafficReplay(stubUri(), 0, Duration.ofSeconds(1)).replay(recordingFile);
+
+		assertEquals(2, result.requests(), "All recorded requests should be replayed.");
+		assertEquals(0, result.errors(), "The stub answers all requests successfully.");
+		Map<String, JsonNode> requests = receivedRequests.stream().collect(Collectors.toMap(ReceivedRequest::path, ReceivedRequest::body));
+		assertEquals(Set.of("/listener/event", "/order/start"), requests.keySet(), "The requests should be replayed to the recorded paths.");
+
+		JsonNode event = requests.get("/listener/event");
+		JsonNode order = requests.get("/order/start");
+		JsonNode productOrder = event.get("event").get("productOrder");
+		String anonymizedId = productOrder.get("id").textValue();
+		String anonymizedCustomer = productOrder.get("relatedParty").get(0).get("id").textValue();
+		assertTrue(anonymizedId.startsWith("urn:ngsi-ld:product-order:"), "The entity type should be kept.");
+		assertNotEquals(ORDER_ID, anonymizedId, "Ids should be anonymized.");
+		assertEquals("http://tm-forum/productOrder/" + anonymizedId, productOrder.get("href").textValue(),
+				"The href should reference the anonymized id.");
+		assertTrue(anonymizedCustomer.startsWith("did:web:"), "The DID method should be kept.");
+		assertNotEquals(CUSTOMER, anonymizedCustomer, "DIDs should be anonymized.");
+		assertEquals(anonymizedCustomer, order.get("customerId").textValue(),
+				"DIDs should be anonymized everywhere, with the same pseudonym.");
+		assertEquals(anonymizedId, order.get("orderId").textValue(),
+				"Equal ids should get the same pseudonym.");
+		assertEquals("ProductOrderStateChangeEvent", event.get("eventType").textValue(),
+				"Values without ids should be kept.");
+	}
+
+	@Test
+	public void test_record_onlyStoredRequestsCounted() throws Exception {
+		Path recordingFile = tempDir.resolve("traffic.ndjson.gz");
+		TrafficRecordingProperties trafficRecordingProperties = new TrafficRecordingProperties();
+		trafficRecordingProperties.setFile(recordingFile.toString());
+		trafficRecordingProperties.setMaxRecords(2);
+		trafficRecordingProperties.setBufferSize(0);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		TrafficRecorder trafficRecorder = new TrafficRecorder(trafficRecordingProperties, objectMapper, meterRegistry);
+		for (int i = 0; i < 3; i++) {
+			trafficRecorder.record("/order/start", Map.of("orderId", "dropped-" + i));
+		}
+		trafficRecordingProperties.setBufferSize(10);
+		for (int i = 0; i < 3; i++) {
+			trafficRecorder.record("/order/start", Map.of("orderId", "recorded-" + i));
+		}
+		trafficRecorder.close();
+
+		assertEquals(3, meterRegistry.get("contract.management.traffic.dropped").counter().count(), "Requests exceeding the buffer should be dropped.");
+		TrafficReplay.ReplayResult result = new TrafficReplay(stubUri(), 0, Duration.ofSeconds(1)).replay(recordingFile);
+		assertEquals(2, result.requests(), "Dropped requests should not count towards the maximum.");
+	}
+
+	@Test
+	public void test_regressionsTo_tolerance() {
+		TrafficReplay.ReplayResult baseline = new TrafficReplay.ReplayResult(100, 0, 50, 10, 20, 30);
+
+		assertTrue(new TrafficReplay.ReplayResult(100, 0, 46, 10.5, 21, 32).regressionsTo(baseline, 0.1).isEmpty(),
+				"Differences within the tolerance are no regression.");
+		List<String> regressions = new TrafficReplay.ReplayResult(100, 1, 40, 10, 20, 40).regressionsTo(baseline, 0.1);
+		assertEquals(3, regressions.size(), "Errors, throughput and p99 latency should be reported as regressions.");
+	}
+
+	/**
+	 * Replays the recording given by replay.file against replay.target (default http://localhost:8080), which should be
+	 * backed by stubs of TMForum, the TIL, the PAP and Rainbow. The result is compared with the baseline stored in
+	 * replay.baseline (default replay-baseline.json), or stored as new baseline if none exists or replay.writeBaseline
+	 * is set.
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "replay.file", matches = ".+")
+	public void replay_againstBaseline() throws Exception {
+		Path recordingFile = Path.of(System.getProperty("replay.file"));
+		URI target = URI.create(System.getProperty("replay.target", "http://localhost:8080"));
+		double speed = Double.parseDouble(System.getProperty("replay.speed", "1"));
+		Duration maxPause = Duration.parse(System.getProperty("replay.maxPause", "PT10S"));
+		double tolerance = Double.parseDouble(System.getProperty("replay.tolerance", "0.1"));
+		Path baselineFile = Path.of(System.getProperty("replay.baseline", "replay-baseline.json"));
+
+		TrafficReplay.ReplayResult result = new TrafficReplay(target, speed, maxPause).replay(recordingFile);
+		System.out.printf("Replayed %s at %sx: %s%n", recordingFile, speed, result);
+
+		if (!Files.exists(baselineFile) || Boolean.getBoolean("replay.writeBaseline")) {
+			objectMapper.writerWithDefaultPrettyPrinter().writeValue(baselineFile.toFile(), result);
+			return;
+		}
+		TrafficReplay.ReplayResult baseline = objectMapper.readValue(baselineFile.toFile(), TrafficReplay.ReplayResult.class);
+		List<String> regressions = result.regressionsTo(baseline, tolerance);
+		assertTrue(regressions.isEmpty(), "The replay should not regress compared to the baseline: " + regressions);
+	}
+
+	private URI stubUri() {
+		return URI.create("http://localhost:%s/".formatted(stubServer.getAddress().getPort()));
+	}
+
+	private record ReceivedRequest(String path, JsonNode body) {
+	}
+}
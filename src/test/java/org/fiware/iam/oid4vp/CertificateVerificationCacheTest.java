@@ -0,0 +1,269 @@
+package org.fiware.iam.oid4vp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.awaitility.Awaitility;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.CRLDistPoint;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.DistributionPoint;
+import org.bouncycastle.asn1.x509.DistributionPointName;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.Req;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.cert.ocsp.RespID;
+import org.bouncycastle.cert.ocsp.jcajce.JcaBasicOCSPRespBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.fiware.iam.configuration.Oid4VpConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CertificateVerificationCacheTest {
+
+	private static final X500Name CA_NAME = new X500Name("CN=Test CA");
+	private static final X500Name VERIFIER_NAME = new X500Name("CN=verifier.org");
+	private static final BigInteger VERIFIER_SERIAL = BigInteger.TEN;
+	private static final String OCSP_PATH = "/ocsp";
+
+	private final AtomicInteger crlRequests = new AtomicInteger();
+	private final AtomicInteger ocspRequests = new AtomicInteger();
+	private final AtomicReference<byte[]> crl = new AtomicReference<>();
+	private final AtomicBoolean ocspRevoked = new AtomicBoolean();
+	private final List<String> ocspNonces = new CopyOnWriteArrayList<>();
+
+	private KeyPair caKeys;
+	private X509Certificate caCertificate;
+	private Set<TrustAnchor> trustAnchors;
+	private HttpServer revocationServer;
+	private Oid4VpConfiguration oid4VpConfiguration;
+	private CertificateVerificationCache certificateVerificationCache;
+
+	@BeforeEach
+	public void prepare() throws Exception {
+		KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+		keyPairGenerator.initialize(256);
+		caKeys = keyPairGenerator.generateKeyPair();
+		caCertificate = certificate(CA_NAME, caKeys, BigInteger.ONE, true);
+		trustAnchors = Set.of(new TrustAnchor(caCertificate, null));
+
+		// local CRL distribution point and OCSP responder
+		revocationServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		revocationServer.createContext("/crl", exchange -> {
+			crlRequests.incrementAndGet();
+			respond(exchange, crl.get());
+		});
+		revocationServer.createContext(OCSP_PATH, exchange -> {
+			ocspRequests.incrementAndGet();
+			respond(exchange, ocspResponse(ocspRequest(exchange)));
+		});
+		revocationServer.start();
+
+		oid4VpConfiguration = new Oid4VpConfiguration();
+		oid4VpConfiguration.setEnableRevocation(true);
+		certificateVerificationCache = new CertificateVerificationCache(oid4VpConfiguration);
+	}
+
+	@AfterEach
+	public void cleanUp() {
+		revocationServer.stop(0);
+	}
+
+	@Test
+	public void test_validate_crlCached() throws Exception {
+		crl.set(crl(Instant.now().plus(Duration.ofHours(1))));
+		List<X509Certificate> verifierChain = List.of(verifierCertificate(crlDistributionPoint()));
+
+		certificateVerificationCache.validate(verifierChain, trustAnchors);
+		certificateVerificationCache.validate(verifierChain, trustAnchors);
+
+		assertEquals(1, crlRequests.get(), "The CRL should only be retrieved once for the cached validation.");
+	}
+
+	@Test
+	public void test_validate_revokedByCrl() throws Exception {
+		crl.set(crl(Instant.now().plus(Duration.ofHours(1)), VERIFIER_SERIAL));
+		List<X509Certificate> verifierChain = List.of(verifierCertificate(crlDistributionPoint()));
+
+		for (int i = 0; i < 2; i++) {
+			CertPathValidatorException exception = assertThrows(CertPathValidatorException.class,
+					() -> certificateVerificationCache.validate(verifierChain, trustAnchors),
+					"Revoked certificates should not be valid.");
+			assertEquals(CertPathValidatorException.BasicReason.REVOKED, exception.getReason(), "The certificate should be reported as revoked.");
+		}
+		assertEquals(1, crlRequests.get(), "The revocation should be cached.");
+	}
+
+	@Test
+	public void test_validate_ocspCachedWithNonce() throws Exception {
+		List<X509Certificate> verifierChain = List.of(verifierCertificate(ocspResponder()));
+
+		certificateVerificationCache.validate(verifierChain, trustAnchors);
+		certificateVerificationCache.validate(verifierChain, trustAnchors);
+		assertEquals(1, ocspRequests.get(), "The OCSP status should only be requested once for the cached validation.");
+
+		certificateVerificationCache.invalidate(key -> true);
+		certificateVerificationCache.validate(verifierChain, trustAnchors);
+		assertEquals(2, ocspNonces.size(), "Every OCSP request should contain a nonce.");
+		assertNotEquals(ocspNonces.get(0), ocspNonces.get(1), "Every OCSP request should use a fresh nonce.");
+	}
+
+	@Test
+	public void test_validate_revocationReusedForMaxAge() throws Exception {
+		oid4VpConfiguration.setRevocationMaxAge(Duration.ofSeconds(1));
+		List<X509Certificate> verifierChain = List.of(verifierCertificate(ocspResponder()));
+		certificateVerificationCache.validate(verifierChain, trustAnchors);
+
+		ocspRevoked.set(true);
+		certificateVerificationCache.validate(verifierChain, trustAnchors);
+		assertEquals(1, ocspRequests.get(), "The revocation status should be reused within the max age.");
+
+		Awaitility.await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertEquals(CertPathValidatorException.BasicReason.REVOKED,
+				assertThrows(CertPathValidatorException.class, () -> certificateVerificationCache.validate(verifierChain, trustAnchors)).getReason(),
+				"The revocation status should be checked again after the max age."));
+	}
+
+	@Test
+	public void test_validate_unavailableStatusNotCached() throws Exception {
+		List<X509Certificate> verifierChain = List.of(verifierCertificate(crlDistributionPoint()));
+
+		for (int i = 0; i < 2; i++) {
+			assertThrows(CertPathValidatorException.class, () -> certificateVerificationCache.validate(verifierChain, trustAnchors),
+					"Certificates without determinable revocation status should not be valid.");
+		}
+		assertEquals(0, certificateVerificationCache.getCacheStats().size(), "Failures that might be temporary should not be cached.");
+	}
+
+	private X509Certificate verifierCertificate(Extension revocationExtension) throws Exception {
+		KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+		keyPairGenerator.initialize(256);
+		return certificate(VERIFIER_NAME, keyPairGenerator.generateKeyPair(), VERIFIER_SERIAL, false, revocationExtension);
+	}
+
+	private Extension crlDistributionPoint() throws IOException {
+		GeneralNames distributionPointUrl = new GeneralNames(new GeneralName(GeneralName.uniformResourceIdentifier, serverUrl("/crl")));
+		CRLDistPoint crlDistPoint = new CRLDistPoint(new DistributionPoint[]{new DistributionPoint(new DistributionPointName(distributionPointUrl), null, null)});
+		return new Extension(Extension.cRLDistributionPoints, false, crlDistPoint.getEncoded());
+	}
+
+	private Extension ocspResponder() throws IOException {
+		AuthorityInformationAccess authorityInformationAccess = new AuthorityInformationAccess(
+				new AccessDescription(AccessDescription.id_ad_ocsp, new GeneralName(GeneralName.uniformResourceIdentifier, serverUrl(OCSP_PATH))));
+		return new Extension(Extension.authorityInfoAccess, false, authorityInformationAccess.getEncoded());
+	}
+
+	private X509Certificate certificate(X500Name subject, KeyPair subjectKeys, BigInteger serial, boolean ca, Extension... extensions) throws Exception {
+		Instant now = Instant.now();
+		X509v3CertificateBuilder certificateBuilder = new JcaX509v3CertificateBuilder(CA_NAME, serial,
+				Date.from(now.minus(Duration.ofDays(1))), Date.from(now.plus(Duration.ofDays(1))), subject, subjectKeys.getPublic());
+		certificateBuilder.addExtension(Extension.basicConstraints, true, new BasicConstraints(ca));
+		for (Extension extension : extensions) {
+			certificateBuilder.addExtension(extension);
+		}
+		return new JcaX509CertificateConverter().getCertificate(certificateBuilder.build(caSigner()));
+	}
+
+	private byte[] crl(Instant nextUpdate, BigInteger... revokedSerials) throws Exception {
+		X509v2CRLBuilder crlBuilder = new X509v2CRLBuilder(CA_NAME, new Date());
+		crlBuilder.setNextUpdate(Date.from(nextUpdate));
+		for (BigInteger revokedSerial : revokedSerials) {
+			crlBuilder.addCRLEntry(revokedSerial, new Date(), CRLReason.keyCompromise);
+		}
+		return crlBuilder.build(caSigner()).getEncoded();
+	}
+
+	// small requests are sent as GET, with the request encoded in the path
+	private static byte[] ocspRequest(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getRawPath();
+		if (path.length() > OCSP_PATH.length() + 1) {
+			return Base64.getDecoder().decode(URLDecoder.decode(path.substring(OCSP_PATH.length() + 1), StandardCharsets.UTF_8));
+		}
+		return exchange.getRequestBody().readAllBytes();
+	}
+
+	private byte[] ocspResponse(byte[] ocspRequest) throws IOException {
+		try {
+			OCSPReq parsedRequest = new OCSPReq(ocspRequest);
+			BasicOCSPRespBuilder responseBuilder = new JcaBasicOCSPRespBuilder(caKeys.getPublic(),
+					new JcaDigestCalculatorProviderBuilder().build().get(RespID.HASH_SHA1));
+			Extension nonce = parsedRequest.getExtension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce);
+			if (nonce != null) {
+				ocspNonces.add(HexFormat.of().formatHex(nonce.getExtnValue().getOctets()));
+				responseBuilder.setResponseExtensions(new Extensions(nonce));
+			}
+			CertificateStatus status = ocspRevoked.get() ? new RevokedStatus(new Date(), CRLReason.keyCompromise) : CertificateStatus.GOOD;
+			for (Req request : parsedRequest.getRequestList()) {
+				responseBuilder.addResponse(request.getCertID(), status, new Date(),
+						Date.from(Instant.now().plus(Duration.ofHours(1))), null);
+			}
+			return new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, responseBuilder.build(caSigner(), null, new Date())).getEncoded();
+		} catch (Exception e) {
+			throw new IOException(e);
+		}
+	}
+
+	private ContentSigner caSigner() throws Exception {
+		return new JcaContentSignerBuilder("SHA256withECDSA").build(caKeys.getPrivate());
+	}
+
+	private String serverUrl(String path) {
+		return String.format("http://localhost:%s%s", revocationServer.getAddress().getPort(), path);
+	}
+
+	private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+		if (body == null) {
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+			return;
+		}
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream responseBody = exchange.getResponseBody()) {
+			responseBody.write(body);
+		}
+	}
+}
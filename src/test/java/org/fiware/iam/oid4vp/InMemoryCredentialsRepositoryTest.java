@@ -0,0 +1,71 @@
+package org.fiware.iam.oid4vp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.wistefan.dcql.model.Credential;
+import io.github.wistefan.dcql.model.CredentialFormat;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class InMemoryCredentialsRepositoryTest {
+
+	private static final Path CREDENTIALS = Path.of("src/test/resources/oid4vp/credentials");
+
+	@TempDir
+	private Path credentialsFolder;
+
+	private InMemoryCredentialsRepository credentialsRepository;
+
+	@BeforeEach
+	public void prepare() throws IOException {
+		Files.copy(CREDENTIALS.resolve("userCredential.jwt"), credentialsFolder.resolve("userCredential.jwt"));
+		Files.copy(CREDENTIALS.resolve("legalPerson.sd_jwt"), credentialsFolder.resolve("legalPerson.sd_jwt"));
+		credentialsRepository = new InMemoryCredentialsRepository(credentialsFolder.toString(), new ObjectMapper());
+	}
+
+	@AfterEach
+	public void cleanUp() throws IOException {
+		credentialsRepository.close();
+	}
+
+	@Test
+	public void test_getCredentials_parsed() {
+		assertEquals(Map.of(CredentialFormat.JWT_VC_JSON, 1L, CredentialFormat.DC_SD_JWT, 1L), countByFormat(),
+				"All credentials should have been loaded with their format.");
+	}
+
+	@Test
+	public void test_getCredentials_reloadedOnChange() throws IOException {
+		Files.copy(CREDENTIALS.resolve("userCredential.jwt"), credentialsFolder.resolve("otherUserCredential.jwt"));
+		awaitCredentials(Map.of(CredentialFormat.JWT_VC_JSON, 2L, CredentialFormat.DC_SD_JWT, 1L));
+
+		Files.delete(credentialsFolder.resolve("legalPerson.sd_jwt"));
+		awaitCredentials(Map.of(CredentialFormat.JWT_VC_JSON, 2L));
+
+		Files.writeString(credentialsFolder.resolve("otherUserCredential.jwt"), "not-a-credential");
+		awaitCredentials(Map.of(CredentialFormat.JWT_VC_JSON, 1L));
+	}
+
+	private Map<CredentialFormat, Long> countByFormat() {
+		return credentialsRepository.getCredentials()
+				.stream()
+				.collect(Collectors.groupingBy(Credential::getCredentialFormat, Collectors.counting()));
+	}
+
+	private void awaitCredentials(Map<CredentialFormat, Long> expectedCounts) {
+		Awaitility.await()
+				.atMost(Duration.ofSeconds(10))
+				.until(() -> countByFormat().equals(expectedCounts));
+	}
+}
@@ -0,0 +1,66 @@
+package org.fiware.iam.operations;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.configuration.SchedulerProperties;
+import org.fiware.iam.dsp.ProductOfferingPriceCache;
+import org.fiware.iam.scheduling.EventScheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OperationsEndpointTest {
+
+	private InFlightTracker inFlightTracker;
+	private EventScheduler eventScheduler;
+	private ProductOfferingPriceCache productOfferingPriceCache;
+	private OperationsEndpoint operationsEndpoint;
+
+	@BeforeEach
+	public void prepare() {
+		SchedulerProperties schedulerProperties = new SchedulerProperties();
+		schedulerProperties.setMaxConcurrency(1);
+		inFlightTracker = new InFlightTracker(new SimpleMeterRegistry());
+		eventScheduler = new EventScheduler(schedulerProperties, new SimpleMeterRegistry());
+		productOfferingPriceCache = new ProductOfferingPriceCache(new GeneralProperties());
+		operationsEndpoint = new OperationsEndpoint(inFlightTracker, eventScheduler, List.of(productOfferingPriceCache), Optional.empty());
+	}
+
+	@Test
+	public void test_report_inFlightAndQueued() {
+		Sinks.One<String> blocker = Sinks.one();
+		inFlightTracker.trackEvent("QuoteCreateEvent", eventScheduler.schedule("tenant", EventScheduler.Lane.FAIR, blocker::asMono)).subscribe();
+		inFlightTracker.trackEvent("QuoteCreateEvent", eventScheduler.schedule("tenant", EventScheduler.Lane.FAIR, blocker::asMono)).subscribe();
+
+		OperationsEndpoint.OperationsReport report = operationsEndpoint.report();
+		assertEquals(2, report.eventsInFlight().get("QuoteCreateEvent").count(), "Both events should be in flight.");
+		assertEquals(1, report.runningEvents(), "Only one event should be running.");
+		assertEquals(1, report.queuedEvents(), "The second event should wait for the scheduler.");
+		assertEquals(2, new QueueDepthEndpoint(inFlightTracker, eventScheduler).queueDepth().value(), "The queue depth should contain all unanswered events.");
+
+		blocker.tryEmitValue("done");
+		assertEquals(Map.of(), operationsEndpoint.report().eventsInFlight(), "Answered events are no longer in flight.");
+	}
+
+	@Test
+	public void test_invalidate_byPrefix() {
+		List.of("urn:price:1", "urn:price:2", "other:1").forEach(priceId ->
+				productOfferingPriceCache.get(priceId, () -> Mono.just(List.of())).block());
+		productOfferingPriceCache.get("other:1", () -> Mono.just(List.of())).block();
+
+		assertEquals(Map.of("offering-prices", 2), operationsEndpoint.invalidate("offering-prices", null, "urn:price:"),
+				"All prices with the prefix should be removed.");
+		CacheStatistics.CacheStats cacheStats = operationsEndpoint.report().caches().get("offering-prices");
+		assertEquals(1, cacheStats.size(), "Only the price without the prefix should be left.");
+		assertEquals(0.25, cacheStats.hitRatio(), "One of four lookups should have been a hit.");
+		assertEquals(Map.of("offering-prices", 1), operationsEndpoint.invalidate("all", "other:1", null),
+				"Invalidation by key should remove the entry.");
+	}
+}
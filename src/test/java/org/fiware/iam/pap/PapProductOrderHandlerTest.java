@@ -0,0 +1,135 @@
+package org.fiware.iam.pap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.http.HttpStatus;
+import org.fiware.iam.configuration.ClusterProperties;
+import org.fiware.iam.configuration.OrderLedgerProperties;
+import org.fiware.iam.domain.ContractManagement;
+import org.fiware.iam.tmforum.OrderLedger;
+import org.fiware.iam.tmforum.OrganizationResolver;
+import org.fiware.iam.tmforum.PolicyResolver;
+import org.fiware.iam.tmforum.productorder.model.ProductOrderVO;
+import org.hamcrest.Matcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatcher;
+import org.mockito.InOrder;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PapProductOrderHandlerTest {
+
+	private static final String ORDER_ID = "order";
+	private static final String CUSTOMER_DID = "did:web:customer.org";
+
+	private PolicyResolver policyResolver;
+	private PAPAdapter papAdapter;
+	private PapProductOrderHandler papProductOrderHandler;
+
+	@BeforeEach
+	public void prepare() {
+		policyResolver = mock(PolicyResolver.class);
+		papAdapter = mock(PAPAdapter.class);
+		OrganizationResolver organizationResolver = mock(OrganizationResolver.class);
+		when(organizationResolver.getDID(anyString())).thenReturn(Mono.just(CUSTOMER_DID));
+		when(papAdapter.createPolicy(anyString(), anyString(), any())).thenReturn(Mono.just(true));
+		when(papAdapter.deletePolicy(anyString(), any())).thenReturn(Mono.just(true));
+		when(papAdapter.deletePolicyByUid(anyString())).thenReturn(Mono.just(true));
+		OrderLedgerProperties orderLedgerProperties = new OrderLedgerProperties();
+		orderLedgerProperties.setEnabled(true);
+		OrderLedger orderLedger = new OrderLedger(orderLedgerProperties, new ClusterProperties(), new ObjectMapper());
+		papProductOrderHandler = new PapProductOrderHandler(policyResolver, organizationResolver, papAdapter, orderLedger);
+	}
+
+	@Test
+	public void test_handleProductOrderComplete_onlyDifferenceApplied() {
+		ProductOrderVO productOrderVO = new ProductOrderVO().id(ORDER_ID);
+		orderPolicies(policy("unchanged", "read"), policy("changed", "read"), policy("removed", "read"));
+		assertEquals(HttpStatus.OK, papProductOrderHandler.handleProductOrderComplete("customer", productOrderVO).block().getStatus(),
+				"The initial completion should succeed.");
+		verify(papAdapter, times(3)).createPolicy(eq(CUSTOMER_DID), eq(ORDER_ID), any());
+
+		orderPolicies(policy("unchanged", "read"), policy("changed", "write"), policy("added", "read"));
+		assertEquals(HttpStatus.OK, papProductOrderHandler.handleProductOrderComplete("customer", productOrderVO).block().getStatus(),
+				"The changed order should be applied.");
+
+		verify(papAdapter, times(1)).createPolicy(eq(CUSTOMER_DID), eq(ORDER_ID), argThat(hasUid("unchanged")));
+		verify(papAdapter, times(2)).createPolicy(eq(CUSTOMER_DID), eq(ORDER_ID), argThat(hasUid("changed")));
+		verify(papAdapter, times(1)).createPolicy(eq(CUSTOMER_DID), eq(ORDER_ID), argThat(hasUid("added")));
+		verify(papAdapter, times(1)).deletePolicyByUid("removed-" + ORDER_ID);
+		verify(papAdapter, times(1)).deletePolicyByUid("changed-" + ORDER_ID);
+		verify(papAdapter, times(2)).deletePolicyByUid(anyString());
+	}
+
+	@Test
+	public void test_handleProductOrderComplete_changedPolicyDeletedFirst() {
+		ProductOrderVO productOrderVO = new ProductOrderVO().id(ORDER_ID);
+		orderPolicies(policy("changed", "read"));
+		papProductOrderHandler.handleProductOrderComplete("customer", productOrderVO).block();
+		when(papAdapter.deletePolicyByUid("changed-" + ORDER_ID)).thenReturn(Mono.just(false));
+
+		orderPolicies(policy("changed", "write"));
+		assertEquals(HttpStatus.BAD_GATEWAY, papProductOrderHandler.handleProductOrderComplete("customer", productOrderVO).block().getStatus(),
+				"The change should fail, if the previous policy cannot be deleted.");
+		verify(papAdapter, times(1)).createPolicy(eq(CUSTOMER_DID), eq(ORDER_ID), argThat(hasUid("changed")));
+
+		when(papAdapter.deletePolicyByUid("changed-" + ORDER_ID)).thenReturn(Mono.just(true));
+		assertEquals(HttpStatus.OK, papProductOrderHandler.handleProductOrderComplete("customer", productOrderVO).block().getStatus(),
+				"The changed policy should be created, once the previous one is deleted.");
+		InOrder inOrder = inOrder(papAdapter);
+		inOrder.verify(papAdapter, times(2)).deletePolicyByUid("changed-" + ORDER_ID);
+		inOrder.verify(papAdapter).createPolicy(eq(CUSTOMER_DID), eq(ORDER_ID), argThat(hasUid("changed")));
+	}
+
+	@Test
+	public void test_handleProductOrderStop_recordedPoliciesDeleted() {
+		ProductOrderVO productOrderVO = new ProductOrderVO().id(ORDER_ID);
+		when(papAdapter.createPolicy(anyString(), anyString(), argThat(hasUid("failed")))).thenReturn(Mono.just(false));
+		orderPolicies(policy("ordered", "read"), policy("failed", "read"));
+		assertEquals(HttpStatus.BAD_GATEWAY, papProductOrderHandler.handleProductOrderComplete("customer", productOrderVO).block().getStatus(),
+				"The failed creation should be reported.");
+
+		// the specification changed in between, the policy actually created has to be removed
+		orderPolicies(policy("specified", "read"));
+		assertEquals(HttpStatus.OK, papProductOrderHandler.handleProductOrderStop("customer", productOrderVO).block().getStatus(),
+				"The recorded policies should be deleted.");
+
+		verify(papAdapter, times(1)).deletePolicyByUid("ordered-" + ORDER_ID);
+		verify(papAdapter, times(1)).deletePolicyByUid(anyString());
+		verify(papAdapter, never()).deletePolicy(anyString(), any());
+		verify(policyResolver, times(1)).getAuthorizationPolicy(any());
+	}
+
+	@SafeVarargs
+	private void orderPolicies(Map<String, Object>... policies) {
+		when(policyResolver.getAuthorizationPolicy(any()))
+				.thenReturn(Mono.just(List.of(new PolicyResolver.PolicyConfig(new ContractManagement(true), List.of(policies)))));
+	}
+
+	private static Map<String, Object> policy(String uid, String action) {
+		return Map.of("odrl:uid", uid, "odrl:permission", Map.of("odrl:action", action));
+	}
+
+	private static Matcher<Map<String, Object>> hasUid(String uid) {
+		return new ArgumentMatcher<>() {
+			@Override
+			public boolean matches(Object argument) {
+				return argument instanceof Map<?, ?> policy && uid.equals(policy.get("odrl:uid"));
+			}
+		};
+	}
+}
@@ -0,0 +1,114 @@
+package org.fiware.iam.scheduling;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.fiware.iam.configuration.SchedulerProperties;
+import org.fiware.iam.configuration.TenantWeight;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EventSchedulerTest {
+
+	private SchedulerProperties schedulerProperties;
+	private List<String> executionOrder;
+	private Sinks.One<String> blocker;
+
+	@BeforeEach
+	public void prepare() {
+		schedulerProperties = new SchedulerProperties();
+		schedulerProperties.setMaxConcurrency(1);
+		executionOrder = new CopyOnWriteArrayList<>();
+		blocker = Sinks.one();
+	}
+
+	@Test
+	public void test_schedule_priorityFirst() {
+		EventScheduler eventScheduler = new EventScheduler(schedulerProperties, new SimpleMeterRegistry());
+		// occupy the only slot, to get everything else queued
+		eventScheduler.schedule("tenant-a", EventScheduler.Lane.FAIR, () -> blocker.asMono()).subscribe();
+
+		eventScheduler.schedule("tenant-a", EventScheduler.Lane.FAIR, () -> record("grant")).subscribe();
+		eventScheduler.schedule("tenant-a", EventScheduler.Lane.PRIORITY, () -> record("revocation")).subscribe();
+		blocker.tryEmitValue("done");
+
+		assertEquals(List.of("revocation", "grant"), executionOrder, "Revocations should overtake queued grants.");
+	}
+
+	@Test
+	public void test_schedule_fairBetweenTenants() {
+		EventScheduler eventScheduler = new EventScheduler(schedulerProperties, new SimpleMeterRegistry());
+		eventScheduler.schedule("tenant-a", EventScheduler.Lane.FAIR, () -> blocker.asMono()).subscribe();
+
+		for (int i = 0; i < 3; i++) {
+			eventScheduler.schedule("noisy", EventScheduler.Lane.FAIR, () -> record("noisy")).subscribe();
+		}
+		eventScheduler.schedule("quiet", EventScheduler.Lane.FAIR, () -> record("quiet")).subscribe();
+		blocker.tryEmitValue("done");
+
+		assertEquals(List.of("noisy", "quiet", "noisy", "noisy"), executionOrder, "The quiet tenant should not wait for all events of the noisy one.");
+	}
+
+	@Test
+	public void test_schedule_weighted() {
+		TenantWeight tenantWeight = new TenantWeight();
+		tenantWeight.setTenant("premium");
+		tenantWeight.setWeight(2);
+		schedulerProperties.setTenantWeights(List.of(tenantWeight));
+		EventScheduler eventScheduler = new EventScheduler(schedulerProperties, new SimpleMeterRegistry());
+		eventScheduler.schedule("tenant-a", EventScheduler.Lane.FAIR, () -> blocker.asMono()).subscribe();
+
+		for (int i = 0; i < 3; i++) {
+			eventScheduler.schedule("basic", EventScheduler.Lane.FAIR, () -> record("basic")).subscribe();
+			eventScheduler.schedule("premium", EventScheduler.Lane.FAIR, () -> record("premium")).subscribe();
+		}
+		blocker.tryEmitValue("done");
+
+		assertEquals(List.of("premium", "basic", "premium", "premium", "basic", "basic"), executionOrder, "The premium tenant should get twice the share.");
+	}
+
+	@Test
+	public void test_schedule_manySynchronousTasks() {
+		EventScheduler eventScheduler = new EventScheduler(schedulerProperties, new SimpleMeterRegistry());
+		eventScheduler.schedule("tenant-a", EventScheduler.Lane.FAIR, () -> blocker.asMono()).subscribe();
+
+		for (int i = 0; i < 100_000; i++) {
+			eventScheduler.schedule("tenant-a", EventScheduler.Lane.FAIR, () -> Mono.just("task")).subscribe();
+		}
+		blocker.tryEmitValue("done");
+
+		assertEquals(0, eventScheduler.getQueued(), "All tasks should have been started without overflowing the stack.");
+		assertEquals(0, eventScheduler.getRunning(), "All tasks should be completed.");
+	}
+
+	@Test
+	public void test_removeIdleTenants() {
+		schedulerProperties.setTenantIdleTimeout(Duration.ZERO);
+		MeterRegistry meterRegistry = new SimpleMeterRegistry();
+		EventScheduler eventScheduler = new EventScheduler(schedulerProperties, meterRegistry);
+		eventScheduler.schedule("busy", EventScheduler.Lane.FAIR, () -> blocker.asMono()).subscribe();
+		eventScheduler.schedule("idle", EventScheduler.Lane.FAIR, () -> record("idle")).subscribe();
+		eventScheduler.schedule("busy", EventScheduler.Lane.FAIR, () -> blocker.asMono()).subscribe();
+		blocker.tryEmitValue("done");
+		eventScheduler.schedule("busy", EventScheduler.Lane.FAIR, () -> Mono.never()).subscribe();
+
+		eventScheduler.removeIdleTenants();
+
+		assertEquals(List.of("busy"), meterRegistry.find("contract.management.scheduler.wait").timers().stream().map(timer -> timer.getId().getTag("tenant")).toList(),
+				"Only the meters of the busy tenant should be kept.");
+		assertEquals(List.of("busy"), meterRegistry.find("contract.management.scheduler.queued").gauges().stream().map(gauge -> gauge.getId().getTag("tenant")).toList(),
+				"Only the queue of the busy tenant should be kept.");
+	}
+
+	private Mono<String> record(String task) {
+		executionOrder.add(task);
+		return Mono.just(task);
+	}
+}
@@ -0,0 +1,103 @@
+package org.fiware.iam.til;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import org.fiware.iam.configuration.ClusterProperties;
+import org.fiware.iam.configuration.OrderLedgerProperties;
+import org.fiware.iam.domain.ContractManagement;
+import org.fiware.iam.til.api.IssuerApiClient;
+import org.fiware.iam.til.model.CredentialsVO;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+import org.fiware.iam.tmforum.CredentialsConfigResolver;
+import org.fiware.iam.tmforum.OrderLedger;
+import org.fiware.iam.tmforum.OrganizationResolver;
+import org.fiware.iam.tmforum.productorder.model.ProductOrderVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TilProductOrderHandlerTest {
+
+	private static final String ORDER_ID = "order";
+	private static final String CUSTOMER_DID = "did:web:customer.org";
+
+	private IssuerApiClient apiClient;
+	private CredentialsConfigResolver credentialsConfigResolver;
+	private TrustedIssuerVO trustedIssuerVO;
+	private TilProductOrderHandler tilProductOrderHandler;
+
+	@BeforeEach
+	public void prepare() {
+		apiClient = mock(IssuerApiClient.class);
+		credentialsConfigResolver = mock(CredentialsConfigResolver.class);
+		trustedIssuerVO = new TrustedIssuerVO().did(CUSTOMER_DID);
+		when(apiClient.getIssuer(anyString())).thenAnswer(invocation -> Mono.just(HttpResponse.ok(trustedIssuerVO)));
+		when(apiClient.updateIssuer(anyString(), any())).thenReturn(Mono.just(HttpResponse.ok()));
+		OrganizationResolver organizationResolver = mock(OrganizationResolver.class);
+		when(organizationResolver.getDID(anyString())).thenReturn(Mono.just(CUSTOMER_DID));
+		OrderLedgerProperties orderLedgerProperties = new OrderLedgerProperties();
+		orderLedgerProperties.setEnabled(true);
+		OrderLedger orderLedger = new OrderLedger(orderLedgerProperties, new ClusterProperties(), new ObjectMapper());
+		tilProductOrderHandler = new TilProductOrderHandler(organizationResolver, credentialsConfigResolver,
+				new TrustedIssuersListAdapter(apiClient, orderLedger));
+	}
+
+	@Test
+	public void test_handleProductOrderComplete_onlyDifferenceApplied() {
+		ProductOrderVO productOrderVO = new ProductOrderVO().id(ORDER_ID);
+		orderCredentials("kept", "removed");
+		assertEquals(HttpStatus.CREATED, tilProductOrderHandler.handleProductOrderComplete("customer", productOrderVO).block().getStatus(),
+				"The initial completion should succeed.");
+		assertEquals(Set.of(credentials("kept"), credentials("removed")), Set.copyOf(trustedIssuerVO.getCredentials()),
+				"The ordered credentials should be allowed.");
+
+		orderCredentials("kept", "added");
+		assertEquals(HttpStatus.CREATED, tilProductOrderHandler.handleProductOrderComplete("customer", productOrderVO).block().getStatus(),
+				"The changed order should be applied.");
+		assertEquals(Set.of(credentials("kept"), credentials("added")), Set.copyOf(trustedIssuerVO.getCredentials()),
+				"Only the changed credentials should be replaced.");
+		verify(apiClient, times(2)).updateIssuer(eq(CUSTOMER_DID), any());
+
+		tilProductOrderHandler.handleProductOrderComplete("customer", productOrderVO).block();
+		verify(apiClient, times(2)).updateIssuer(eq(CUSTOMER_DID), any());
+	}
+
+	@Test
+	public void test_handleProductOrderStop_recordedCredentialsRevoked() {
+		ProductOrderVO productOrderVO = new ProductOrderVO().id(ORDER_ID);
+		orderCredentials("granted");
+		tilProductOrderHandler.handleProductOrderComplete("customer", productOrderVO).block();
+
+		// the specification changed in between, the credentials actually granted have to be revoked
+		orderCredentials("specified");
+		assertEquals(HttpStatus.NO_CONTENT, tilProductOrderHandler.handleProductOrderStop("customer", productOrderVO).block().getStatus(),
+				"The recorded credentials should be revoked.");
+		assertTrue(trustedIssuerVO.getCredentials().isEmpty(), "The granted credentials should be removed.");
+		verify(credentialsConfigResolver, times(1)).getCredentialsConfig(any());
+	}
+
+	private void orderCredentials(String... credentialsTypes) {
+		List<CredentialsVO> credentialsVOS = Arrays.stream(credentialsTypes).map(TilProductOrderHandlerTest::credentials).toList();
+		when(credentialsConfigResolver.getCredentialsConfig(any()))
+				.thenReturn(Mono.just(List.of(new CredentialsConfigResolver.CredentialConfig(new ContractManagement(true), credentialsVOS))));
+	}
+
+	private static CredentialsVO credentials(String credentialsType) {
+		return new CredentialsVO().credentialsType(credentialsType);
+	}
+}
@@ -16,8 +16,12 @@ import org.fiware.iam.tmforum.CredentialsConfigResolver;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
@@ -90,4 +94,75 @@ class TrustedIssuersListAdapterTest {
         Assertions.assertThrows(TrustedIssuersException.class, () -> classUnderTest.allowIssuer("testDID", List.of(credentialConfig)).block());
     }
 
-}
\ No newline at end of file
+    @Test
+    void grantCredentials_overlappingOrders() {
+        CredentialsVO sharedCVO = CredentialsVOTestExample.build();
+        CredentialsVO otherCVO = new CredentialsVO()
+                .credentialsType("otherCredentialType")
+                .addClaimsItem(new ClaimVO().name("target1").addAllowedValuesItem("Role1"));
+        TrustedIssuerVO trustedIssuerVO = new TrustedIssuerVO().did("overlappingDID");
+
+        when(apiClient.getIssuer(anyString())).thenAnswer(invocation -> Mono.just(HttpResponse.ok(trustedIssuerVO)));
+        when(apiClient.updateIssuer(any(), any())).thenReturn(Mono.just(HttpResponse.ok()));
+
+        Assertions.assertTrue(classUnderTest.grantCredentials("overlappingDID", "order-1", Set.of(sharedCVO)).block(), "The credentials should be granted.");
+        Assertions.assertTrue(classUnderTest.grantCredentials("overlappingDID", "order-2", Set.of(sharedCVO, otherCVO)).block(), "The credentials should be granted.");
+        Assertions.assertEquals(Set.of(sharedCVO, otherCVO), Set.copyOf(trustedIssuerVO.getCredentials()), "All credentials should be allowed.");
+
+        Assertions.assertTrue(classUnderTest.revokeCredentials("order-1").block(), "The credentials of the order should be revoked.");
+        verify(apiClient, times(2)).updateIssuer(eq("overlappingDID"), any());
+        Assertions.assertEquals(Set.of(sharedCVO, otherCVO), Set.copyOf(trustedIssuerVO.getCredentials()), "Credentials still granted by another order should be kept.");
+
+        Assertions.assertTrue(classUnderTest.revokeCredentials("order-2").block(), "The credentials of the order should be revoked.");
+        verify(apiClient, times(3)).updateIssuer(eq("overlappingDID"), any());
+        Assertions.assertTrue(trustedIssuerVO.getCredentials().isEmpty(), "Credentials of the last order should be removed.");
+        Assertions.assertNull(classUnderTest.revokeCredentials("order-2").block(), "Nothing should be recorded for a revoked order.");
+    }
+
+    @Test
+    void grantCredentials_restoresLostCredentials() {
+        CredentialsVO testCVO = CredentialsVOTestExample.build();
+        TrustedIssuerVO trustedIssuerVO = new TrustedIssuerVO().did("reconciledDID");
+
+        when(apiClient.getIssuer(anyString())).thenAnswer(invocation -> Mono.just(HttpResponse.ok(trustedIssuerVO)));
+        when(apiClient.updateIssuer(any(), any())).thenReturn(Mono.just(HttpResponse.ok()));
+
+        Assertions.assertTrue(classUnderTest.grantCredentials("reconciledDID", "order-1", Set.of(testCVO)).block(), "The credentials should be granted.");
+        Assertions.assertTrue(classUnderTest.grantCredentials("reconciledDID", "order-1", Set.of(testCVO)).block(), "The unchanged grant should succeed.");
+        verify(apiClient, times(1)).updateIssuer(eq("reconciledDID"), any());
+
+        trustedIssuerVO.setCredentials(new ArrayList<>());
+        Assertions.assertTrue(classUnderTest.grantCredentials("reconciledDID", "order-1", Set.of(testCVO)).block(), "The unchanged grant should succeed.");
+        verify(apiClient, times(2)).updateIssuer(eq("reconciledDID"), any());
+        Assertions.assertEquals(List.of(testCVO), trustedIssuerVO.getCredentials(), "The lost credentials should be restored.");
+    }
+
+    @Test
+    void grantCredentials_concurrentGrantAfterFailure() {
+        CredentialsVO testCVO = CredentialsVOTestExample.build();
+        List<CredentialsVO> issuerCredentials = new CopyOnWriteArrayList<>();
+        Sinks.One<HttpResponse<?>> failingUpdate = Sinks.one();
+
+        when(apiClient.getIssuer(anyString()))
+                .thenAnswer(invocation -> Mono.just(HttpResponse.ok(new TrustedIssuerVO().did("concurrentDID").credentials(new ArrayList<>(issuerCredentials)))));
+        when(apiClient.updateIssuer(any(), any()))
+                .thenAnswer(invocation -> failingUpdate.asMono())
+                .thenAnswer(invocation -> {
+                    issuerCredentials.clear();
+                    issuerCredentials.addAll(((TrustedIssuerVO) invocation.getArguments()[1]).getCredentials());
+                    return Mono.just(HttpResponse.ok());
+                });
+
+        Mono<Boolean> failedGrant = classUnderTest.grantCredentials("concurrentDID", "order-1", Set.of(testCVO)).cache();
+        failedGrant.subscribe();
+        Mono<Boolean> concurrentGrant = classUnderTest.grantCredentials("concurrentDID", "order-2", Set.of(testCVO)).cache();
+        concurrentGrant.subscribe();
+        verify(apiClient, times(1)).updateIssuer(eq("concurrentDID"), any());
+
+        failingUpdate.tryEmitValue(HttpResponse.serverError());
+        Assertions.assertFalse(failedGrant.block(), "The failed update should be reported.");
+        Assertions.assertTrue(concurrentGrant.block(), "The concurrent grant should be applied after the failed one.");
+        verify(apiClient, times(2)).updateIssuer(eq("concurrentDID"), any());
+        Assertions.assertEquals(List.of(testCVO), issuerCredentials, "The credentials of the concurrent order should be granted.");
+    }
+}
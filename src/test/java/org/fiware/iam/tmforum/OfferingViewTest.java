@@ -0,0 +1,133 @@
+package org.fiware.iam.tmforum;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.http.HttpResponse;
+import org.fiware.iam.configuration.OfferingViewProperties;
+import org.fiware.iam.tmforum.productcatalog.api.ProductOfferingApiClient;
+import org.fiware.iam.tmforum.productcatalog.api.ProductSpecificationApiClient;
+import org.fiware.iam.tmforum.productcatalog.model.ProductOfferingVO;
+import org.fiware.iam.tmforum.productcatalog.model.ProductSpecificationRefVO;
+import org.fiware.iam.tmforum.productcatalog.model.ProductSpecificationVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class OfferingViewTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private ProductOfferingApiClient productOfferingApiClient;
+	private ProductSpecificationApiClient productSpecificationApiClient;
+
+	@TempDir
+	private Path tempDir;
+
+	@BeforeEach
+	public void prepare() {
+		productOfferingApiClient = mock(ProductOfferingApiClient.class);
+		productSpecificationApiClient = mock(ProductSpecificationApiClient.class);
+		when(productOfferingApiClient.retrieveProductOffering(eq("offering"), any()))
+				.thenReturn(Mono.just(HttpResponse.ok(new ProductOfferingVO().id("offering").productSpecification(new ProductSpecificationRefVO().id("spec")))));
+		when(productSpecificationApiClient.retrieveProductSpecification(eq("spec"), any()))
+				.thenReturn(Mono.just(HttpResponse.ok(new ProductSpecificationVO().id("spec").version("1.0.0"))));
+	}
+
+	@Test
+	public void test_getSpecification_invalidatedBySpecificationChange() {
+		OfferingView offeringView = newOfferingView(new OfferingViewProperties());
+
+		offeringView.getSpecification("offering").block();
+		offeringView.getSpecification("offering").block();
+		verify(productOfferingApiClient, times(1)).retrieveProductOffering(eq("offering"), any());
+		verify(productSpecificationApiClient, times(1)).retrieveProductSpecification(eq("spec"), any());
+
+		offeringView.handleSpecificationChange(new ProductSpecificationVO().id("spec")).block();
+		offeringView.getSpecification("offering").block();
+		verify(productOfferingApiClient, times(1)).retrieveProductOffering(eq("offering"), any());
+		verify(productSpecificationApiClient, times(2)).retrieveProductSpecification(eq("spec"), any());
+	}
+
+	@Test
+	public void test_getSpecification_staleLookupDropped() {
+		OfferingView offeringView = newOfferingView(new OfferingViewProperties());
+		Sinks.One<HttpResponse<ProductSpecificationVO>> pendingLookup = Sinks.one();
+		when(productSpecificationApiClient.retrieveProductSpecification(eq("spec"), any()))
+				.thenReturn(pendingLookup.asMono())
+				.thenReturn(Mono.just(HttpResponse.ok(new ProductSpecificationVO().id("spec").version("2.0.0"))));
+
+		Mono<ProductSpecificationVO> staleSpecification = offeringView.getSpecification("offering").cache();
+		staleSpecification.subscribe();
+		offeringView.handleSpecificationChange(new ProductSpecificationVO().id("spec")).block();
+		pendingLookup.tryEmitValue(HttpResponse.ok(new ProductSpecificationVO().id("spec").version("1.0.0")));
+
+		assertEquals("1.0.0", staleSpecification.block().getVersion(), "The lookup started before the change should still be answered.");
+		assertEquals("2.0.0", offeringView.getSpecification("offering").block().getVersion(),
+				"The result of the lookup started before the change should not be kept.");
+	}
+
+	@Test
+	public void test_handleOfferingStateChange_switchedSpecification() {
+		OfferingView offeringView = newOfferingView(new OfferingViewProperties());
+		when(productSpecificationApiClient.retrieveProductSpecification(eq("other-spec"), any()))
+				.thenReturn(Mono.just(HttpResponse.ok(new ProductSpecificationVO().id("other-spec").version("1.0.0"))));
+		offeringView.getSpecification("offering").block();
+
+		offeringView.handleOfferingStateChange(new ProductOfferingVO().id("offering").productSpecification(new ProductSpecificationRefVO().id("other-spec"))).block();
+
+		assertEquals("other-spec", offeringView.getSpecification("offering").block().getId(), "The new specification should be used.");
+		assertEquals(2, offeringView.getCacheStats().size(), "Only the offering and its current specification should be kept.");
+	}
+
+	@Test
+	public void test_getSpecification_fromSnapshot() {
+		OfferingViewProperties offeringViewProperties = new OfferingViewProperties();
+		offeringViewProperties.setSnapshotFile(tempDir.resolve("offering-view.json").toString());
+		OfferingView offeringView = newOfferingView(offeringViewProperties);
+		offeringView.getSpecification("offering").block();
+		offeringView.writeSnapshot();
+
+		productOfferingApiClient = mock(ProductOfferingApiClient.class);
+		productSpecificationApiClient = mock(ProductSpecificationApiClient.class);
+		when(productSpecificationApiClient.retrieveProductSpecification(eq("spec"), any()))
+				.thenReturn(Mono.just(HttpResponse.ok(new ProductSpecificationVO().id("spec").version("1.0.0"))));
+		OfferingView restartedView = newOfferingView(offeringViewProperties);
+
+		assertEquals("1.0.0", restartedView.getSpecification("offering").block().getVersion(), "The specification should have been loaded from the snapshot.");
+		verify(productSpecificationApiClient, times(1)).retrieveProductSpecification(eq("spec"), any());
+		verifyZeroInteractions(productOfferingApiClient);
+	}
+
+	@Test
+	public void test_getSpecification_changedSinceSnapshot() {
+		OfferingViewProperties offeringViewProperties = new OfferingViewProperties();
+		offeringViewProperties.setSnapshotFile(tempDir.resolve("offering-view.json").toString());
+		OfferingView offeringView = newOfferingView(offeringViewProperties);
+		offeringView.getSpecification("offering").block();
+		offeringView.writeSnapshot();
+
+		productSpecificationApiClient = mock(ProductSpecificationApiClient.class);
+		when(productSpecificationApiClient.retrieveProductSpecification(eq("spec"), any()))
+				.thenReturn(Mono.just(HttpResponse.ok(new ProductSpecificationVO().id("spec").version("1.0.1").lastUpdate(Instant.now()))));
+		OfferingView restartedView = newOfferingView(offeringViewProperties);
+
+		assertEquals("1.0.1", restartedView.getSpecification("offering").block().getVersion(), "The changed specification should replace the snapshot.");
+	}
+
+	private OfferingView newOfferingView(OfferingViewProperties offeringViewProperties) {
+		return new OfferingView(offeringViewProperties, objectMapper, productOfferingApiClient, productSpecificationApiClient, new SpecificationCharacteristics(objectMapper));
+	}
+}
@@ -0,0 +1,117 @@
+package org.fiware.iam.tmforum;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.awaitility.Awaitility;
+import org.fiware.iam.configuration.ClusterProperties;
+import org.fiware.iam.configuration.OrderLedgerProperties;
+import org.fiware.iam.til.model.ClaimVO;
+import org.fiware.iam.til.model.CredentialsVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderLedgerTest {
+
+	private static final String ORDER_ID = "urn:ngsi-ld:product-order:1";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@TempDir
+	private Path tempDir;
+
+	private OrderLedgerProperties orderLedgerProperties;
+
+	@BeforeEach
+	public void prepare() {
+		orderLedgerProperties = new OrderLedgerProperties();
+		orderLedgerProperties.setEnabled(true);
+		orderLedgerProperties.setSnapshotFile(tempDir.resolve("ledger").resolve("order-ledger.json").toString());
+	}
+
+	@Test
+	public void test_recordPolicy_writtenThrough() {
+		OrderLedger orderLedger = new OrderLedger(orderLedgerProperties, new ClusterProperties(), objectMapper);
+		OrderLedger.CreatedPolicy createdPolicy = new OrderLedger.CreatedPolicy("policy-" + ORDER_ID, "hash");
+
+		orderLedger.recordPolicy(ORDER_ID, "policy", createdPolicy);
+
+		Awaitility.await().atMost(Duration.ofSeconds(5)).until(() -> Files.exists(Path.of(orderLedgerProperties.getSnapshotFile())));
+		assertEquals(Optional.of(Map.of("policy", createdPolicy)), new OrderLedger(orderLedgerProperties, new ClusterProperties(), objectMapper).getPolicies(ORDER_ID),
+				"The policy should be available after a restart, without waiting for the snapshot interval.");
+	}
+
+	@Test
+	public void test_removePolicy_writtenThrough() {
+		OrderLedger orderLedger = new OrderLedger(orderLedgerProperties, new ClusterProperties(), objectMapper);
+		orderLedger.recordPolicy(ORDER_ID, "policy", new OrderLedger.CreatedPolicy("policy-" + ORDER_ID, "hash"));
+
+		orderLedger.removePolicy(ORDER_ID, "policy");
+
+		Awaitility.await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertEquals(Optional.of(Map.of()),
+				new OrderLedger(orderLedgerProperties, new ClusterProperties(), objectMapper).getPolicies(ORDER_ID),
+				"The removal should be available after a restart."));
+	}
+
+	@Test
+	public void test_grantCredentials_countedPerType() {
+		OrderLedger orderLedger = new OrderLedger(orderLedgerProperties, new ClusterProperties(), objectMapper);
+		CredentialsVO readCredentials = credentials("Role1");
+		CredentialsVO writeCredentials = credentials("Role2");
+
+		assertEquals(Map.of("UserCredential", Set.of(readCredentials)),
+				orderLedger.grantCredentials("order-1", new OrderLedger.CredentialGrant("did:web:issuer", Set.of(readCredentials))).upserted(),
+				"The first order should add the type.");
+		assertEquals(Map.of("UserCredential", Set.of(readCredentials, writeCredentials)),
+				orderLedger.grantCredentials("order-2", new OrderLedger.CredentialGrant("did:web:issuer", Set.of(writeCredentials))).upserted(),
+				"Credentials of the same type with other claims should be granted together.");
+
+		OrderLedger.Diff<String, Set<CredentialsVO>> revoked = orderLedger.grantCredentials("order-2", null);
+		assertEquals(Map.of("UserCredential", Set.of(readCredentials)), revoked.upserted(),
+				"The type should keep the credentials of the remaining order.");
+		assertTrue(revoked.removed().isEmpty(), "The type is still granted by another order.");
+		assertEquals(Set.of(), orderLedger.getUngranted("did:web:issuer", Set.of(writeCredentials)),
+				"Credentials of a granted type should not be denied.");
+
+		assertEquals(Map.of("UserCredential", Set.of(readCredentials)), orderLedger.grantCredentials("order-1", null).removed(),
+				"The last order should remove the type.");
+	}
+
+	@Test
+	public void test_construct_refusedInCluster() {
+		ClusterProperties clusterProperties = new ClusterProperties();
+		clusterProperties.setEnabled(true);
+		clusterProperties.setPeers(List.of("http://replica-1:8080", "http://replica-2:8080"));
+
+		assertThrows(IllegalArgumentException.class, () -> new OrderLedger(orderLedgerProperties, clusterProperties, objectMapper),
+				"The ledger only knows the grants of its own replica.");
+
+		clusterProperties.setPeers(List.of("http://replica-1:8080"));
+		new OrderLedger(orderLedgerProperties, clusterProperties, objectMapper);
+	}
+
+	@Test
+	public void test_construct_relativeSnapshotFileRefused() {
+		orderLedgerProperties.setSnapshotFile("order-ledger.json");
+
+		assertThrows(IllegalArgumentException.class, () -> new OrderLedger(orderLedgerProperties, new ClusterProperties(), objectMapper),
+				"The snapshot file should not depend on the working directory.");
+	}
+
+	private static CredentialsVO credentials(String role) {
+		return new CredentialsVO()
+				.credentialsType("UserCredential")
+				.claims(List.of(new ClaimVO().name("roles").addAllowedValuesItem(role)));
+	}
+}
@@ -0,0 +1,84 @@
+package org.fiware.iam.tmforum;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.http.HttpResponse;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.configuration.OfferingViewProperties;
+import org.fiware.iam.tmforum.productcatalog.api.ProductOfferingApiClient;
+import org.fiware.iam.tmforum.productcatalog.api.ProductSpecificationApiClient;
+import org.fiware.iam.tmforum.productcatalog.model.ProductOfferingVO;
+import org.fiware.iam.tmforum.productcatalog.model.ProductSpecificationRefVO;
+import org.fiware.iam.tmforum.productcatalog.model.ProductSpecificationVO;
+import org.fiware.iam.tmforum.productorder.model.OrderItemActionTypeVO;
+import org.fiware.iam.tmforum.productorder.model.ProductOfferingRefVO;
+import org.fiware.iam.tmforum.productorder.model.ProductOrderItemVO;
+import org.fiware.iam.tmforum.productorder.model.ProductOrderVO;
+import org.fiware.iam.tmforum.quote.api.QuoteApiClient;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ProductSpecificationResolverTest {
+
+	@Test
+	public void test_getProductSpecifications_largeOrder() {
+		ProductOfferingApiClient productOfferingApiClient = mock(ProductOfferingApiClient.class);
+		ProductSpecificationApiClient productSpecificationApiClient = mock(ProductSpecificationApiClient.class);
+		GeneralProperties generalProperties = new GeneralProperties();
+		generalProperties.setOrderItemConcurrency(4);
+
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		when(productOfferingApiClient.retrieveProductOffering(anyString(), any())).thenAnswer(invocation -> {
+			String offeringId = (String) invocation.getArguments()[0];
+			// 10 offerings, sharing 2 specifications
+			ProductOfferingVO productOfferingVO = new ProductOfferingVO()
+					.productSpecification(new ProductSpecificationRefVO().id("spec-" + offeringId.hashCode() % 2));
+			return Mono.delay(Duration.ofMillis(10))
+					.doOnSubscribe(s -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+					.doOnTerminate(inFlight::decrementAndGet)
+					.map(tick -> HttpResponse.ok(productOfferingVO));
+		});
+		when(productSpecificationApiClient.retrieveProductSpecification(anyString(), any())).thenAnswer(invocation ->
+				Mono.just(HttpResponse.ok(new ProductSpecificationVO().id((String) invocation.getArguments()[0]))));
+
+		List<ProductOrderItemVO> items = IntStream.range(0, 10_000)
+				.mapToObj(i -> new ProductOrderItemVO()
+						.id("item-" + i)
+						.action(OrderItemActionTypeVO.ADD)
+						.productOffering(new ProductOfferingRefVO().id("offering-" + i % 10)))
+				.toList();
+		ProductOrderVO productOrderVO = new ProductOrderVO().id("order").productOrderItem(items);
+
+		ObjectMapper objectMapper = new ObjectMapper();
+		OfferingView offeringView = new OfferingView(new OfferingViewProperties(), objectMapper, productOfferingApiClient,
+				productSpecificationApiClient, new SpecificationCharacteristics(objectMapper));
+		ProductSpecificationResolver productSpecificationResolver = new ProductSpecificationResolver(generalProperties,
+				offeringView, mock(QuoteApiClient.class));
+		List<ProductSpecificationVO> specifications = productSpecificationResolver.getProductSpecifications(productOrderVO)
+				.collectList()
+				.block();
+
+		assertEquals(2, specifications.size(), "Every specification should only be returned once.");
+		verify(productOfferingApiClient, times(10)).retrieveProductOffering(anyString(), any());
+		verify(productSpecificationApiClient, times(2)).retrieveProductSpecification(anyString(), any());
+		assertTrue(maxInFlight.get() <= 4, "The number of concurrent requests should be limited.");
+
+		assertEquals(2, productSpecificationResolver.getProductSpecifications(productOrderVO).count().block(), "The specifications should be resolved again.");
+		verify(productOfferingApiClient, times(10)).retrieveProductOffering(anyString(), any());
+		verify(productSpecificationApiClient, times(2)).retrieveProductSpecification(anyString(), any());
+	}
+}
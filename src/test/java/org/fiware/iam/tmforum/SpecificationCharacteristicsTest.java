@@ -0,0 +1,70 @@
+package org.fiware.iam.tmforum;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.fiware.iam.tmforum.productcatalog.model.CharacteristicValueSpecificationVO;
+import org.fiware.iam.tmforum.productcatalog.model.ProductSpecificationCharacteristicVO;
+import org.fiware.iam.tmforum.productcatalog.model.ProductSpecificationVO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpecificationCharacteristicsTest {
+
+	// same as the micronaut default
+	private final ObjectMapper objectMapper = new ObjectMapper().enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
+
+	private final SpecificationCharacteristics specificationCharacteristics = new SpecificationCharacteristics(objectMapper);
+
+	@Test
+	public void test_get_validCharacteristics() {
+		ProductSpecificationVO spec = spec("1.0.0",
+				characteristic("credentialsConfiguration", Map.of("credentialsType", "OperatorCredential",
+						"claims", List.of(Map.of("name", "roles", "allowedValues", List.of("OPERATOR"))))),
+				characteristic("authorizationPolicy", Map.of("@type", "odrl:Policy", "odrl:permission", Map.of("odrl:action", "odrl:use"))));
+
+		SpecificationCharacteristics.Characteristics characteristics = specificationCharacteristics.get(spec);
+
+		assertEquals(1, characteristics.credentials().size(), "The credentials config should have been parsed.");
+		assertEquals("OperatorCredential", characteristics.credentials().getFirst().getCredentialsType(), "The credentials config should have been parsed.");
+		assertEquals(1, characteristics.policies().size(), "The policy should have been parsed.");
+	}
+
+	@Test
+	public void test_get_invalidCharacteristicIgnored() {
+		ProductSpecificationVO spec = spec("1.0.0",
+				// credentialsType is required
+				characteristic("credentialsConfiguration", Map.of("claims", List.of())));
+
+		assertTrue(specificationCharacteristics.get(spec).credentials().isEmpty(), "Invalid credentials configs should be ignored.");
+	}
+
+	@Test
+	public void test_get_cachedPerVersion() {
+		ProductSpecificationVO spec = spec("1.0.0",
+				characteristic("credentialsConfiguration", Map.of("credentialsType", "OperatorCredential", "claims", List.of())));
+
+		SpecificationCharacteristics.Characteristics characteristics = specificationCharacteristics.get(spec);
+		assertSame(characteristics, specificationCharacteristics.get(spec), "The characteristics should be parsed only once per version.");
+		assertNotSame(characteristics, specificationCharacteristics.get(spec.version("1.0.1")), "A new version should be parsed again.");
+	}
+
+	private static ProductSpecificationVO spec(String version, ProductSpecificationCharacteristicVO... characteristics) {
+		return new ProductSpecificationVO()
+				.id("urn:ngsi-ld:product-specification:test")
+				.version(version)
+				.productSpecCharacteristic(List.of(characteristics));
+	}
+
+	private static ProductSpecificationCharacteristicVO characteristic(String valueType, Object value) {
+		return new ProductSpecificationCharacteristicVO()
+				.valueType(valueType)
+				.productSpecCharacteristicValue(List.of(new CharacteristicValueSpecificationVO().isDefault(true).value(value)));
+	}
+}
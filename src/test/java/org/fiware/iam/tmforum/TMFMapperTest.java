@@ -0,0 +1,88 @@
+package org.fiware.iam.tmforum;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.fiware.iam.domain.ContractManagement;
+import org.fiware.iam.tmforum.quote.model.ProductOfferingRefVO;
+import org.fiware.iam.tmforum.quote.model.QuoteItemVO;
+import org.fiware.iam.tmforum.quote.model.QuoteStateTypeVO;
+import org.fiware.iam.tmforum.quote.model.QuoteUpdateVO;
+import org.fiware.iam.tmforum.quote.model.QuoteVO;
+import org.fiware.iam.tmforum.quote.model.RelatedPartyVO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TMFMapperTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+	private final TMFMapper tmfMapper = new TMFMapperImpl();
+
+	@Test
+	public void test_mapQuote_update() {
+		QuoteUpdateVO quoteUpdateVO = tmfMapper.map(quote(3));
+
+		JsonNode update = objectMapper.valueToTree(quoteUpdateVO);
+		assertFalse(update.has("id"), "The id should not be part of the update.");
+		assertFalse(update.has("href"), "The href should not be part of the update.");
+		assertFalse(update.has("quoteDate"), "The quote date should not be part of the update.");
+
+		JsonNode converted = objectMapper.valueToTree(objectMapper.convertValue(quote(3), QuoteUpdateVO.class));
+		((ObjectNode) converted).remove(List.of("id", "href", "quoteDate"));
+		assertEquals(converted, update, "The update should contain the same as the converted quote.");
+	}
+
+	@Test
+	public void test_toContractManagement_characteristic() {
+		Map<String, Object> characteristic = Map.of(
+				"local", false,
+				"address", "https://cm.provider.org",
+				"clientId", "contract-management",
+				"scope", List.of("external-marketplace"));
+
+		assertEquals(objectMapper.convertValue(characteristic, ContractManagement.class), tmfMapper.toContractManagement(characteristic),
+				"The characteristic should be mapped like before.");
+		assertTrue(tmfMapper.toContractManagement(Map.of("local", true)).isLocal(),
+				"Local contract management should be recognized.");
+		assertEquals(Set.of("single"), tmfMapper.toContractManagement(Map.of("local", true, "scope", "single")).getScope(),
+				"A single scope should be accepted.");
+	}
+
+	private static QuoteVO quote(int items) {
+		QuoteVO quoteVO = new QuoteVO()
+				.id("urn:ngsi-ld:quote:1")
+				.href("urn:ngsi-ld:quote:1")
+				.externalId("urn:uuid:process")
+				.version("1")
+				.quoteDate(Instant.parse("2024-01-01T00:00:00Z"))
+				.state(QuoteStateTypeVO.APPROVED)
+				.relatedParty(List.of(new RelatedPartyVO().id("urn:ngsi-ld:organization:1").role("Customer")))
+				.quoteItem(IntStream.range(0, items)
+						.mapToObj(i -> {
+							QuoteItemVO quoteItemVO = new QuoteItemVO()
+									.id(String.valueOf(i))
+									.state("approved")
+									.productOffering(new ProductOfferingRefVO().id("urn:ngsi-ld:product-offering:" + i));
+							quoteItemVO.setUnknownProperties("policy", List.of(Map.of("odrl:uid", "policy-" + i)));
+							return quoteItemVO;
+						})
+						.toList());
+		quoteVO.setUnknownProperties("@type", "Quote");
+		return quoteVO;
+	}
+}
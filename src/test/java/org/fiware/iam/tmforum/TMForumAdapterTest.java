@@ -3,6 +3,7 @@ package org.fiware.iam.tmforum;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
+import org.fiware.iam.configuration.OfferingViewProperties;
 import org.fiware.iam.exception.TMForumException;
 import org.fiware.iam.tmforum.agreement.api.AgreementApiClient;
 import org.fiware.iam.tmforum.agreement.model.AgreementTmfVO;
@@ -42,7 +43,8 @@ public class TMForumAdapterTest {
 		quoteApiClient = mock(QuoteApiClient.class);
 		productSpecificationApiClient = mock(ProductSpecificationApiClient.class);
 		productOfferingApiClient = mock(ProductOfferingApiClient.class);
-		tmForumAdapter = new TMForumAdapter(new ObjectMapper(), organizationResolver, productOrderApiClient, productOfferingApiClient, productSpecificationApiClient, agreementApiClient, quoteApiClient);
+		OfferingView offeringView = new OfferingView(new OfferingViewProperties(), new ObjectMapper(), productOfferingApiClient, productSpecificationApiClient, new SpecificationCharacteristics(new ObjectMapper()));
+		tmForumAdapter = new TMForumAdapter(new TMFMapperImpl(), organizationResolver, productOrderApiClient, offeringView, agreementApiClient, quoteApiClient);
 	}
 
 	@Test
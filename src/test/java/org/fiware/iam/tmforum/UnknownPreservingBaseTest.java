@@ -0,0 +1,80 @@
+package org.fiware.iam.tmforum;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.fiware.iam.tmforum.productorder.model.RelatedPartyVO;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class UnknownPreservingBaseTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+	@Test
+	public void test_unknownProperties_roundTrip() throws Exception {
+		String json = "{\"id\":\"urn:related-party:1\",\"role\":\"Customer\",\"@type\":\"RelatedParty\",\"@referredType\":\"Organization\",\"extension\":{\"name\":\"value\"}}";
+
+		RelatedPartyVO relatedPartyVO = objectMapper.readValue(json, RelatedPartyVO.class);
+
+		assertEquals(List.of("@type", "@referredType", "extension"), List.copyOf(relatedPartyVO.getUnknownProperties().keySet()),
+				"Unknown properties should be kept in order.");
+		assertEquals(objectMapper.readTree(json), objectMapper.readTree(objectMapper.writeValueAsString(relatedPartyVO)),
+				"Unknown properties should be written as before.");
+	}
+
+	@Test
+	public void test_unknownProperties_createdOnDemand() throws Exception {
+		RelatedPartyVO relatedPartyVO = objectMapper.readValue("{\"id\":\"urn:related-party:1\"}", RelatedPartyVO.class);
+
+		Field storage = UnknownPreservingBase.class.getDeclaredField("unknownProperties");
+		storage.setAccessible(true);
+
+		assertEquals(Map.of(), relatedPartyVO.getUnknownProperties(), "Without unknown properties, an empty map should be returned.");
+		assertNull(storage.get(relatedPartyVO), "No storage should be allocated without unknown properties.");
+		relatedPartyVO.getUnknownProperties().put("key", "value");
+		assertEquals(Map.of("key", "value"), relatedPartyVO.getUnknownProperties(), "Properties put through the getter should be stored.");
+
+		Map<String, Object> emptyProperties = new LinkedHashMap<>();
+		relatedPartyVO.unknownProperties(emptyProperties);
+		assertSame(emptyProperties, relatedPartyVO.getUnknownProperties(), "Empty maps should be used as storage, like any other map.");
+		relatedPartyVO.setUnknownProperties("key", "value");
+		assertEquals(Map.of("key", "value"), emptyProperties, "The property should be stored in the given map.");
+	}
+
+	@Test
+	public void test_compactProperties_behavesLikeMap() {
+		CompactProperties compactProperties = new CompactProperties();
+		Map<String, Object> expected = new LinkedHashMap<>();
+		IntStream.range(0, CompactProperties.MAX_INLINE).forEach(i -> {
+			compactProperties.put("key-" + i, i);
+			expected.put("key-" + i, i);
+		});
+		compactProperties.put("key-3", null);
+		expected.put("key-3", null);
+		compactProperties.remove("key-1");
+		expected.remove("key-1");
+		compactProperties.entrySet().removeIf(entry -> "key-5".equals(entry.getKey()));
+		expected.remove("key-5");
+
+		assertEquals(expected, compactProperties, "The inline map should behave like a map.");
+		assertEquals(List.copyOf(expected.keySet()), List.copyOf(compactProperties.keySet()), "The insertion order should be kept.");
+		assertFalse(compactProperties.containsKey("key-1"), "Removed keys should not be contained.");
+
+		IntStream.range(CompactProperties.MAX_INLINE, CompactProperties.MAX_INLINE * 2).forEach(i -> {
+			compactProperties.put("key-" + i, i);
+			expected.put("key-" + i, i);
+		});
+		assertEquals(expected, compactProperties, "Larger maps should behave like a map.");
+		assertEquals(List.copyOf(expected.keySet()), List.copyOf(compactProperties.keySet()), "The insertion order should be kept for larger maps.");
+	}
+}
@@ -0,0 +1,84 @@
+package org.fiware.iam.tmforum.notification;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import org.fiware.iam.configuration.AdmissionProperties;
+import org.fiware.iam.tmforum.handlers.TMForumEventHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AdmissionControlTest {
+
+	private static final Set<String> SUPPORTED_EVENT_TYPES = Set.of("ProductOrderCreateEvent", "CatalogCreateEvent");
+
+	private AdmissionProperties admissionProperties;
+	private List<TMForumEventHandler> eventHandlers;
+
+	@BeforeEach
+	public void prepare() {
+		admissionProperties = new AdmissionProperties();
+		admissionProperties.setEnabled(true);
+		admissionProperties.setInitialLimit(1);
+		TMForumEventHandler eventHandler = mock(TMForumEventHandler.class);
+		when(eventHandler.isEventTypeSupported(anyString()))
+				.thenAnswer(invocation -> SUPPORTED_EVENT_TYPES.contains((String) invocation.getArguments()[0]));
+		eventHandlers = List.of(eventHandler);
+	}
+
+	@Test
+	public void test_admit_shedOverLimit() {
+		AdmissionControl admissionControl = new AdmissionControl(admissionProperties, new SimpleMeterRegistry(), eventHandlers);
+		Sinks.One<HttpResponse<?>> blocker = Sinks.one();
+		admissionControl.admit("ProductOrderCreateEvent", blocker::asMono).subscribe();
+
+		HttpResponse<?> shed = admissionControl.admit("ProductOrderCreateEvent", () -> Mono.just(HttpResponse.noContent())).block();
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, shed.getStatus(), "Events over the limit should be rejected.");
+		assertEquals("5", shed.getHeaders().get(HttpHeaders.RETRY_AFTER), "The client should be told when to retry.");
+
+		HttpResponse<?> otherType = admissionControl.admit("CatalogCreateEvent", () -> Mono.just(HttpResponse.noContent())).block();
+		assertEquals(HttpStatus.NO_CONTENT, otherType.getStatus(), "Other event types should have their own limit.");
+
+		blocker.tryEmitValue(HttpResponse.noContent());
+		HttpResponse<?> admitted = admissionControl.admit("ProductOrderCreateEvent", () -> Mono.just(HttpResponse.noContent())).block();
+		assertEquals(HttpStatus.NO_CONTENT, admitted.getStatus(), "Events should be admitted again, once capacity is available.");
+	}
+
+	@Test
+	public void test_admit_disabled() {
+		admissionProperties.setEnabled(false);
+		AdmissionControl admissionControl = new AdmissionControl(admissionProperties, new SimpleMeterRegistry(), eventHandlers);
+		Sinks.One<HttpResponse<?>> blocker = Sinks.one();
+		admissionControl.admit("ProductOrderCreateEvent", blocker::asMono).subscribe();
+
+		HttpResponse<?> response = admissionControl.admit("ProductOrderCreateEvent", () -> Mono.just(HttpResponse.noContent())).block();
+		assertEquals(HttpStatus.NO_CONTENT, response.getStatus(), "Without admission control, no event should be rejected.");
+	}
+
+	@Test
+	public void test_admit_unsupportedTypeWithoutMetrics() {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		AdmissionControl admissionControl = new AdmissionControl(admissionProperties, meterRegistry, eventHandlers);
+
+		assertThrows(IllegalArgumentException.class,
+				() -> admissionControl.admit("UnknownEvent-" + System.nanoTime(), () -> Mono.just(HttpResponse.noContent())).block(),
+				"Events of unsupported types should be rejected.");
+		assertTrue(meterRegistry.getMeters().isEmpty(), "No metrics should be registered for unsupported event types.");
+
+		admissionControl.admit("ProductOrderCreateEvent", () -> Mono.just(HttpResponse.noContent())).block();
+		assertEquals(3, meterRegistry.getMeters().size(), "Supported event types should have their metrics.");
+	}
+}
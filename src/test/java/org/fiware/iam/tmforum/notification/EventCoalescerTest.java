@@ -0,0 +1,79 @@
+package org.fiware.iam.tmforum.notification;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.http.HttpResponse;
+import org.fiware.iam.configuration.CoalescingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EventCoalescerTest {
+
+	private static final String ATTRIBUTE_CHANGE_EVENT = "QuoteAttributeValueChangeEvent";
+	private static final String STATE_CHANGE_EVENT = "QuoteStateChangeEvent";
+
+	private EventCoalescer eventCoalescer;
+	private List<String> handledEvents;
+
+	@BeforeEach
+	public void prepare() {
+		CoalescingProperties coalescingProperties = new CoalescingProperties();
+		coalescingProperties.setEnabled(true);
+		coalescingProperties.setWindow(Duration.ofMillis(100));
+		eventCoalescer = new EventCoalescer(coalescingProperties, new SimpleMeterRegistry());
+		handledEvents = new CopyOnWriteArrayList<>();
+	}
+
+	@Test
+	public void test_coalesce_sameState() {
+		List<Mono<HttpResponse<?>>> results = List.of(
+				coalesce(ATTRIBUTE_CHANGE_EVENT, "1", "inProgress"),
+				coalesce(ATTRIBUTE_CHANGE_EVENT, "2", "inProgress"),
+				coalesce(ATTRIBUTE_CHANGE_EVENT, "3", "inProgress"));
+		results.forEach(Mono::subscribe);
+
+		assertEquals(List.of(), handledEvents, "Nothing should be handled before the window ends.");
+		results.forEach(result -> assertEquals(HttpResponse.noContent().getStatus(), result.block(Duration.ofSeconds(1)).getStatus(), "All events should receive the shared result."));
+		assertEquals(List.of("3"), handledEvents, "Only the newest event should be handled.");
+	}
+
+	@Test
+	public void test_coalesce_stateChange() {
+		Mono<HttpResponse<?>> edit = coalesce(ATTRIBUTE_CHANGE_EVENT, "1", "inProgress");
+		Mono<HttpResponse<?>> approval = coalesce(STATE_CHANGE_EVENT, "2", "approved");
+		edit.subscribe();
+		approval.subscribe();
+
+		assertEquals(List.of("1"), handledEvents, "The pending event should be handled immediately, once the state changes.");
+		approval.block(Duration.ofSeconds(1));
+		assertEquals(List.of("1", "2"), handledEvents, "Every state should be handled in order.");
+	}
+
+	@Test
+	public void test_coalesce_immediateState() {
+		Mono<HttpResponse<?>> edit = coalesce(ATTRIBUTE_CHANGE_EVENT, "1", "approved");
+		Mono<HttpResponse<?>> acceptance = coalesce(STATE_CHANGE_EVENT, "2", "accepted");
+		edit.subscribe();
+		acceptance.subscribe();
+
+		assertEquals(List.of("1", "2"), handledEvents, "Accepted quotes should be handled without delay.");
+	}
+
+	private Mono<HttpResponse<?>> coalesce(String eventType, String eventId, String state) {
+		Map<String, Object> event = Map.of(
+				"eventId", eventId,
+				"eventType", eventType,
+				"event", Map.of("quote", Map.of("id", "urn:quote:1", "state", state)));
+		return eventCoalescer.coalesce(eventType, event, (latestEventType, latestEvent) -> Mono.fromSupplier(() -> {
+			handledEvents.add((String) latestEvent.get("eventId"));
+			return HttpResponse.noContent();
+		}));
+	}
+}
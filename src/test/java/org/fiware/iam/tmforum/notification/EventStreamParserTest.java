@@ -0,0 +1,70 @@
+package org.fiware.iam.tmforum.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EventStreamParserTest {
+
+	private static final String EVENT_ARRAY = """
+			[
+			  {"eventId": "1", "eventType": "ProductOrderCreateEvent", "event": {"productOrder": {"id": "urn:order:1", "productOrderItem": [{"id": "item-1"}]}}},
+			  {"eventId": "2", "eventType": "ProductOrderStateChangeEvent", "event": {"productOrder": {"id": "urn:order:1", "state": "completed"}}}
+			]
+			""";
+
+	private static final String EVENT_NDJSON = """
+			{"eventId": "1", "eventType": "ProductOrderCreateEvent", "event": {"productOrder": {"id": "urn:order:1", "productOrderItem": [{"id": "item-1"}]}}}
+			{"eventId": "2", "eventType": "ProductOrderStateChangeEvent", "event": {"productOrder": {"id": "urn:order:1", "state": "completed"}}}
+			""";
+
+	private static Stream<Arguments> batches() {
+		return Stream.of(1, 7, 64, 4096)
+				.flatMap(chunkSize -> Stream.of(Arguments.of(EVENT_ARRAY, chunkSize), Arguments.of(EVENT_NDJSON, chunkSize)));
+	}
+
+	@ParameterizedTest
+	@MethodSource("batches")
+	public void test_parseInChunks(String batch, int chunkSize) throws Exception {
+		EventStreamParser eventStreamParser = new EventStreamParser(new ObjectMapper());
+		byte[] content = batch.getBytes(StandardCharsets.UTF_8);
+
+		List<Map<String, Object>> events = new ArrayList<>();
+		for (int i = 0; i < content.length; i += chunkSize) {
+			events.addAll(eventStreamParser.feed(Arrays.copyOfRange(content, i, Math.min(i + chunkSize, content.length))));
+		}
+		events.addAll(eventStreamParser.finish());
+
+		assertEquals(List.of("1", "2"), events.stream().map(event -> event.get("eventId")).toList(), "All events should be parsed in order.");
+		assertEquals(Map.of("productOrder", Map.of("id", "urn:order:1", "state", "completed")), events.get(1).get("event"), "The events should be parsed completely.");
+	}
+
+	@Test
+	public void test_parse_incomplete() throws Exception {
+		EventStreamParser eventStreamParser = new EventStreamParser(new ObjectMapper());
+		List<Map<String, Object>> events = eventStreamParser.feed("[{\"eventId\": \"1\"}, {\"eventId\":".getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(1, events.size(), "The complete event should be returned.");
+		assertThrows(IOException.class, eventStreamParser::finish, "An incomplete event should be reported.");
+	}
+
+	@Test
+	public void test_parse_noEventObject() throws Exception {
+		EventStreamParser eventStreamParser = new EventStreamParser(new ObjectMapper());
+
+		assertThrows(IOException.class, () -> eventStreamParser.feed("[\"event\"]".getBytes(StandardCharsets.UTF_8)), "Only objects should be accepted as events.");
+	}
+}
@@ -0,0 +1,207 @@
+package org.fiware.iam.tmforum.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import org.fiware.iam.cluster.EventForwarder;
+import org.fiware.iam.configuration.AdmissionProperties;
+import org.fiware.iam.configuration.NotificationProperties;
+import org.fiware.iam.exception.TMForumException;
+import org.fiware.iam.http.TrafficRecorder;
+import org.fiware.iam.tmforum.handlers.TMForumEventHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class NotificationListenerTest {
+
+	private EventDispatcher eventDispatcher;
+	private NotificationListener notificationListener;
+	private List<String> handledEvents;
+
+	@BeforeEach
+	public void prepare() {
+		eventDispatcher = mock(EventDispatcher.class);
+		handledEvents = new CopyOnWriteArrayList<>();
+		NotificationProperties notificationProperties = new NotificationProperties();
+		notificationProperties.setBatchConcurrency(4);
+		notificationListener = new NotificationListener(
+				eventDispatcher,
+				new AdmissionControl(new AdmissionProperties(), new SimpleMeterRegistry(), List.of()),
+				Optional.empty(),
+				Optional.empty(),
+				notificationProperties,
+				new ObjectMapper());
+	}
+
+	@Test
+	public void test_listenToEvents_orderPerEntity() {
+		when(eventDispatcher.dispatch(anyString(), any())).thenAnswer(invocation -> {
+			Map<String, Object> event = (Map<String, Object>) invocation.getArguments()[1];
+			String eventId = (String) event.get("eventId");
+			// the first event is the slowest, following events of the same entity still have to wait for it
+			Duration delay = eventId.equals("1") ? Duration.ofMillis(200) : Duration.ZERO;
+			return Mono.delay(delay)
+					.doOnNext(tick -> handledEvents.add(eventId))
+					.<HttpResponse<?>>map(tick -> HttpResponse.noContent());
+		});
+
+		List<BatchEventResult> results = notificationListener.listenToEvents(Flux.just(
+								event("1", "ProductOrderCreateEvent", "urn:order:1"),
+								event("2", "ProductOrderCreateEvent", "urn:order:2"),
+								event("3", "ProductOrderStateChangeEvent", "urn:order:1"))
+						.map(event -> event.getBytes(StandardCharsets.UTF_8)), null)
+				.block()
+				.body();
+
+		assertEquals(List.of("2", "1", "3"), handledEvents, "Events of different entities should be handled in parallel, events of the same entity in order.");
+		assertEquals(List.of(204, 204, 204), results.stream().map(BatchEventResult::status).toList(), "All events should be reported in the order of the batch.");
+	}
+
+	@Test
+	public void test_listenToEvents_failuresPerEvent() {
+		when(eventDispatcher.dispatch(eq("ProductOrderCreateEvent"), any())).thenReturn(Mono.just(HttpResponse.noContent()));
+		when(eventDispatcher.dispatch(eq("QuoteCreateEvent"), any())).thenReturn(Mono.error(new TMForumException("Quote not found.")));
+
+		List<BatchEventResult> results = notificationListener.listenToEvents(Flux.just(
+								"[" + event("1", "ProductOrderCreateEvent", "urn:order:1"),
+								"," + event("2", "QuoteCreateEvent", "urn:quote:1"),
+								",{\"eventId\": \"3\"}, {\"eventId")
+						.map(event -> event.getBytes(StandardCharsets.UTF_8)), null)
+				.block()
+				.body();
+
+		assertEquals(List.of(
+				new BatchEventResult(0, "1", "ProductOrderCreateEvent", 204, null),
+				new BatchEventResult(1, "2", "QuoteCreateEvent", 502, "Quote not found."),
+				new BatchEventResult(2, "3", null, 400, "Event type is missing or invalid.")), results.subList(0, 3), "Every event should have its own result.");
+		assertEquals(400, results.get(3).status(), "Invalid input should end the batch with an error.");
+	}
+
+	@Test
+	public void test_listenToEvents_batchRecorded() {
+		when(eventDispatcher.dispatch(anyString(), any())).thenReturn(Mono.just(HttpResponse.noContent()));
+		TrafficRecorder trafficRecorder = mock(TrafficRecorder.class);
+		NotificationListener recordingListener = new NotificationListener(
+				eventDispatcher,
+				new AdmissionControl(new AdmissionProperties(), new SimpleMeterRegistry(), List.of()),
+				Optional.empty(),
+				Optional.of(trafficRecorder),
+				new NotificationProperties(),
+				new ObjectMapper());
+
+		recordingListener.listenToEvents(Flux.just(
+								event("1", "ProductOrderCreateEvent", "urn:order:1"),
+								event("2", "ProductOrderCreateEvent", "urn:order:2"))
+						.map(event -> event.getBytes(StandardCharsets.UTF_8)), null)
+				.block();
+		recordingListener.listenToEvents(Flux.just(event("3", "ProductOrderCreateEvent", "urn:order:3").getBytes(StandardCharsets.UTF_8)), "replica-1")
+				.block();
+
+		ArgumentCaptor<List> recordedCaptor = ArgumentCaptor.forClass(List.class);
+		verify(trafficRecorder, times(1)).record(eq("/listener/events"), recordedCaptor.capture());
+		assertEquals(List.of("1", "2"), ((List<Map<String, Object>>) recordedCaptor.getValue()).stream().map(event -> event.get("eventId")).toList(),
+				"The batch should be recorded as a whole, forwarded batches not again.");
+	}
+
+	@Test
+	public void test_listenToEvent_forwardedNotAdmittedAgain() {
+		Sinks.One<HttpResponse<?>> blocker = Sinks.one();
+		when(eventDispatcher.dispatch(anyString(), any())).thenReturn(blocker.asMono()).thenReturn(Mono.just(HttpResponse.noContent()));
+		AdmissionProperties admissionProperties = new AdmissionProperties();
+		admissionProperties.setEnabled(true);
+		admissionProperties.setInitialLimit(1);
+		TMForumEventHandler eventHandler = mock(TMForumEventHandler.class);
+		when(eventHandler.isEventTypeSupported(anyString())).thenReturn(true);
+		NotificationListener admittingListener = new NotificationListener(
+				eventDispatcher,
+				new AdmissionControl(admissionProperties, new SimpleMeterRegistry(), List.of(eventHandler)),
+				Optional.empty(),
+				Optional.empty(),
+				new NotificationProperties(),
+				new ObjectMapper());
+		admittingListener.listenToEvent(eventMap("1"), null).subscribe();
+
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, admittingListener.listenToEvent(eventMap("2"), null).block().getStatus(),
+				"Events over the limit should be rejected.");
+		assertEquals(HttpStatus.NO_CONTENT, admittingListener.listenToEvent(eventMap("3"), "replica-1").block().getStatus(),
+				"Forwarded events were already admitted by the receiving replica.");
+		blocker.tryEmitValue(HttpResponse.noContent());
+	}
+
+	@Test
+	public void test_listenToEvent_forwardedToOwner() {
+		EventForwarder eventForwarder = mock(EventForwarder.class);
+		when(eventForwarder.getRemoteOwner(any())).thenReturn(Optional.of("http://replica-2:8080"));
+		when(eventForwarder.forward(anyString(), any())).thenReturn(Mono.just(HttpResponse.accepted()));
+
+		assertEquals(HttpStatus.ACCEPTED, clusteredListener(eventForwarder).listenToEvent(eventMap("1"), null).block().getStatus(),
+				"The response of the owner should be returned.");
+		verify(eventForwarder, times(1)).forward(eq("http://replica-2:8080"), any());
+		verify(eventDispatcher, never()).dispatch(anyString(), any());
+	}
+
+	@Test
+	public void test_listenToEvent_forwardedNotForwardedAgain() {
+		EventForwarder eventForwarder = mock(EventForwarder.class);
+		when(eventForwarder.getRemoteOwner(any())).thenReturn(Optional.of("http://replica-2:8080"));
+		when(eventDispatcher.dispatch(anyString(), any())).thenReturn(Mono.just(HttpResponse.noContent()));
+
+		assertEquals(HttpStatus.NO_CONTENT, clusteredListener(eventForwarder).listenToEvent(eventMap("1"), "http://replica-2:8080").block().getStatus(),
+				"Forwarded events should be handled by the receiving replica, even if it does not consider itself the owner.");
+		verify(eventForwarder, never()).forward(anyString(), any());
+		verify(eventDispatcher, times(1)).dispatch(eq("ProductOrderCreateEvent"), any());
+	}
+
+	@Test
+	public void test_listenToEvent_handledLocallyIfForwardingFails() {
+		EventForwarder eventForwarder = mock(EventForwarder.class);
+		when(eventForwarder.getRemoteOwner(any())).thenReturn(Optional.of("http://replica-2:8080"));
+		when(eventForwarder.forward(anyString(), any())).thenReturn(Mono.error(new IllegalStateException("Connection refused")));
+		when(eventDispatcher.dispatch(anyString(), any())).thenReturn(Mono.just(HttpResponse.noContent()));
+
+		assertEquals(HttpStatus.NO_CONTENT, clusteredListener(eventForwarder).listenToEvent(eventMap("1"), null).block().getStatus(),
+				"Events should be handled locally, if the owner cannot be reached.");
+		verify(eventDispatcher, times(1)).dispatch(eq("ProductOrderCreateEvent"), any());
+	}
+
+	private NotificationListener clusteredListener(EventForwarder eventForwarder) {
+		return new NotificationListener(
+				eventDispatcher,
+				new AdmissionControl(new AdmissionProperties(), new SimpleMeterRegistry(), List.of()),
+				Optional.of(eventForwarder),
+				Optional.empty(),
+				new NotificationProperties(),
+				new ObjectMapper());
+	}
+
+	private static Map<String, Object> eventMap(String eventId) {
+		return Map.of("eventId", eventId, "eventType", "ProductOrderCreateEvent", "event", Map.of("productOrder", Map.of("id", "urn:order:" + eventId)));
+	}
+
+	private static String event(String eventId, String eventType, String orderId) {
+		String entityKey = eventType.startsWith("Quote") ? "quote" : "productOrder";
+		return "{\"eventId\": \"%s\", \"eventType\": \"%s\", \"event\": {\"%s\": {\"id\": \"%s\"}}}\n".formatted(eventId, eventType, entityKey, orderId);
+	}
+}
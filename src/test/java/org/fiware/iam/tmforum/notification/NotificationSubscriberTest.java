@@ -0,0 +1,186 @@
+package org.fiware.iam.tmforum.notification;
+
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.HttpMethod;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.http.client.netty.DefaultHttpClient;
+import io.micronaut.scheduling.TaskScheduler;
+import org.fiware.iam.configuration.EventType;
+import org.fiware.iam.configuration.GeneralProperties;
+import org.fiware.iam.configuration.NotificationConfig;
+import org.fiware.iam.configuration.NotificationProperties;
+import org.fiware.iam.tmforum.party.model.EventSubscriptionInputVO;
+import org.fiware.iam.tmforum.party.model.EventSubscriptionVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NotificationSubscriberTest {
+
+	private static final String SUBSCRIPTION_KEY = "productOrderCreateEvent";
+
+	// subscriptions at the hub, by their id
+	private final Map<String, EventSubscriptionVO> hubSubscriptions = new ConcurrentHashMap<>();
+	private final AtomicInteger subscriptionCounter = new AtomicInteger();
+	private final List<String> hubRequests = new CopyOnWriteArrayList<>();
+	// status of lookups, if the hub does not answer them
+	private HttpStatus lookupStatus;
+
+	private DefaultHttpClient httpClient;
+	private SubscriptionHealthIndicator subscriptionHealthIndicator;
+	private NotificationSubscriber notificationSubscriber;
+
+	@BeforeEach
+	public void prepare() {
+		httpClient = mock(DefaultHttpClient.class);
+		when(httpClient.exchange(any(HttpRequest.class), eq(EventSubscriptionVO.class))).thenAnswer(invocation -> {
+			HttpRequest<?> request = (HttpRequest<?>) invocation.getArguments()[0];
+			hubRequests.add(request.getMethod() + " " + request.getPath());
+			if (request.getMethod() == HttpMethod.POST) {
+				EventSubscriptionInputVO input = (EventSubscriptionInputVO) request.getBody().orElseThrow();
+				if (hubSubscriptions.values().stream().anyMatch(existing -> existing.getQuery().equals(input.getQuery()))) {
+					return Mono.error(new HttpClientResponseException("Conflict", HttpResponse.status(HttpStatus.CONFLICT)));
+				}
+				EventSubscriptionVO created = new EventSubscriptionVO()
+						.id("subscription-" + subscriptionCounter.incrementAndGet())
+						.callback(input.getCallback())
+						.query(input.getQuery());
+				hubSubscriptions.put(created.getId(), created);
+				return Mono.just(HttpResponse.created(created));
+			}
+			if (lookupStatus != null) {
+				return Mono.error(new HttpClientResponseException("Lookup failed", HttpResponse.status(lookupStatus)));
+			}
+			String id = request.getPath().substring(request.getPath().lastIndexOf('/') + 1);
+			if (!hubSubscriptions.containsKey(id)) {
+				return Mono.error(new HttpClientResponseException("Not Found", HttpResponse.notFound()));
+			}
+			return Mono.just(HttpResponse.ok(hubSubscriptions.get(id)));
+		});
+		when(httpClient.retrieve(any(HttpRequest.class), any(Argument.class))).thenAnswer(invocation -> {
+			HttpRequest<?> request = (HttpRequest<?>) invocation.getArguments()[0];
+			hubRequests.add(request.getMethod() + " " + request.getPath());
+			if (lookupStatus != null) {
+				return Mono.error(new HttpClientResponseException("Lookup failed", HttpResponse.status(lookupStatus)));
+			}
+			return Mono.just(new ArrayList<>(hubSubscriptions.values()));
+		});
+
+		subscriptionHealthIndicator = new SubscriptionHealthIndicator();
+		notificationSubscriber = notificationSubscriber();
+	}
+
+	@Test
+	public void test_verifySubscriptions_lookedUpById() {
+		assertFalse(subscriptionHealthIndicator.isSubscriptionHealthy(SUBSCRIPTION_KEY), "The subscription should not be confirmed before its creation.");
+		notificationSubscriber.subscribeAll();
+		assertTrue(subscriptionHealthIndicator.isSubscriptionHealthy(SUBSCRIPTION_KEY), "The created subscription should be confirmed.");
+
+		notificationSubscriber.verifySubscriptions();
+
+		assertEquals(List.of("POST /hub", "GET /hub/subscription-1"), hubRequests, "The subscription should be looked up by its id.");
+		assertEquals(1, hubSubscriptions.size(), "The existing subscription should not be created again.");
+		assertTrue(notificationSubscriber.getSubscriptionStates().get(SUBSCRIPTION_KEY).confirmed(), "The subscription should still be confirmed.");
+	}
+
+	@Test
+	public void test_verifySubscriptions_lostRecreated() {
+		notificationSubscriber.subscribeAll();
+		hubSubscriptions.clear();
+
+		notificationSubscriber.verifySubscriptions();
+
+		assertEquals(List.of("subscription-2"), List.copyOf(hubSubscriptions.keySet()), "The lost subscription should be re-created.");
+		assertTrue(subscriptionHealthIndicator.isSubscriptionHealthy(SUBSCRIPTION_KEY), "The re-created subscription should be confirmed.");
+	}
+
+	@Test
+	public void test_verifySubscriptions_lookedUpByCallback() {
+		notificationSubscriber.subscribeAll();
+		// after a restart, the id of the existing subscription is unknown
+		NotificationSubscriber restartedSubscriber = notificationSubscriber();
+		restartedSubscriber.subscribeAll();
+		assertTrue(subscriptionHealthIndicator.isSubscriptionHealthy(SUBSCRIPTION_KEY), "The existing subscription should be confirmed.");
+
+		restartedSubscriber.verifySubscriptions();
+		restartedSubscriber.verifySubscriptions();
+
+		assertEquals(List.of("POST /hub", "POST /hub", "GET /hub", "GET /hub/subscription-1"), hubRequests,
+				"The subscription should be found by its callback once and by its id afterwards.");
+		assertEquals(1, hubSubscriptions.size(), "The existing subscription should not be created again.");
+	}
+
+	@Test
+	public void test_verifySubscriptions_lookupNotSupported() {
+		notificationSubscriber.subscribeAll();
+		lookupStatus = HttpStatus.METHOD_NOT_ALLOWED;
+
+		notificationSubscriber.verifySubscriptions();
+		notificationSubscriber.verifySubscriptions();
+
+		assertEquals(List.of("POST /hub", "GET /hub/subscription-1"), hubRequests,
+				"The hub should no longer be verified, once it does not support the lookup.");
+		assertEquals(1, hubSubscriptions.size(), "The subscription should not be created again.");
+		assertTrue(subscriptionHealthIndicator.isSubscriptionHealthy(SUBSCRIPTION_KEY), "The subscription should still be confirmed.");
+	}
+
+	@Test
+	public void test_verifySubscriptions_listingNotSupported() {
+		notificationSubscriber.subscribeAll();
+		lookupStatus = HttpStatus.NOT_FOUND;
+		NotificationSubscriber restartedSubscriber = notificationSubscriber();
+		restartedSubscriber.subscribeAll();
+
+		restartedSubscriber.verifySubscriptions();
+		restartedSubscriber.verifySubscriptions();
+
+		assertEquals(List.of("POST /hub", "POST /hub", "GET /hub"), hubRequests,
+				"The hub should no longer be verified, once it does not support listing the subscriptions.");
+		assertEquals(1, hubSubscriptions.size(), "The subscription should not be created again.");
+	}
+
+	@Test
+	public void test_verifySubscriptions_failedLookupNotRecreated() {
+		notificationSubscriber.subscribeAll();
+		lookupStatus = HttpStatus.SERVICE_UNAVAILABLE;
+
+		notificationSubscriber.verifySubscriptions();
+		lookupStatus = null;
+		notificationSubscriber.verifySubscriptions();
+
+		assertEquals(List.of("POST /hub", "GET /hub/subscription-1", "GET /hub/subscription-1"), hubRequests,
+				"A failed lookup should neither create the subscription again nor stop the verification.");
+		assertEquals(1, hubSubscriptions.size(), "The subscription should not be created again.");
+	}
+
+	private NotificationSubscriber notificationSubscriber() {
+		NotificationConfig notificationConfig = new NotificationConfig();
+		notificationConfig.setEntityType("productOrder");
+		notificationConfig.setApiAddress("http://tm-forum-api");
+		notificationConfig.setEventTypes(List.of(EventType.CREATE));
+		NotificationProperties notificationProperties = new NotificationProperties();
+		notificationProperties.setEntities(List.of(notificationConfig));
+		NotificationSubscriber subscriber = new NotificationSubscriber(subscriptionHealthIndicator, notificationProperties, new GeneralProperties(),
+				httpClient, mock(TaskScheduler.class));
+		subscriber.initHealth();
+		return subscriber;
+	}
+}
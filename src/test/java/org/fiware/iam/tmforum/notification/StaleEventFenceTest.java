@@ -0,0 +1,84 @@
+package org.fiware.iam.tmforum.notification;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.fiware.iam.configuration.FencingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StaleEventFenceTest {
+
+	private static final String STATE_CHANGE_EVENT = "ProductOrderStateChangeEvent";
+
+	private SimpleMeterRegistry meterRegistry;
+	private StaleEventFence staleEventFence;
+
+	@BeforeEach
+	public void prepare() {
+		meterRegistry = new SimpleMeterRegistry();
+		FencingProperties fencingProperties = new FencingProperties();
+		fencingProperties.setEnabled(true);
+		staleEventFence = new StaleEventFence(fencingProperties, meterRegistry);
+	}
+
+	@Test
+	public void test_isStale_eventTime() {
+		staleEventFence.recordApplied(event("productOrder", "2025-01-01T10:00:05Z", null));
+
+		assertTrue(staleEventFence.isStale(STATE_CHANGE_EVENT, event("productOrder", "2025-01-01T10:00:00Z", null)), "Older events should be fenced.");
+		assertFalse(staleEventFence.isStale(STATE_CHANGE_EVENT, event("productOrder", "2025-01-01T10:00:05Z", null)), "Redelivered events should not be fenced.");
+		assertFalse(staleEventFence.isStale(STATE_CHANGE_EVENT, event("productOrder", "2025-01-01T10:00:10Z", null)), "Newer events should not be fenced.");
+		assertEquals(1.0, meterRegistry.get("contract.management.fencing.fenced").counter().count(), "Fenced events should be counted.");
+	}
+
+	@Test
+	public void test_isStale_lastUpdate() {
+		staleEventFence.recordApplied(event("quote", "2025-01-01T10:00:00Z", "2025-01-01T09:00:05Z"));
+
+		assertTrue(staleEventFence.isStale("QuoteStateChangeEvent", event("quote", "2025-01-01T11:00:00Z", "2025-01-01T09:00:00Z")),
+				"The lastUpdate of the entity should take precedence over the event time.");
+	}
+
+	@Test
+	public void test_isStale_onlySameKindCompared() {
+		staleEventFence.recordApplied(event("quote", "2025-01-01T11:00:00Z", "2025-01-01T09:00:05Z"));
+
+		assertFalse(staleEventFence.isStale("QuoteStateChangeEvent", event("quote", "2025-01-01T09:00:00Z", null)),
+				"An event time should not be fenced by a lastUpdate.");
+		staleEventFence.recordApplied(event("quote", "2025-01-01T09:00:00Z", null));
+		assertFalse(staleEventFence.isStale("QuoteStateChangeEvent", event("quote", "2025-01-01T08:00:00Z", "2025-01-01T09:00:00Z")),
+				"A lastUpdate should not be fenced by an event time.");
+		assertTrue(staleEventFence.isStale("QuoteStateChangeEvent", event("quote", "2025-01-01T08:00:00Z", null)),
+				"The last applied event should be the reference.");
+	}
+
+	@Test
+	public void test_isStale_disabledByDefault() {
+		StaleEventFence defaultFence = new StaleEventFence(new FencingProperties(), meterRegistry);
+		defaultFence.recordApplied(event("productOrder", "2025-01-01T10:00:05Z", null));
+
+		assertFalse(defaultFence.isStale(STATE_CHANGE_EVENT, event("productOrder", "2025-01-01T10:00:00Z", null)), "Fencing should be disabled by default.");
+	}
+
+	@Test
+	public void test_isStale_notFenced() {
+		staleEventFence.recordApplied(event("catalog", "2025-01-01T10:00:05Z", null));
+
+		assertFalse(staleEventFence.isStale("CatalogStateChangeEvent", event("catalog", "2025-01-01T10:00:00Z", null)), "Only the configured entity types should be fenced.");
+	}
+
+	private static Map<String, Object> event(String entityType, String eventTime, String lastUpdate) {
+		Map<String, Object> entity = new HashMap<>();
+		entity.put("id", "urn:ngsi-ld:%s:1".formatted(entityType));
+		if (lastUpdate != null) {
+			entity.put("lastUpdate", lastUpdate);
+		}
+		return Map.of("eventTime", eventTime, "event", Map.of(entityType, entity));
+	}
+}
@@ -0,0 +1,36 @@
+package org.fiware.iam.tmforum.notification;
+
+import io.micronaut.health.HealthStatus;
+import io.micronaut.management.health.indicator.HealthResult;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class SubscriptionHealthIndicatorTest {
+
+	@Test
+	public void test_getResult_readyOnceAllConfirmed() {
+		SubscriptionHealthIndicator subscriptionHealthIndicator = new SubscriptionHealthIndicator();
+		subscriptionHealthIndicator.initiateSubscriptionInMap("productOrderCreateEvent");
+		subscriptionHealthIndicator.initiateSubscriptionInMap("quoteStateChangeEvent");
+		subscriptionHealthIndicator.setSubscriptionHealthy("productOrderCreateEvent");
+
+		HealthResult pending = Mono.from(subscriptionHealthIndicator.getResult()).block();
+		assertEquals(HealthStatus.DOWN, pending.getStatus(), "The service should not be ready before all subscriptions are confirmed.");
+		assertEquals(Map.of("productOrderCreateEvent", true, "quoteStateChangeEvent", false), pending.getDetails(),
+				"The state of every subscription should be reported.");
+
+		subscriptionHealthIndicator.setSubscriptionHealthy("quoteStateChangeEvent");
+		assertEquals(HealthStatus.UP, Mono.from(subscriptionHealthIndicator.getResult()).block().getStatus(),
+				"The service should be ready once all subscriptions are confirmed.");
+
+		subscriptionHealthIndicator.initiateSubscriptionInMap("quoteStateChangeEvent");
+		assertEquals(HealthStatus.DOWN, Mono.from(subscriptionHealthIndicator.getResult()).block().getStatus(),
+				"A lost subscription should make the service unready again.");
+		assertFalse(subscriptionHealthIndicator.isSubscriptionHealthy("unknown"), "Unknown subscriptions should not be healthy.");
+	}
+}
@@ -0,0 +1,155 @@
+package org.fiware.iam.tmforum.polling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.http.HttpResponse;
+import org.fiware.iam.configuration.FencingProperties;
+import org.fiware.iam.configuration.PollerProperties;
+import org.fiware.iam.tmforum.notification.EventDispatcher;
+import org.fiware.iam.tmforum.notification.HandledEntityTracker;
+import org.fiware.iam.tmforum.notification.StaleEventFence;
+import org.fiware.iam.tmforum.productcatalog.api.CatalogApiClient;
+import org.fiware.iam.tmforum.productcatalog.api.ProductOfferingApiClient;
+import org.fiware.iam.tmforum.productorder.api.ProductOrderApiClient;
+import org.fiware.iam.tmforum.productorder.model.ProductOrderStateTypeVO;
+import org.fiware.iam.tmforum.productorder.model.ProductOrderVO;
+import org.fiware.iam.tmforum.quote.api.QuoteApiClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class TMForumPollerTest {
+
+	private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+	private ProductOrderApiClient productOrderApiClient;
+	private EventDispatcher eventDispatcher;
+	private HandledEntityTracker handledEntityTracker;
+
+	private TMForumPoller tmForumPoller;
+
+	@BeforeEach
+	public void prepare() {
+		productOrderApiClient = mock(ProductOrderApiClient.class);
+		eventDispatcher = mock(EventDispatcher.class);
+		handledEntityTracker = new HandledEntityTracker();
+
+		PollerProperties pollerProperties = new PollerProperties();
+		pollerProperties.setEntityTypes(List.of("ProductOrder"));
+		pollerProperties.setPageSize(2);
+		pollerProperties.setInitialLookback(Duration.ofHours(1));
+
+		when(eventDispatcher.dispatch(any(), any())).thenReturn(Mono.just(HttpResponse.noContent()));
+
+		tmForumPoller = new TMForumPoller(pollerProperties, objectMapper, eventDispatcher, handledEntityTracker, Optional.empty(),
+				mock(CatalogApiClient.class), mock(ProductOfferingApiClient.class), mock(QuoteApiClient.class), productOrderApiClient);
+	}
+
+	@Test
+	public void test_poll_pagesAndDispatchesChanges() {
+		ProductOrderVO newOrder = productOrder("urn:order-1", Instant.now().minusSeconds(10), null);
+		ProductOrderVO completedOrder = productOrder("urn:order-2", Instant.now().minus(Duration.ofDays(1)), Instant.now().minusSeconds(5));
+		ProductOrderVO oldOrder = productOrder("urn:order-3", Instant.now().minus(Duration.ofDays(2)), Instant.now().minus(Duration.ofDays(1)));
+		when(productOrderApiClient.listProductOrder(any(), eq(0), anyInt())).thenReturn(Mono.just(HttpResponse.ok(List.of(newOrder, completedOrder))));
+		when(productOrderApiClient.listProductOrder(any(), eq(2), anyInt())).thenReturn(Mono.just(HttpResponse.ok(List.of(oldOrder))));
+
+		tmForumPoller.pollAll().block();
+
+		ArgumentCaptor<String> eventTypeCaptor = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<Map> eventCaptor = ArgumentCaptor.forClass(Map.class);
+		verify(eventDispatcher, times(2)).dispatch(eventTypeCaptor.capture(), eventCaptor.capture());
+		assertEquals(List.of("ProductOrderCreateEvent", "ProductOrderStateChangeEvent"), eventTypeCaptor.getAllValues(), "The new order should be created, the completed one changed. Events should be ordered by change time.");
+		assertEquals(List.of("urn:order-1", "urn:order-2"), eventCaptor.getAllValues().stream().map(TMForumPollerTest::getOrderId).toList(), "Only the recently changed orders should be dispatched.");
+	}
+
+	@Test
+	public void test_poll_skipsHandledEntities() {
+		ProductOrderVO pushedOrder = productOrder("urn:order-1", Instant.now().minus(Duration.ofDays(1)), Instant.now().minusSeconds(5));
+		when(productOrderApiClient.listProductOrder(any(), eq(0), anyInt())).thenReturn(Mono.just(HttpResponse.ok(List.of(pushedOrder))));
+		handledEntityTracker.recordHandled("ProductOrderStateChangeEvent",
+				Map.of("event", Map.of("productOrder", objectMapper.convertValue(pushedOrder, Map.class))));
+
+		tmForumPoller.pollAll().block();
+
+		verifyZeroInteractions(eventDispatcher);
+	}
+
+	@Test
+	public void test_poll_skippedWhileRunning() {
+		Sinks.One<HttpResponse<List<ProductOrderVO>>> pendingPage = Sinks.one();
+		when(productOrderApiClient.listProductOrder(any(), eq(0), anyInt())).thenReturn(pendingPage.asMono());
+
+		tmForumPoller.poll();
+		tmForumPoller.poll();
+		verify(productOrderApiClient, times(1)).listProductOrder(any(), anyInt(), anyInt());
+
+		when(productOrderApiClient.listProductOrder(any(), eq(0), anyInt())).thenReturn(Mono.just(HttpResponse.ok(List.of())));
+		pendingPage.tryEmitValue(HttpResponse.ok(List.of()));
+		await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+			tmForumPoller.poll();
+			verify(productOrderApiClient, times(2)).listProductOrder(any(), anyInt(), anyInt());
+		});
+	}
+
+	@Test
+	public void test_poll_doesNotFenceNewerHubEvents() {
+		FencingProperties fencingProperties = new FencingProperties();
+		fencingProperties.setEnabled(true);
+		StaleEventFence staleEventFence = new StaleEventFence(fencingProperties, new SimpleMeterRegistry());
+		// applied polled events are recorded, as the dispatcher does
+		when(eventDispatcher.dispatch(any(), any())).thenAnswer(invocation -> {
+			staleEventFence.recordApplied((Map<String, Object>) invocation.getArguments()[1]);
+			return Mono.just(HttpResponse.noContent());
+		});
+		Instant completionDate = Instant.now().minusSeconds(30);
+		ProductOrderVO completedOrder = productOrder("urn:order-1", Instant.now().minus(Duration.ofDays(1)), completionDate);
+		when(productOrderApiClient.listProductOrder(any(), eq(0), anyInt())).thenReturn(Mono.just(HttpResponse.ok(List.of(completedOrder))));
+
+		tmForumPoller.pollAll().block();
+
+		ArgumentCaptor<Map> eventCaptor = ArgumentCaptor.forClass(Map.class);
+		verify(eventDispatcher).dispatch(eq("ProductOrderStateChangeEvent"), eventCaptor.capture());
+		assertEquals(completionDate.toString(), eventCaptor.getValue().get("eventTime"), "The polled event should carry the change time of the order.");
+		// stamped by the hub after the completion, but before the poll happened
+		Map<String, Object> stopEvent = Map.of(
+				"eventTime", completionDate.plusSeconds(10).toString(),
+				"event", Map.of("productOrder", Map.of("id", "urn:order-1", "state", "cancelled")));
+		assertFalse(staleEventFence.isStale("ProductOrderStateChangeEvent", stopEvent), "The newer stop of the order should not be fenced by the poll.");
+
+		staleEventFence.recordApplied(stopEvent);
+		assertTrue(staleEventFence.isStale("ProductOrderStateChangeEvent", Map.of(
+						"eventTime", completionDate.toString(),
+						"event", Map.of("productOrder", Map.of("id", "urn:order-1", "state", "completed")))),
+				"Older hub events should still be fenced.");
+		assertFalse(staleEventFence.isStale("ProductOrderStateChangeEvent", eventCaptor.getValue()), "Polled events should not be fenced by the time of the hub.");
+	}
+
+	private static ProductOrderVO productOrder(String id, Instant orderDate, Instant completionDate) {
+		return new ProductOrderVO()
+				.id(id)
+				.orderDate(orderDate)
+				.completionDate(completionDate)
+				.state(completionDate == null ? ProductOrderStateTypeVO.ACKNOWLEDGED : ProductOrderStateTypeVO.COMPLETED);
+	}
+
+	private static Object getOrderId(Map<?, ?> event) {
+		return ((Map<?, ?>) ((Map<?, ?>) event.get("event")).get("productOrder")).get("id");
+	}
+}